@@ -0,0 +1,27 @@
+package com.demo.departments.demoDepartments.benchmark.jmh;
+
+import java.util.Set;
+
+/**
+ * Attribute sets of typical person reads, by the name used as JMH {@code @Param} value
+ */
+final class AttributeSets {
+
+    static final String NONE = "none";
+    static final String COLLECTIONS = "collections";
+    static final String NESTED = "nested";
+    static final String ALL = "all";
+
+    private AttributeSets() {
+    }
+
+    static Set<String> of(String name) {
+        return switch (name) {
+            case NONE -> Set.of();
+            case COLLECTIONS -> Set.of("addresses", "contacts", "roles");
+            case NESTED -> Set.of("addresses", "roles.permissions");
+            case ALL -> Set.of("addresses", "addresses.person", "contacts", "roles", "roles.permissions");
+            default -> throw new IllegalArgumentException("Unknown attribute set: " + name);
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package com.demo.departments.demoDepartments.benchmark.jmh;
+
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.service.dto.PersonDTO;
+import com.demo.departments.demoDepartments.service.dto.mapper.*;
+import com.demo.departments.demoDepartments.service.utils.json.EntityJsonWriters;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A {@code findAll} response body of {@code rows} in-memory persons (see {@link PersonMapperBenchmark}):
+ * mapped to DTOs (by the MapStruct mapper or the specialized one) and serialized, against written straight
+ * from the entities by {@link EntityJsonWriters}. Run with {@code -prof gc} for the allocation per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityJsonBenchmark {
+
+    @Param({AttributeSets.NONE, AttributeSets.COLLECTIONS, AttributeSets.NESTED})
+    public String attributes;
+
+    @Param({"0", "5"})
+    public int children;
+
+    @Param({"100"})
+    public int rows;
+
+    private AnnotationConfigApplicationContext context;
+    private PersonMapper mapper;
+    private ObjectMapper objectMapper;
+    private EntityJsonWriters writers;
+    private MappingOptions options;
+    private Function<Person, PersonDTO> specialized;
+    private List<Person> persons;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(PersonMapperImpl.class, AddressMapperImpl.class,
+                ContactMapperImpl.class, RoleMapperImpl.class, PermissionsMapperImpl.class);
+        mapper = context.getBean(PersonMapper.class);
+        // Configured like the application's ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writers = new EntityJsonWriters(objectMapper, Metamodels.attributeRegistry(), new SimpleMeterRegistry(), true, 500);
+        options = MappingOptions.builder()
+                .attributes(AttributeSets.of(attributes))
+                .withAudit(false)
+                .entity(Metamodels.attributeRegistry().root(Person.class))
+                .build();
+        specialized = PersonMapper.LAYOUT.compile(options);
+        persons = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            persons.add(PersonMapperBenchmark.person(children));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] mapStructDtos() throws JsonProcessingException {
+        List<PersonDTO> dtos = new ArrayList<>(persons.size());
+        for (Person person : persons) {
+            dtos.add(mapper.toDtoWithOptions(person, options));
+        }
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] specializedDtos() throws JsonProcessingException {
+        List<PersonDTO> dtos = new ArrayList<>(persons.size());
+        for (Person person : persons) {
+            dtos.add(specialized.apply(person));
+        }
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] direct() {
+        return writers.writeAll(Person.class, PersonDTO.class, persons, options);
+    }
+}
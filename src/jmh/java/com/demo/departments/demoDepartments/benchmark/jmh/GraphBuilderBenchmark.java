@@ -0,0 +1,50 @@
+package com.demo.departments.demoDepartments.benchmark.jmh;
+
+import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
+import com.demo.departments.demoDepartments.service.utils.mapping.EntityGraphCache;
+import com.demo.departments.demoDepartments.service.utils.mapping.GraphBuilderMapperService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity graph lookup of every read request: canonicalizing the requested attributes and, on a hit,
+ * returning the graph compiled by the {@link EntityGraphCache}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBuilderBenchmark {
+
+    @Param({AttributeSets.NONE, AttributeSets.COLLECTIONS, AttributeSets.NESTED, AttributeSets.ALL})
+    public String attributes;
+
+    private GraphBuilderMapperService graphBuilder;
+    private Set<String> attributeSet;
+
+    @Setup
+    public void setUp() {
+        // The fetch planner is not involved in building the graph
+        AttributeRegistry registry = Metamodels.attributeRegistry();
+        graphBuilder = new GraphBuilderMapperService(null, registry,
+                new EntityGraphCache(registry, new SimpleMeterRegistry(), 500));
+        attributeSet = AttributeSets.of(attributes);
+    }
+
+    @Benchmark
+    public EntityGraph graphWithAttributes() {
+        return graphBuilder.getGraphWithAttributes(Person.class, attributeSet);
+    }
+
+    @Benchmark
+    public Set<String> fetchedPaths() {
+        return graphBuilder.getFetchedPaths(Person.class, attributeSet);
+    }
+}
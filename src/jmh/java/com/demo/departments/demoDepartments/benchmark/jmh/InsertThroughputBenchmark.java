@@ -0,0 +1,174 @@
+package com.demo.departments.demoDepartments.benchmark.jmh;
+
+import com.demo.departments.demoDepartments.persistence.model.*;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput of persons with their children (2 addresses, 2 contacts, 1 role, 2 permissions each):
+ * IDENTITY ids, which make Hibernate run every INSERT on its own to learn the id, against the application's
+ * pooled sequence ids with JDBC batches of {@code batchSize}. The score is rows per second.
+ * <p>
+ * The schema is created in a throwaway database (or in the {@code insert_benchmark} schema of the
+ * {@code -p jdbcUrl=...} database) and dropped afterwards; every invocation is rolled back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertThroughputBenchmark {
+
+    private static final int PERSONS = 100;
+
+    /** Person, 2 addresses, 2 contacts, 1 role, 2 permissions */
+    private static final int ROWS = PERSONS * 8;
+
+    /** The id mapping of the application before pooled sequences */
+    private static final String IDENTITY_IDS = """
+            <entity-mappings xmlns="https://jakarta.ee/xml/ns/persistence/orm" version="3.1">
+                <mapped-superclass class="com.demo.departments.demoDepartments.persistence.model.base.PersistenceModel">
+                    <attributes>
+                        <id name="id">
+                            <generated-value strategy="IDENTITY"/>
+                        </id>
+                    </attributes>
+                </mapped-superclass>
+            </entity-mappings>
+            """;
+
+    @Param({"identity", "sequence"})
+    public String ids;
+
+    @Param({"50"})
+    public int batchSize;
+
+    @Param({"jdbc:h2:mem:insert-benchmark;DB_CLOSE_DELAY=-1"})
+    public String jdbcUrl;
+
+    @Param({"sa"})
+    public String user;
+
+    @Param({""})
+    public String password;
+
+    private SessionFactory sessionFactory;
+    private long run;
+
+    @Setup
+    public void setUp() {
+        Configuration configuration = new Configuration()
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, jdbcUrl)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, user)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, password)
+                .setProperty(AvailableSettings.DEFAULT_SCHEMA, "insert_benchmark")
+                .setProperty(AvailableSettings.HBM2DDL_CREATE_SCHEMAS, "true")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(batchSize))
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .setProperty(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, "pooled-lo")
+                // The entity listeners are Spring beans; the audit columns are set below
+                .setProperty(AvailableSettings.JPA_CALLBACKS_ENABLED, "false")
+                .addAnnotatedClass(Person.class)
+                .addAnnotatedClass(Address.class)
+                .addAnnotatedClass(Contact.class)
+                .addAnnotatedClass(Role.class)
+                .addAnnotatedClass(Permissions.class);
+        if ("identity".equals(ids)) {
+            configuration.addInputStream(new ByteArrayInputStream(IDENTITY_IDS.getBytes(StandardCharsets.UTF_8)));
+        }
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insertPersons() {
+        String prefix = Long.toString(run++, 36);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            try {
+                insert(session, prefix);
+                session.flush();
+            } finally {
+                // Nothing is kept: the tables stay empty from one invocation to the next
+                session.getTransaction().rollback();
+            }
+        }
+    }
+
+    private static void insert(Session session, String prefix) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < PERSONS; i++) {
+            Person person = Person.builder()
+                    .password("password")
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .birthDay(LocalDate.of(1960 + i % 40, i % 12 + 1, i % 28 + 1))
+                    .createdDate(now)
+                    .modifiedDate(now)
+                    .build();
+            session.persist(person);
+
+            // Children are persisted directly: unsaved entities are equal to each other, so a Set would keep only one
+            for (int a = 0; a < 2; a++) {
+                Address address = Address.builder()
+                        .type(a == 0 ? AddressType.LOCAL : AddressType.INTERNATIONAL)
+                        .street(i + " Benchmark St")
+                        .postZipCode(String.valueOf(10000 + i))
+                        .city("City" + i % 100)
+                        .province("P" + i % 50)
+                        .country("USA")
+                        .createdDate(now)
+                        .modifiedDate(now)
+                        .build();
+                address.setPerson(person);
+                session.persist(address);
+            }
+            for (int c = 0; c < 2; c++) {
+                Contact contact = Contact.builder()
+                        .contactType(c == 0 ? ContactType.PERSONAL : ContactType.WORK)
+                        .phoneNumber(prefix + "-" + i + "-" + c)
+                        .email(prefix + "." + i + "." + c + "@bench.example.com")
+                        .createdDate(now)
+                        .modifiedDate(now)
+                        .build();
+                contact.setPerson(person);
+                session.persist(contact);
+            }
+
+            Role role = Role.builder()
+                    .role(prefix + "_ROLE_" + i)
+                    .createdDate(now)
+                    .modifiedDate(now)
+                    .build();
+            role.setPerson(person);
+            session.persist(role);
+            for (int p = 0; p < 2; p++) {
+                Permissions permission = Permissions.builder()
+                        .permission(p == 0 ? "READ_ALL" : "WRITE_OWN")
+                        .createdDate(now)
+                        .modifiedDate(now)
+                        .build();
+                permission.setRole(role);
+                session.persist(permission);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.demo.departments.demoDepartments.benchmark.jmh;
+
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.service.dto.mapper.AttributeSelector;
+import com.demo.departments.demoDepartments.service.dto.mapper.MappingOptions;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The attribute checks the mappers run per entity: {@code includes} (with its collection field detection),
+ * {@code includesPath}, {@code getNestedAttributes}, {@code isPartOfNestedPath} and the lookups of the
+ * compiled {@link AttributeSelector}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingOptionsBenchmark {
+
+    private static final String[] PERSON_FIELDS = {"firstName", "lastName", "birthDay", "password", "addresses", "contacts", "roles"};
+
+    @Param({AttributeSets.NONE, AttributeSets.COLLECTIONS, AttributeSets.NESTED, AttributeSets.ALL})
+    public String attributes;
+
+    private MappingOptions options;
+
+    @Setup
+    public void setUp() {
+        options = MappingOptions.builder()
+                .attributes(AttributeSets.of(attributes))
+                .entity(Metamodels.attributeRegistry().root(Person.class))
+                .build();
+    }
+
+    @Benchmark
+    public void includes(Blackhole blackhole) {
+        for (String field : PERSON_FIELDS) {
+            blackhole.consume(options.includes(field));
+        }
+    }
+
+    @Benchmark
+    public void includesPath(Blackhole blackhole) {
+        for (String field : PERSON_FIELDS) {
+            blackhole.consume(options.includesPath(field));
+        }
+    }
+
+    @Benchmark
+    public void nestedAttributes(Blackhole blackhole) {
+        blackhole.consume(options.getNestedAttributes("roles"));
+        blackhole.consume(options.getNestedAttributes("addresses"));
+    }
+
+    @Benchmark
+    public void partOfNestedPath(Blackhole blackhole) {
+        blackhole.consume(options.isPartOfNestedPath("permissions", "roles"));
+        blackhole.consume(options.isPartOfNestedPath("person", "addresses"));
+    }
+
+    @Benchmark
+    public void selectorLookups(Blackhole blackhole) {
+        AttributeSelector selector = options.getSelector();
+        blackhole.consume(selector.has("roles"));
+        blackhole.consume(selector.selectsNested("permissions"));
+    }
+
+    @Benchmark
+    public AttributeSelector compile() {
+        return AttributeSelector.compile(options.getAttributes());
+    }
+
+    /**
+     * Every check {@code PersonMapper.toDtoWithOptions} and its {@code @AfterMapping} make for one person
+     */
+    @Benchmark
+    public void personMappingChecks(Blackhole blackhole) {
+        AttributeSelector selector = options.getSelector();
+        blackhole.consume(selector.has("addresses"));
+        blackhole.consume(selector.has("contacts"));
+        blackhole.consume(selector.has("roles"));
+        blackhole.consume(options.includes("password"));
+        blackhole.consume(options.includes("password"));
+        blackhole.consume(selector.has("addresses"));
+        blackhole.consume(selector.has("contacts"));
+        blackhole.consume(selector.has("roles"));
+    }
+}
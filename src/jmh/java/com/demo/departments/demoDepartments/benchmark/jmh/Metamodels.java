@@ -0,0 +1,37 @@
+package com.demo.departments.demoDepartments.benchmark.jmh;
+
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.H2Dialect;
+
+/**
+ * The application's {@link AttributeRegistry} without a database: the Hibernate metamodel is built offline
+ */
+final class Metamodels {
+
+    private Metamodels() {
+    }
+
+    static AttributeRegistry attributeRegistry() {
+        Configuration configuration = new Configuration()
+                .setProperty(AvailableSettings.DIALECT, H2Dialect.class.getName())
+                .setProperty(AvailableSettings.ALLOW_METADATA_ON_BOOT, "false")
+                // The entity listeners are Spring beans
+                .setProperty(AvailableSettings.JPA_CALLBACKS_ENABLED, "false")
+                .addAnnotatedClass(Person.class)
+                .addAnnotatedClass(Address.class)
+                .addAnnotatedClass(Contact.class)
+                .addAnnotatedClass(Role.class)
+                .addAnnotatedClass(Permissions.class);
+        try (SessionFactory sessionFactory = configuration.buildSessionFactory()) {
+            return new AttributeRegistry(sessionFactory.getMetamodel());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.demo.departments.demoDepartments.benchmark.jmh;
+
+import com.demo.departments.demoDepartments.persistence.model.*;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import com.demo.departments.demoDepartments.service.dto.PersonDTO;
+import com.demo.departments.demoDepartments.service.dto.mapper.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * {@code PersonMapper.toDtoWithOptions} with its {@code @AfterMapping} clean-up against the layout compiled
+ * for the same options (the specialized mapper of a hot combination), on an in-memory person
+ * whose collections each hold {@code children} entities (every role with two permissions)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonMapperBenchmark {
+
+    @Param({AttributeSets.NONE, AttributeSets.COLLECTIONS, AttributeSets.NESTED, AttributeSets.ALL})
+    public String attributes;
+
+    @Param({"0", "5", "50"})
+    public int children;
+
+    @Param({"false", "true"})
+    public boolean withAudit;
+
+    private AnnotationConfigApplicationContext context;
+    private PersonMapper mapper;
+    private MappingOptions options;
+    private Function<Person, PersonDTO> specialized;
+    private Person person;
+
+    @Setup
+    public void setUp() {
+        // The generated mappers wire each other with field injection
+        context = new AnnotationConfigApplicationContext(PersonMapperImpl.class, AddressMapperImpl.class,
+                ContactMapperImpl.class, RoleMapperImpl.class, PermissionsMapperImpl.class);
+        mapper = context.getBean(PersonMapper.class);
+        options = MappingOptions.builder()
+                .attributes(AttributeSets.of(attributes))
+                .withAudit(withAudit)
+                .entity(Metamodels.attributeRegistry().root(Person.class))
+                .build();
+        specialized = PersonMapper.LAYOUT.compile(options);
+        person = person(children);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PersonDTO toDtoWithOptions() {
+        return mapper.toDtoWithOptions(person, options);
+    }
+
+    @Benchmark
+    public PersonDTO specialized() {
+        return specialized.apply(person);
+    }
+
+    static Person person(int children) {
+        LocalDateTime now = LocalDateTime.now();
+        Person person = Person.builder()
+                .id(1L).version(0L).createdDate(now).modifiedDate(now).createdBy("benchmark").modifiedBy("benchmark")
+                .firstName("Ada").lastName("Lovelace").birthDay(LocalDate.of(1815, 12, 10)).password("password")
+                .build();
+        long id = 1;
+        for (int i = 0; i < children; i++) {
+            Address address = Address.builder()
+                    .id(id++).version(0L).createdDate(now).modifiedDate(now)
+                    .type(AddressType.LOCAL).street(i + " Main St").postZipCode("10000").city("City").province("P").country("USA")
+                    .build();
+            address.setPerson(person);
+            person.getAddresses().add(address);
+
+            Contact contact = Contact.builder()
+                    .id(id++).version(0L).createdDate(now).modifiedDate(now)
+                    .contactType(ContactType.WORK).phoneNumber("555-" + i).email("ada." + i + "@example.com")
+                    .build();
+            contact.setPerson(person);
+            person.getContacts().add(contact);
+
+            Role role = Role.builder().id(id++).version(0L).createdDate(now).modifiedDate(now).role("ROLE_" + i).build();
+            for (int p = 0; p < 2; p++) {
+                Permissions permission = Permissions.builder()
+                        .id(id++).version(0L).createdDate(now).modifiedDate(now).permission(p == 0 ? "READ" : "WRITE")
+                        .build();
+                role.addPermission(permission);
+            }
+            person.addRole(role);
+        }
+        return person;
+    }
+}
@@ -0,0 +1,38 @@
+package com.demo.departments.demoDepartments.config.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size and time-to-live of the second-level cache regions ({@code departments.cache})
+ */
+@Data
+@ConfigurationProperties(prefix = "departments.cache")
+public class CacheRegionProperties {
+
+    /** JCache cache manager of the regions; contexts sharing a JVM (integration tests) need a manager each */
+    private String manager = "departments-second-level-cache";
+
+    /** Used for every region without its own entry */
+    private Region defaults = new Region();
+
+    /** Per-region overrides, keyed by region name */
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    public Region forRegion(String name) {
+        return regions.getOrDefault(name, defaults);
+    }
+
+    @Data
+    public static class Region {
+        /** Maximum number of entries before the least valuable ones are evicted */
+        private long maxSize = 10_000;
+
+        /** Time after the last write before an entry expires */
+        private Duration ttl = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,75 @@
+package com.demo.departments.demoDepartments.config.cache;
+
+import com.demo.departments.demoDepartments.persistence.model.base.CacheRegions;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Hibernate second-level cache backed by Caffeine through JCache.
+ * <p>
+ * Every region is created up front with its own size and TTL from {@link CacheRegionProperties};
+ * Hibernate is handed this cache manager and refuses to start if an entity or collection uses
+ * a region that was not created here ({@code hibernate.javax.cache.missing_cache_strategy: fail}).
+ * Hits, misses, puts and evictions are published per region as {@code cache.*} meters.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(CacheRegionProperties.class)
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(CacheRegionProperties properties) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create(properties.getManager()), getClass().getClassLoader());
+
+        Set<String> regions = new LinkedHashSet<>(CacheRegions.ALL);
+        regions.addAll(properties.getRegions().keySet());
+        for (String region : regions) {
+            if (cacheManager.getCache(region) != null) {
+                continue;
+            }
+            CacheRegionProperties.Region settings = properties.forRegion(region);
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(settings.getMaxSize()));
+            configuration.setExpireAfterWrite(OptionalLong.of(settings.getTtl().toNanos()));
+            // Hibernate stores immutable cache entries, copying them on every access would only cost time
+            configuration.setStoreByValue(false);
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+            log.info("Second-level cache region '{}': max {} entries, ttl {}", region, settings.getMaxSize(), settings.getTtl());
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager secondLevelCacheManager) {
+        return registry -> {
+            for (String region : secondLevelCacheManager.getCacheNames()) {
+                Cache<Object, Object> cache = secondLevelCacheManager.getCache(region);
+                JCacheMetrics.monitor(registry, cache, Tags.of("layer", "second-level"));
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.demo.departments.demoDepartments.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.time.Clock;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to the read replicas and everything else to the primary.
+ * <p>
+ * The application datasource is a {@link LazyConnectionDataSourceProxy}: it fetches the physical connection
+ * at the first statement, after the transaction manager has flagged the connection read-only, and takes it
+ * from the {@link ReplicaPool} for read-only transactions. The primary pool is built from the regular
+ * {@code spring.datasource} properties, so Liquibase, writes and the query logging proxy are unchanged.
+ * Only active with {@code departments.read-replicas.enabled}; otherwise Boot's datasource is used as is.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+@ConditionalOnProperty(prefix = "departments.read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, ReadReplicaProperties properties,
+                                 Environment environment, MeterRegistry meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (!StringUtils.hasText(primary.getPoolName())) {
+            primary.setPoolName("primary");
+        }
+
+        ReplicaPool replicas = new ReplicaPool(primary, properties, meterRegistry);
+        log.info("Routing read-only transactions to replicas {} (max lag {})",
+                properties.getInstances().keySet(), properties.getMaxLag());
+        return new ReadWriteRoutingDataSource(primary, replicas);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadReplicaProperties properties) {
+        return new ReadYourWritesFilter(properties.getReadYourWritesWindow(), Clock.systemUTC());
+    }
+
+    /**
+     * Applied by Boot to the application task executor, which also runs async request processing
+     * ({@code StreamingResponseBody} exports): their reads stay pinned like the request that started them
+     */
+    @Bean
+    public TaskDecorator readRoutingTaskDecorator() {
+        return ReadRouting::propagate;
+    }
+
+    /**
+     * Closes both pools with the application context
+     */
+    static class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+        private final HikariDataSource primary;
+        private final ReplicaPool replicas;
+
+        ReadWriteRoutingDataSource(HikariDataSource primary, ReplicaPool replicas) {
+            super(primary);
+            this.primary = primary;
+            this.replicas = replicas;
+            setReadOnlyDataSource(replicas);
+        }
+
+        @Override
+        public void close() {
+            replicas.close();
+            primary.close();
+        }
+    }
+}
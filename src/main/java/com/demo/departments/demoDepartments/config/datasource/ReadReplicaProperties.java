@@ -0,0 +1,49 @@
+package com.demo.departments.demoDepartments.config.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read replicas serving {@code @Transactional(readOnly = true)} work ({@code departments.read-replicas})
+ */
+@Data
+@ConfigurationProperties(prefix = "departments.read-replicas")
+public class ReadReplicaProperties {
+
+    /** Routes read-only transactions to the replicas; when off the primary datasource serves everything */
+    private boolean enabled = false;
+
+    /** Replicas lagging further behind the primary are taken out of rotation until they catch up */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /** How often every replica is probed for reachability and lag */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /** How long a client's reads stay on the primary after its own write (read-your-writes token) */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    /** Replica connection settings, keyed by replica name */
+    private Map<String, Instance> instances = new LinkedHashMap<>();
+
+    @Data
+    public static class Instance {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+
+        /** Kept short: a read waiting on an unreachable replica could be served by another one or the primary */
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Query returning the replication lag in seconds; defaults to the streaming replication
+         * replay lag for PostgreSQL URLs, other databases are only checked for reachability
+         */
+        private String lagQuery;
+    }
+}
@@ -0,0 +1,43 @@
+package com.demo.departments.demoDepartments.config.datasource;
+
+/**
+ * Per-thread switch keeping read-only transactions on the primary, e.g. for a client that has just
+ * written and must read its own writes before the replicas replay them
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    /**
+     * Carries the calling thread's pin over to a task run on another thread, e.g. the async part of a
+     * request such as a streamed export; the task's thread is left unpinned afterwards
+     */
+    public static Runnable propagate(Runnable task) {
+        if (!isPinnedToPrimary()) {
+            return task;
+        }
+        return () -> {
+            pinToPrimary();
+            try {
+                task.run();
+            } finally {
+                clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.demo.departments.demoDepartments.config.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Read-your-writes token for clients reading through the replicas.
+ * <p>
+ * Every write request answers with {@value #HEADER}: the time (epoch millis) until which the client's
+ * reads should stay on the primary. A client sending the token back on its next requests is pinned to the
+ * primary until then; expired, malformed or too distant tokens are ignored. Reads made while handling
+ * the write itself always use the primary.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Read-Your-Writes";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Duration window;
+    private final Clock clock;
+
+    public ReadYourWritesFilter(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = clock.millis();
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        if (write) {
+            response.setHeader(HEADER, Long.toString(now + window.toMillis()));
+        }
+        if (!write && !isValid(request.getHeader(HEADER), now)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ReadRouting.pinToPrimary();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.clear();
+        }
+    }
+
+    private boolean isValid(String token, long now) {
+        if (token == null) {
+            return false;
+        }
+        try {
+            long pinnedUntil = Long.parseLong(token.trim());
+            // A token never pins for longer than a fresh one would
+            return pinnedUntil > now && pinnedUntil <= now + window.toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
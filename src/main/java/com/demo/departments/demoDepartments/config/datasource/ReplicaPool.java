@@ -0,0 +1,193 @@
+package com.demo.departments.demoDepartments.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only {@link DataSource} spreading connections round-robin over the healthy replicas.
+ * <p>
+ * A background check probes every replica for reachability and replication lag; replicas that fail it
+ * or lag more than the configured tolerance are ejected until a later check passes. A replica that fails
+ * to hand out a connection is ejected immediately. Without a healthy replica, or while the current thread
+ * is pinned to the primary ({@link ReadRouting}), connections come from the primary.
+ */
+@Slf4j
+class ReplicaPool extends AbstractDataSource implements Closeable {
+
+    private static final String POSTGRES_LAG_QUERY = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END""";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecks;
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+
+    ReplicaPool(DataSource primary, ReadReplicaProperties properties, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLag = properties.getMaxLag();
+        this.replicas = properties.getInstances().entrySet().stream()
+                .map(instance -> new Replica(instance.getKey(), instance.getValue(), meterRegistry))
+                .toList();
+        this.replicaReads = meterRegistry.counter("departments.datasource.reads", "target", "replica");
+        this.primaryReads = meterRegistry.counter("departments.datasource.reads", "target", "primary");
+
+        // Know the replica states before the first request instead of serving it from the primary
+        replicas.forEach(this::check);
+        long interval = properties.getHealthCheckInterval().toMillis();
+        this.healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "read-replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(() -> replicas.forEach(this::check), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = replicaConnection();
+        return connection != null ? connection : primary.getConnection();
+    }
+
+    /**
+     * Replicas are pooled with their configured credentials: a caller asking for those gets a replica
+     * connection, any other user is served by the primary with the given credentials
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = replicaConnection(username, password);
+        return connection != null ? connection : primary.getConnection(username, password);
+    }
+
+    private Connection replicaConnection() {
+        return replicaConnection(null, null);
+    }
+
+    /**
+     * Connection of the next healthy replica (with the given credentials, when not null), or null
+     * after counting a primary read
+     */
+    private Connection replicaConnection(String username, String password) {
+        if (!ReadRouting.isPinnedToPrimary()) {
+            int size = replicas.size();
+            int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (!replica.healthy || (username != null && !replica.accepts(username, password))) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaReads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    eject(replica, e.getMessage());
+                }
+            }
+        }
+        primaryReads.increment();
+        return null;
+    }
+
+    @Override
+    public void close() {
+        healthChecks.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private void check(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            double lag = 0;
+            if (replica.lagQuery != null) {
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery(replica.lagQuery)) {
+                    lag = resultSet.next() ? resultSet.getDouble(1) : 0;
+                }
+            } else if (!connection.isValid((int) Math.max(1, maxLag.toSeconds()))) {
+                eject(replica, "connection is not valid");
+                return;
+            }
+            replica.lagSeconds = lag;
+            if (lag * 1000 > maxLag.toMillis()) {
+                eject(replica, String.format("lag %.1fs exceeds %s", lag, maxLag));
+            } else if (!replica.healthy) {
+                replica.healthy = true;
+                log.info("Read replica '{}' is back in rotation (lag {}s)", replica.name, lag);
+            }
+        } catch (SQLException | RuntimeException e) {
+            eject(replica, e.getMessage());
+        }
+    }
+
+    private void eject(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Read replica '{}' taken out of rotation: {}", replica.name, reason);
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final String lagQuery;
+        // Healthy until the first check says otherwise, so a replica that is down at startup gets logged
+        private volatile boolean healthy = true;
+        private volatile double lagSeconds;
+
+        private Replica(String name, ReadReplicaProperties.Instance instance, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + name);
+            dataSource.setJdbcUrl(instance.getUrl());
+            dataSource.setUsername(instance.getUsername());
+            dataSource.setPassword(instance.getPassword());
+            if (instance.getDriverClassName() != null) {
+                dataSource.setDriverClassName(instance.getDriverClassName());
+            }
+            dataSource.setMaximumPoolSize(instance.getMaximumPoolSize());
+            dataSource.setConnectionTimeout(instance.getConnectionTimeout().toMillis());
+            dataSource.setReadOnly(true);
+            // Start even when the replica is down: it simply stays out of rotation until a check passes
+            dataSource.setInitializationFailTimeout(-1);
+            dataSource.setMetricRegistry(meterRegistry);
+
+            this.lagQuery = instance.getLagQuery() != null ? instance.getLagQuery()
+                    : instance.getUrl().startsWith("jdbc:postgresql:") ? POSTGRES_LAG_QUERY : null;
+
+            Gauge.builder("departments.datasource.replica.healthy", this, replica -> replica.healthy ? 1 : 0)
+                    .tag("replica", name)
+                    .register(meterRegistry);
+            Gauge.builder("departments.datasource.replica.lag", this, replica -> replica.lagSeconds)
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+
+        private boolean accepts(String username, String password) {
+            return username.equals(dataSource.getUsername())
+                    && Objects.equals(password == null ? "" : password,
+                    dataSource.getPassword() == null ? "" : dataSource.getPassword());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.demo.departments.demoDepartments.config.liquibase;
+
+import jakarta.persistence.EntityManagerFactory;
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+import javax.sql.DataSource;
+
+/**
+ * Second Liquibase run for the changesets that need the tables Hibernate creates.
+ * <p>
+ * Boot runs {@code spring.liquibase.change-log} before the {@link EntityManagerFactory} is built: those
+ * changesets migrate existing tables into the shape the entities expect. The base schema itself still
+ * comes from Hibernate ({@code ddl-auto}), so indexes, triggers and unmapped columns on top of it are in
+ * {@code departments.liquibase.post-schema-change-log}, applied here once the EntityManagerFactory (and
+ * its schema update) exists, before the application serves requests. Their preconditions halt the start
+ * when a table is missing instead of skipping the changeset.
+ * <p>
+ * Not a {@link SpringLiquibase} bean: Boot would order it before the EntityManagerFactory.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "spring.liquibase", name = "enabled", matchIfMissing = true)
+public class PostSchemaLiquibaseConfig {
+
+    @Bean
+    public PostSchemaLiquibase postSchemaLiquibase(
+            EntityManagerFactory entityManagerFactory,
+            DataSource dataSource,
+            ResourceLoader resourceLoader,
+            LiquibaseProperties liquibaseProperties,
+            @Value("${departments.liquibase.post-schema-change-log:classpath:db/changelog/db.changelog-post-schema.xml}")
+            String changeLog) {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setResourceLoader(resourceLoader);
+        liquibase.setChangeLog(changeLog);
+        liquibase.setDefaultSchema(liquibaseProperties.getDefaultSchema());
+        liquibase.setContexts(liquibaseProperties.getContexts() == null
+                ? null : String.join(",", liquibaseProperties.getContexts()));
+        liquibase.setLabelFilter(liquibaseProperties.getLabelFilter() == null
+                ? null : String.join(",", liquibaseProperties.getLabelFilter()));
+        return new PostSchemaLiquibase(liquibase);
+    }
+
+    /**
+     * Runs the post-schema changelog when initialized
+     */
+    public static class PostSchemaLiquibase implements InitializingBean {
+
+        private final SpringLiquibase liquibase;
+
+        PostSchemaLiquibase(SpringLiquibase liquibase) {
+            this.liquibase = liquibase;
+        }
+
+        @Override
+        public void afterPropertiesSet() throws Exception {
+            log.info("Applying post-schema changelog {}", liquibase.getChangeLog());
+            liquibase.afterPropertiesSet();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.demo.departments.demoDepartments.config.querybudget;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+import java.util.Map;
+
+/**
+ * Counts the SQL statements and rows of every API call, exports them per endpoint as histograms and
+ * checks them against the endpoint's budget. Statements repeated with different bind values (N+1) and
+ * requests over budget are logged with the application call site of the offending statement once the call
+ * has returned. With {@code fail-on-violation} the budget is enforced by {@link QueryStatsListener} instead,
+ * before the statement that would exceed it is executed.
+ */
+@Slf4j
+@Aspect
+@RequiredArgsConstructor
+public class QueryBudgetAspect {
+
+    private final QueryBudgetProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(* com.demo.departments.demoDepartments.controller.*Controller.*(..))")
+    public Object countQueries(ProceedingJoinPoint joinPoint) throws Throwable {
+        String controllerName = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String methodName = joinPoint.getSignature().getName();
+        String handler = controllerName + "." + methodName;
+
+        RequestQueryStats stats = RequestQueryStats.start(
+                handler, properties.budgetFor(handler), properties.getRepeatThreshold());
+        if (stats == null) {
+            return joinPoint.proceed();
+        }
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } finally {
+            RequestQueryStats.clear();
+            record(stats, controllerName.replace("Controller", "").toLowerCase(), methodName, handler);
+        }
+        if (stats.isOverBudget()) {
+            log.warn("{}; first statement over budget:\n{}", stats.overBudgetMessage(), stats.getOverBudgetCallSite());
+        }
+        return result;
+    }
+
+    private void record(RequestQueryStats stats, String endpoint, String methodName, String handler) {
+        DistributionSummary.builder("departments.db.queries")
+                .description("SQL statements executed per API request")
+                .tags("endpoint", endpoint, "method", methodName)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(stats.getQueries());
+        DistributionSummary.builder("departments.db.rows")
+                .description("Result set rows read per API request")
+                .tags("endpoint", endpoint, "method", methodName)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(stats.getRows());
+
+        Map<String, Integer> repeated = stats.getRepeatedStatements();
+        if (repeated.isEmpty()) {
+            return;
+        }
+        meterRegistry.counter("departments.db.n_plus_one", "endpoint", endpoint, "method", methodName).increment();
+        repeated.forEach((sql, count) -> log.warn("Possible N+1 in {}: {} executions of {}\n{}",
+                handler, count, sql, stats.getCallSite(sql)));
+    }
+}
@@ -0,0 +1,52 @@
+package com.demo.departments.demoDepartments.config.querybudget;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+import net.ttddyy.dsproxy.proxy.SimpleResultSetProxyLogic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Per-request SQL statement counting on top of the datasource proxy (datasource-proxy-spring-boot-starter):
+ * the starter registers the listener and result set proxies below with every proxied datasource,
+ * and {@link QueryBudgetAspect} scopes the counting to controller calls.
+ */
+@Configuration
+@EnableConfigurationProperties(QueryBudgetProperties.class)
+@ConditionalOnProperty(prefix = "departments.query-budget", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryBudgetConfig {
+
+    @Bean
+    public QueryBudgetAspect queryBudgetAspect(QueryBudgetProperties properties, MeterRegistry meterRegistry) {
+        return new QueryBudgetAspect(properties, meterRegistry);
+    }
+
+    @Bean
+    public QueryStatsListener queryStatsListener(QueryBudgetProperties properties) {
+        return new QueryStatsListener(properties.isFailOnViolation());
+    }
+
+    /**
+     * Proxied result sets count the rows read by the current request
+     */
+    @Bean
+    public ResultSetProxyLogicFactory rowCountingResultSetProxyLogicFactory() {
+        return (resultSet, connectionInfo, proxyConfig) -> {
+            ResultSetProxyLogic logic = new SimpleResultSetProxyLogic(resultSet, connectionInfo, proxyConfig);
+            RequestQueryStats stats = RequestQueryStats.current();
+            if (stats == null) {
+                return logic;
+            }
+            return (proxy, method, args) -> {
+                Object result = logic.invoke(proxy, method, args);
+                if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+                    stats.row();
+                }
+                return result;
+            };
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.demo.departments.demoDepartments.config.querybudget;
+
+/**
+ * An API request executed more SQL statements than its budget allows
+ * ({@code departments.query-budget.fail-on-violation})
+ */
+public class QueryBudgetExceededException extends IllegalStateException {
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
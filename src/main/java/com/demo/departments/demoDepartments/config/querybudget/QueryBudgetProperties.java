@@ -0,0 +1,34 @@
+package com.demo.departments.demoDepartments.config.querybudget;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SQL statement budgets of the API requests ({@code departments.query-budget})
+ */
+@Data
+@ConfigurationProperties(prefix = "departments.query-budget")
+public class QueryBudgetProperties {
+
+    /** Counts the statements and rows read of every API request */
+    private boolean enabled = true;
+
+    /** Statements allowed per request for endpoints without their own budget */
+    private int maxQueries = 10;
+
+    /** Per-endpoint budgets keyed by controller method, e.g. {@code "[PersonController.getAllPersons]": 6} */
+    private Map<String, Integer> endpoints = new LinkedHashMap<>();
+
+    /** Executions of one statement, differing only in bind values, from which a request is flagged as N+1 */
+    private int repeatThreshold = 5;
+
+    /** Refuses the statement that would take a request over its budget (test profile); otherwise the call is only logged */
+    private boolean failOnViolation = false;
+
+    public int budgetFor(String endpoint) {
+        return endpoints.getOrDefault(endpoint, maxQueries);
+    }
+}
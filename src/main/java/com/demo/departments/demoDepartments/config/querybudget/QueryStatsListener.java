@@ -0,0 +1,50 @@
+package com.demo.departments.demoDepartments.config.querybudget;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * Counts every statement executed through the datasource proxy into the {@link RequestQueryStats}
+ * of the current request. A JDBC batch counts once: it is one round trip.
+ * <p>
+ * Statements are counted before they are sent, so with {@code fail-on-violation} the statement that would go
+ * over the budget is never executed: it fails with a {@link QueryBudgetExceededException}, as does every
+ * later statement of the request should the caller catch the first failure.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class QueryStatsListener implements QueryExecutionListener {
+
+    private final boolean failOnViolation;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats == null || queryInfoList.isEmpty()) {
+            return;
+        }
+        if (execInfo.isBatch()) {
+            stats.statement(queryInfoList.get(0).getQuery());
+        } else {
+            for (QueryInfo queryInfo : queryInfoList) {
+                stats.statement(queryInfo.getQuery());
+            }
+        }
+        if (failOnViolation && stats.isOverBudget()) {
+            String message = stats.overBudgetMessage();
+            if (stats.isFirstOverBudget()) {
+                log.warn("{}; statement refused:\n{}", message, stats.getOverBudgetCallSite());
+            }
+            throw new QueryBudgetExceededException(message);
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.demo.departments.demoDepartments.config.querybudget;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Statements and rows read by the API request running on the current thread. Filled by
+ * {@link QueryStatsListener} and the result set proxies of {@link QueryBudgetConfig}; work outside
+ * a request (startup, data generation) is not counted.
+ */
+public final class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String OWN_PACKAGE = RequestQueryStats.class.getPackageName();
+    private static final String APPLICATION_PACKAGE = "com.demo.departments";
+    private static final int CALL_SITE_DEPTH = 15;
+
+    private final String handler;
+    private final int budget;
+    private final int repeatThreshold;
+    private int queries;
+    private long rows;
+    private final Map<String, Integer> executions = new HashMap<>();
+    private final Map<String, String> repeatedCallSites = new LinkedHashMap<>();
+    private String overBudgetCallSite;
+
+    private RequestQueryStats(String handler, int budget, int repeatThreshold) {
+        this.handler = handler;
+        this.budget = budget;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    /**
+     * Starts counting for the current thread; null when a request is already being counted
+     */
+    static RequestQueryStats start(String handler, int budget, int repeatThreshold) {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+        RequestQueryStats stats = new RequestQueryStats(handler, budget, repeatThreshold);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Counts a statement about to be executed
+     */
+    void statement(String sql) {
+        queries++;
+        int count = executions.merge(normalize(sql), 1, Integer::sum);
+        // The call sites are only captured once per finding: walking the stack is not free
+        if (count == repeatThreshold) {
+            repeatedCallSites.put(normalize(sql), callSite());
+        }
+        if (isFirstOverBudget()) {
+            overBudgetCallSite = callSite();
+        }
+    }
+
+    void row() {
+        rows++;
+    }
+
+    public int getQueries() {
+        return queries;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public boolean isOverBudget() {
+        return queries > budget;
+    }
+
+    /**
+     * True only for the statement that went over the budget, while it is being counted
+     */
+    boolean isFirstOverBudget() {
+        return queries == budget + 1;
+    }
+
+    String overBudgetMessage() {
+        return String.format("%s executed %d SQL statements, its budget is %d", handler, queries, budget);
+    }
+
+    /**
+     * Application frames of the statement that went over the budget
+     */
+    public String getOverBudgetCallSite() {
+        return overBudgetCallSite;
+    }
+
+    /**
+     * Statements executed at least {@code repeat-threshold} times with only their bind values differing
+     * (the N+1 pattern), with their execution count
+     */
+    public Map<String, Integer> getRepeatedStatements() {
+        if (repeatedCallSites.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return repeatedCallSites.keySet().stream()
+                .collect(Collectors.toMap(sql -> sql, executions::get, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * Application frames of the execution that made the statement a repeated one
+     */
+    public String getCallSite(String repeatedStatement) {
+        return repeatedCallSites.get(repeatedStatement);
+    }
+
+    /**
+     * Same text for statements differing only in bind values or literals, including IN lists of any length
+     */
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("(?)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private static String callSite() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(OWN_PACKAGE)
+                        && !frame.getClassName().contains("$$"))
+                .limit(CALL_SITE_DEPTH)
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .map(StackTraceElement::toString)
+                .collect(Collectors.joining("\n\tat ", "\tat ", "")));
+    }
+}
@@ -0,0 +1,32 @@
+package com.demo.departments.demoDepartments.config.suggest;
+
+import com.demo.departments.demoDepartments.service.utils.suggest.TypeaheadEntityListener;
+import com.demo.departments.demoDepartments.service.utils.suggest.TypeaheadIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Feeds the {@link TypeaheadIndex} from Hibernate's post-insert, post-update and post-delete events.
+ * The listener is appended to the session factory's event listener registry here, instead of being
+ * declared on the entities, so the persistence model does not depend on the index.
+ */
+@Configuration
+public class TypeaheadConfig {
+
+    @Bean
+    public TypeaheadEntityListener typeaheadEntityListener(TypeaheadIndex typeaheadIndex,
+                                                           EntityManagerFactory entityManagerFactory) {
+        TypeaheadEntityListener listener = new TypeaheadEntityListener(typeaheadIndex);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return listener;
+    }
+}
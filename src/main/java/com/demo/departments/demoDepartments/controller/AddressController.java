@@ -2,8 +2,16 @@ package com.demo.departments.demoDepartments.controller;
 
 import com.demo.departments.demoDepartments.service.AddressService;
 import com.demo.departments.demoDepartments.service.dto.AddressDTO;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.AddressFilter;
+import com.demo.departments.demoDepartments.controller.support.ConditionalResponses;
+import com.demo.departments.demoDepartments.controller.support.CursorPageResponses;
+import com.demo.departments.demoDepartments.controller.support.JsonResponses;
+import com.demo.departments.demoDepartments.controller.support.NdjsonStreamingResponses;
 import com.demo.departments.demoDepartments.controller.swagger.api.AddressControllerEndpoint;
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -12,11 +20,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * REST controller for managing Address entities
@@ -28,53 +36,68 @@ import java.util.Set;
 public class AddressController implements AddressControllerEndpoint {
 
     private final AddressService addressService;
+    private final NdjsonStreamingResponses ndjsonResponses;
+    private final ConditionalResponses conditionalResponses;
+    private final JsonResponses jsonResponses;
 
     @Override
     public ResponseEntity<List<AddressDTO>> getAllAddresses(
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        List<AddressDTO> addresses = addressService.findAll(withAudit, attributeSet);
-        return ResponseEntity.ok(addresses);
-    }
-    
-    /**
-     * Helper method to parse comma-separated attributes into a Set
-     */
-    private Set<String> parseAttributesParam(String attributes) {
-        if (attributes == null || attributes.trim().isEmpty()) {
-            return null;
+            CanonicalAttributes attributes,
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(name = "after", required = false) String after,
+            AddressFilter filter,
+            WebRequest request) {
+        if (CursorPageResponses.isPaged(limit, after)) {
+            int pageSize = CursorPageResponses.resolveLimit(limit);
+            return conditionalResponses.of(request,
+                    () -> addressService.listTag(filter, withAudit, attributes, after, pageSize),
+                    () -> CursorPageResponses.ok(addressService.findPage(filter, withAudit, attributes, after, pageSize)));
         }
-        return new HashSet<>(Arrays.asList(attributes.split(",")));
+        return conditionalResponses.of(request,
+                () -> addressService.listTag(filter, withAudit, attributes, null, null),
+                () -> jsonResponses.ok(AddressDTO.class,
+                        () -> addressService.findAllJson(filter, withAudit, attributes),
+                        () -> addressService.findAll(filter, withAudit, attributes)));
     }
 
+    @Override
+    public ResponseEntity<StreamingResponseBody> exportAddresses(
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            CanonicalAttributes attributes) {
+        return ndjsonResponses.<AddressDTO>stream(consumer -> addressService.streamAll(withAudit, attributes, consumer));
+    }
+    
 
     @Override
-    public ResponseEntity<AddressDTO> getAddress(
+    public ResponseEntity<byte[]> getAddress(
             @PathVariable @NotNull @Min(1) Long id,
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        AddressDTO address = addressService.findById(id, withAudit, attributeSet);
-        return ResponseEntity.ok(address);
+            CanonicalAttributes attributes,
+            WebRequest request) {
+        // Served from the response cache as already serialized JSON when the same view was read before;
+        // a client still holding the current version gets 304 without the address being read at all
+        return conditionalResponses.entity(request, AddressDTO.class, id, attributes, withAudit,
+                () -> addressService.entityTag(id, withAudit, attributes),
+                () -> addressService.findById(id, withAudit, attributes));
     }
 
-
-
     @Override
     public ResponseEntity<List<AddressDTO>> getAddressesByPersonId(
             @PathVariable @NotNull @Min(1) Long personId,
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        List<AddressDTO> addresses = addressService.findByPersonId(personId, withAudit, attributeSet);
-        return ResponseEntity.ok(addresses);
+            CanonicalAttributes attributes,
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(name = "after", required = false) String after) {
+        if (CursorPageResponses.isPaged(limit, after)) {
+            return CursorPageResponses.ok(
+                    addressService.findByPersonId(personId, withAudit, attributes, after, CursorPageResponses.resolveLimit(limit)));
+        }
+        return jsonResponses.ok(AddressDTO.class,
+                () -> addressService.findByPersonIdJson(personId, withAudit, attributes),
+                () -> addressService.findByPersonId(personId, withAudit, attributes));
     }
 
-
     @Override
     public ResponseEntity<AddressDTO> createAddress(@Valid @RequestBody AddressDTO addressDTO) {
         AddressDTO result = addressService.save(addressDTO);
@@ -89,6 +112,13 @@ public class AddressController implements AddressControllerEndpoint {
         return ResponseEntity.ok(result);
     }
 
+    @Override
+    public ResponseEntity<VersionDTO> patchAddress(
+            @PathVariable @NotNull @Min(1) Long id,
+            @RequestBody Map<String, Object> changes) {
+        return ResponseEntity.ok(addressService.patch(id, changes));
+    }
+
     @Override
     public ResponseEntity<Void> deleteAddress(
             @PathVariable @NotNull @Min(1) Long id) {
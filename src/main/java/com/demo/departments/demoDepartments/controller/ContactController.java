@@ -1,21 +1,30 @@
 package com.demo.departments.demoDepartments.controller;
 
+import com.demo.departments.demoDepartments.controller.support.ConditionalResponses;
+import com.demo.departments.demoDepartments.controller.support.CursorPageResponses;
+import com.demo.departments.demoDepartments.controller.support.JsonResponses;
+import com.demo.departments.demoDepartments.controller.support.NdjsonStreamingResponses;
 import com.demo.departments.demoDepartments.controller.swagger.api.ContactControllerEndpoint;
 import com.demo.departments.demoDepartments.service.ContactService;
 import com.demo.departments.demoDepartments.service.dto.ContactDTO;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.ContactFilter;
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * REST controller for managing Contact entities
@@ -27,57 +36,82 @@ import java.util.Set;
 public class ContactController implements ContactControllerEndpoint {
 
     private final ContactService contactService;
+    private final NdjsonStreamingResponses ndjsonResponses;
+    private final ConditionalResponses conditionalResponses;
+    private final JsonResponses jsonResponses;
 
     /**
      * GET /api/contacts : Get all contacts with configurable options
      *
      * @param withAudit If true, include audit information
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
+     * @param filter Criteria the contacts must match, applied by the database
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the list of contacts in body
      */
     @Override
     @GetMapping
     public ResponseEntity<List<ContactDTO>> getAllContacts(
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        List<ContactDTO> contacts = contactService.findAll(withAudit, attributeSet);
-        return ResponseEntity.ok(contacts);
+            CanonicalAttributes attributes,
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(name = "after", required = false) String after,
+            ContactFilter filter,
+            WebRequest request) {
+        if (CursorPageResponses.isPaged(limit, after)) {
+            int pageSize = CursorPageResponses.resolveLimit(limit);
+            return conditionalResponses.of(request,
+                    () -> contactService.listTag(filter, withAudit, attributes, after, pageSize),
+                    () -> CursorPageResponses.ok(contactService.findPage(filter, withAudit, attributes, after, pageSize)));
+        }
+        return conditionalResponses.of(request,
+                () -> contactService.listTag(filter, withAudit, attributes, null, null),
+                () -> jsonResponses.ok(ContactDTO.class,
+                        () -> contactService.findAllJson(filter, withAudit, attributes),
+                        () -> contactService.findAll(filter, withAudit, attributes)));
     }
-    
+
     /**
-     * Helper method to parse comma-separated attributes into a Set
+     * GET /api/contacts/export : Stream all contacts as newline-delimited JSON
+     *
+     * @param withAudit If true, include audit information
+     * @param attributes Comma-separated list of attributes to include
+     * @return the ResponseEntity with status 200 (OK) and one contact per line in body
      */
-    private Set<String> parseAttributesParam(String attributes) {
-        if (attributes == null || attributes.trim().isEmpty()) {
-            return null;
-        }
-        return new HashSet<>(Arrays.asList(attributes.split(",")));
+    @Override
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportContacts(
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            CanonicalAttributes attributes) {
+        return ndjsonResponses.<ContactDTO>stream(consumer -> contactService.streamAll(withAudit, attributes, consumer));
     }
-
+    
     /**
      * GET /api/contacts/:id : Get a contact by ID with configurable options
      *
      * @param id the id of the contact to retrieve
      * @param withAudit If true, include audit information
      * @param attributes Comma-separated list of attributes to include
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the contact in body,
      * or with status 404 (Not Found)
      */
     @Override
     @GetMapping("/{id}")
-    public ResponseEntity<ContactDTO> getContact(
+    public ResponseEntity<byte[]> getContact(
             @PathVariable @NotNull @Min(1) Long id,
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        ContactDTO contact = contactService.findById(id, withAudit, attributeSet);
-        return ResponseEntity.ok(contact);
+            CanonicalAttributes attributes,
+            WebRequest request) {
+        // Served from the response cache as already serialized JSON when the same view was read before;
+        // a client still holding the current version gets 304 without the contact being read at all
+        return conditionalResponses.entity(request, ContactDTO.class, id, attributes, withAudit,
+                () -> contactService.entityTag(id, withAudit, attributes),
+                () -> contactService.findById(id, withAudit, attributes));
     }
 
-
     /**
      * GET /api/contacts/person/:personId : Get all contacts for a person with configurable options
      *
@@ -91,11 +125,16 @@ public class ContactController implements ContactControllerEndpoint {
     public ResponseEntity<List<ContactDTO>> getContactsByPersonId(
             @PathVariable @NotNull @Min(1) Long personId,
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        List<ContactDTO> contacts = contactService.findByPersonId(personId, withAudit, attributeSet);
-        return ResponseEntity.ok(contacts);
+            CanonicalAttributes attributes,
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(name = "after", required = false) String after) {
+        if (CursorPageResponses.isPaged(limit, after)) {
+            return CursorPageResponses.ok(
+                    contactService.findByPersonId(personId, withAudit, attributes, after, CursorPageResponses.resolveLimit(limit)));
+        }
+        return jsonResponses.ok(ContactDTO.class,
+                () -> contactService.findByPersonIdJson(personId, withAudit, attributes),
+                () -> contactService.findByPersonId(personId, withAudit, attributes));
     }
 
     /**
@@ -129,6 +168,21 @@ public class ContactController implements ContactControllerEndpoint {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * PATCH /api/contacts/:id : Update only the given attributes of a contact
+     *
+     * @param id the id of the contact to update
+     * @param changes the attributes to change and the version the contact was read with
+     * @return the ResponseEntity with status 200 (OK) and the new version in body
+     */
+    @Override
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<VersionDTO> patchContact(
+            @PathVariable @NotNull @Min(1) Long id,
+            @RequestBody Map<String, Object> changes) {
+        return ResponseEntity.ok(contactService.patch(id, changes));
+    }
+
     /**
      * DELETE /api/contacts/:id : Delete the contact with the specified id
      *
@@ -1,21 +1,30 @@
 package com.demo.departments.demoDepartments.controller;
 
+import com.demo.departments.demoDepartments.controller.support.ConditionalResponses;
+import com.demo.departments.demoDepartments.controller.support.CursorPageResponses;
+import com.demo.departments.demoDepartments.controller.support.JsonResponses;
+import com.demo.departments.demoDepartments.controller.support.NdjsonStreamingResponses;
 import com.demo.departments.demoDepartments.controller.swagger.api.PermissionsControllerEndpoint;
 import com.demo.departments.demoDepartments.service.PermissionsService;
 import com.demo.departments.demoDepartments.service.dto.security.PermissionsDTO;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.PermissionsFilter;
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * REST controller for managing Permissions entities
@@ -27,27 +36,23 @@ import java.util.Set;
 public class PermissionsController implements PermissionsControllerEndpoint {
 
     private final PermissionsService permissionsService;
-
-    /**
-     * Helper method to parse comma-separated attributes into a Set
-     */
-    private Set<String> parseAttributesParam(String attributes) {
-        if (attributes == null || attributes.trim().isEmpty()) {
-            return null;
-        }
-        return new HashSet<>(Arrays.asList(attributes.split(",")));
-    }
-
+    private final NdjsonStreamingResponses ndjsonResponses;
+    private final ConditionalResponses conditionalResponses;
+    private final JsonResponses jsonResponses;
 
     @Override
     @GetMapping("/role/{roleId}")
     public ResponseEntity<List<PermissionsDTO>> getPermissionsByRoleId(
             @PathVariable @NotNull @Min(1) Long roleId,
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        List<PermissionsDTO> permissions = permissionsService.findByRoleId(roleId, withAudit, attributeSet);
+            CanonicalAttributes attributes,
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(name = "after", required = false) String after) {
+        if (CursorPageResponses.isPaged(limit, after)) {
+            return CursorPageResponses.ok(
+                    permissionsService.findByRoleId(roleId, withAudit, attributes, after, CursorPageResponses.resolveLimit(limit)));
+        }
+        List<PermissionsDTO> permissions = permissionsService.findByRoleId(roleId, withAudit, attributes);
         return ResponseEntity.ok(permissions);
     }
 
@@ -56,17 +61,47 @@ public class PermissionsController implements PermissionsControllerEndpoint {
      *
      * @param withAudit If true, include audit information
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
+     * @param filter Criteria the permissions must match, applied by the database
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the list of permissions in body
      */
     @Override
     @GetMapping
     public ResponseEntity<List<PermissionsDTO>> getAllPermissions(
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        List<PermissionsDTO> permissions = permissionsService.findAll(withAudit, attributeSet);
-        return ResponseEntity.ok(permissions);
+            CanonicalAttributes attributes,
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(name = "after", required = false) String after,
+            PermissionsFilter filter,
+            WebRequest request) {
+        if (CursorPageResponses.isPaged(limit, after)) {
+            int pageSize = CursorPageResponses.resolveLimit(limit);
+            return conditionalResponses.of(request,
+                    () -> permissionsService.listTag(filter, withAudit, attributes, after, pageSize),
+                    () -> CursorPageResponses.ok(permissionsService.findPage(filter, withAudit, attributes, after, pageSize)));
+        }
+        return conditionalResponses.of(request,
+                () -> permissionsService.listTag(filter, withAudit, attributes, null, null),
+                () -> jsonResponses.ok(PermissionsDTO.class,
+                        () -> permissionsService.findAllJson(filter, withAudit, attributes),
+                        () -> permissionsService.findAll(filter, withAudit, attributes)));
+    }
+
+    /**
+     * GET /api/permissions/export : Stream all permissions as newline-delimited JSON
+     *
+     * @param withAudit If true, include audit information
+     * @param attributes Comma-separated list of attributes to include
+     * @return the ResponseEntity with status 200 (OK) and one permission per line in body
+     */
+    @Override
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPermissions(
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            CanonicalAttributes attributes) {
+        return ndjsonResponses.<PermissionsDTO>stream(consumer -> permissionsService.streamAll(withAudit, attributes, consumer));
     }
 
     /**
@@ -75,19 +110,22 @@ public class PermissionsController implements PermissionsControllerEndpoint {
      * @param id the id of the permission to retrieve
      * @param withAudit If true, include audit information
      * @param attributes Comma-separated list of attributes to include
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the permission in body,
      * or with status 404 (Not Found)
      */
     @Override
     @GetMapping("/{id}")
-    public ResponseEntity<PermissionsDTO> getPermissions(
+    public ResponseEntity<byte[]> getPermissions(
             @PathVariable @NotNull @Min(1) Long id,
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        PermissionsDTO permissions = permissionsService.findById(id, withAudit, attributeSet);
-        return ResponseEntity.ok(permissions);
+            CanonicalAttributes attributes,
+            WebRequest request) {
+        // Served from the response cache as already serialized JSON when the same view was read before;
+        // a client still holding the current version gets 304 without the permission being read at all
+        return conditionalResponses.entity(request, PermissionsDTO.class, id, attributes, withAudit,
+                () -> permissionsService.entityTag(id, withAudit, attributes),
+                () -> permissionsService.findById(id, withAudit, attributes));
     }
 
     /**
@@ -121,6 +159,21 @@ public class PermissionsController implements PermissionsControllerEndpoint {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * PATCH /api/permissions/:id : Update only the given attributes of a permission
+     *
+     * @param id the id of the permission to update
+     * @param changes the attributes to change and the version the permission was read with
+     * @return the ResponseEntity with status 200 (OK) and the new version in body
+     */
+    @Override
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<VersionDTO> patchPermissions(
+            @PathVariable @NotNull @Min(1) Long id,
+            @RequestBody Map<String, Object> changes) {
+        return ResponseEntity.ok(permissionsService.patch(id, changes));
+    }
+
     /**
      * DELETE /api/permissions/:id : Delete the permissions with the specified id
      *
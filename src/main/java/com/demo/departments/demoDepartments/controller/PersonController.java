@@ -2,20 +2,34 @@ package com.demo.departments.demoDepartments.controller;
 
 import com.demo.departments.demoDepartments.service.PersonService;
 import com.demo.departments.demoDepartments.service.dto.PersonDTO;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.PersonSuggestionDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.PersonFilter;
+import com.demo.departments.demoDepartments.controller.support.ConditionalResponses;
+import com.demo.departments.demoDepartments.controller.support.CursorPageResponses;
+import com.demo.departments.demoDepartments.controller.support.JsonResponses;
+import com.demo.departments.demoDepartments.controller.support.ListViews;
+import com.demo.departments.demoDepartments.controller.support.NdjsonStreamingResponses;
 import com.demo.departments.demoDepartments.controller.swagger.api.PersonControllerEndpoint;
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * REST controller for managing Person entities
@@ -27,23 +41,106 @@ import java.util.Set;
 public class PersonController implements PersonControllerEndpoint {
 
     private final PersonService personService;
+    private final NdjsonStreamingResponses ndjsonResponses;
+    private final ConditionalResponses conditionalResponses;
+    private final JsonResponses jsonResponses;
 
     /**
      * GET /api/persons : Get all persons with configurable options
      * 
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include (e.g., "contacts,roles.permissions,addresses")
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
+     * @param view "summary" for the basic fields plus the ids and counts of the children
+     * @param filter Criteria the persons must match, applied by the database
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return ResponseEntity with status 200 (OK) and the list of persons in body
      */
     @Override
     @GetMapping
     public ResponseEntity<List<PersonDTO>> getAllPersons(
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        List<PersonDTO> persons = personService.findAll(withAudit, attributeSet);
-        return ResponseEntity.ok(persons);
+            CanonicalAttributes attributes,
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "view", required = false) String view,
+            PersonFilter filter,
+            WebRequest request) {
+        if (ListViews.isSummary(view, attributes)) {
+            if (CursorPageResponses.isPaged(limit, after)) {
+                int pageSize = CursorPageResponses.resolveLimit(limit);
+                return conditionalResponses.of(request,
+                        () -> personService.summaryTag(filter, withAudit, after, pageSize),
+                        () -> CursorPageResponses.ok(personService.findSummaryPage(filter, withAudit, after, pageSize)));
+            }
+            return conditionalResponses.of(request,
+                    () -> personService.summaryTag(filter, withAudit, null, null),
+                    () -> ResponseEntity.ok(personService.findAllSummaries(filter, withAudit)));
+        }
+        if (CursorPageResponses.isPaged(limit, after)) {
+            int pageSize = CursorPageResponses.resolveLimit(limit);
+            return conditionalResponses.of(request,
+                    () -> personService.listTag(filter, withAudit, attributes, after, pageSize),
+                    () -> CursorPageResponses.ok(personService.findPage(filter, withAudit, attributes, after, pageSize)));
+        }
+        return conditionalResponses.of(request,
+                () -> personService.listTag(filter, withAudit, attributes, null, null),
+                () -> jsonResponses.ok(PersonDTO.class,
+                        () -> personService.findAllJson(filter, withAudit, attributes),
+                        () -> personService.findAll(filter, withAudit, attributes)));
+    }
+
+    /**
+     * GET /api/persons/export : Stream all persons as newline-delimited JSON
+     *
+     * @param withAudit If true, include audit information
+     * @param attributes Comma-separated list of attributes to include
+     * @return the ResponseEntity with status 200 (OK) and one person per line in body
+     */
+    @Override
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPersons(
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            CanonicalAttributes attributes) {
+        return ndjsonResponses.<PersonDTO>stream(consumer -> personService.streamAll(withAudit, attributes, consumer));
+    }
+
+    /**
+     * GET /api/persons/search : Search persons by partial name, email, phone, city or street
+     *
+     * @param q Search text
+     * @param withAudit If true, include audit information
+     * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size
+     * @param after Opaque cursor of the previous page
+     * @return ResponseEntity with status 200 (OK) and the matching persons in body, best match first
+     */
+    @Override
+    @GetMapping("/search")
+    public ResponseEntity<List<PersonDTO>> searchPersons(
+            @RequestParam(name = "q") @NotBlank @Size(min = 2, max = 100) String q,
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            CanonicalAttributes attributes,
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(name = "after", required = false) String after) {
+        return CursorPageResponses.ok(
+                personService.search(q, withAudit, attributes, after, CursorPageResponses.resolveLimit(limit)));
+    }
+
+    /**
+     * GET /api/persons/suggest : Autocomplete person names, emails and phone numbers
+     *
+     * @param prefix Beginning of the value, case-insensitive
+     * @param limit Maximum number of suggestions
+     * @return ResponseEntity with status 200 (OK) and the suggestions in body
+     */
+    @Override
+    @GetMapping("/suggest")
+    public ResponseEntity<List<PersonSuggestionDTO>> suggestPersons(
+            @RequestParam(name = "prefix") @NotBlank @Size(max = 100) String prefix,
+            @RequestParam(name = "limit", defaultValue = "10") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok(personService.suggest(prefix, limit));
     }
 
     /**
@@ -52,18 +149,21 @@ public class PersonController implements PersonControllerEndpoint {
      * @param id The ID of the person to retrieve
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include (e.g., "contacts,roles.permissions,addresses")
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return ResponseEntity with status 200 (OK) and the person in body
      */
     @Override
     @GetMapping("/{id}")
-    public ResponseEntity<PersonDTO> getPerson(
+    public ResponseEntity<byte[]> getPerson(
             @PathVariable @NotNull @Min(1) Long id,
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        PersonDTO person = personService.findById(id, withAudit, attributeSet);
-        return ResponseEntity.ok(person);
+            CanonicalAttributes attributes,
+            WebRequest request) {
+        // Served from the response cache as already serialized JSON when the same view was read before;
+        // a client still holding the current version gets 304 without the person being read at all
+        return conditionalResponses.entity(request, PersonDTO.class, id, attributes, withAudit,
+                () -> personService.entityTag(id, withAudit, attributes),
+                () -> personService.findById(id, withAudit, attributes));
     }
 
     /**
@@ -95,6 +195,21 @@ public class PersonController implements PersonControllerEndpoint {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * PATCH /api/persons/:id : Update only the given attributes of a person
+     *
+     * @param id the id of the person to update
+     * @param changes the attributes to change and the version the person was read with
+     * @return the ResponseEntity with status 200 (OK) and the new version in body
+     */
+    @Override
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<VersionDTO> patchPerson(
+            @PathVariable @NotNull @Min(1) Long id,
+            @RequestBody Map<String, Object> changes) {
+        return ResponseEntity.ok(personService.patch(id, changes));
+    }
+
     /**
      * DELETE /api/persons/:id : Delete a person
      * 
@@ -107,14 +222,19 @@ public class PersonController implements PersonControllerEndpoint {
         personService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
-    
+
     /**
-     * Helper method to parse comma-separated attributes into a Set
+     * DELETE /api/persons?ids=1,2,3 : Delete several persons at once
+     *
+     * @param ids The IDs of the persons to delete
+     * @return ResponseEntity with status 204 (No Content)
      */
-    private Set<String> parseAttributesParam(String attributes) {
-        if (attributes == null || attributes.trim().isEmpty()) {
-            return null;
-        }
-        return new HashSet<>(Arrays.asList(attributes.split(",")));
+    @Override
+    @DeleteMapping
+    public ResponseEntity<Void> deletePersons(
+            @RequestParam(name = "ids") @NotEmpty @Size(max = 1000) List<@NotNull @Min(1) Long> ids) {
+        personService.deleteAllById(ids);
+        return ResponseEntity.noContent().build();
     }
+    
 }
\ No newline at end of file
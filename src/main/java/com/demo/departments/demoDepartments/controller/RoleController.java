@@ -1,21 +1,31 @@
 package com.demo.departments.demoDepartments.controller;
 
+import com.demo.departments.demoDepartments.controller.support.ConditionalResponses;
+import com.demo.departments.demoDepartments.controller.support.CursorPageResponses;
+import com.demo.departments.demoDepartments.controller.support.JsonResponses;
+import com.demo.departments.demoDepartments.controller.support.ListViews;
+import com.demo.departments.demoDepartments.controller.support.NdjsonStreamingResponses;
 import com.demo.departments.demoDepartments.controller.swagger.api.RoleControllerEndpoint;
 import com.demo.departments.demoDepartments.service.RoleService;
 import com.demo.departments.demoDepartments.service.dto.security.RoleDTO;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.RoleFilter;
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * REST controller for managing Role entities
@@ -27,28 +37,25 @@ import java.util.Set;
 public class RoleController implements RoleControllerEndpoint {
 
     private final RoleService roleService;
-
-    /**
-     * Helper method to parse comma-separated attributes into a Set
-     */
-    private Set<String> parseAttributesParam(String attributes) {
-        if (attributes == null || attributes.trim().isEmpty()) {
-            return null;
-        }
-        return new HashSet<>(Arrays.asList(attributes.split(",")));
-    }
-
+    private final NdjsonStreamingResponses ndjsonResponses;
+    private final ConditionalResponses conditionalResponses;
+    private final JsonResponses jsonResponses;
 
     @Override
     @GetMapping("/person/{personId}")
     public ResponseEntity<List<RoleDTO>> getRolesByPersonId(
             @PathVariable @NotNull @Min(1) Long personId,
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        List<RoleDTO> roles = roleService.findByPersonId(personId, withAudit, attributeSet);
-        return ResponseEntity.ok(roles);
+            CanonicalAttributes attributes,
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(name = "after", required = false) String after) {
+        if (CursorPageResponses.isPaged(limit, after)) {
+            return CursorPageResponses.ok(
+                    roleService.findByPersonId(personId, withAudit, attributes, after, CursorPageResponses.resolveLimit(limit)));
+        }
+        return jsonResponses.ok(RoleDTO.class,
+                () -> roleService.findByPersonIdJson(personId, withAudit, attributes),
+                () -> roleService.findByPersonId(personId, withAudit, attributes));
     }
 
     /**
@@ -56,17 +63,60 @@ public class RoleController implements RoleControllerEndpoint {
      *
      * @param withAudit If true, include audit information
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
+     * @param view "summary" for the basic fields plus the ids and counts of the children
+     * @param filter Criteria the roles must match, applied by the database
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the list of roles in body
      */
     @Override
     @GetMapping
     public ResponseEntity<List<RoleDTO>> getAllRoles(
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        List<RoleDTO> roles = roleService.findAll(withAudit, attributeSet);
-        return ResponseEntity.ok(roles);
+            CanonicalAttributes attributes,
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "view", required = false) String view,
+            RoleFilter filter,
+            WebRequest request) {
+        if (ListViews.isSummary(view, attributes)) {
+            if (CursorPageResponses.isPaged(limit, after)) {
+                int pageSize = CursorPageResponses.resolveLimit(limit);
+                return conditionalResponses.of(request,
+                        () -> roleService.summaryTag(filter, withAudit, after, pageSize),
+                        () -> CursorPageResponses.ok(roleService.findSummaryPage(filter, withAudit, after, pageSize)));
+            }
+            return conditionalResponses.of(request,
+                    () -> roleService.summaryTag(filter, withAudit, null, null),
+                    () -> ResponseEntity.ok(roleService.findAllSummaries(filter, withAudit)));
+        }
+        if (CursorPageResponses.isPaged(limit, after)) {
+            int pageSize = CursorPageResponses.resolveLimit(limit);
+            return conditionalResponses.of(request,
+                    () -> roleService.listTag(filter, withAudit, attributes, after, pageSize),
+                    () -> CursorPageResponses.ok(roleService.findPage(filter, withAudit, attributes, after, pageSize)));
+        }
+        return conditionalResponses.of(request,
+                () -> roleService.listTag(filter, withAudit, attributes, null, null),
+                () -> jsonResponses.ok(RoleDTO.class,
+                        () -> roleService.findAllJson(filter, withAudit, attributes),
+                        () -> roleService.findAll(filter, withAudit, attributes)));
+    }
+
+    /**
+     * GET /api/roles/export : Stream all roles as newline-delimited JSON
+     *
+     * @param withAudit If true, include audit information
+     * @param attributes Comma-separated list of attributes to include
+     * @return the ResponseEntity with status 200 (OK) and one role per line in body
+     */
+    @Override
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRoles(
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            CanonicalAttributes attributes) {
+        return ndjsonResponses.<RoleDTO>stream(consumer -> roleService.streamAll(withAudit, attributes, consumer));
     }
 
     /**
@@ -75,19 +125,22 @@ public class RoleController implements RoleControllerEndpoint {
      * @param id the id of the role to retrieve
      * @param withAudit If true, include audit information
      * @param attributes Comma-separated list of attributes to include
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the role in body,
      * or with status 404 (Not Found)
      */
     @Override
     @GetMapping("/{id}")
-    public ResponseEntity<RoleDTO> getRole(
+    public ResponseEntity<byte[]> getRole(
             @PathVariable @NotNull @Min(1) Long id,
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @RequestParam(name = "attributes", required = false) String attributes) {
-        
-        Set<String> attributeSet = parseAttributesParam(attributes);
-        RoleDTO role = roleService.findById(id, withAudit, attributeSet);
-        return ResponseEntity.ok(role);
+            CanonicalAttributes attributes,
+            WebRequest request) {
+        // Served from the response cache as already serialized JSON when the same view was read before;
+        // a client still holding the current version gets 304 without the role being read at all
+        return conditionalResponses.entity(request, RoleDTO.class, id, attributes, withAudit,
+                () -> roleService.entityTag(id, withAudit, attributes),
+                () -> roleService.findById(id, withAudit, attributes));
     }
 
     /**
@@ -121,6 +174,21 @@ public class RoleController implements RoleControllerEndpoint {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * PATCH /api/roles/:id : Update only the given attributes of a role
+     *
+     * @param id the id of the role to update
+     * @param changes the attributes to change and the version the role was read with
+     * @return the ResponseEntity with status 200 (OK) and the new version in body
+     */
+    @Override
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<VersionDTO> patchRole(
+            @PathVariable @NotNull @Min(1) Long id,
+            @RequestBody Map<String, Object> changes) {
+        return ResponseEntity.ok(roleService.patch(id, changes));
+    }
+
     /**
      * DELETE /api/roles/:id : Delete the role with the specified id
      *
@@ -3,7 +3,9 @@ package com.demo.departments.demoDepartments.controller.advice;
 import com.demo.departments.demoDepartments.controller.swagger.model.ErrorResponse;
 import com.demo.departments.demoDepartments.controller.swagger.model.ValidationErrorResponse;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -63,6 +65,27 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
     
+    /**
+     * Handle optimistic lock conflicts: the entity changed since the client read it
+     */
+    @ExceptionHandler({OptimisticLockException.class, OptimisticLockingFailureException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockException(
+            RuntimeException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .error("Conflict")
+                .message(ex instanceof OptimisticLockException
+                        ? ex.getMessage()
+                        : "The entity was changed by another request; read it again and retry")
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handle MethodArgumentNotValidException for @Valid annotation validation failures
      */
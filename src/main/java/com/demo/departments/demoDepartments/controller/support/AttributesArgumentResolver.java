@@ -0,0 +1,30 @@
+package com.demo.departments.demoDepartments.controller.support;
+
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@link CanonicalAttributes} handler parameters from the comma-separated {@value #PARAMETER}
+ * query parameter, so every endpoint gets the same canonical set (null when no attribute is named)
+ * and passes it on as the key of the compiled graph and response caches.
+ * More than {@link CanonicalAttributes#MAX_ATTRIBUTES} attributes are rejected with 400.
+ */
+public class AttributesArgumentResolver implements HandlerMethodArgumentResolver {
+
+    public static final String PARAMETER = "attributes";
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getParameterType() == CanonicalAttributes.class;
+    }
+
+    @Override
+    public CanonicalAttributes resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                               NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return CanonicalAttributes.parse(webRequest.getParameter(PARAMETER));
+    }
+}
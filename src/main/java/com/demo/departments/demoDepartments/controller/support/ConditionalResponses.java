@@ -0,0 +1,88 @@
+package com.demo.departments.demoDepartments.controller.support;
+
+import com.demo.departments.demoDepartments.service.dto.base.BaseDTO;
+import com.demo.departments.demoDepartments.service.utils.cache.ResponseCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GETs: responses carry a strong {@code ETag}, and a request whose {@code If-None-Match} still
+ * matches gets {@code 304 Not Modified} before anything is fetched, mapped or serialized.
+ * <p>
+ * The tag is read first, then the body, in the same read-only transaction and so from the same database
+ * (primary or replica): the body is never older than the tag it is sent with.
+ */
+@Component
+public class ConditionalResponses {
+
+    private final ResponseCache responseCache;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ConditionalResponses(ResponseCache responseCache, PlatformTransactionManager transactionManager) {
+        this.responseCache = responseCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Single entity as JSON. The tag is read with the cheap projection of {@code entityTag} and the entity only
+     * loaded when the client's copy is outdated; a response from the {@link ResponseCache} is served when it
+     * still has that tag. A cached tag confirmed within the trust window is used without reading it again.
+     *
+     * @param type DTO type of the response
+     * @param entityTag reads the current tag (e.g. {@code BaseService.entityTag}); null when the entity does not exist
+     * @param loader reads the DTO (e.g. {@code BaseService.findById})
+     */
+    public ResponseEntity<byte[]> entity(WebRequest request, Class<? extends BaseDTO> type, Long id,
+                                         Set<String> attributes, boolean withAudit,
+                                         Supplier<String> entityTag, Supplier<? extends BaseDTO> loader) {
+        ResponseCache.Response cached = responseCache.getIfPresent(type, id, attributes, withAudit);
+        if (cached != null && responseCache.isTrusted(cached)) {
+            return respond(request, cached.entityTag(), () -> json(cached));
+        }
+        return readOnlyTransaction.execute(status -> {
+            String tag = entityTag.get();
+            if (cached != null && tag != null && tag.equals(cached.entityTag())) {
+                responseCache.confirm(type, id, attributes, withAudit, cached);
+                return respond(request, tag, () -> json(cached));
+            }
+            // An unknown id is left to the loader, which answers 404
+            return respond(request, tag,
+                    () -> json(responseCache.load(type, id, attributes, withAudit, tag, loader)));
+        });
+    }
+
+    /**
+     * Any other GET, e.g. a list or page: the response is only built when the tag does not match
+     *
+     * @param entityTag reads the current tag (e.g. {@code FilterableService.listTag})
+     * @param response builds the full response
+     */
+    public <T> ResponseEntity<T> of(WebRequest request, Supplier<String> entityTag, Supplier<ResponseEntity<T>> response) {
+        return readOnlyTransaction.execute(status -> respond(request, entityTag.get(), response));
+    }
+
+    private static <T> ResponseEntity<T> respond(WebRequest request, String tag, Supplier<ResponseEntity<T>> response) {
+        // Also sets the ETag header of the response
+        if (tag != null && request.checkNotModified(tag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        ResponseEntity<T> full = response.get();
+        if (tag == null) {
+            return full;
+        }
+        return ResponseEntity.status(full.getStatusCode()).headers(full.getHeaders()).eTag(tag).body(full.getBody());
+    }
+
+    private static ResponseEntity<byte[]> json(ResponseCache.Response response) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(response.json());
+    }
+}
@@ -0,0 +1,33 @@
+package com.demo.departments.demoDepartments.controller.support;
+
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
+import org.springdoc.core.utils.SpringDocUtils;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registers the argument resolvers and message converters shared by the controllers
+ */
+@Configuration
+public class ControllerSupportConfig implements WebMvcConfigurer {
+
+    static {
+        // Documented as the plain comma-separated string the client sends
+        SpringDocUtils.getConfig().replaceWithClass(CanonicalAttributes.class, String.class);
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new AttributesArgumentResolver());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Ahead of Jackson, which would serialize the elements of a written list again
+        converters.add(0, new WrittenJsonHttpMessageConverter());
+    }
+}
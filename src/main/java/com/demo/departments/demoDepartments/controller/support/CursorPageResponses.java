@@ -0,0 +1,49 @@
+package com.demo.departments.demoDepartments.controller.support;
+
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+/**
+ * Helpers for list endpoints that support keyset (cursor) pagination.
+ * The response body stays a plain JSON array; the next cursor travels in headers.
+ */
+public final class CursorPageResponses {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 50;
+
+    private CursorPageResponses() {
+    }
+
+    /**
+     * A list request is paged as soon as the client sends either "limit" or "after"
+     */
+    public static boolean isPaged(Integer limit, String after) {
+        return limit != null || (after != null && !after.isBlank());
+    }
+
+    public static int resolveLimit(Integer limit) {
+        return limit != null ? limit : DEFAULT_LIMIT;
+    }
+
+    /**
+     * Build a 200 response with the page content and, if there is a next page,
+     * the {@value #NEXT_CURSOR_HEADER} and {@code Link: rel="next"} headers
+     */
+    public static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.hasNext()) {
+            String nextUri = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.getNextCursor())
+                    .build()
+                    .toUriString();
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            builder.header(HttpHeaders.LINK, "<" + nextUri + ">; rel=\"next\"");
+        }
+        return builder.body(page.getContent());
+    }
+}
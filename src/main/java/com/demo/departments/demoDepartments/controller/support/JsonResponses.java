@@ -0,0 +1,49 @@
+package com.demo.departments.demoDepartments.controller.support;
+
+import com.demo.departments.demoDepartments.service.utils.json.EntityJsonWriters;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Responses of list endpoints the services can also write straight from the loaded entities
+ * ({@code departments.direct-json.enabled}, off by default). The endpoints keep their DTO-typed signatures:
+ * the written JSON travels as a {@link WrittenJsonList}, which {@link WrittenJsonHttpMessageConverter}
+ * copies to the response unchanged.
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonResponses {
+
+    private final ObjectMapper objectMapper;
+    private final EntityJsonWriters entityJsonWriters;
+
+    /**
+     * 200 response with the list, written by {@code json} when direct writing is on, mapped by {@code dtos} otherwise
+     *
+     * @param type DTO type of the elements, to read them back should a caller use the written list
+     */
+    public <T> ResponseEntity<List<T>> ok(Class<T> type, Supplier<byte[]> json, Supplier<List<T>> dtos) {
+        if (!entityJsonWriters.isEnabled()) {
+            return ResponseEntity.ok(dtos.get());
+        }
+        byte[] written = json.get();
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, type);
+        return ResponseEntity.ok(new WrittenJsonList<>(written, () -> read(written, listType)));
+    }
+
+    private <T> List<T> read(byte[] json, JavaType listType) {
+        try {
+            return objectMapper.readValue(json, listType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.demo.departments.demoDepartments.controller.support;
+
+import java.util.Set;
+
+/**
+ * The {@code view} parameter of list endpoints. {@value #SUMMARY} returns the basic fields plus the ids
+ * and counts of the children, read with aggregate queries instead of loading the children.
+ */
+public final class ListViews {
+
+    public static final String SUMMARY = "summary";
+
+    private ListViews() {
+    }
+
+    /**
+     * True for {@code view=summary}; the summary has a fixed shape and is not combined with attributes
+     */
+    public static boolean isSummary(String view, Set<String> attributes) {
+        if (view == null || view.isBlank()) {
+            return false;
+        }
+        if (!SUMMARY.equals(view)) {
+            throw new IllegalArgumentException("Unknown view: " + view);
+        }
+        if (attributes != null) {
+            throw new IllegalArgumentException("The summary view cannot be combined with attributes");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,53 @@
+package com.demo.departments.demoDepartments.controller.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Builds {@code application/x-ndjson} streaming responses: one JSON document per line,
+ * written to the response while the rows are still being read from the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonStreamingResponses {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param producer Pushes every element to the given consumer (e.g. a service streamAll call)
+     * @return 200 response whose body is written on the async request thread
+     */
+    public <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> producer) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // The servlet container owns the response stream
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Lines are separated by '\n' only, not by Jackson's default root value separator (a space)
+                generator.setRootValueSeparator(null);
+                producer.accept(element -> writeLine(generator, element));
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void writeLine(JsonGenerator generator, Object element) {
+        try {
+            generator.writeObject(element);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            // Most likely the client went away - abort the database cursor as well
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.demo.departments.demoDepartments.controller.support;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link WrittenJsonList} bodies as the JSON they already hold; registered ahead of the Jackson
+ * converter, which would otherwise read every element back to serialize it again. Write only.
+ */
+public class WrittenJsonHttpMessageConverter extends AbstractHttpMessageConverter<WrittenJsonList<?>> {
+
+    public WrittenJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return WrittenJsonList.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected WrittenJsonList<?> readInternal(Class<? extends WrittenJsonList<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Written JSON lists are response bodies only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(WrittenJsonList<?> list, MediaType contentType) {
+        return (long) list.getJson().length;
+    }
+
+    @Override
+    protected void writeInternal(WrittenJsonList<?> list, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(list.getJson());
+    }
+}
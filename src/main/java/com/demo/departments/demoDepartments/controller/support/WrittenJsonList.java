@@ -0,0 +1,45 @@
+package com.demo.departments.demoDepartments.controller.support;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A list of DTOs that is already serialized: {@link WrittenJsonHttpMessageConverter} copies {@link #getJson()}
+ * to the response as it is. The elements are only read back from the JSON when a caller uses the list.
+ */
+public final class WrittenJsonList<T> extends AbstractList<T> {
+
+    private final byte[] json;
+    private final Supplier<List<T>> reader;
+    private List<T> elements;
+
+    WrittenJsonList(byte[] json, Supplier<List<T>> reader) {
+        this.json = json;
+        this.reader = reader;
+    }
+
+    /**
+     * The JSON array of the elements
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    @Override
+    public T get(int index) {
+        return elements().get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements().size();
+    }
+
+    private List<T> elements() {
+        if (elements == null) {
+            elements = reader.get();
+        }
+        return elements;
+    }
+}
@@ -1,23 +1,34 @@
 package com.demo.departments.demoDepartments.controller.swagger.api;
 
 import com.demo.departments.demoDepartments.service.dto.AddressDTO;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.AddressFilter;
 import com.demo.departments.demoDepartments.controller.swagger.model.ErrorResponse;
 import com.demo.departments.demoDepartments.controller.swagger.model.ValidationErrorResponse;
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * API interface for Address management
@@ -30,6 +41,10 @@ public interface AddressControllerEndpoint {
      *
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
+     * @param filter Criteria the addresses must match, applied by the database
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the list of addresses in body
      */
     @Operation(
@@ -44,14 +59,49 @@ public interface AddressControllerEndpoint {
                 mediaType = "application/json",
                 schema = @Schema(implementation = AddressDTO.class)
             )
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Not modified: the ETag sent in If-None-Match is still current"
         )
     })
     @GetMapping
     ResponseEntity<List<AddressDTO>> getAllAddresses(
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            @Parameter(description = "Page size for keyset pagination (max 1000); without 'limit' and 'after' the full list is returned")
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @Parameter(description = "Opaque cursor taken from the X-Next-Cursor header of the previous page")
+            @RequestParam(name = "after", required = false) String after,
+            @ParameterObject AddressFilter filter,
+            WebRequest request);
+
+    /**
+     * GET /api/addresses/export : Stream all addresses as newline-delimited JSON
+     *
+     * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
+     * @param attributes Comma-separated list of attributes to include
+     * @return the ResponseEntity with status 200 (OK) and one address per line in body
+     */
+    @Operation(
+        summary = "Export all addresses as NDJSON",
+        description = "Streams every address as one JSON document per line while the rows are read from a database cursor"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successful operation",
+            content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = AddressDTO.class))
+        )
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportAddresses(
+            @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes);
 
     /**
      * GET /api/addresses/:id : Get an address by ID with configurable options
@@ -59,6 +109,7 @@ public interface AddressControllerEndpoint {
      * @param id the id of the address to retrieve
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the address in body,
      * or with status 404 (Not Found)
      */
@@ -81,16 +132,21 @@ public interface AddressControllerEndpoint {
             responseCode = "404",
             description = "Address not found",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Not modified: the ETag sent in If-None-Match is still current"
         )
     })
     @GetMapping("/{id}")
-    ResponseEntity<AddressDTO> getAddress(
+    ResponseEntity<byte[]> getAddress(
             @Parameter(description = "ID of the address to retrieve", required = true)
             @PathVariable @NotNull @Min(1) Long id,
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            WebRequest request);
 
 
     /**
@@ -99,6 +155,8 @@ public interface AddressControllerEndpoint {
      * @param personId the id of the person
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
      * @return the ResponseEntity with status 200 (OK) and the list of addresses in body
      */
     @Operation(
@@ -111,8 +169,12 @@ public interface AddressControllerEndpoint {
             @PathVariable @NotNull @Min(1) Long personId,
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            @Parameter(description = "Page size for keyset pagination (max 1000); without 'limit' and 'after' the full list is returned")
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @Parameter(description = "Opaque cursor taken from the X-Next-Cursor header of the previous page")
+            @RequestParam(name = "after", required = false) String after);
 
     /**
      * POST /api/addresses : Create a new address
@@ -177,6 +239,48 @@ public interface AddressControllerEndpoint {
             @Parameter(description = "Address data", required = true)
             @Valid @RequestBody AddressDTO addressDTO);
 
+    /**
+     * PATCH /api/addresses/:id : Update only the given attributes of a address
+     *
+     * @param id the id of the address to update
+     * @param changes the attributes to change and the version the address was read with
+     * @return the ResponseEntity with status 200 (OK) and the new version in body,
+     * or with status 404 (Not Found), or with status 409 (Conflict) when the address was changed since it was read
+     */
+    @Operation(
+        summary = "Patch a address",
+        description = "Updates only the supplied attributes (JSON merge patch) with one version-checked statement, "
+                + "without loading the address. The body carries the version the address was read with"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Address patched successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = VersionDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid or non-patchable attributes, or no version",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ValidationErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Address not found",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Address was changed since it was read",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    ResponseEntity<VersionDTO> patchAddress(
+            @Parameter(description = "ID of the address to patch", required = true)
+            @PathVariable @NotNull @Min(1) Long id,
+            @Parameter(description = "Attributes to change and the version read", required = true)
+            @RequestBody Map<String, Object> changes);
+
     /**
      * DELETE /api/addresses/:id : Delete the address with the specified id
      *
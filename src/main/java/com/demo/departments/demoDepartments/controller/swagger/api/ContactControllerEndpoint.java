@@ -1,23 +1,34 @@
 package com.demo.departments.demoDepartments.controller.swagger.api;
 
 import com.demo.departments.demoDepartments.service.dto.ContactDTO;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.ContactFilter;
 import com.demo.departments.demoDepartments.controller.swagger.model.ErrorResponse;
 import com.demo.departments.demoDepartments.controller.swagger.model.ValidationErrorResponse;
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * API interface for Contact management
@@ -30,6 +41,10 @@ public interface ContactControllerEndpoint {
      *
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
+     * @param filter Criteria the contacts must match, applied by the database
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the list of contacts in body
      */
     @Operation(
@@ -44,14 +59,49 @@ public interface ContactControllerEndpoint {
                 mediaType = "application/json",
                 schema = @Schema(implementation = ContactDTO.class)
             )
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Not modified: the ETag sent in If-None-Match is still current"
         )
     })
     @GetMapping
     ResponseEntity<List<ContactDTO>> getAllContacts(
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            @Parameter(description = "Page size for keyset pagination (max 1000); without 'limit' and 'after' the full list is returned")
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @Parameter(description = "Opaque cursor taken from the X-Next-Cursor header of the previous page")
+            @RequestParam(name = "after", required = false) String after,
+            @ParameterObject ContactFilter filter,
+            WebRequest request);
+
+    /**
+     * GET /api/contacts/export : Stream all contacts as newline-delimited JSON
+     *
+     * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
+     * @param attributes Comma-separated list of attributes to include
+     * @return the ResponseEntity with status 200 (OK) and one contact per line in body
+     */
+    @Operation(
+        summary = "Export all contacts as NDJSON",
+        description = "Streams every contact as one JSON document per line while the rows are read from a database cursor"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successful operation",
+            content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = ContactDTO.class))
+        )
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportContacts(
+            @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes);
 
     /**
      * GET /api/contacts/:id : Get a contact by ID with configurable options
@@ -59,6 +109,7 @@ public interface ContactControllerEndpoint {
      * @param id the id of the contact to retrieve
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the contact in body,
      * or with status 404 (Not Found)
      */
@@ -81,16 +132,21 @@ public interface ContactControllerEndpoint {
             responseCode = "404",
             description = "Contact not found",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Not modified: the ETag sent in If-None-Match is still current"
         )
     })
     @GetMapping("/{id}")
-    ResponseEntity<ContactDTO> getContact(
+    ResponseEntity<byte[]> getContact(
             @Parameter(description = "ID of the contact to retrieve", required = true)
             @PathVariable @NotNull @Min(1) Long id,
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            WebRequest request);
 
     /**
      * GET /api/contacts/person/:personId : Get all contacts for a person with configurable options
@@ -98,6 +154,8 @@ public interface ContactControllerEndpoint {
      * @param personId the id of the person
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
      * @return the ResponseEntity with status 200 (OK) and the list of contacts in body
      */
     @Operation(
@@ -110,8 +168,12 @@ public interface ContactControllerEndpoint {
             @PathVariable @NotNull @Min(1) Long personId,
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            @Parameter(description = "Page size for keyset pagination (max 1000); without 'limit' and 'after' the full list is returned")
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @Parameter(description = "Opaque cursor taken from the X-Next-Cursor header of the previous page")
+            @RequestParam(name = "after", required = false) String after);
 
     /**
      * POST /api/contacts : Create a new contact
@@ -176,6 +238,48 @@ public interface ContactControllerEndpoint {
             @Parameter(description = "Contact data", required = true)
             @Valid @RequestBody ContactDTO contactDTO);
 
+    /**
+     * PATCH /api/contacts/:id : Update only the given attributes of a contact
+     *
+     * @param id the id of the contact to update
+     * @param changes the attributes to change and the version the contact was read with
+     * @return the ResponseEntity with status 200 (OK) and the new version in body,
+     * or with status 404 (Not Found), or with status 409 (Conflict) when the contact was changed since it was read
+     */
+    @Operation(
+        summary = "Patch a contact",
+        description = "Updates only the supplied attributes (JSON merge patch) with one version-checked statement, "
+                + "without loading the contact. The body carries the version the contact was read with"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Contact patched successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = VersionDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid or non-patchable attributes, or no version",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ValidationErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Contact not found",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Contact was changed since it was read",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    ResponseEntity<VersionDTO> patchContact(
+            @Parameter(description = "ID of the contact to patch", required = true)
+            @PathVariable @NotNull @Min(1) Long id,
+            @Parameter(description = "Attributes to change and the version read", required = true)
+            @RequestBody Map<String, Object> changes);
+
     /**
      * DELETE /api/contacts/:id : Delete the contact with the specified id
      *
@@ -1,23 +1,34 @@
 package com.demo.departments.demoDepartments.controller.swagger.api;
 
 import com.demo.departments.demoDepartments.service.dto.security.PermissionsDTO;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.PermissionsFilter;
 import com.demo.departments.demoDepartments.controller.swagger.model.ErrorResponse;
 import com.demo.departments.demoDepartments.controller.swagger.model.ValidationErrorResponse;
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * API interface for Permissions management
@@ -30,6 +41,10 @@ public interface PermissionsControllerEndpoint {
      *
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
+     * @param filter Criteria the permissions must match, applied by the database
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the list of permissions in body
      */
     @Operation(
@@ -44,14 +59,49 @@ public interface PermissionsControllerEndpoint {
                 mediaType = "application/json",
                 schema = @Schema(implementation = PermissionsDTO.class)
             )
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Not modified: the ETag sent in If-None-Match is still current"
         )
     })
     @GetMapping
     ResponseEntity<List<PermissionsDTO>> getAllPermissions(
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            @Parameter(description = "Page size for keyset pagination (max 1000); without 'limit' and 'after' the full list is returned")
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @Parameter(description = "Opaque cursor taken from the X-Next-Cursor header of the previous page")
+            @RequestParam(name = "after", required = false) String after,
+            @ParameterObject PermissionsFilter filter,
+            WebRequest request);
+
+    /**
+     * GET /api/permissions/export : Stream all permissions as newline-delimited JSON
+     *
+     * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
+     * @param attributes Comma-separated list of attributes to include
+     * @return the ResponseEntity with status 200 (OK) and one permission per line in body
+     */
+    @Operation(
+        summary = "Export all permissions as NDJSON",
+        description = "Streams every permission as one JSON document per line while the rows are read from a database cursor"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successful operation",
+            content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = PermissionsDTO.class))
+        )
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportPermissions(
+            @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes);
 
     /**
      * GET /api/permissions/:id : Get a permission by ID with configurable options
@@ -59,6 +109,7 @@ public interface PermissionsControllerEndpoint {
      * @param id the id of the permission to retrieve
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the permission in body,
      * or with status 404 (Not Found)
      */
@@ -81,16 +132,21 @@ public interface PermissionsControllerEndpoint {
             responseCode = "404",
             description = "Permission not found",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Not modified: the ETag sent in If-None-Match is still current"
         )
     })
     @GetMapping("/{id}")
-    ResponseEntity<PermissionsDTO> getPermissions(
+    ResponseEntity<byte[]> getPermissions(
             @Parameter(description = "ID of the permission to retrieve", required = true)
             @PathVariable @NotNull @Min(1) Long id,
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            WebRequest request);
 
     /**
      * GET /api/permissions/role/:roleId : Get all permissions for a role with configurable options
@@ -98,6 +154,8 @@ public interface PermissionsControllerEndpoint {
      * @param roleId the id of the role
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
      * @return the ResponseEntity with status 200 (OK) and the list of permissions in body
      */
     @Operation(
@@ -110,8 +168,12 @@ public interface PermissionsControllerEndpoint {
             @PathVariable @NotNull @Min(1) Long roleId,
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            @Parameter(description = "Page size for keyset pagination (max 1000); without 'limit' and 'after' the full list is returned")
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @Parameter(description = "Opaque cursor taken from the X-Next-Cursor header of the previous page")
+            @RequestParam(name = "after", required = false) String after);
 
     /**
      * POST /api/permissions : Create a new permissions
@@ -176,6 +238,48 @@ public interface PermissionsControllerEndpoint {
             @Parameter(description = "Permission data", required = true)
             @Valid @RequestBody PermissionsDTO permissionsDTO);
 
+    /**
+     * PATCH /api/permissions/:id : Update only the given attributes of a permission
+     *
+     * @param id the id of the permission to update
+     * @param changes the attributes to change and the version the permission was read with
+     * @return the ResponseEntity with status 200 (OK) and the new version in body,
+     * or with status 404 (Not Found), or with status 409 (Conflict) when the permission was changed since it was read
+     */
+    @Operation(
+        summary = "Patch a permission",
+        description = "Updates only the supplied attributes (JSON merge patch) with one version-checked statement, "
+                + "without loading the permission. The body carries the version the permission was read with"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Permission patched successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = VersionDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid or non-patchable attributes, or no version",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ValidationErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Permission not found",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Permission was changed since it was read",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    ResponseEntity<VersionDTO> patchPermissions(
+            @Parameter(description = "ID of the permission to patch", required = true)
+            @PathVariable @NotNull @Min(1) Long id,
+            @Parameter(description = "Attributes to change and the version read", required = true)
+            @RequestBody Map<String, Object> changes);
+
     /**
      * DELETE /api/permissions/:id : Delete the permissions with the specified id
      *
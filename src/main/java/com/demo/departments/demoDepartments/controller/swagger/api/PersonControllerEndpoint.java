@@ -1,22 +1,37 @@
 package com.demo.departments.demoDepartments.controller.swagger.api;
 
 import com.demo.departments.demoDepartments.service.dto.PersonDTO;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.PersonSuggestionDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.PersonFilter;
 import com.demo.departments.demoDepartments.controller.swagger.model.ErrorResponse;
 import com.demo.departments.demoDepartments.controller.swagger.model.ValidationErrorResponse;
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * API interface for Person management
@@ -29,6 +44,11 @@ public interface PersonControllerEndpoint {
      *
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include (e.g., "contacts,roles.permissions,addresses")
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
+     * @param view "summary" for the basic fields plus the ids and counts of the children
+     * @param filter Criteria the persons must match, applied by the database
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the list of persons in body
      */
     @Operation(
@@ -43,14 +63,122 @@ public interface PersonControllerEndpoint {
                 mediaType = "application/json",
                 schema = @Schema(implementation = PersonDTO.class)
             )
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Not modified: the ETag sent in If-None-Match is still current"
         )
     })
     @GetMapping
     ResponseEntity<List<PersonDTO>> getAllPersons(
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include (e.g., \"contacts,roles.permissions,addresses\")")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include (e.g., \"contacts,roles.permissions,addresses\")")
+            @Nullable CanonicalAttributes attributes,
+            @Parameter(description = "Page size for keyset pagination (max 1000); without 'limit' and 'after' the full list is returned")
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @Parameter(description = "Opaque cursor taken from the X-Next-Cursor header of the previous page")
+            @RequestParam(name = "after", required = false) String after,
+            @Parameter(description = "\"summary\" for the basic fields plus the ids and counts of the children, without the children themselves")
+            @RequestParam(name = "view", required = false) String view,
+            @ParameterObject PersonFilter filter,
+            WebRequest request);
+
+    /**
+     * GET /api/persons/export : Stream all persons as newline-delimited JSON
+     *
+     * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
+     * @param attributes Comma-separated list of attributes to include
+     * @return the ResponseEntity with status 200 (OK) and one person per line in body
+     */
+    @Operation(
+        summary = "Export all persons as NDJSON",
+        description = "Streams every person as one JSON document per line while the rows are read from a database cursor"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successful operation",
+            content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = PersonDTO.class))
+        )
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportPersons(
+            @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include (e.g., \"contacts,roles.permissions,addresses\")")
+            @Nullable CanonicalAttributes attributes);
+
+    /**
+     * GET /api/persons/search : Search persons by partial name, email, phone, city or street
+     *
+     * @param q Search text (2 to 100 characters)
+     * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
+     * @param attributes Comma-separated list of attributes to include (e.g., "contacts,roles.permissions,addresses")
+     * @param limit Page size
+     * @param after Opaque cursor of the previous page
+     * @return the ResponseEntity with status 200 (OK) and the matching persons in body, best match first
+     */
+    @Operation(
+        summary = "Search persons",
+        description = "Matches the text against first/last name, contact emails and phone numbers and address cities and streets. "
+                + "Results are ranked best match first and paged with the X-Next-Cursor header"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successful operation",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = PersonDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Missing or invalid search text",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ValidationErrorResponse.class))
+        )
+    })
+    @GetMapping("/search")
+    ResponseEntity<List<PersonDTO>> searchPersons(
+            @Parameter(description = "Search text: part of a name, email, phone number, city or street", required = true)
+            @RequestParam(name = "q") @NotBlank @Size(min = 2, max = 100) String q,
+            @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include (e.g., \"contacts,roles.permissions,addresses\")")
+            @Nullable CanonicalAttributes attributes,
+            @Parameter(description = "Page size (max 1000, default 50)")
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @Parameter(description = "Opaque cursor taken from the X-Next-Cursor header of the previous page")
+            @RequestParam(name = "after", required = false) String after);
+
+    /**
+     * GET /api/persons/suggest : Autocomplete person names, emails and phone numbers
+     *
+     * @param prefix Beginning of the value, case-insensitive
+     * @param limit Maximum number of suggestions
+     * @return the ResponseEntity with status 200 (OK) and the suggestions in body
+     */
+    @Operation(
+        summary = "Suggest persons",
+        description = "Returns first/last names, contact emails and phone numbers starting with the prefix, in alphabetical order. "
+                + "Served from an in-memory index kept up to date with every committed change"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successful operation",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = PersonSuggestionDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Missing prefix or invalid limit",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ValidationErrorResponse.class))
+        )
+    })
+    @GetMapping("/suggest")
+    ResponseEntity<List<PersonSuggestionDTO>> suggestPersons(
+            @Parameter(description = "Beginning of a name, email or phone number (case-insensitive)", required = true)
+            @RequestParam(name = "prefix") @NotBlank @Size(max = 100) String prefix,
+            @Parameter(description = "Maximum number of suggestions (max 100, default 10)")
+            @RequestParam(name = "limit", defaultValue = "10") @Min(1) @Max(100) int limit);
 
     /**
      * GET /api/persons/:id : Get the person with configurable options
@@ -58,6 +186,7 @@ public interface PersonControllerEndpoint {
      * @param id The ID of the person to retrieve
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include (e.g., "contacts,roles.permissions,addresses")
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the person in body,
      * or with status 404 (Not Found)
      */
@@ -80,16 +209,21 @@ public interface PersonControllerEndpoint {
             responseCode = "404",
             description = "Person not found",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Not modified: the ETag sent in If-None-Match is still current"
         )
     })
     @GetMapping("/{id}")
-    ResponseEntity<PersonDTO> getPerson(
+    ResponseEntity<byte[]> getPerson(
             @Parameter(description = "ID of the person to retrieve", required = true)
             @PathVariable @NotNull @Min(1) Long id,
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include (e.g., \"contacts,roles.permissions,addresses\")")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include (e.g., \"contacts,roles.permissions,addresses\")")
+            @Nullable CanonicalAttributes attributes,
+            WebRequest request);
 
     /**
      * POST /api/persons : Create a new person
@@ -154,6 +288,48 @@ public interface PersonControllerEndpoint {
             @Parameter(description = "Person data", required = true)
             @Valid @RequestBody PersonDTO personDTO);
 
+    /**
+     * PATCH /api/persons/:id : Update only the given attributes of a person
+     *
+     * @param id the id of the person to update
+     * @param changes the attributes to change and the version the person was read with
+     * @return the ResponseEntity with status 200 (OK) and the new version in body,
+     * or with status 404 (Not Found), or with status 409 (Conflict) when the person was changed since it was read
+     */
+    @Operation(
+        summary = "Patch a person",
+        description = "Updates only the supplied attributes (JSON merge patch) with one version-checked statement, "
+                + "without loading the person. The body carries the version the person was read with"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Person patched successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = VersionDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid or non-patchable attributes, or no version",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ValidationErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Person not found",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Person was changed since it was read",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    ResponseEntity<VersionDTO> patchPerson(
+            @Parameter(description = "ID of the person to patch", required = true)
+            @PathVariable @NotNull @Min(1) Long id,
+            @Parameter(description = "Attributes to change and the version read", required = true)
+            @RequestBody Map<String, Object> changes);
+
     /**
      * DELETE /api/persons/:id : Delete the person with the specified id
      *
@@ -179,4 +355,31 @@ public interface PersonControllerEndpoint {
     ResponseEntity<Void> deletePerson(
             @Parameter(description = "ID of the person to delete", required = true)
             @PathVariable @NotNull @Min(1) Long id);
+
+    /**
+     * DELETE /api/persons?ids=1,2,3 : Delete several persons at once
+     *
+     * @param ids the ids of the persons to delete
+     * @return the ResponseEntity with status 204 (NO_CONTENT)
+     */
+    @Operation(
+        summary = "Delete several persons",
+        description = "Deletes the persons with the given IDs in one bulk statement; their addresses and contacts are deleted " +
+                "and their roles detached by the database. Unknown IDs are ignored"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "204",
+            description = "Persons deleted successfully"
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid IDs",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    @DeleteMapping
+    ResponseEntity<Void> deletePersons(
+            @Parameter(description = "Comma-separated IDs of the persons to delete (max 1000)", required = true)
+            @RequestParam(name = "ids") @NotEmpty @Size(max = 1000) List<@NotNull @Min(1) Long> ids);
 }
\ No newline at end of file
@@ -1,23 +1,34 @@
 package com.demo.departments.demoDepartments.controller.swagger.api;
 
 import com.demo.departments.demoDepartments.service.dto.security.RoleDTO;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.RoleFilter;
 import com.demo.departments.demoDepartments.controller.swagger.model.ErrorResponse;
 import com.demo.departments.demoDepartments.controller.swagger.model.ValidationErrorResponse;
+import com.demo.departments.demoDepartments.service.utils.mapping.CanonicalAttributes;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * API interface for Role management
@@ -30,6 +41,11 @@ public interface RoleControllerEndpoint {
      *
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
+     * @param view "summary" for the basic fields plus the ids and counts of the children
+     * @param filter Criteria the roles must match, applied by the database
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the list of roles in body
      */
     @Operation(
@@ -44,14 +60,51 @@ public interface RoleControllerEndpoint {
                 mediaType = "application/json",
                 schema = @Schema(implementation = RoleDTO.class)
             )
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Not modified: the ETag sent in If-None-Match is still current"
         )
     })
     @GetMapping
     ResponseEntity<List<RoleDTO>> getAllRoles(
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            @Parameter(description = "Page size for keyset pagination (max 1000); without 'limit' and 'after' the full list is returned")
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @Parameter(description = "Opaque cursor taken from the X-Next-Cursor header of the previous page")
+            @RequestParam(name = "after", required = false) String after,
+            @Parameter(description = "\"summary\" for the basic fields plus the ids and counts of the children, without the children themselves")
+            @RequestParam(name = "view", required = false) String view,
+            @ParameterObject RoleFilter filter,
+            WebRequest request);
+
+    /**
+     * GET /api/roles/export : Stream all roles as newline-delimited JSON
+     *
+     * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
+     * @param attributes Comma-separated list of attributes to include
+     * @return the ResponseEntity with status 200 (OK) and one role per line in body
+     */
+    @Operation(
+        summary = "Export all roles as NDJSON",
+        description = "Streams every role as one JSON document per line while the rows are read from a database cursor"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successful operation",
+            content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = RoleDTO.class))
+        )
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportRoles(
+            @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
+            @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes);
 
     /**
      * GET /api/roles/:id : Get a role by ID with configurable options
@@ -59,6 +112,7 @@ public interface RoleControllerEndpoint {
      * @param id the id of the role to retrieve
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param request Carries the If-None-Match header of a conditional GET
      * @return the ResponseEntity with status 200 (OK) and the role in body,
      * or with status 404 (Not Found)
      */
@@ -81,16 +135,21 @@ public interface RoleControllerEndpoint {
             responseCode = "404",
             description = "Role not found",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Not modified: the ETag sent in If-None-Match is still current"
         )
     })
     @GetMapping("/{id}")
-    ResponseEntity<RoleDTO> getRole(
+    ResponseEntity<byte[]> getRole(
             @Parameter(description = "ID of the role to retrieve", required = true)
             @PathVariable @NotNull @Min(1) Long id,
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            WebRequest request);
 
     /**
      * GET /api/roles/person/:personId : Get all roles for a person with configurable options
@@ -98,6 +157,8 @@ public interface RoleControllerEndpoint {
      * @param personId the id of the person
      * @param withAudit If true, include audit information (createdDate, modifiedDate, createdBy, modifiedBy)
      * @param attributes Comma-separated list of attributes to include
+     * @param limit Page size; when set (or when after is set) the list is paged by id
+     * @param after Opaque cursor of the previous page
      * @return the ResponseEntity with status 200 (OK) and the list of roles in body
      */
     @Operation(
@@ -110,8 +171,12 @@ public interface RoleControllerEndpoint {
             @PathVariable @NotNull @Min(1) Long personId,
             @Parameter(description = "Include audit information (createdDate, modifiedDate, createdBy, modifiedBy)")
             @RequestParam(name = "withAudit", defaultValue = "false") boolean withAudit,
-            @Parameter(description = "Comma-separated list of attributes to include")
-            @RequestParam(name = "attributes", required = false) String attributes);
+            @Parameter(name = "attributes", in = ParameterIn.QUERY, description = "Comma-separated list of attributes to include")
+            @Nullable CanonicalAttributes attributes,
+            @Parameter(description = "Page size for keyset pagination (max 1000); without 'limit' and 'after' the full list is returned")
+            @RequestParam(name = "limit", required = false) @Min(1) @Max(1000) Integer limit,
+            @Parameter(description = "Opaque cursor taken from the X-Next-Cursor header of the previous page")
+            @RequestParam(name = "after", required = false) String after);
 
     /**
      * POST /api/roles : Create a new role
@@ -176,6 +241,48 @@ public interface RoleControllerEndpoint {
             @Parameter(description = "Role data", required = true)
             @Valid @RequestBody RoleDTO roleDTO);
 
+    /**
+     * PATCH /api/roles/:id : Update only the given attributes of a role
+     *
+     * @param id the id of the role to update
+     * @param changes the attributes to change and the version the role was read with
+     * @return the ResponseEntity with status 200 (OK) and the new version in body,
+     * or with status 404 (Not Found), or with status 409 (Conflict) when the role was changed since it was read
+     */
+    @Operation(
+        summary = "Patch a role",
+        description = "Updates only the supplied attributes (JSON merge patch) with one version-checked statement, "
+                + "without loading the role. The body carries the version the role was read with"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Role patched successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = VersionDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid or non-patchable attributes, or no version",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ValidationErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Role not found",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Role was changed since it was read",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    ResponseEntity<VersionDTO> patchRole(
+            @Parameter(description = "ID of the role to patch", required = true)
+            @PathVariable @NotNull @Min(1) Long id,
+            @Parameter(description = "Attributes to change and the version read", required = true)
+            @RequestBody Map<String, Object> changes);
+
     /**
      * DELETE /api/roles/:id : Delete the role with the specified id
      *
@@ -0,0 +1,63 @@
+package com.demo.departments.demoDepartments.datagen;
+
+/**
+ * Spreads a total number of children over the parents {@code 0..parents-1} following a distribution.
+ * The children of a parent are a contiguous index range, so any chunk of parents knows its children
+ * (and their global indexes) without looking at the other chunks.
+ */
+final class Cardinality {
+
+    private final int parents;
+    private final long total;
+
+    /** Cumulative share of the first i parents (length parents + 1); null for the uniform distribution */
+    private final double[] cumulative;
+
+    private Cardinality(int parents, long total, double[] cumulative) {
+        this.parents = parents;
+        this.total = total;
+        this.cumulative = cumulative;
+    }
+
+    static Cardinality uniform(int parents, long total) {
+        return new Cardinality(parents, total, null);
+    }
+
+    static Cardinality zipf(int parents, long total, double exponent) {
+        double[] cumulative = new double[parents + 1];
+        for (int i = 0; i < parents; i++) {
+            cumulative[i + 1] = cumulative[i] + 1 / Math.pow(i + 1, exponent);
+        }
+        double sum = cumulative[parents];
+        for (int i = 1; i <= parents; i++) {
+            cumulative[i] /= sum;
+        }
+        return new Cardinality(parents, total, cumulative);
+    }
+
+    static Cardinality of(DataGeneratorProperties properties, int parents, long total) {
+        if (total > 0 && parents == 0) {
+            throw new IllegalArgumentException("Cannot generate " + total + " children without parents");
+        }
+        return properties.getDistribution() == DataGeneratorProperties.Distribution.ZIPF
+                ? zipf(parents, total, properties.getZipfExponent())
+                : uniform(parents, total);
+    }
+
+    /**
+     * Global index of the first child of the parent; {@code first(parents)} is the total
+     */
+    long first(int parent) {
+        if (parent >= parents) {
+            return total;
+        }
+        if (cumulative == null) {
+            return total * parent / parents;
+        }
+        return (long) Math.floor(total * cumulative[parent]);
+    }
+
+    long total() {
+        return total;
+    }
+}
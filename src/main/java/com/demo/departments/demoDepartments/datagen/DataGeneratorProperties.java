@@ -0,0 +1,48 @@
+package com.demo.departments.demoDepartments.datagen;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Synthetic data seeded into an empty database at startup ({@code departments.data-generator}).
+ * Counts are totals; the distribution decides how the children are spread over their parents.
+ */
+@Data
+@ConfigurationProperties(prefix = "departments.data-generator")
+public class DataGeneratorProperties {
+
+    /** Seeds the database at startup when it has no persons yet */
+    private boolean enabled = true;
+
+    /** Same seed and settings, same data */
+    private long seed = 42;
+
+    private int persons = 10;
+    private long addresses = 20;
+    private long contacts = 15;
+    private long roles = 15;
+
+    /** Spread over the roles, not the persons */
+    private long permissions = 30;
+
+    private Distribution distribution = Distribution.UNIFORM;
+
+    /** Skew of the {@link Distribution#ZIPF} distribution; higher puts more children on the first parents */
+    private double zipfExponent = 1.0;
+
+    /** Chunks generated and written at the same time, each on its own connection */
+    private int parallelism = 4;
+
+    /** Persons per chunk (with their children); one transaction each */
+    private int chunkSize = 1000;
+
+    /** Rows per JDBC batch */
+    private int batchSize = 100;
+
+    public enum Distribution {
+        /** Every parent gets about the same number of children */
+        UNIFORM,
+        /** Child counts fall off with the parent's rank (power law), the first parents get the most */
+        ZIPF
+    }
+}
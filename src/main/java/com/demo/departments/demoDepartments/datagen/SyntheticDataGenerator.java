@@ -0,0 +1,290 @@
+package com.demo.departments.demoDepartments.datagen;
+
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.AddressType;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.ContactType;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Generates persons with their addresses, contacts, roles and permissions at production-like volumes.
+ * <p>
+ * The persons are cut into chunks generated in parallel on a fork-join pool. Every chunk derives its own
+ * random generator from the seed and its index and knows the global index range of its children from the
+ * {@link Cardinality}, so the data depends only on the settings, not on thread scheduling. A chunk is written
+ * through a {@link StatelessSession} in one transaction: no persistence context, no dirty checking, one JDBC
+ * batch per table. Spring Data's auditing does not reach stateless sessions, hence the explicit audit columns;
+ * indexes built from the data at startup (e.g. the typeahead index) are built after the generator ran.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(DataGeneratorProperties.class)
+public class SyntheticDataGenerator {
+
+    private static final String AUDITOR = "system";
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Michael", "Emily", "David", "Sarah", "Robert", "Maria",
+            "Daniel", "Olivia", "James", "Sophia", "William", "Emma", "Thomas", "Ava", "Joseph", "Mia", "Charles", "Isabella",
+            "Andrew", "Grace", "Kevin", "Chloe", "Brian", "Lily", "George", "Hannah", "Edward", "Zoe"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis",
+            "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore",
+            "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Walker"};
+    private static final String[] STREETS = {"Main St", "Elm Ave", "Oak Blvd", "Pine Lane", "Maple Dr", "Cedar Ct", "Birch Rd",
+            "Willow Way", "Spruce St", "Cherry Ave", "Park Ave", "Lake Rd", "Hill St", "River Rd", "Sunset Blvd"};
+    private static final String[] CITIES = {"New York", "Los Angeles", "Chicago", "Houston", "Phoenix",
+            "Philadelphia", "San Antonio", "San Diego", "Dallas", "San Jose"};
+    private static final String[] PROVINCES = {"NY", "CA", "IL", "TX", "AZ", "PA", "TX", "CA", "TX", "CA"};
+    private static final String[] ZIP_CODES = {"10001", "90001", "60601", "77001", "85001", "19101", "78201", "92101", "75201", "95101"};
+    private static final String[] COUNTRIES = {"USA", "USA", "USA", "USA", "USA", "USA", "USA", "USA", "Canada", "Mexico"};
+    private static final String[] ROLES = {"ADMIN", "USER", "MANAGER", "DEVELOPER", "ANALYST",
+            "SUPPORT", "TESTER", "DESIGNER", "ARCHITECT", "CONSULTANT"};
+    private static final String[] PERMISSIONS = {"READ_ALL", "WRITE_ALL", "DELETE_ALL", "READ_OWN", "WRITE_OWN",
+            "APPROVE_REQUESTS", "WRITE_CODE", "DEBUG_CODE", "GENERATE_REPORTS", "RESPOND_TICKETS", "CREATE_TESTS",
+            "RUN_TESTS", "CREATE_DESIGNS", "MODIFY_UI", "MODIFY_ARCHITECTURE", "APPROVE_CHANGES", "WRITE_REPORTS"};
+
+    private static final String INSERT_PERMISSION = "insert into permissions "
+            + "(id, version, permission, roles_id, created_date, modified_date, created_by, modified_by) "
+            + "values (?, 0, ?, ?, ?, ?, ?, ?)";
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final BeforeExecutionGenerator permissionIds;
+    private final DataGeneratorProperties properties;
+
+    public SyntheticDataGenerator(EntityManagerFactory entityManagerFactory, DataGeneratorProperties properties) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.permissionIds = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Permissions.class).getGenerator();
+        this.properties = properties;
+    }
+
+    /**
+     * Generates and inserts the configured data; expects the tables to be empty (contact emails/phones
+     * and role names are unique by their global index)
+     */
+    public void generate() {
+        int persons = properties.getPersons();
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        Cardinality addresses = Cardinality.of(properties, persons, properties.getAddresses());
+        Cardinality contacts = Cardinality.of(properties, persons, properties.getContacts());
+        Cardinality roles = Cardinality.of(properties, persons, properties.getRoles());
+        Cardinality permissions = Cardinality.of(properties, Math.toIntExact(properties.getRoles()), properties.getPermissions());
+        Plan plan = new Plan(addresses, contacts, roles, permissions);
+
+        int chunks = (persons + chunkSize - 1) / chunkSize;
+        long totalRows = persons + addresses.total() + contacts.total() + roles.total() + permissions.total();
+        log.info("Generating {} persons, {} addresses, {} contacts, {} roles, {} permissions ({} distribution, seed {}) "
+                        + "in {} chunks on {} threads", persons, addresses.total(), contacts.total(), roles.total(),
+                permissions.total(), properties.getDistribution(), properties.getSeed(), chunks, properties.getParallelism());
+
+        LongAdder written = new LongAdder();
+        AtomicInteger done = new AtomicInteger();
+        int reportEvery = Math.max(1, chunks / 10);
+        LocalDateTime now = LocalDateTime.now();
+        long start = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, properties.getParallelism()));
+        try {
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int from = chunk * chunkSize;
+                written.add(writeChunk(plan, chunk, from, Math.min(persons, from + chunkSize), now));
+                int completed = done.incrementAndGet();
+                if (completed % reportEvery == 0 && completed < chunks) {
+                    log.info("Generated {}/{} rows ({} rows/sec)", written.sum(), totalRows, rowsPerSecond(written.sum(), start));
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Data generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Data generation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        log.info("Generated {} rows in {} ms ({} rows/sec)", written.sum(), (System.nanoTime() - start) / 1_000_000,
+                rowsPerSecond(written.sum(), start));
+    }
+
+    private long writeChunk(Plan plan, int chunk, int from, int to, LocalDateTime now) {
+        // Mixed with a golden-ratio step so neighbouring chunks get unrelated streams
+        SplittableRandom random = new SplittableRandom(properties.getSeed() + chunk * 0x9E3779B97F4A7C15L);
+        long rows = 0;
+        List<Role> roles = new ArrayList<>();
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(properties.getBatchSize());
+            Transaction transaction = session.beginTransaction();
+            try {
+                // One table after the other, so every table's rows go out in full batches
+                List<Person> persons = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    persons.add(person(random, now));
+                }
+                persons.forEach(session::insert);
+                rows += persons.size();
+
+                for (int i = from; i < to; i++) {
+                    Person person = persons.get(i - from);
+                    for (long a = plan.addresses().first(i); a < plan.addresses().first(i + 1); a++) {
+                        session.insert(address(person, a, random, now));
+                        rows++;
+                    }
+                }
+                for (int i = from; i < to; i++) {
+                    Person person = persons.get(i - from);
+                    for (long c = plan.contacts().first(i); c < plan.contacts().first(i + 1); c++) {
+                        session.insert(contact(person, c, random, now));
+                        rows++;
+                    }
+                }
+
+                for (int i = from; i < to; i++) {
+                    Person person = persons.get(i - from);
+                    for (long r = plan.roles().first(i); r < plan.roles().first(i + 1); r++) {
+                        roles.add(role(person, r, random, now));
+                    }
+                }
+                roles.forEach(session::insert);
+                rows += roles.size();
+
+                rows += insertPermissions(session, plan, roles, Math.toIntExact(plan.roles().first(from)), random, now);
+
+                transaction.commit();
+            } catch (RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Permissions are written over plain JDBC: inserting them through Hibernate evicts the cached
+     * Role.permissions collections, which takes a lock on the whole cache region for every row
+     * (and needs a stateful session). Their ids still come from the entity's sequence generator.
+     */
+    private long insertPermissions(StatelessSession session, Plan plan, List<Role> roles, int firstRole,
+                                   SplittableRandom random, LocalDateTime now) {
+        SharedSessionContractImplementor implementor = (SharedSessionContractImplementor) session;
+        int batchSize = Math.max(1, properties.getBatchSize());
+        // The last batch of roles may still be pending, and the permissions reference them
+        implementor.getJdbcCoordinator().executeBatch();
+        return session.doReturningWork(connection -> {
+            long rows = 0;
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_PERMISSION)) {
+                Timestamp timestamp = Timestamp.valueOf(now);
+                for (int r = 0; r < roles.size(); r++) {
+                    Role role = roles.get(r);
+                    for (long p = plan.permissions().first(firstRole + r); p < plan.permissions().first(firstRole + r + 1); p++) {
+                        Permissions permission = permission(role, random, now);
+                        insert.setLong(1, (Long) permissionIds.generate(implementor, permission, null, EventType.INSERT));
+                        insert.setString(2, permission.getPermission());
+                        insert.setLong(3, role.getId());
+                        insert.setTimestamp(4, timestamp);
+                        insert.setTimestamp(5, timestamp);
+                        insert.setString(6, AUDITOR);
+                        insert.setString(7, AUDITOR);
+                        insert.addBatch();
+                        if (++rows % batchSize == 0) {
+                            insert.executeBatch();
+                        }
+                    }
+                }
+                insert.executeBatch();
+            }
+            return rows;
+        });
+    }
+
+    private static Person person(SplittableRandom random, LocalDateTime now) {
+        return Person.builder()
+                .password("password")
+                .firstName(pick(FIRST_NAMES, random))
+                .lastName(pick(LAST_NAMES, random))
+                .birthDay(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(55 * 365)))
+                .createdDate(now).modifiedDate(now).createdBy(AUDITOR).modifiedBy(AUDITOR)
+                .build();
+    }
+
+    private static Address address(Person person, long index, SplittableRandom random, LocalDateTime now) {
+        int city = random.nextInt(CITIES.length);
+        Address address = Address.builder()
+                .type(random.nextInt(4) == 0 ? AddressType.INTERNATIONAL : AddressType.LOCAL)
+                .street((1 + random.nextInt(9999)) + " " + pick(STREETS, random) + (index % 5 == 4 ? ", Suite " + (100 + random.nextInt(900)) : ""))
+                .postZipCode(ZIP_CODES[city])
+                .city(CITIES[city])
+                .province(PROVINCES[city])
+                .country(COUNTRIES[city])
+                .createdDate(now).modifiedDate(now).createdBy(AUDITOR).modifiedBy(AUDITOR)
+                .build();
+        address.setPerson(person);
+        return address;
+    }
+
+    private static Contact contact(Person person, long index, SplittableRandom random, LocalDateTime now) {
+        // Email and phone number are unique columns: both are derived from the global contact index
+        Contact contact = Contact.builder()
+                .contactType(random.nextBoolean() ? ContactType.PERSONAL : ContactType.WORK)
+                .email((person.getFirstName() + "." + person.getLastName()).toLowerCase(Locale.ROOT) + "." + index + "@example.com")
+                .phoneNumber(String.format("+1 %03d-%03d-%04d", 200 + index / 10_000_000 % 800, index / 10_000 % 1000, index % 10_000))
+                .createdDate(now).modifiedDate(now).createdBy(AUDITOR).modifiedBy(AUDITOR)
+                .build();
+        contact.setPerson(person);
+        return contact;
+    }
+
+    private static Role role(Person person, long index, SplittableRandom random, LocalDateTime now) {
+        Role role = Role.builder()
+                .role(pick(ROLES, random) + "_" + index)
+                .createdDate(now).modifiedDate(now).createdBy(AUDITOR).modifiedBy(AUDITOR)
+                .build();
+        role.setPerson(person);
+        return role;
+    }
+
+    private static Permissions permission(Role role, SplittableRandom random, LocalDateTime now) {
+        Permissions permission = Permissions.builder()
+                .permission(pick(PERMISSIONS, random))
+                .createdDate(now).modifiedDate(now).createdBy(AUDITOR).modifiedBy(AUDITOR)
+                .build();
+        permission.setRole(role);
+        return permission;
+    }
+
+    private static String pick(String[] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static long rowsPerSecond(long rows, long startNanos) {
+        return rows * 1_000_000_000L / Math.max(1, System.nanoTime() - startNanos);
+    }
+
+    private record Plan(Cardinality addresses, Cardinality contacts, Cardinality roles, Cardinality permissions) {
+    }
+}
@@ -5,6 +5,8 @@ import com.demo.departments.demoDepartments.persistence.utils.mapping.MappingAtt
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 
 @Data
@@ -13,6 +15,7 @@ import lombok.experimental.SuperBuilder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_address_person_id", columnList = "person_id"))
 public class Address extends PersistenceModel {
 
     @Enumerated(EnumType.STRING)
@@ -42,7 +45,8 @@ public class Address extends PersistenceModel {
             description = "Person addresses"
     )
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "person_id")
+    @JoinColumn(name = "person_id", foreignKey = @ForeignKey(name = "fk_address_person"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Person person;
 
     public void setPerson(Person person) {
@@ -4,6 +4,8 @@ import com.demo.departments.demoDepartments.persistence.model.base.PersistenceMo
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 @Data
 @SuperBuilder(toBuilder = true)
@@ -11,6 +13,7 @@ import lombok.experimental.SuperBuilder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_contact_person_id", columnList = "person_id"))
 public class Contact extends PersistenceModel {
 
     @Enumerated(EnumType.STRING)
@@ -27,7 +30,8 @@ public class Contact extends PersistenceModel {
 
     @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "person_id")
+    @JoinColumn(name = "person_id", foreignKey = @ForeignKey(name = "fk_contact_person"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Person person;
 
     public void setPerson(Person person) {
@@ -18,6 +18,7 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_person_birthday", columnList = "birthday"))
 public class Person extends PersistenceModel {
 
     @ToString.Exclude
@@ -0,0 +1,18 @@
+package com.demo.departments.demoDepartments.persistence.model.base;
+
+import java.util.List;
+
+/**
+ * Second-level cache regions; sizes and TTLs are configured per region under {@code departments.cache.regions}
+ */
+public final class CacheRegions {
+
+    public static final String ROLE = "role";
+    public static final String PERMISSIONS = "permissions";
+    public static final String ROLE_PERMISSIONS = "role-permissions";
+
+    public static final List<String> ALL = List.of(ROLE, PERMISSIONS, ROLE_PERMISSIONS);
+
+    private CacheRegions() {
+    }
+}
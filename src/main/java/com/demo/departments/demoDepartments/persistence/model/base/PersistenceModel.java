@@ -28,11 +28,22 @@ public abstract class PersistenceModel implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Pooled per-entity sequence (person_seq, address_seq, ...; increment 50).
+     * Unlike IDENTITY it lets Hibernate assign ids before the INSERT, so inserts can be JDBC-batched.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     @Column(name = "id", updatable = false, unique = true, nullable = false)
     private Long id;
 
+    /**
+     * Optimistic lock: every update increments it and fails when the row no longer has the version it was read with
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     protected LocalDateTime createdDate;
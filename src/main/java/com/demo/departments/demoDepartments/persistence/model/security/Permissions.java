@@ -1,10 +1,16 @@
 package com.demo.departments.demoDepartments.persistence.model.security;
 
 
+import com.demo.departments.demoDepartments.persistence.model.base.CacheRegions;
 import com.demo.departments.demoDepartments.persistence.model.base.PersistenceModel;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 @Data
 @SuperBuilder(toBuilder = true)
@@ -12,6 +18,12 @@ import lombok.experimental.SuperBuilder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_permissions_roles_id", columnList = "roles_id"),
+        @Index(name = "idx_permissions_permission", columnList = "permission")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.PERMISSIONS)
+@BatchSize(size = 50)
 public class Permissions extends PersistenceModel {
 
     @Column(length = 50, nullable = false)
@@ -19,7 +31,8 @@ public class Permissions extends PersistenceModel {
 
     @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
-    @JoinColumn(name = "roles_id", nullable = false)
+    @JoinColumn(name = "roles_id", nullable = false, foreignKey = @ForeignKey(name = "fk_permissions_role"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Role role;
 
     public void setRole(Role role) {
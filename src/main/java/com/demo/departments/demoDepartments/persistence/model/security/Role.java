@@ -2,11 +2,17 @@ package com.demo.departments.demoDepartments.persistence.model.security;
 
 
 import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.base.CacheRegions;
 import com.demo.departments.demoDepartments.persistence.model.base.PersistenceModel;
 import com.demo.departments.demoDepartments.persistence.utils.mapping.MappingAttribute;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -17,6 +23,8 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_role_person_id", columnList = "person_id"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.ROLE)
 public class Role extends PersistenceModel {
 
     @Column(unique = true, length = 50, nullable = false)
@@ -30,11 +38,14 @@ public class Role extends PersistenceModel {
             description = "Role permissions"
     )
     @OneToMany(mappedBy = "role", cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.ROLE_PERMISSIONS)
+    @BatchSize(size = 50)
     private Set<Permissions> permissions = new HashSet<>();
 
     @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "person_id")
+    @JoinColumn(name = "person_id", foreignKey = @ForeignKey(name = "fk_role_person"))
+    @OnDelete(action = OnDeleteAction.SET_NULL)
     private Person person;
 
     public void setPermission(Permissions permission) {
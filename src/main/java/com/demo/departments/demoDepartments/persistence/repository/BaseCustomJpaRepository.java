@@ -2,20 +2,134 @@ package com.demo.departments.demoDepartments.persistence.repository;
 
 import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
 import com.cosium.spring.data.jpa.entity.graph.repository.EntityGraphJpaRepository;
+import com.cosium.spring.data.jpa.entity.graph.repository.EntityGraphJpaSpecificationExecutor;
+import jakarta.persistence.Tuple;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.repository.NoRepositoryBean;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 //@NoRepositoryBean каже Spring, що цей інтерфейс — лише база для інших репозиторіїв і не повинен бути створений як окремий бін.
 @NoRepositoryBean // не створювати як окремий бін , а встановити як базу для інших репозіторієв
-public interface BaseCustomJpaRepository <T, ID extends Serializable> extends EntityGraphJpaRepository<T, ID> {
+public interface BaseCustomJpaRepository <T, ID extends Serializable> extends EntityGraphJpaRepository<T, ID>, EntityGraphJpaSpecificationExecutor<T> {
 
     void batchSave(List<T> entities);
 
     void deleteByIdCustom(ID id);
 
+    /**
+     * Deletes the entities with the given ids in one bulk {@code DELETE ... WHERE id IN (:ids)}.
+     * Child rows are removed or detached by the database ({@code ON DELETE CASCADE / SET NULL}),
+     * so the statement count does not depend on how many children an entity has.
+     * Pending changes are flushed first and the persistence context is cleared afterwards.
+     *
+     * @param ids ids to delete
+     * @return number of deleted rows
+     */
+    int bulkDeleteByIds(Collection<ID> ids);
+
+    /**
+     * Updates only the given basic attributes of one row with a single
+     * {@code UPDATE ... SET <columns>, version = version + 1 WHERE id = :id AND version = :version},
+     * without loading the entity or its collections. The statement goes straight to JDBC, so Hibernate does not
+     * invalidate the whole second-level cache region as it would for a bulk update; the caller evicts the row.
+     * Pending changes are flushed first and a managed instance of the row is detached afterwards.
+     *
+     * @param id id of the row to update
+     * @param version version the client read; the row is only updated while it still has it
+     * @param values attribute name to new value, e.g. {@code firstName} or {@code modifiedDate}
+     * @return false when no row has this id and version (deleted, or changed meanwhile)
+     */
+    boolean updateAttributes(ID id, long version, Map<String, Object> values);
+
+    /**
+     * Keyset (cursor) page ordered by id: {@code WHERE id > :after ORDER BY id LIMIT :limit}.
+     * The cost of a page does not depend on how deep it is, unlike OFFSET paging.
+     *
+     * @param after last id of the previous page, or null for the first page
+     * @param limit maximum number of rows to return
+     * @param entityGraph entity graph to apply, or null
+     * @return entities with id greater than {@code after}, in ascending id order
+     */
+    List<T> findAllAfter(ID after, int limit, EntityGraph entityGraph);
+
+    /**
+     * Keyset (cursor) page ordered by id, restricted by the given specification
+     *
+     * @param specification additional restriction (e.g. by parent id), or null
+     * @param after last id of the previous page, or null for the first page
+     * @param limit maximum number of rows to return
+     * @param entityGraph entity graph to apply, or null
+     * @return matching entities with id greater than {@code after}, in ascending id order
+     */
+    List<T> findAllAfter(Specification<T> specification, ID after, int limit, EntityGraph entityGraph);
+
+    /**
+     * Reads only the given attribute paths (e.g. "firstName", "person.id") as tuples in id order.
+     * No entity is materialized, so nothing ends up in the persistence context.
+     *
+     * @param specification additional restriction (e.g. by parent id), or null
+     * @param paths attribute paths to select, in tuple order
+     * @param after last id of the previous page, or null
+     * @param limit maximum number of rows, or null for all
+     * @return one tuple per matching entity
+     */
+    List<Tuple> findAllTuples(Specification<T> specification, List<String> paths, ID after, Integer limit);
+
+    /**
+     * Ids of one keyset page of the entities matching the specification, in id order, without loading them
+     *
+     * @param specification restriction of the entities, or null
+     * @param after only entities with a greater id, or null
+     * @param limit maximum number of ids
+     */
+    List<ID> findIdsAfter(Specification<T> specification, ID after, int limit);
+
+    /**
+     * Ids of the children in one-to-many collections of the matching entities, without loading a child or a parent:
+     * one {@code SELECT <parent fk>, array_agg(id) ... GROUP BY <parent fk>} per child table, all in one
+     * {@code UNION ALL} query. The parents are restricted by a subquery, so a page of them is not sent as an id list.
+     *
+     * @param specification restriction of the parents, or null
+     * @param after only parents with a greater id, or null
+     * @param upTo only parents with this id or a smaller one (e.g. the last of a page), or null
+     * @param collections one-to-many collection attributes of the parent, e.g. "addresses"
+     * @return per collection, the child ids of every parent having at least one child
+     */
+    Map<String, Map<ID, Set<Long>>> findChildIds(Specification<T> specification, ID after, ID upTo,
+                                                 List<String> collections);
+
+    /**
+     * Summarizes the state of the entities matching the specification, and of the entities reached from them over
+     * the given association paths, in one {@code UNION ALL} query that materializes nothing. Each path (the matching
+     * entities themselves first, then {@code paths} in order) gives one tuple of
+     * {@code (index, count, max(modifiedDate), sum(version), count of set to-one references)}, index 0 being the
+     * matching entities. An insert, update, delete or detached reference changes at least one of the values.
+     *
+     * @param specification restriction of the root entities (e.g. by id), or null
+     * @param after only roots with a greater id, or null
+     * @param upTo only roots with this id or a smaller one (e.g. the last of a page), or null
+     * @param paths association paths to summarize, e.g. "roles" and "roles.permissions"
+     * @return one tuple per path in unspecified order; the index tells them apart
+     */
+    List<Tuple> summarizeChanges(Specification<T> specification, ID after, ID upTo, List<String> paths);
+
+    /**
+     * Streams all entities in id order over a forward-only JDBC cursor, without joining any association.
+     * Rows are fetched from the database {@code fetchSize} at a time and loaded read-only,
+     * so the caller must consume the stream inside a transaction and close it afterwards.
+     *
+     * @param fetchSize JDBC fetch size
+     * @return stream of entities
+     */
+    Stream<T> streamAll(int fetchSize);
+
 //    T findByIdWithGraph(ID id , EntityGraph entityGraph);
 
 }
@@ -9,7 +9,7 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import java.util.List;
 import java.util.Optional;
 
-public interface PersonRepository extends BaseCustomJpaRepository<Person, Long> , JpaSpecificationExecutor<Person> {
+public interface PersonRepository extends BaseCustomJpaRepository<Person, Long> , JpaSpecificationExecutor<Person>, PersonSearchRepository {
 
      Optional<Person> findById(Long id, EntityGraph entityGraph);
      
@@ -0,0 +1,22 @@
+package com.demo.departments.demoDepartments.persistence.repository;
+
+import java.util.List;
+
+/**
+ * Ranked person search over names, contact emails/phones and address cities/streets
+ */
+public interface PersonSearchRepository {
+
+    /**
+     * Persons matching the query, best match first (rank descending, then id)
+     *
+     * @param query search text as typed by the user
+     * @param after last hit of the previous page, or null for the first page
+     * @param limit maximum number of hits
+     * @return ids with their rank; the rank only orders hits of the same query
+     */
+    List<Hit> search(String query, Hit after, int limit);
+
+    record Hit(long id, double rank) {
+    }
+}
@@ -3,13 +3,55 @@ package com.demo.departments.demoDepartments.persistence.repository.impl;
 import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
 import com.cosium.spring.data.jpa.entity.graph.repository.support.EntityGraphSimpleJpaRepository;
 import com.demo.departments.demoDepartments.persistence.repository.BaseCustomJpaRepository;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
 import jakarta.persistence.EntityManager;
-import org.springframework.beans.factory.annotation.Value;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.criteria.Subquery;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.BasicEntityIdentifierMapping;
+import org.hibernate.metamodel.mapping.BasicValuedModelPart;
+import org.hibernate.metamodel.mapping.JdbcMapping;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.type.descriptor.ValueBinder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.support.PageableExecutionUtils;
 
 import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class BaseCustomJpaRepositoryImpl<T, ID extends Serializable> extends EntityGraphSimpleJpaRepository<T, ID> implements BaseCustomJpaRepository<T, ID> {
 
@@ -17,14 +59,33 @@ public class BaseCustomJpaRepositoryImpl<T, ID extends Serializable> extends Ent
     private final EntityManager entityManager;
     private final Class<T> domainClass;
 
-    @Value("${hibernate.jdbc.batch_size:50}")
-    private int batchSize;
+    /** Owning attribute of the child per one-to-many collection, see {@link #mappedBy} */
+    private final Map<String, String> oneToManyOwners;
+
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    // Repository base classes are not container-managed beans, so @Value would never be injected here
+    private final int batchSize;
 
     public BaseCustomJpaRepositoryImpl(JpaEntityInformation<T, ID> entityInformation, EntityManager entityManager) {
         super(entityInformation, entityManager);
         this.entityInformation = entityInformation;
         this.entityManager = entityManager;
         this.domainClass = entityInformation.getJavaType();
+        this.batchSize = resolveBatchSize(entityManager);
+        this.oneToManyOwners = AttributeRegistry.oneToManyOwners(entityManager.getMetamodel().managedType(domainClass));
+    }
+
+    /**
+     * Flush interval of {@link #batchSave}, aligned with the configured JDBC batch size
+     */
+    private static int resolveBatchSize(EntityManager entityManager) {
+        Object configured = entityManager.getEntityManagerFactory().getProperties().get(AvailableSettings.STATEMENT_BATCH_SIZE);
+        if (configured == null) {
+            return DEFAULT_BATCH_SIZE;
+        }
+        int size = Integer.parseInt(configured.toString().trim());
+        return size > 0 ? size : DEFAULT_BATCH_SIZE;
     }
 
     @Override
@@ -37,6 +98,8 @@ public class BaseCustomJpaRepositoryImpl<T, ID extends Serializable> extends Ent
                 entityManager.clear();
             }
         }
+        // Send the last partial batch too
+        entityManager.flush();
     }
 
 //    @Override
@@ -46,9 +109,387 @@ public class BaseCustomJpaRepositoryImpl<T, ID extends Serializable> extends Ent
 //    }
 
     public void deleteByIdCustom(ID id) {
-        T entity = entityManager.find(domainClass, id);
-        if (entity != null) {
-            entityManager.remove(entity);
+        bulkDeleteByIds(List.of(id));
+    }
+
+    @Override
+    public int bulkDeleteByIds(Collection<ID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        // The bulk statement bypasses the persistence context: write pending changes first ...
+        entityManager.flush();
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<T> delete = cb.createCriteriaDelete(domainClass);
+        Root<T> root = delete.from(domainClass);
+        delete.where(root.get(entityInformation.getIdAttribute().getName()).in(ids));
+        int deleted = entityManager.createQuery(delete).executeUpdate();
+
+        // ... and drop managed instances of deleted rows and of children changed by the FK actions
+        entityManager.clear();
+        return deleted;
+    }
+
+    @Override
+    public boolean updateAttributes(ID id, long version, Map<String, Object> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to update");
+        }
+        entityManager.flush();
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(domainClass);
+        String versionColumn = persister.getVersionMapping().getSelectionExpression();
+
+        StringBuilder sql = new StringBuilder("update ")
+                .append(persister.getIdentifierTableDetails().getTableName()).append(" set ");
+        List<String> names = new ArrayList<>(values.keySet());
+        List<BasicValuedModelPart> columns = new ArrayList<>(names.size());
+        for (String name : names) {
+            AttributeMapping attribute = persister.findAttributeMapping(name);
+            if (!(attribute instanceof BasicValuedModelPart column)) {
+                throw new IllegalArgumentException("Not a column of " + domainClass.getSimpleName() + ": " + name);
+            }
+            columns.add(column);
+            sql.append(column.getSelectionExpression()).append(" = ?, ");
+        }
+        sql.append(versionColumn).append(" = ").append(versionColumn).append(" + 1 where ")
+                .append(((BasicEntityIdentifierMapping) persister.getIdentifierMapping()).getSelectionExpression())
+                .append(" = ? and ").append(versionColumn).append(" = ?");
+
+        int updated = session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                int index = 1;
+                for (int i = 0; i < columns.size(); i++) {
+                    bind(statement, index++, columns.get(i).getJdbcMapping(), values.get(names.get(i)), session);
+                }
+                bind(statement, index++, persister.getIdentifierMapping().getSingleJdbcMapping(), id, session);
+                bind(statement, index, persister.getVersionMapping().getJdbcMapping(), version, session);
+                return statement.executeUpdate();
+            }
+        });
+
+        // A managed instance would still show the old state and version
+        Object managed = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(id, persister));
+        if (managed != null) {
+            entityManager.detach(managed);
+        }
+        return updated == 1;
+    }
+
+    /**
+     * Binds a value the way Hibernate would for the column: converters, enum mappings and JDBC types applied
+     */
+    @SuppressWarnings("unchecked")
+    private static void bind(PreparedStatement statement, int index, JdbcMapping mapping, Object value,
+                             SessionImplementor session) throws SQLException {
+        Object relational = mapping.convertToRelationalValue(value);
+        if (relational == null) {
+            statement.setNull(index, mapping.getJdbcType().getJdbcTypeCode());
+        } else {
+            ((ValueBinder<Object>) mapping.getJdbcValueBinder()).bind(statement, relational, index, session);
+        }
+    }
+
+    @Override
+    public List<T> findAllAfter(ID after, int limit, EntityGraph entityGraph) {
+        return findAllAfter(null, after, limit, entityGraph);
+    }
+
+    @Override
+    public List<T> findAllAfter(Specification<T> specification, ID after, int limit, EntityGraph entityGraph) {
+        if (entityGraph == null) {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<T> query = cb.createQuery(domainClass);
+            Root<T> root = query.from(domainClass);
+            query.select(root)
+                    .where(keysetPredicates(specification, after, root, query, cb))
+                    .orderBy(cb.asc(idPath(root)));
+            return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+        }
+
+        // Two phases, so the LIMIT is applied by the database and not in memory over joined collection rows
+        return findAllByIdsInOrder(findIdsAfter(specification, after, limit), entityGraph);
+    }
+
+    @Override
+    public List<ID> findIdsAfter(Specification<T> specification, ID after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ID> query = cb.createQuery(entityInformation.getIdType());
+        Root<T> root = query.from(domainClass);
+        query.select(idPath(root))
+                .distinct(true)
+                .where(keysetPredicates(specification, after, root, query, cb))
+                .orderBy(cb.asc(idPath(root)));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<Tuple> findAllTuples(Specification<T> specification, List<String> paths, ID after, Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(domainClass);
+
+        List<Selection<?>> selections = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            Path<?> attribute = root;
+            for (String segment : path.split("\\.")) {
+                attribute = attribute.get(segment);
+            }
+            selections.add(attribute);
+        }
+
+        query.multiselect(selections)
+                .where(keysetPredicates(specification, after, root, query, cb))
+                .orderBy(cb.asc(idPath(root)));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (limit != null) {
+            typedQuery.setMaxResults(limit);
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<Tuple> summarizeChanges(Specification<T> specification, ID after, ID upTo, List<String> paths) {
+        HibernateCriteriaBuilder cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> roots = cb.createTupleQuery();
+        Root<T> root = roots.from(domainClass);
+        // A reference set to null by ON DELETE SET NULL changes neither the version nor modifiedDate
+        Expression<Long> references = cb.literal(0L);
+        for (SingularAttribute<? super T, ?> attribute : entityManager.getMetamodel().entity(domainClass).getSingularAttributes()) {
+            if (attribute.isAssociation()) {
+                references = cb.sum(references, cb.count(root.get(attribute)));
+            }
+        }
+        roots.multiselect(changeSummary(0, root, cb, references))
+                .where(rangePredicates(specification, after, upTo, root, roots, cb));
+
+        List<CriteriaQuery<Tuple>> branches = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            CriteriaQuery<Tuple> branch = cb.createTupleQuery();
+            Root<T> owner = branch.from(domainClass);
+            From<?, ?> reached = owner;
+            for (String segment : paths.get(i).split("\\.")) {
+                reached = reached.join(segment);
+            }
+            branch.multiselect(changeSummary(i + 1, reached, cb, cb.literal(0L)))
+                    .where(rangePredicates(specification, after, upTo, owner, branch, cb));
+            branches.add(branch);
+        }
+
+        CriteriaQuery<Tuple> query = branches.isEmpty()
+                ? roots
+                : cb.unionAll(roots, branches.toArray(new CriteriaQuery<?>[0]));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Map<String, Map<ID, Set<Long>>> findChildIds(Specification<T> specification, ID after, ID upTo,
+                                                        List<String> collections) {
+        Map<String, Map<ID, Set<Long>>> childIds = new LinkedHashMap<>();
+        if (collections.isEmpty()) {
+            return childIds;
+        }
+        HibernateCriteriaBuilder cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+
+        List<CriteriaQuery<Tuple>> branches = new ArrayList<>();
+        for (int i = 0; i < collections.size(); i++) {
+            String collection = collections.get(i);
+            childIds.put(collection, new HashMap<>());
+
+            CriteriaQuery<Tuple> branch = cb.createTupleQuery();
+            Root<?> child = branch.from(childClass(collection));
+            // The foreign key column itself: no join back to the parent table
+            Path<ID> parentId = child.get(mappedBy(collection)).get(entityInformation.getIdAttribute().getName());
+
+            Subquery<ID> parents = branch.subquery(entityInformation.getIdType());
+            Root<T> parent = parents.from(domainClass);
+            // A range instead of LIMIT: the page is already known, and LIMIT in an IN subquery is not portable
+            parents.select(idPath(parent)).where(rangePredicates(specification, after, upTo, parent, branch, cb));
+
+            Path<Long> id = child.get("id");
+            branch.multiselect(cb.literal(i), parentId, cb.arrayAgg(cb.asc(id), id))
+                    .where(parentId.in(parents))
+                    .groupBy(parentId);
+            branches.add(branch);
+        }
+
+        CriteriaQuery<Tuple> query = branches.size() == 1
+                ? branches.get(0)
+                : cb.unionAll(branches.get(0), branches.subList(1, branches.size()).toArray(new CriteriaQuery<?>[0]));
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            Set<Long> ids = new LinkedHashSet<>();
+            for (Object id : (Object[]) tuple.get(2)) {
+                ids.add((Long) id);
+            }
+            childIds.get(collections.get(((Number) tuple.get(0)).intValue())).put((ID) tuple.get(1), ids);
+        }
+        return childIds;
+    }
+
+    private Class<?> childClass(String collection) {
+        return entityManager.getMetamodel().entity(domainClass).getPluralAttributes().stream()
+                .filter(attribute -> attribute.getName().equals(collection))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown collection: " + collection))
+                .getElementType().getJavaType();
+    }
+
+    /**
+     * The child's attribute owning a one-to-many collection, e.g. "person" for Person.addresses
+     */
+    private String mappedBy(String collection) {
+        String owner = oneToManyOwners.get(collection);
+        if (owner == null) {
+            throw new IllegalArgumentException("Not a mapped one-to-many collection: " + collection);
+        }
+        return owner;
+    }
+
+    /**
+     * Selection of one {@link #summarizeChanges} tuple over the given entities
+     */
+    private static List<Selection<?>> changeSummary(int index, From<?, ?> entities, CriteriaBuilder cb,
+                                                    Expression<Long> references) {
+        return List.of(
+                cb.literal(index),
+                cb.count(entities),
+                cb.greatest(entities.<LocalDateTime>get("modifiedDate")),
+                cb.sum(entities.<Long>get("version")),
+                references);
+    }
+
+    /**
+     * Pages with an entity graph in two phases: a page of root ids (sorted and limited by the database),
+     * then the graph for only those ids. A join-fetched collection would otherwise make Hibernate
+     * read every matching row and paginate in memory (HHH90003004).
+     */
+    @Override
+    public Page<T> findAll(Specification<T> specification, Pageable pageable, EntityGraph entityGraph) {
+        if (entityGraph == null || pageable.isUnpaged()) {
+            return super.findAll(specification, pageable, entityGraph);
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ID> query = cb.createQuery(entityInformation.getIdType());
+        Root<T> root = query.from(domainClass);
+        query.select(idPath(root)).where(keysetPredicates(specification, null, root, query, cb));
+        List<Order> orders = new ArrayList<>(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        // Id as the last sort key keeps pages stable when the requested sort has ties
+        orders.add(cb.asc(idPath(root)));
+        query.orderBy(orders);
+
+        List<ID> ids = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return PageableExecutionUtils.getPage(findAllByIdsInOrder(ids, entityGraph), pageable,
+                () -> specification == null ? count() : count(specification));
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable, EntityGraph entityGraph) {
+        return findAll((Specification<T>) null, pageable, entityGraph);
+    }
+
+    /**
+     * Second phase of two-phase paging: loads the entity graph for the given ids and returns
+     * the entities in the order of {@code ids}
+     */
+    protected List<T> findAllByIdsInOrder(List<ID> ids, EntityGraph entityGraph) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        query.select(root).where(idPath(root).in(ids));
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(query);
+        applyEntityGraph(typedQuery, entityGraph);
+
+        Map<ID, T> byId = new HashMap<>();
+        for (T entity : typedQuery.getResultList()) {
+            byId.put(entityInformation.getId(entity), entity);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                ordered.add(entity);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * WHERE clause of an already read page: {@link #keysetPredicates} plus {@code id <= upTo}
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate[] rangePredicates(Specification<T> specification, ID after, ID upTo, Root<T> root,
+                                        CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Predicate[] keyset = keysetPredicates(specification, after, root, query, cb);
+        if (upTo == null) {
+            return keyset;
+        }
+        Predicate[] range = Arrays.copyOf(keyset, keyset.length + 1);
+        range[keyset.length] = cb.lessThanOrEqualTo(this.<Comparable>idPath(root), (Comparable) upTo);
+        return range;
+    }
+
+    /**
+     * WHERE clause of a keyset page: the specification plus {@code id > after}
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate[] keysetPredicates(Specification<T> specification, ID after, Root<T> root,
+                                         CriteriaQuery<?> query, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (specification != null) {
+            Predicate restriction = specification.toPredicate(root, query, cb);
+            if (restriction != null) {
+                predicates.add(restriction);
+            }
+        }
+        if (after != null) {
+            // Seek past the last row of the previous page - served straight from the PK index
+            predicates.add(cb.greaterThan(this.<Comparable>idPath(root), (Comparable) after));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private <Y> Path<Y> idPath(Root<T> root) {
+        return root.get(entityInformation.getIdAttribute().getName());
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Stream<T> streamAll(int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        Path<Comparable> idPath = idPath(root);
+        query.select(root).orderBy(cb.asc(idPath));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                // No dirty-checking snapshots for rows that are only read and written out
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    /**
+     * Applies a cosium entity graph to a hand-built query as a fetch/load graph hint
+     */
+    protected void applyEntityGraph(TypedQuery<?> query, EntityGraph entityGraph) {
+        if (entityGraph == null) {
+            return;
         }
+        entityGraph.buildQueryHint(entityManager, domainClass)
+                .ifPresent(hint -> query.setHint(hint.type().key(), hint.entityGraph()));
     }
 }
@@ -0,0 +1,93 @@
+package com.demo.departments.demoDepartments.persistence.repository.impl;
+
+import com.demo.departments.demoDepartments.persistence.repository.PersonSearchRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * PostgreSQL: matches on the trigger-maintained {@code person.search_text} (pg_trgm substring and fuzzy word match)
+ * and {@code person.search_vector} (full text), ranked by the better of trigram word similarity and
+ * {@code ts_rank}. Other databases (the H2 test profile) get a portable fallback: case-insensitive substring
+ * matches on the same fields, ranked exact name > name prefix > name substring > contact/address match.
+ */
+public class PersonSearchRepositoryImpl implements PersonSearchRepository {
+
+    private static final String POSTGRES_SEARCH = """
+            WITH q AS (SELECT CAST(:text AS text) AS text, websearch_to_tsquery('simple', :query) AS ts),
+            hits AS (
+                SELECT p.id, CAST(GREATEST(word_similarity(q.text, p.search_text), ts_rank(p.search_vector, q.ts)) AS float8) AS rank
+                FROM person p, q
+                WHERE p.search_text LIKE :contains ESCAPE '\\'
+                   OR p.search_vector @@ q.ts
+                   OR q.text <%% p.search_text
+            )
+            SELECT id, rank FROM hits
+            %s
+            ORDER BY rank DESC, id
+            LIMIT :limit
+            """;
+
+    private static final String POSTGRES_AFTER = "WHERE rank < :afterRank OR (rank = :afterRank AND id > :afterId)";
+
+    private static final String NAME_MATCH = "lower(p.firstName) like %1$s escape '\\' or lower(p.lastName) like %1$s escape '\\'";
+
+    private static final String FALLBACK_RANK = "case when lower(p.firstName) = :text or lower(p.lastName) = :text then 1.0"
+            + " when " + NAME_MATCH.formatted(":prefix") + " then 0.75"
+            + " when " + NAME_MATCH.formatted(":contains") + " then 0.5"
+            + " else 0.25 end";
+
+    private static final String FALLBACK_SEARCH = "select p.id, " + FALLBACK_RANK + " as score from Person p"
+            + " where (" + NAME_MATCH.formatted(":contains")
+            + " or exists (select 1 from Contact c where c.person = p"
+            + " and (lower(c.email) like :contains escape '\\' or lower(c.phoneNumber) like :contains escape '\\'))"
+            + " or exists (select 1 from Address a where a.person = p"
+            + " and (lower(a.city) like :contains escape '\\' or lower(a.street) like :contains escape '\\')))"
+            + " %s order by score desc, p.id";
+
+    private static final String FALLBACK_AFTER = "and (" + FALLBACK_RANK + " < :afterRank"
+            + " or (" + FALLBACK_RANK + " = :afterRank and p.id > :afterId))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean postgres;
+
+    public PersonSearchRepositoryImpl(EntityManagerFactory entityManagerFactory) {
+        this.postgres = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    @Override
+    public List<Hit> search(String query, Hit after, int limit) {
+        String text = query.trim().toLowerCase(Locale.ROOT);
+        String escaped = text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+
+        Query search;
+        if (postgres) {
+            search = entityManager.createNativeQuery(POSTGRES_SEARCH.formatted(after == null ? "" : POSTGRES_AFTER))
+                    .setParameter("query", query.trim())
+                    .setParameter("limit", limit);
+        } else {
+            search = entityManager.createQuery(FALLBACK_SEARCH.formatted(after == null ? "" : FALLBACK_AFTER))
+                    .setParameter("prefix", escaped + "%")
+                    .setMaxResults(limit);
+        }
+        search.setParameter("text", text).setParameter("contains", "%" + escaped + "%");
+        if (after != null) {
+            search.setParameter("afterRank", after.rank()).setParameter("afterId", after.id());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = search.getResultList();
+        return rows.stream()
+                .map(row -> new Hit(((Number) row[0]).longValue(), ((Number) row[1]).doubleValue()))
+                .toList();
+    }
+}
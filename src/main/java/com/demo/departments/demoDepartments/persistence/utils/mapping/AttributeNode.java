@@ -0,0 +1,91 @@
+package com.demo.departments.demoDepartments.persistence.utils.mapping;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Map;
+
+/**
+ * One requestable attribute of an entity (a {@link MappingAttribute} field), or the entity itself for the root.
+ * Nodes are built once by {@link AttributeRegistry} and never change; the children of an attribute are the
+ * requestable attributes of its target type, so cycles like {@code addresses.person.addresses} resolve too
+ * (and nodes compare by identity).
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class AttributeNode {
+
+    /**
+     * Attribute name, empty for the root
+     */
+    private final String name;
+
+    /**
+     * Target type: the element type for collections, the entity class for the root
+     */
+    private final Class<?> type;
+
+    /**
+     * True for to-many attributes
+     */
+    private final boolean collection;
+
+    /**
+     * Requestable attributes of {@link #type} by name
+     */
+    private final Map<String, AttributeNode> children;
+
+    /**
+     * Reads the attribute of an entity, {@code (Object) -> Object}; null for the root
+     */
+    @Getter(AccessLevel.NONE)
+    private final MethodHandle reader;
+
+    /**
+     * The value of this attribute on the entity (a proxy is unwrapped first), lazy collections left uninitialized
+     */
+    public Object read(Object entity) {
+        try {
+            return (Object) reader.invokeExact(Hibernate.unproxy(entity));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The requestable attribute {@code name} of the target type, or null when there is none
+     */
+    public AttributeNode child(String name) {
+        return children.get(name);
+    }
+
+    /**
+     * Walks a dotted path like {@code "roles.permissions"} in one step per segment
+     *
+     * @return the node of the last segment, or null when a segment is not a requestable attribute
+     */
+    public AttributeNode resolve(String path) {
+        AttributeNode node = this;
+        int start = 0;
+        while (node != null) {
+            int end = path.indexOf('.', start);
+            node = node.child(end < 0 ? path.substring(start) : path.substring(start, end));
+            if (end < 0) {
+                return node;
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        // Children are left out, they may lead back to this node
+        return "AttributeNode(" + name + ": " + type.getSimpleName() + (collection ? "[]" : "") + ")";
+    }
+}
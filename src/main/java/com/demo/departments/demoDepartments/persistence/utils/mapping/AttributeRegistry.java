@@ -0,0 +1,195 @@
+package com.demo.departments.demoDepartments.persistence.utils.mapping;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.PluralAttribute;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * The requestable attributes ({@link MappingAttribute} fields) of every entity as {@link AttributeNode} trees,
+ * built once at startup from the JPA {@link Metamodel}: inherited attributes and collection element types
+ * come from the metamodel, and the readers of the attributes are resolved here too, so requests never look at
+ * fields, annotations or generic signatures again.
+ * <p>
+ * Immutable once constructed and safe to share between threads.
+ */
+@Component
+public class AttributeRegistry {
+
+    private final Map<Class<?>, AttributeNode> roots;
+    private final Map<Class<?>, Set<String>> mappablePaths;
+    private final Map<Class<?>, Set<String>> associations;
+    private final Set<Class<?>> subAttributeTargets;
+
+    @Autowired
+    public AttributeRegistry(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory.getMetamodel());
+    }
+
+    public AttributeRegistry(Metamodel metamodel) {
+        // Every type gets its (still empty) attribute map first, so nodes can point at the maps of their targets
+        Map<Class<?>, Map<String, AttributeNode>> attributesByType = new HashMap<>();
+        for (EntityType<?> entity : metamodel.getEntities()) {
+            attributesByType.put(entity.getJavaType(), new LinkedHashMap<>());
+        }
+
+        Map<Class<?>, AttributeNode> roots = new HashMap<>();
+        Map<Class<?>, Set<String>> associations = new HashMap<>();
+        Set<Class<?>> subAttributeTargets = new HashSet<>();
+        for (EntityType<?> entity : metamodel.getEntities()) {
+            Map<String, AttributeNode> attributes = attributesByType.get(entity.getJavaType());
+            Set<String> entityAssociations = new TreeSet<>();
+            for (Attribute<?, ?> attribute : entity.getAttributes()) {
+                if (attribute.isAssociation()) {
+                    entityAssociations.add(attribute.getName());
+                }
+                if (!isMappingAttribute(attribute)) {
+                    continue;
+                }
+                Class<?> target = attribute instanceof PluralAttribute<?, ?, ?> plural
+                        ? plural.getElementType().getJavaType()
+                        : attribute.getJavaType();
+                Map<String, AttributeNode> children = attributesByType.getOrDefault(target, Map.of());
+                if (((AnnotatedElement) attribute.getJavaMember()).getAnnotation(MappingAttribute.class).withSubAttributes()) {
+                    subAttributeTargets.add(target);
+                }
+                attributes.put(attribute.getName(), new AttributeNode(attribute.getName(), target,
+                        attribute.isCollection(), Collections.unmodifiableMap(children), reader(attribute)));
+            }
+            roots.put(entity.getJavaType(), new AttributeNode("", entity.getJavaType(), false,
+                    Collections.unmodifiableMap(attributes), null));
+            associations.put(entity.getJavaType(), Collections.unmodifiableSet(entityAssociations));
+        }
+
+        Map<Class<?>, Set<String>> mappablePaths = new HashMap<>();
+        roots.forEach((type, root) -> {
+            Set<String> paths = new TreeSet<>();
+            collectPaths(root, "", paths, new HashSet<>());
+            mappablePaths.put(type, Collections.unmodifiableSet(paths));
+        });
+
+        this.roots = Map.copyOf(roots);
+        this.mappablePaths = Map.copyOf(mappablePaths);
+        this.associations = Map.copyOf(associations);
+        this.subAttributeTargets = Set.copyOf(subAttributeTargets);
+    }
+
+    /**
+     * The root node of an entity, whose children are its requestable attributes
+     *
+     * @throws IllegalArgumentException when the class is not an entity
+     */
+    public AttributeNode root(Class<?> entityClass) {
+        AttributeNode root = roots.get(entityClass);
+        if (root == null) {
+            throw new IllegalArgumentException("Not an entity: " + entityClass.getName());
+        }
+        return root;
+    }
+
+    /**
+     * The node of a dotted attribute path like {@code "roles.permissions"}, or null when the path is not requestable
+     */
+    public AttributeNode resolve(Class<?> entityClass, String path) {
+        return root(entityClass).resolve(path);
+    }
+
+    /**
+     * Every requestable path of the entity, nested ones included; a path stops where it reaches
+     * a type already on it (e.g. {@code "addresses.person"} but not {@code "addresses.person.addresses"})
+     */
+    public Set<String> mappablePaths(Class<?> entityClass) {
+        root(entityClass);
+        return mappablePaths.get(entityClass);
+    }
+
+    /**
+     * Names of every association attribute of the entity, requestable or not
+     */
+    public Set<String> associations(Class<?> entityClass) {
+        root(entityClass);
+        return associations.get(entityClass);
+    }
+
+    /**
+     * Whether the entity is the target of a {@code withSubAttributes} attribute, so that its collections are
+     * also selected by nested paths (e.g. the permissions of a role by {@code "roles.permissions"})
+     */
+    public boolean isSubAttributeTarget(Class<?> entityClass) {
+        root(entityClass);
+        return subAttributeTargets.contains(entityClass);
+    }
+
+    /**
+     * The attribute of the element type owning each mapped one-to-many collection of the entity, e.g.
+     * {@code "person"} for {@code Person.addresses}. Read from the mapping annotations; callers resolve it
+     * once, e.g. when a repository is created.
+     */
+    public static Map<String, String> oneToManyOwners(ManagedType<?> entity) {
+        Map<String, String> owners = new HashMap<>();
+        for (PluralAttribute<?, ?, ?> collection : entity.getPluralAttributes()) {
+            OneToMany oneToMany = collection.getJavaMember() instanceof AnnotatedElement member
+                    ? member.getAnnotation(OneToMany.class)
+                    : null;
+            if (oneToMany != null && !oneToMany.mappedBy().isEmpty()) {
+                owners.put(collection.getName(), oneToMany.mappedBy());
+            }
+        }
+        return Map.copyOf(owners);
+    }
+
+    /**
+     * Reader of the attribute as the persistence provider accesses it: the field, or the getter with property access
+     */
+    private static MethodHandle reader(Attribute<?, ?> attribute) {
+        Member member = attribute.getJavaMember();
+        try {
+            MethodHandle handle;
+            if (member instanceof Field field) {
+                ReflectionUtils.makeAccessible(field);
+                handle = MethodHandles.lookup().unreflectGetter(field);
+            } else if (member instanceof Method getter) {
+                ReflectionUtils.makeAccessible(getter);
+                handle = MethodHandles.lookup().unreflect(getter);
+            } else {
+                throw new IllegalStateException("No field or getter for " + attribute.getDeclaringType().getJavaType()
+                        .getSimpleName() + "." + attribute.getName());
+            }
+            return handle.asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + attribute.getDeclaringType().getJavaType().getSimpleName()
+                    + "." + attribute.getName(), e);
+        }
+    }
+
+    private static boolean isMappingAttribute(Attribute<?, ?> attribute) {
+        return attribute.getJavaMember() instanceof AnnotatedElement member
+                && member.isAnnotationPresent(MappingAttribute.class);
+    }
+
+    private static void collectPaths(AttributeNode node, String basePath, Set<String> paths, Set<Class<?>> visited) {
+        if (!visited.add(node.getType())) {
+            return;
+        }
+        for (AttributeNode child : node.getChildren().values()) {
+            String path = basePath.isEmpty() ? child.getName() : basePath + "." + child.getName();
+            paths.add(path);
+            collectPaths(child, path, paths, new HashSet<>(visited));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.demo.departments.demoDepartments.service;
 
 import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
 import com.demo.departments.demoDepartments.service.dto.AddressDTO;
 import java.util.List;
 import java.util.Optional;
@@ -9,7 +10,7 @@ import java.util.Set;
 /**
  * Service interface for Address entity operations
  */
-public interface AddressService extends BaseService<AddressDTO> {
+public interface AddressService extends BaseService<AddressDTO>, FilterableService<AddressDTO, Address> {
     
     /**
      * Find an address entity by ID without mapping to DTO
@@ -35,5 +36,28 @@ public interface AddressService extends BaseService<AddressDTO> {
      * @return list of address DTOs for the specified person
      */
     List<AddressDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes);
-    
+
+    /**
+     * Find all addresses for a person, already serialized: the same JSON as the DTOs of
+     * {@link #findByPersonId(Long, boolean, Set)}, written straight from the loaded entities
+     *
+     * @param personId the ID of the person
+     * @param withAudit whether to include audit information
+     * @param attributes set of attributes to include
+     * @return JSON array of the DTOs
+     */
+    byte[] findByPersonIdJson(Long personId, boolean withAudit, Set<String> attributes);
+
+    /**
+     * Find one keyset (cursor) page of addresses for a specific person
+     *
+     * @param personId the ID of the person
+     * @param withAudit whether to include audit information
+     * @param attributes set of attributes to include
+     * @param after opaque cursor of the previous page, or null for the first page
+     * @param limit maximum number of addresses in the page
+     * @return page of address DTOs for the specified person
+     */
+    CursorPage<AddressDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes, String after, int limit);
+
 }
\ No newline at end of file
@@ -1,7 +1,13 @@
 package com.demo.departments.demoDepartments.service;
 
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Base service interface that defines common CRUD operations with flexible mapping options
@@ -17,6 +23,24 @@ public interface BaseService<T> {
      */
     void deleteById(Long id);
 
+    /**
+     * Delete all entities with the given IDs in one bulk statement; unknown IDs are ignored
+     *
+     * @param ids Entity IDs
+     * @return Number of deleted entities
+     */
+    int deleteAllById(Collection<Long> ids);
+
+    /**
+     * Update only the given attributes with one version-checked statement, without loading the entity
+     *
+     * @param id Entity ID
+     * @param changes Attribute names to new values (JSON merge patch) plus the {@code version} the entity was read with
+     * @return The new version
+     * @throws jakarta.persistence.OptimisticLockException when the entity was changed since it was read
+     */
+    VersionDTO patch(Long id, Map<String, Object> changes);
+
     /**
      * Find entity by ID with configurable options for audit information and included attributes
      * 
@@ -27,6 +51,17 @@ public interface BaseService<T> {
      */
     T findById(Long id, boolean withAudit, Set<String> attributes);
 
+    /**
+     * Strong entity tag of the entity as {@link #findById(Long, boolean, Set)} returns it, computed from the
+     * version and modification date of the entity and of what the attributes include, without loading them
+     *
+     * @param id Entity ID
+     * @param withAudit Whether the representation includes audit information
+     * @param attributes Set of attributes the representation includes
+     * @return Quoted tag, or null when there is no entity with this ID
+     */
+    String entityTag(Long id, boolean withAudit, Set<String> attributes);
+
     /**
      * Find entity by ID with default configuration (no audit, no additional attributes)
      * 
@@ -54,5 +89,28 @@ public interface BaseService<T> {
     default List<T> findAll() {
         return findAll(false, null);
     }
+
+    /**
+     * Find one keyset (cursor) page of entities ordered by id
+     *
+     * @param withAudit Whether to include audit information (createdDate, modifiedDate, etc.)
+     * @param attributes Set of attributes to include (like "addresses", "contacts", "roles.permissions")
+     * @param after Opaque cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of entities in the page
+     * @return Page of DTOs with the cursor of the next page
+     */
+    CursorPage<T> findPage(boolean withAudit, Set<String> attributes, String after, int limit);
+
+    /**
+     * Stream all entities one by one to the consumer without materializing the full list.
+     * Each entity is mapped to a DTO and handed over as soon as it is read, so heap use
+     * stays flat regardless of the number of rows.
+     *
+     * @param withAudit Whether to include audit information (createdDate, modifiedDate, etc.)
+     * @param attributes Set of attributes to include (like "addresses", "contacts", "roles.permissions")
+     * @param consumer Receives every DTO in id order
+     * @return Number of exported entities
+     */
+    long streamAll(boolean withAudit, Set<String> attributes, Consumer<T> consumer);
     
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.demo.departments.demoDepartments.service;
 
 import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
 import com.demo.departments.demoDepartments.service.dto.ContactDTO;
 
 import java.util.List;
@@ -10,7 +11,7 @@ import java.util.Set;
 /**
  * Service interface for Contact entity operations
  */
-public interface ContactService extends BaseService<ContactDTO> {
+public interface ContactService extends BaseService<ContactDTO>, FilterableService<ContactDTO, Contact> {
     
     /**
      * Find a contact entity by ID without mapping to DTO
@@ -36,5 +37,28 @@ public interface ContactService extends BaseService<ContactDTO> {
      * @return list of contact DTOs for the specified person
      */
     List<ContactDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes);
-    
+
+    /**
+     * Find all contacts for a person, already serialized: the same JSON as the DTOs of
+     * {@link #findByPersonId(Long, boolean, Set)}, written straight from the loaded entities
+     *
+     * @param personId the ID of the person
+     * @param withAudit whether to include audit information
+     * @param attributes set of attributes to include
+     * @return JSON array of the DTOs
+     */
+    byte[] findByPersonIdJson(Long personId, boolean withAudit, Set<String> attributes);
+
+    /**
+     * Find one keyset (cursor) page of contacts for a specific person
+     *
+     * @param personId the ID of the person
+     * @param withAudit whether to include audit information
+     * @param attributes set of attributes to include
+     * @param after opaque cursor of the previous page, or null for the first page
+     * @param limit maximum number of contacts in the page
+     * @return page of contact DTOs for the specified person
+     */
+    CursorPage<ContactDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes, String after, int limit);
+
 }
\ No newline at end of file
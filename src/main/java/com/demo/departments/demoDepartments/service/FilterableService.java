@@ -0,0 +1,95 @@
+package com.demo.departments.demoDepartments.service;
+
+import com.demo.departments.demoDepartments.service.dto.filter.EntityFilter;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * List operations restricted by a filter; the database applies the filter together with
+ * the requested attributes and the keyset paging
+ *
+ * @param <T> The DTO type
+ * @param <E> The entity type the filter applies to
+ */
+public interface FilterableService<T, E> {
+
+    /**
+     * Find all entities matching the filter
+     *
+     * @param filter Criteria to match; a filter without criteria matches everything
+     * @param withAudit Whether to include audit information (createdDate, modifiedDate, etc.)
+     * @param attributes Set of attributes to include (like "addresses", "contacts", "roles.permissions")
+     * @return List of DTOs with requested configuration
+     */
+    List<T> findAll(EntityFilter<E> filter, boolean withAudit, Set<String> attributes);
+
+    /**
+     * Find all entities matching the filter, already serialized: the same JSON as the DTOs of
+     * {@link #findAll(EntityFilter, boolean, Set)}, written straight from the loaded entities
+     *
+     * @param filter Criteria to match; a filter without criteria matches everything
+     * @param withAudit Whether to include audit information (createdDate, modifiedDate, etc.)
+     * @param attributes Set of attributes to include (like "addresses", "contacts", "roles.permissions")
+     * @return JSON array of the DTOs
+     */
+    byte[] findAllJson(EntityFilter<E> filter, boolean withAudit, Set<String> attributes);
+
+    /**
+     * Find one keyset (cursor) page of the entities matching the filter, ordered by id
+     *
+     * @param filter Criteria to match; a filter without criteria matches everything
+     * @param withAudit Whether to include audit information (createdDate, modifiedDate, etc.)
+     * @param attributes Set of attributes to include (like "addresses", "contacts", "roles.permissions")
+     * @param after Opaque cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of entities in the page
+     * @return Page of DTOs with the cursor of the next page
+     */
+    CursorPage<T> findPage(EntityFilter<E> filter, boolean withAudit, Set<String> attributes, String after, int limit);
+
+    /**
+     * Strong entity tag of a filtered list or page, computed from the count, latest modification date and
+     * versions of the matching entities and of what the attributes include, without loading them
+     *
+     * @param filter Criteria to match; a filter without criteria matches everything
+     * @param withAudit Whether the representation includes audit information
+     * @param attributes Set of attributes the representation includes
+     * @param after Cursor of the page, or null
+     * @param limit Page size, or null for the whole list
+     * @return Quoted tag
+     */
+    String listTag(EntityFilter<E> filter, boolean withAudit, Set<String> attributes, String after, Integer limit);
+
+    /**
+     * Find all entities matching the filter in the summary view: the basic fields plus the ids and counts of
+     * the children, read with aggregate queries instead of loading any child
+     *
+     * @param filter Criteria to match; a filter without criteria matches everything
+     * @param withAudit Whether to include audit information (createdDate, modifiedDate, etc.)
+     * @return List of summary DTOs in id order
+     */
+    List<T> findAllSummaries(EntityFilter<E> filter, boolean withAudit);
+
+    /**
+     * Find one keyset (cursor) page of the entities matching the filter in the summary view
+     *
+     * @param filter Criteria to match; a filter without criteria matches everything
+     * @param withAudit Whether to include audit information (createdDate, modifiedDate, etc.)
+     * @param after Opaque cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of entities in the page
+     * @return Page of summary DTOs with the cursor of the next page
+     */
+    CursorPage<T> findSummaryPage(EntityFilter<E> filter, boolean withAudit, String after, int limit);
+
+    /**
+     * Strong entity tag of a filtered list or page in the summary view
+     *
+     * @param filter Criteria to match; a filter without criteria matches everything
+     * @param withAudit Whether the representation includes audit information
+     * @param after Cursor of the page, or null
+     * @param limit Page size, or null for the whole list
+     * @return Quoted tag
+     */
+    String summaryTag(EntityFilter<E> filter, boolean withAudit, String after, Integer limit);
+}
@@ -1,6 +1,7 @@
 package com.demo.departments.demoDepartments.service;
 
 import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
 import com.demo.departments.demoDepartments.service.dto.security.PermissionsDTO;
 
 import java.util.List;
@@ -10,7 +11,7 @@ import java.util.Set;
 /**
  * Service interface for Permissions entity operations
  */
-public interface PermissionsService extends BaseService<PermissionsDTO> {
+public interface PermissionsService extends BaseService<PermissionsDTO>, FilterableService<PermissionsDTO, Permissions> {
     
     /**
      * Find a permissions entity by ID without mapping to DTO
@@ -36,5 +37,17 @@ public interface PermissionsService extends BaseService<PermissionsDTO> {
      * @return list of permissions DTOs for the specified role
      */
     List<PermissionsDTO> findByRoleId(Long roleId, boolean withAudit, Set<String> attributes);
-    
+
+    /**
+     * Find one keyset (cursor) page of permissions for a specific role
+     *
+     * @param roleId the ID of the role
+     * @param withAudit whether to include audit information
+     * @param attributes set of attributes to include
+     * @param after opaque cursor of the previous page, or null for the first page
+     * @param limit maximum number of permissions in the page
+     * @return page of permissions DTOs for the specified role
+     */
+    CursorPage<PermissionsDTO> findByRoleId(Long roleId, boolean withAudit, Set<String> attributes, String after, int limit);
+
 }
\ No newline at end of file
@@ -2,13 +2,17 @@ package com.demo.departments.demoDepartments.service;
 
 import com.demo.departments.demoDepartments.persistence.model.Person;
 import com.demo.departments.demoDepartments.service.dto.PersonDTO;
+import com.demo.departments.demoDepartments.service.dto.PersonSuggestionDTO;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service interface for Person entity operations
  */
-public interface PersonService extends BaseService<PersonDTO> {
+public interface PersonService extends BaseService<PersonDTO>, FilterableService<PersonDTO, Person> {
     
     /**
      * Find a person entity by ID without mapping to DTO
@@ -24,4 +28,25 @@ public interface PersonService extends BaseService<PersonDTO> {
      * Partially update a person
      */
     PersonDTO update(Long id, PersonDTO personDTO);
-}
\ No newline at end of file
+
+    /**
+     * Search persons by partial name, contact email/phone or address city/street, best match first
+     *
+     * @param query Search text
+     * @param withAudit Whether to include audit information (createdDate, modifiedDate, etc.)
+     * @param attributes Set of attributes to include (like "addresses", "contacts", "roles.permissions")
+     * @param after Opaque cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of persons in the page
+     * @return Page of DTOs in rank order with the cursor of the next page
+     */
+    CursorPage<PersonDTO> search(String query, boolean withAudit, Set<String> attributes, String after, int limit);
+
+    /**
+     * Autocomplete: names, emails and phone numbers starting with the prefix, answered from memory
+     *
+     * @param prefix Beginning of the value, case-insensitive
+     * @param limit Maximum number of suggestions
+     * @return Suggestions in alphabetical order of the matched value
+     */
+    List<PersonSuggestionDTO> suggest(String prefix, int limit);
+}
@@ -1,6 +1,7 @@
 package com.demo.departments.demoDepartments.service;
 
 import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
 import com.demo.departments.demoDepartments.service.dto.security.RoleDTO;
 
 import java.util.List;
@@ -10,7 +11,7 @@ import java.util.Set;
 /**
  * Service interface for Role entity operations
  */
-public interface RoleService extends BaseService<RoleDTO> {
+public interface RoleService extends BaseService<RoleDTO>, FilterableService<RoleDTO, Role> {
     
     /**
      * Find a role entity by ID without mapping to DTO
@@ -36,5 +37,28 @@ public interface RoleService extends BaseService<RoleDTO> {
      * @return list of role DTOs for the specified person
      */
     List<RoleDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes);
-    
+
+    /**
+     * Find all roles for a person, already serialized: the same JSON as the DTOs of
+     * {@link #findByPersonId(Long, boolean, Set)}, written straight from the loaded entities
+     *
+     * @param personId the ID of the person
+     * @param withAudit whether to include audit information
+     * @param attributes set of attributes to include
+     * @return JSON array of the DTOs
+     */
+    byte[] findByPersonIdJson(Long personId, boolean withAudit, Set<String> attributes);
+
+    /**
+     * Find one keyset (cursor) page of roles for a specific person
+     *
+     * @param personId the ID of the person
+     * @param withAudit whether to include audit information
+     * @param attributes set of attributes to include
+     * @param after opaque cursor of the previous page, or null for the first page
+     * @param limit maximum number of roles in the page
+     * @return page of role DTOs for the specified person
+     */
+    CursorPage<RoleDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes, String after, int limit);
+
 }
\ No newline at end of file
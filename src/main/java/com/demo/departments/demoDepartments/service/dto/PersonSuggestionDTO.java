@@ -0,0 +1,27 @@
+package com.demo.departments.demoDepartments.service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Autocomplete suggestion: the matching value and the person it belongs to
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Person autocomplete suggestion")
+public class PersonSuggestionDTO {
+
+    @Schema(description = "ID of the person the value belongs to")
+    private long personId;
+
+    @Schema(description = "Matched attribute", allowableValues = {"firstName", "lastName", "email", "phoneNumber"})
+    private String field;
+
+    @Schema(description = "Matched value as stored")
+    private String value;
+}
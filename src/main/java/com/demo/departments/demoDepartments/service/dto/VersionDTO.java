@@ -0,0 +1,29 @@
+package com.demo.departments.demoDepartments.service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a PATCH: the version to send with the next update of the entity
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "New version of a patched entity")
+public class VersionDTO {
+
+    @Schema(description = "ID of the patched entity")
+    private Long id;
+
+    @Schema(description = "Version after the patch")
+    private Long version;
+
+    @Schema(description = "Time of the patch")
+    private LocalDateTime modifiedDate;
+}
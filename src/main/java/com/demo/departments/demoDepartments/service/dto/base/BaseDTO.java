@@ -19,6 +19,9 @@ import java.time.LocalDateTime;
 public abstract class BaseDTO implements Serializable {
     
     private Long id;
+
+    /** Version the entity was read with; optimistic updates send it back */
+    private Long version;
     private LocalDateTime createdDate;
     private LocalDateTime modifiedDate;
     private String createdBy;
@@ -0,0 +1,37 @@
+package com.demo.departments.demoDepartments.service.dto.filter;
+
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.AddressType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import static com.demo.departments.demoDepartments.service.utils.filter.FilterSpecifications.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Address list filter; all set criteria must match")
+public class AddressFilter implements EntityFilter<Address> {
+
+    @Schema(description = "Address type")
+    private AddressType type;
+
+    @Schema(description = "City, case-insensitive")
+    private String city;
+
+    @Schema(description = "Country, case-insensitive")
+    private String country;
+
+    @Override
+    public Specification<Address> toSpecification() {
+        return allOf(
+                equal("type", type),
+                equalIgnoreCase("city", city),
+                equalIgnoreCase("country", country));
+    }
+}
@@ -0,0 +1,28 @@
+package com.demo.departments.demoDepartments.service.dto.filter;
+
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.ContactType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import static com.demo.departments.demoDepartments.service.utils.filter.FilterSpecifications.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Contact list filter; all set criteria must match")
+public class ContactFilter implements EntityFilter<Contact> {
+
+    @Schema(description = "Contact type")
+    private ContactType contactType;
+
+    @Override
+    public Specification<Contact> toSpecification() {
+        return allOf(equal("contactType", contactType));
+    }
+}
@@ -0,0 +1,16 @@
+package com.demo.departments.demoDepartments.service.dto.filter;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * List filter bound from query parameters and evaluated by the database
+ *
+ * @param <E> Entity type the filter applies to
+ */
+public interface EntityFilter<E> {
+
+    /**
+     * Restriction matching every set criterion, or null when no criterion is set
+     */
+    Specification<E> toSpecification();
+}
@@ -0,0 +1,32 @@
+package com.demo.departments.demoDepartments.service.dto.filter;
+
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import static com.demo.departments.demoDepartments.service.utils.filter.FilterSpecifications.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Permissions list filter; all set criteria must match")
+public class PermissionsFilter implements EntityFilter<Permissions> {
+
+    @Schema(description = "Permission name")
+    private String permission;
+
+    @Schema(description = "Name of the role the permission belongs to")
+    private String role;
+
+    @Override
+    public Specification<Permissions> toSpecification() {
+        return allOf(
+                equal("permission", permission),
+                equal("role.role", role));
+    }
+}
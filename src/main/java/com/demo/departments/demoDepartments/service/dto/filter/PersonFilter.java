@@ -0,0 +1,69 @@
+package com.demo.departments.demoDepartments.service.dto.filter;
+
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.ContactType;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+import static com.demo.departments.demoDepartments.service.utils.filter.FilterSpecifications.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Person list filter; all set criteria must match")
+public class PersonFilter implements EntityFilter<Person> {
+
+    @Schema(description = "First name prefix, case-insensitive")
+    private String firstName;
+
+    @Schema(description = "Last name prefix, case-insensitive")
+    private String lastName;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @Schema(description = "Born on or after this date (yyyy-MM-dd)")
+    private LocalDate birthDayFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @Schema(description = "Born on or before this date (yyyy-MM-dd)")
+    private LocalDate birthDayTo;
+
+    @Schema(description = "Has an address in this city, case-insensitive")
+    private String city;
+
+    @Schema(description = "Has an address in this country, case-insensitive (same address as city when both are set)")
+    private String country;
+
+    @Schema(description = "Has a contact of this type")
+    private ContactType contactType;
+
+    @Schema(description = "Has the role with this name")
+    private String role;
+
+    @Override
+    public Specification<Person> toSpecification() {
+        if (birthDayFrom != null && birthDayTo != null && birthDayFrom.isAfter(birthDayTo)) {
+            throw new IllegalArgumentException("birthDayFrom must not be after birthDayTo");
+        }
+        return allOf(
+                startsWithIgnoreCase("firstName", firstName),
+                startsWithIgnoreCase("lastName", lastName),
+                greaterThanOrEqual("birthDay", birthDayFrom),
+                lessThanOrEqual("birthDay", birthDayTo),
+                hasChild(Address.class, "person", allOf(
+                        equalIgnoreCase("city", city),
+                        equalIgnoreCase("country", country))),
+                hasChild(Contact.class, "person", equal("contactType", contactType)),
+                hasChild(Role.class, "person", equal("role", role)));
+    }
+}
@@ -0,0 +1,33 @@
+package com.demo.departments.demoDepartments.service.dto.filter;
+
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import static com.demo.departments.demoDepartments.service.utils.filter.FilterSpecifications.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Role list filter; all set criteria must match")
+public class RoleFilter implements EntityFilter<Role> {
+
+    @Schema(description = "Role name")
+    private String role;
+
+    @Schema(description = "Grants the permission with this name")
+    private String permission;
+
+    @Override
+    public Specification<Role> toSpecification() {
+        return allOf(
+                equal("role", role),
+                hasChild(Permissions.class, "role", equal("permission", permission)));
+    }
+}
@@ -11,6 +11,18 @@ import org.mapstruct.*;
 @Mapper(componentModel = "spring", uses = {MapperUtils.class}, config = MapStructConfig.class)
 public interface AddressMapper extends EntityMapper<Address, AddressDTO> {
 
+    /**
+     * {@link #toDtoWithOptions} as a layout for the specialized mappers
+     */
+    DtoLayout<Address, AddressDTO> LAYOUT = DtoLayout.<Address, AddressDTO>of(AddressDTO::new)
+            .field((address, dto) -> dto.setType(address.getType()))
+            .field((address, dto) -> dto.setStreet(address.getStreet()))
+            .field((address, dto) -> dto.setPostZipCode(address.getPostZipCode()))
+            .field((address, dto) -> dto.setProvince(address.getProvince()))
+            .field((address, dto) -> dto.setCity(address.getCity()))
+            .field((address, dto) -> dto.setCountry(address.getCountry()))
+            .field((address, dto) -> dto.setPersonId(address.getPerson() == null ? null : address.getPerson().getId()));
+
     @Override
     @Named("toDto")
     @Mapping(target = "personId", source = "person.id")
@@ -18,6 +30,7 @@ public interface AddressMapper extends EntityMapper<Address, AddressDTO> {
 
     @Override
     @Mapping(target = "person", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Address toEntity(AddressDTO dto);
 
     @Override
@@ -31,7 +44,7 @@ public interface AddressMapper extends EntityMapper<Address, AddressDTO> {
     @Override
     @Named("toDtoWithOptions")
     @Mapping(target = "personId", source = "person.id", 
-            conditionExpression = "java(options.includesPath(\"person\") || MapperUtils.hasAncestorOfType(entity, Person.class))")
+            conditionExpression = "java(options.getSelector().has(\"person\") || MapperUtils.hasAncestorOfType(entity, Person.class))")
     AddressDTO toDtoWithOptions(Address entity, @Context MappingOptions options);
     
     /**
@@ -0,0 +1,150 @@
+package com.demo.departments.demoDepartments.service.dto.mapper;
+
+import java.util.*;
+
+/**
+ * The requested attribute paths of one request as a tree of path segments, compiled once per
+ * {@link MappingOptions}: {@code ["addresses", "roles.permissions"]} becomes
+ * <pre>
+ * (root)
+ *  ├─ addresses (selected)
+ *  └─ roles
+ *      └─ permissions (selected)
+ * </pre>
+ * Every check the mappers make per entity is then a map lookup or a flag, without scanning the attributes
+ * or building strings. Unknown attributes are kept as they are; they simply never match an attribute.
+ * <p>
+ * Immutable and safe to share between threads.
+ */
+public final class AttributeSelector {
+
+    private static final AttributeSelector EMPTY = new AttributeSelector(false, Map.of(), Set.of());
+
+    private final boolean selected;
+    private final Map<String, AttributeSelector> children;
+    private final Set<String> nestedNames;
+
+    private AttributeSelector(boolean selected, Map<String, AttributeSelector> children, Set<String> nestedNames) {
+        this.selected = selected;
+        this.children = children;
+        this.nestedNames = nestedNames;
+    }
+
+    /**
+     * Compiles dotted attribute paths, e.g. {@code "roles.permissions"}; null or empty selects nothing
+     */
+    public static AttributeSelector compile(Collection<String> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return EMPTY;
+        }
+        Builder root = new Builder();
+        for (String attribute : attributes) {
+            Builder node = root;
+            int start = 0;
+            while (true) {
+                int end = attribute.indexOf('.', start);
+                node = node.children.computeIfAbsent(end < 0 ? attribute.substring(start) : attribute.substring(start, end),
+                        segment -> new Builder());
+                if (end < 0) {
+                    break;
+                }
+                start = end + 1;
+            }
+            node.selected = true;
+        }
+        Set<String> nestedNames = new HashSet<>();
+        root.children.values().forEach(child -> child.collectNames(nestedNames));
+        return root.build(Set.copyOf(nestedNames));
+    }
+
+    /**
+     * Whether nothing at all is selected
+     */
+    public boolean isEmpty() {
+        return children.isEmpty() && !selected;
+    }
+
+    /**
+     * Whether this exact path was requested (and not only paths below it)
+     */
+    public boolean isSelected() {
+        return selected;
+    }
+
+    /**
+     * The selection below attribute {@code name}, or null when neither it nor anything below it was requested
+     */
+    public AttributeSelector child(String name) {
+        return children.get(name);
+    }
+
+    /**
+     * Whether attribute {@code name} or a path below it was requested,
+     * e.g. {@code has("roles")} for {@code "roles"} or {@code "roles.permissions"}
+     */
+    public boolean has(String name) {
+        return children.containsKey(name);
+    }
+
+    /**
+     * Whether anything below this path was requested
+     */
+    public boolean hasChildren() {
+        return !children.isEmpty();
+    }
+
+    /**
+     * Names of the attributes requested directly below this path
+     */
+    public Set<String> childNames() {
+        return children.keySet();
+    }
+
+    /**
+     * Whether an attribute {@code name} was requested below some other attribute,
+     * e.g. {@code selectsNested("permissions")} for {@code "roles.permissions"} (answered by the root only)
+     */
+    public boolean selectsNested(String name) {
+        return nestedNames.contains(name);
+    }
+
+    /**
+     * The selection of a dotted path, walked one segment at a time, or null when the path is not selected
+     */
+    public AttributeSelector resolve(String path) {
+        AttributeSelector node = this;
+        int start = 0;
+        while (node != null) {
+            int end = path.indexOf('.', start);
+            if (end < 0) {
+                return node.children.get(path.substring(start));
+            }
+            node = node.children.get(path.substring(start, end));
+            start = end + 1;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return selected ? "*" + children : children.toString();
+    }
+
+    private static final class Builder {
+        private final Map<String, Builder> children = new HashMap<>();
+        private boolean selected;
+
+        private void collectNames(Set<String> names) {
+            children.forEach((name, child) -> {
+                names.add(name);
+                child.collectNames(names);
+            });
+        }
+
+        private AttributeSelector build(Set<String> nestedNames) {
+            Map<String, AttributeSelector> built = new HashMap<>();
+            children.forEach((name, child) -> built.put(name, child.build(Set.of())));
+            return new AttributeSelector(selected, Map.copyOf(built), nestedNames);
+        }
+    }
+}
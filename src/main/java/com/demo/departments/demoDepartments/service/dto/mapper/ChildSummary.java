@@ -0,0 +1,36 @@
+package com.demo.departments.demoDepartments.service.dto.mapper;
+
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Where the summary view writes the ids (and count) of one child collection. The values come from an
+ * aggregate query over the child table instead of the loaded collection, e.g.
+ * <pre>
+ * ChildSummary.of("addresses", PersonDTO::setAddressIds, PersonDTO::setAddressCount)
+ * </pre>
+ *
+ * @param collection one-to-many collection attribute of the entity
+ * @param count setter of the count, or null when the DTO has none
+ * @param <D> DTO type
+ */
+public record ChildSummary<D>(String collection, BiConsumer<D, Set<Long>> ids, BiConsumer<D, Integer> count) {
+
+    public static <D> ChildSummary<D> of(String collection, BiConsumer<D, Set<Long>> ids) {
+        return new ChildSummary<>(collection, ids, null);
+    }
+
+    public static <D> ChildSummary<D> of(String collection, BiConsumer<D, Set<Long>> ids, BiConsumer<D, Integer> count) {
+        return new ChildSummary<>(collection, ids, count);
+    }
+
+    /**
+     * Writes the child ids of one entity, empty when it has no children
+     */
+    public void apply(D dto, Set<Long> childIds) {
+        ids.accept(dto, childIds);
+        if (count != null) {
+            count.accept(dto, childIds.size());
+        }
+    }
+}
@@ -11,6 +11,15 @@ import org.mapstruct.*;
 @Mapper(componentModel = "spring", uses = {MapperUtils.class}, config = MapStructConfig.class)
 public interface ContactMapper extends EntityMapper<Contact, ContactDTO> {
 
+    /**
+     * {@link #toDtoWithOptions} as a layout for the specialized mappers
+     */
+    DtoLayout<Contact, ContactDTO> LAYOUT = DtoLayout.<Contact, ContactDTO>of(ContactDTO::new)
+            .field((contact, dto) -> dto.setContactType(contact.getContactType()))
+            .field((contact, dto) -> dto.setPhoneNumber(contact.getPhoneNumber()))
+            .field((contact, dto) -> dto.setEmail(contact.getEmail()))
+            .field((contact, dto) -> dto.setPersonId(contact.getPerson() == null ? null : contact.getPerson().getId()));
+
     @Override
     @Named("toDto")
     @Mapping(target = "personId", source = "person.id")
@@ -18,6 +27,7 @@ public interface ContactMapper extends EntityMapper<Contact, ContactDTO> {
 
     @Override
     @Mapping(target = "person", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Contact toEntity(ContactDTO dto);
 
     @Override
@@ -31,7 +41,7 @@ public interface ContactMapper extends EntityMapper<Contact, ContactDTO> {
     @Override
     @Named("toDtoWithOptions")
     @Mapping(target = "personId", source = "person.id", 
-            conditionExpression = "java(options.includesPath(\"person\") || MapperUtils.hasAncestorOfType(entity, Person.class))")
+            conditionExpression = "java(options.getSelector().has(\"person\") || MapperUtils.hasAncestorOfType(entity, Person.class))")
     ContactDTO toDtoWithOptions(Contact entity, @Context MappingOptions options);
     
     /**
@@ -0,0 +1,145 @@
+package com.demo.departments.demoDepartments.service.dto.mapper;
+
+import com.demo.departments.demoDepartments.persistence.model.base.PersistenceModel;
+import com.demo.departments.demoDepartments.service.dto.base.BaseDTO;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Field-level description of an entity's {@code toDtoWithOptions}, compiled per {@link MappingOptions} into a
+ * mapper that only reads and writes what the options select: conditions are decided once at compile time,
+ * unselected collections are never read, and nothing is mapped only to be cleared afterwards.
+ * The compiled mapper is a flat array of copiers, one lambda per attribute.
+ * <p>
+ * The id and the version are always copied, the audit columns with {@code withAudit}. The compiled result
+ * has to match {@code toDtoWithOptions} for every option, e.g.
+ * <pre>
+ * DtoLayout.of(RoleDTO::new)
+ *         .field((role, dto) -> dto.setRole(role.getRole()))
+ *         .children(options -> options.getSelector().has("permissions"), Role::getPermissions,
+ *                 PermissionsMapper.LAYOUT, RoleDTO::setPermissions, ChildSummary.of("permissions", RoleDTO::setPermissionIds));
+ * </pre>
+ *
+ * @param <E> entity type
+ * @param <D> DTO type
+ */
+public final class DtoLayout<E extends PersistenceModel, D extends BaseDTO> {
+
+    private final Supplier<D> factory;
+    private final List<Function<MappingOptions, BiConsumer<E, D>>> parts = new ArrayList<>();
+
+    private DtoLayout(Supplier<D> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @param factory creates an empty DTO with the defaults the mapper leaves (e.g. empty id sets)
+     */
+    public static <E extends PersistenceModel, D extends BaseDTO> DtoLayout<E, D> of(Supplier<D> factory) {
+        return new DtoLayout<>(factory);
+    }
+
+    /**
+     * Adds an attribute copied for every option, e.g. {@code (role, dto) -> dto.setRole(role.getRole())}.
+     * One lambda per attribute keeps its getter and setter calls monomorphic (and inlined); a shared
+     * getter/setter pair would turn them into megamorphic calls costing more than the mapping saves.
+     */
+    public DtoLayout<E, D> field(BiConsumer<E, D> copier) {
+        parts.add(options -> copier);
+        return this;
+    }
+
+    /**
+     * Adds an attribute copied only when the options satisfy the condition
+     */
+    public DtoLayout<E, D> field(Predicate<MappingOptions> condition, BiConsumer<E, D> copier) {
+        parts.add(options -> condition.test(options) ? copier : null);
+        return this;
+    }
+
+    /**
+     * Adds a child collection: when the condition holds it is mapped with the child layout (compiled with the
+     * same options) and its ids and count are written when it is not empty; otherwise the collection and the
+     * ids are written empty and the count zero, without reading the collection
+     */
+    public <C extends PersistenceModel, CD extends BaseDTO> DtoLayout<E, D> children(
+            Predicate<MappingOptions> condition, Function<E, Set<C>> getter, DtoLayout<C, CD> layout,
+            BiConsumer<D, Set<CD>> setter, ChildSummary<D> summary) {
+        BiConsumer<E, D> excluded = (entity, dto) -> {
+            setter.accept(dto, Collections.emptySet());
+            summary.apply(dto, Collections.emptySet());
+        };
+        parts.add(options -> {
+            if (!condition.test(options)) {
+                return excluded;
+            }
+            Function<C, CD> child = layout.compile(options);
+            return (entity, dto) -> {
+                Set<C> children = getter.apply(entity);
+                setter.accept(dto, mapAll(children, child));
+                if (children != null && !children.isEmpty()) {
+                    summary.ids().accept(dto, MapperUtils.extractIds(children));
+                    if (summary.count() != null) {
+                        summary.count().accept(dto, children.size());
+                    }
+                }
+            };
+        });
+        return this;
+    }
+
+    /**
+     * The mapper for the given options; null entities map to null like in {@code toDtoWithOptions}
+     */
+    public Function<E, D> compile(MappingOptions options) {
+        List<BiConsumer<E, D>> copiers = new ArrayList<>(parts.size() + 1);
+        if (options.includeAudit()) {
+            copiers.add(DtoLayout::copyAudit);
+        }
+        for (Function<MappingOptions, BiConsumer<E, D>> part : parts) {
+            BiConsumer<E, D> copier = part.apply(options);
+            if (copier != null) {
+                copiers.add(copier);
+            }
+        }
+        @SuppressWarnings("unchecked")
+        BiConsumer<E, D>[] compiled = copiers.toArray(new BiConsumer[0]);
+        return entity -> {
+            if (entity == null) {
+                return null;
+            }
+            D dto = factory.get();
+            dto.setId(entity.getId());
+            dto.setVersion(entity.getVersion());
+            for (BiConsumer<E, D> copier : compiled) {
+                copier.accept(entity, dto);
+            }
+            return dto;
+        };
+    }
+
+    private static void copyAudit(PersistenceModel entity, BaseDTO dto) {
+        dto.setCreatedDate(entity.getCreatedDate());
+        dto.setModifiedDate(entity.getModifiedDate());
+        dto.setCreatedBy(entity.getCreatedBy());
+        dto.setModifiedBy(entity.getModifiedBy());
+    }
+
+    /**
+     * Same set type and order as the MapStruct mappers
+     */
+    private static <C, CD> Set<CD> mapAll(Set<C> children, Function<C, CD> child) {
+        if (children == null) {
+            return null;
+        }
+        Set<CD> mapped = new LinkedHashSet<>(Math.max((int) (children.size() / .75f) + 1, 16));
+        for (C entity : children) {
+            mapped.add(child.apply(entity));
+        }
+        return mapped;
+    }
+}
@@ -1,31 +1,43 @@
 package com.demo.departments.demoDepartments.service.dto.mapper;
 
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeNode;
 import lombok.*;
 
-import java.util.HashSet;
 import java.util.Set;
 
-@Builder
 @Data
 public class MappingOptions {
 
-    private Set<String> attributes;
-    @Builder.Default
-    private boolean withAudit = false;
+    private final Set<String> attributes;
+    private final boolean withAudit;
     
-    // Optional reference to the entity class type for more accurate collection detection
-    private Class<?> entityClass;
+    // Optional root node of the mapped entity (AttributeRegistry.root) for exact collection detection
+    private final AttributeNode entity;
+
+    // The attributes compiled once, for the checks the mappers make per entity
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final AttributeSelector selector;
+
+    @Builder
+    private MappingOptions(Set<String> attributes, boolean withAudit, AttributeNode entity) {
+        this.attributes = attributes;
+        this.withAudit = withAudit;
+        this.entity = entity;
+        this.selector = AttributeSelector.compile(attributes);
+    }
 
     /**
      * Check if a field is included in the mapping
      * When attributes is null/empty, only include basic fields, not collections
      */
     public boolean includes(String field) {
-        if (attributes == null || attributes.isEmpty()) {
+        if (selector.isEmpty()) {
             // For basic fields, include them even if attributes is empty
             return !field.contains(".") && !isCollectionField(field);
         }
-        return attributes.contains(field);
+        AttributeSelector selected = selector.resolve(field);
+        return selected != null && selected.isSelected();
     }
 
     /**
@@ -40,40 +52,21 @@ public class MappingOptions {
      * Supports nested paths like "roles.permissions"
      */
     public boolean includesPath(String path) {
-        if (attributes == null || attributes.isEmpty()) {
-            return false; // If no attributes specified, don't include collections or nested paths
-        }
-        
-        // Direct match
-        if (attributes.contains(path)) {
-            return true;
-        }
-        
-        // Check for nested paths (e.g. "roles.permissions" includes "roles")
-        for (String attr : attributes) {
-            // Check if the attribute is a sub-path of this path
-            if (attr.startsWith(path + ".")) {
-                return true;
-            }
-        }
-        
-        return false;
+        // "roles" is included by "roles" itself and by "roles.permissions"
+        return selector.resolve(path) != null;
     }
     
     /**
-     * Check if a field is a collection, using reflection when possible
-     * Falls back to naming patterns if reflection isn't available
+     * Check if a field is a collection, using the entity's attribute metamodel when available
+     * Falls back to naming patterns without it
      */
     private boolean isCollectionField(String field) {
-        // First, try using reflection if entity class is available
-        if (entityClass != null) {
-            if (MapperUtils.isFieldCollection(entityClass, field)) {
-                return true;
-            }
+        if (entity != null) {
+            AttributeNode attribute = entity.child(field);
+            return attribute != null && attribute.isCollection();
         }
         
-        // If reflection fails or entity class is not available, 
-        // fall back to naming patterns
+        // Without the entity's attributes, fall back to naming patterns
         
         // Check common collection type suffixes
         if (field.endsWith("List") || 
@@ -108,28 +101,8 @@ public class MappingOptions {
      * getNested("roles") would return ["permissions"]
      */
     public Set<String> getNestedAttributes(String field) {
-        if (attributes == null || attributes.isEmpty()) {
-            return Set.of();
-        }
-        
-        Set<String> nestedAttrs = new HashSet<>();
-        String prefix = field + ".";
-        
-        for (String attr : attributes) {
-            // Direct child attributes
-            if (attr.startsWith(prefix)) {
-                String nestedPart = attr.substring(prefix.length());
-                // Only add direct children, not deeply nested paths
-                int dotIndex = nestedPart.indexOf('.');
-                if (dotIndex > 0) {
-                    nestedAttrs.add(nestedPart.substring(0, dotIndex));
-                } else {
-                    nestedAttrs.add(nestedPart);
-                }
-            }
-        }
-        
-        return nestedAttrs;
+        AttributeSelector selected = selector.resolve(field);
+        return selected == null ? Set.of() : selected.childNames();
     }
     
     /**
@@ -138,24 +111,7 @@ public class MappingOptions {
      * isPartOfNestedPath("permissions", "roles") would return true
      */
     public boolean isPartOfNestedPath(String field, String parentField) {
-        if (attributes == null || attributes.isEmpty()) {
-            return false;
-        }
-        
-        String nestedPath = parentField + "." + field;
-        
-        // Check if there's a direct match for the nested path
-        if (attributes.contains(nestedPath)) {
-            return true;
-        }
-        
-        // Check if there's a deeper path that contains this field
-        for (String attr : attributes) {
-            if (attr.startsWith(nestedPath + ".")) {
-                return true;
-            }
-        }
-        
-        return false;
+        AttributeSelector parent = selector.resolve(parentField);
+        return parent != null && parent.resolve(field) != null;
     }
-}
\ No newline at end of file
+}
@@ -12,6 +12,13 @@ import org.mapstruct.*;
 @Mapper(componentModel = "spring", uses = {MapperUtils.class}, config = MapStructConfig.class)
 public interface PermissionsMapper extends EntityMapper<Permissions, PermissionsDTO> {
 
+    /**
+     * {@link #toDtoWithOptions} as a layout for the specialized mappers
+     */
+    DtoLayout<Permissions, PermissionsDTO> LAYOUT = DtoLayout.<Permissions, PermissionsDTO>of(PermissionsDTO::new)
+            .field((permissions, dto) -> dto.setPermission(permissions.getPermission()))
+            .field((permissions, dto) -> dto.setRoleId(permissions.getRole() == null ? null : permissions.getRole().getId()));
+
     @Override
     @Named("toDto")
     @Mapping(target = "roleId", source = "role.id")
@@ -19,6 +26,7 @@ public interface PermissionsMapper extends EntityMapper<Permissions, Permissions
 
     @Override
     @Mapping(target = "role", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Permissions toEntity(PermissionsDTO dto);
 
     @Override
@@ -32,7 +40,7 @@ public interface PermissionsMapper extends EntityMapper<Permissions, Permissions
     @Override
     @Named("toDtoWithOptions")
     @Mapping(target = "roleId", source = "role.id",
-            conditionExpression = "java(options.includesPath(\"role\") || MapperUtils.hasAncestorOfType(entity, Role.class) || MapperUtils.hasAncestorOfType(entity, Person.class))")
+            conditionExpression = "java(options.getSelector().has(\"role\") || MapperUtils.hasAncestorOfType(entity, Role.class) || MapperUtils.hasAncestorOfType(entity, Person.class))")
     PermissionsDTO toDtoWithOptions(Permissions entity, @Context MappingOptions options);
     
     /**
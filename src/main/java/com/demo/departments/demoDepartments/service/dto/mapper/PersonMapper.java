@@ -15,6 +15,21 @@ import java.util.Collections;
         config = MapStructConfig.class)
 public interface PersonMapper extends EntityMapper<Person, PersonDTO> {
 
+    /**
+     * {@link #toDtoWithOptions} as a layout for the specialized mappers
+     */
+    DtoLayout<Person, PersonDTO> LAYOUT = DtoLayout.<Person, PersonDTO>of(PersonDTO::new)
+            .field((person, dto) -> dto.setFirstName(person.getFirstName()))
+            .field((person, dto) -> dto.setLastName(person.getLastName()))
+            .field((person, dto) -> dto.setBirthDay(person.getBirthDay()))
+            .field(options -> options.includes("password"), (person, dto) -> dto.setPassword(person.getPassword()))
+            .children(options -> options.getSelector().has("addresses"), Person::getAddresses, AddressMapper.LAYOUT,
+                    PersonDTO::setAddresses, ChildSummary.of("addresses", PersonDTO::setAddressIds, PersonDTO::setAddressCount))
+            .children(options -> options.getSelector().has("contacts"), Person::getContacts, ContactMapper.LAYOUT,
+                    PersonDTO::setContacts, ChildSummary.of("contacts", PersonDTO::setContactIds, PersonDTO::setContactCount))
+            .children(options -> options.getSelector().has("roles"), Person::getRoles, RoleMapper.LAYOUT,
+                    PersonDTO::setRoles, ChildSummary.of("roles", PersonDTO::setRoleIds, PersonDTO::setRoleCount));
+
     @Override
     @Named("toDto")
     @Mapping(target = "addressIds", expression = "java(MapperUtils.extractIds(person.getAddresses()))")
@@ -32,11 +47,11 @@ public interface PersonMapper extends EntityMapper<Person, PersonDTO> {
     @Named("toDtoWithOptions")
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "addresses", source = "addresses", qualifiedByName = "toDtoWithOptions", 
-            conditionExpression = "java(options.includesPath(\"addresses\"))")
+            conditionExpression = "java(options.getSelector().has(\"addresses\"))")
     @Mapping(target = "contacts", source = "contacts", qualifiedByName = "toDtoWithOptions", 
-            conditionExpression = "java(options.includesPath(\"contacts\"))")
+            conditionExpression = "java(options.getSelector().has(\"contacts\"))")
     @Mapping(target = "roles", source = "roles", qualifiedByName = "toDtoWithOptions", 
-            conditionExpression = "java(options.includesPath(\"roles\") || MapperUtils.hasNestedRolesPath(options))")
+            conditionExpression = "java(options.getSelector().has(\"roles\"))")
     @Mapping(target = "password", source = "password",
             conditionExpression = "java(options.includes(\"password\"))")
     PersonDTO toDtoWithOptions(Person person, @Context MappingOptions options);
@@ -63,9 +78,11 @@ public interface PersonMapper extends EntityMapper<Person, PersonDTO> {
             dto.setPassword(null);
         }
         
-        // Handle collection entities based on attributes
+        // Handle collection entities based on attributes (a nested path like "roles.permissions" includes "roles")
+        AttributeSelector selector = options.getSelector();
+
         // Addresses
-        if (options.includesPath("addresses")) {
+        if (selector.has("addresses")) {
             if (person.getAddresses() != null && !person.getAddresses().isEmpty()) {
                 // Already mapped in the main mapper method
                 dto.setAddressIds(MapperUtils.extractIds(person.getAddresses()));
@@ -78,7 +95,7 @@ public interface PersonMapper extends EntityMapper<Person, PersonDTO> {
         }
         
         // Contacts
-        if (options.includesPath("contacts")) {
+        if (selector.has("contacts")) {
             if (person.getContacts() != null && !person.getContacts().isEmpty()) {
                 dto.setContactIds(MapperUtils.extractIds(person.getContacts()));
                 dto.setContactCount(person.getContacts().size());
@@ -90,9 +107,7 @@ public interface PersonMapper extends EntityMapper<Person, PersonDTO> {
         }
         
         // Roles
-        boolean includeRoles = options.includesPath("roles") || MapperUtils.hasNestedRolesPath(options);
-        
-        if (includeRoles) {
+        if (selector.has("roles")) {
             if (person.getRoles() != null && !person.getRoles().isEmpty()) {
                 dto.setRoleIds(MapperUtils.extractIds(person.getRoles()));
                 dto.setRoleCount(person.getRoles().size());
@@ -109,6 +124,7 @@ public interface PersonMapper extends EntityMapper<Person, PersonDTO> {
     @Mapping(target = "addresses", ignore = true)
     @Mapping(target = "contacts", ignore = true)
     @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Person toEntity(PersonDTO dto);
 
     @Override
@@ -13,6 +13,16 @@ import java.util.Collections;
 @Mapper(componentModel = "spring", uses = {PermissionsMapper.class, MapperUtils.class}, config = MapStructConfig.class)
 public interface RoleMapper extends EntityMapper<Role, RoleDTO> {
 
+    /**
+     * {@link #toDtoWithOptions} as a layout for the specialized mappers
+     */
+    DtoLayout<Role, RoleDTO> LAYOUT = DtoLayout.<Role, RoleDTO>of(RoleDTO::new)
+            .field((role, dto) -> dto.setRole(role.getRole()))
+            .field((role, dto) -> dto.setPersonId(role.getPerson() == null ? null : role.getPerson().getId()))
+            .children(options -> options.getSelector().has("permissions") || options.getSelector().selectsNested("permissions"),
+                    Role::getPermissions, PermissionsMapper.LAYOUT, RoleDTO::setPermissions,
+                    ChildSummary.of("permissions", RoleDTO::setPermissionIds));
+
     @Override
     @Named("toDto")
     @Mapping(target = "personId", source = "person.id")
@@ -23,6 +33,7 @@ public interface RoleMapper extends EntityMapper<Role, RoleDTO> {
     @Override
     @Mapping(target = "person", ignore = true)
     @Mapping(target = "permissions", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Role toEntity(RoleDTO dto);
 
     @Override
@@ -37,9 +48,9 @@ public interface RoleMapper extends EntityMapper<Role, RoleDTO> {
     @Override
     @Named("toDtoWithOptions")
     @Mapping(target = "personId", source = "person.id",
-            conditionExpression = "java(options.includesPath(\"person\") || MapperUtils.hasAncestorOfType(entity, Person.class))")
+            conditionExpression = "java(options.getSelector().has(\"person\") || MapperUtils.hasAncestorOfType(entity, Person.class))")
     @Mapping(target = "permissions", source = "permissions", qualifiedByName = "toDtoWithOptions",
-            conditionExpression = "java(options.includesPath(\"permissions\") || MapperUtils.hasPermissionsInNestedPath(options))")
+            conditionExpression = "java(options.getSelector().has(\"permissions\") || options.getSelector().selectsNested(\"permissions\"))")
     RoleDTO toDtoWithOptions(Role entity, @Context MappingOptions options);
 
     /**
@@ -58,8 +69,9 @@ public interface RoleMapper extends EntityMapper<Role, RoleDTO> {
             dto.setId(id); // Restore the ID
         }
         
-        // Handle permissions based on whether they were requested
-        boolean includePermissions = options.includesPath("permissions") || MapperUtils.hasPermissionsInNestedPath(options);
+        // Handle permissions based on whether they were requested, directly or below roles ("roles.permissions")
+        AttributeSelector selector = options.getSelector();
+        boolean includePermissions = selector.has("permissions") || selector.selectsNested("permissions");
         
         if (includePermissions) {
             // Include permissions if available and requested
@@ -0,0 +1,89 @@
+package com.demo.departments.demoDepartments.service.dto.mapper;
+
+import com.demo.departments.demoDepartments.service.dto.base.BaseDTO;
+import jakarta.persistence.Tuple;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Column-level mapping of an entity to its DTO for requests without attributes.
+ * Only the listed attribute paths are selected (as a tuple, nothing is loaded into the persistence context)
+ * and written straight into a new DTO; the id, the version and - with {@code withAudit} - the audit columns are added
+ * automatically.
+ * <p>
+ * The result has to match {@code toDtoWithOptions} with empty attributes, e.g.
+ * <pre>
+ * ScalarProjection.of(AddressDTO::new)
+ *         .column("street", AddressDTO::setStreet)
+ *         .column("person.id", AddressDTO::setPersonId);
+ * </pre>
+ *
+ * @param <D> DTO type
+ */
+public final class ScalarProjection<D extends BaseDTO> {
+
+    private static final List<String> AUDIT_PATHS = List.of("createdDate", "modifiedDate", "createdBy", "modifiedBy");
+
+    private final Supplier<D> factory;
+    private final List<String> paths = new ArrayList<>();
+    private final List<BiConsumer<D, Object>> setters = new ArrayList<>();
+
+    private ScalarProjection(Supplier<D> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @param factory creates an empty DTO with the defaults the mapper would leave (e.g. zero counts)
+     */
+    public static <D extends BaseDTO> ScalarProjection<D> of(Supplier<D> factory) {
+        return new ScalarProjection<>(factory);
+    }
+
+    /**
+     * Adds a selected attribute path; "person.id" reads the foreign key without a join
+     */
+    @SuppressWarnings("unchecked")
+    public <V> ScalarProjection<D> column(String path, BiConsumer<D, V> setter) {
+        paths.add(path);
+        setters.add((BiConsumer<D, Object>) setter);
+        return this;
+    }
+
+    /**
+     * Attribute paths to select, in tuple order
+     */
+    public List<String> paths(boolean withAudit) {
+        List<String> selected = new ArrayList<>(paths.size() + 6);
+        selected.add("id");
+        selected.add("version");
+        selected.addAll(paths);
+        if (withAudit) {
+            selected.addAll(AUDIT_PATHS);
+        }
+        return selected;
+    }
+
+    /**
+     * Builds the DTO from a tuple selected with {@link #paths(boolean)}
+     */
+    public D toDto(Tuple tuple, boolean withAudit) {
+        D dto = factory.get();
+        dto.setId((Long) tuple.get(0));
+        dto.setVersion((Long) tuple.get(1));
+        for (int i = 0; i < setters.size(); i++) {
+            setters.get(i).accept(dto, tuple.get(i + 2));
+        }
+        if (withAudit) {
+            int offset = setters.size() + 2;
+            dto.setCreatedDate((LocalDateTime) tuple.get(offset));
+            dto.setModifiedDate((LocalDateTime) tuple.get(offset + 1));
+            dto.setCreatedBy((String) tuple.get(offset + 2));
+            dto.setModifiedBy((String) tuple.get(offset + 3));
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,83 @@
+package com.demo.departments.demoDepartments.service.dto.mapper;
+
+import com.demo.departments.demoDepartments.persistence.model.base.PersistenceModel;
+import com.demo.departments.demoDepartments.service.dto.base.BaseDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Mappers specialized per (entity, attributes, {@code withAudit}): once a combination has been mapped
+ * {@code departments.specialized-mappers.compile-threshold} times, its {@link DtoLayout} is compiled for
+ * exactly those options and reused; cold combinations (and entities without a layout) keep going through
+ * {@code toDtoWithOptions} of the MapStruct mapper.
+ * <p>
+ * Bounded by {@code departments.specialized-mappers.max-entries}. Hits and misses are published as
+ * {@code cache.gets{cache="specialized-mappers"}}, the mapping calls per path as
+ * {@code departments.mapper.calls{mapper=specialized|mapstruct}}.
+ */
+@Component
+public class SpecializedMappers {
+
+    private final boolean enabled;
+    private final int compileThreshold;
+    private final Cache<Key, Combination> combinations;
+    private final Counter specializedCalls;
+    private final Counter mapStructCalls;
+
+    public SpecializedMappers(MeterRegistry meterRegistry,
+                              @Value("${departments.specialized-mappers.enabled:true}") boolean enabled,
+                              @Value("${departments.specialized-mappers.compile-threshold:3}") int compileThreshold,
+                              @Value("${departments.specialized-mappers.max-entries:500}") long maxEntries) {
+        this.enabled = enabled;
+        this.compileThreshold = compileThreshold;
+        this.combinations = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, combinations, "specialized-mappers");
+        this.specializedCalls = meterRegistry.counter("departments.mapper.calls", "mapper", "specialized");
+        this.mapStructCalls = meterRegistry.counter("departments.mapper.calls", "mapper", "mapstruct");
+    }
+
+    /**
+     * The mapper to use for one call with the given options, e.g. for all entities of a list
+     *
+     * @param mapper MapStruct mapper, used until the combination is hot
+     * @param layout layout of the same mapping, or null to always use the MapStruct mapper
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends PersistenceModel, D extends BaseDTO> Function<E, D> mapper(
+            EntityMapper<E, D> mapper, DtoLayout<E, D> layout, MappingOptions options) {
+        if (enabled && layout != null) {
+            Combination combination = combinations.get(new Key(layout, options), key -> new Combination());
+            Function<E, D> compiled = (Function<E, D>) combination.compiled;
+            if (compiled == null && combination.uses.incrementAndGet() >= compileThreshold) {
+                // Compiling twice in a race is harmless, both results are equivalent
+                compiled = layout.compile(options);
+                combination.compiled = compiled;
+            }
+            if (compiled != null) {
+                specializedCalls.increment();
+                return compiled;
+            }
+        }
+        mapStructCalls.increment();
+        return entity -> mapper.toDtoWithOptions(entity, options);
+    }
+
+    private record Key(DtoLayout<?, ?> layout, MappingOptions options) {
+    }
+
+    private static final class Combination {
+        private final AtomicInteger uses = new AtomicInteger();
+        private volatile Function<?, ?> compiled;
+    }
+}
@@ -0,0 +1,30 @@
+package com.demo.departments.demoDepartments.service.dto.page;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (cursor) paginated list
+ *
+ * @param <T> The DTO type
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    // DTOs of the current page, in ascending id order
+    private List<T> content;
+
+    // Opaque token to pass as "after" for the next page, null on the last page
+    private String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -4,20 +4,42 @@ import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
 import com.cosium.spring.data.jpa.entity.graph.domain2.DynamicEntityGraph;
 import com.demo.departments.demoDepartments.persistence.model.base.PersistenceModel;
 import com.demo.departments.demoDepartments.persistence.repository.BaseCustomJpaRepository;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
 import com.demo.departments.demoDepartments.service.BaseService;
+import com.demo.departments.demoDepartments.service.FilterableService;
+import com.demo.departments.demoDepartments.service.dto.VersionDTO;
+import com.demo.departments.demoDepartments.service.dto.base.BaseDTO;
+import com.demo.departments.demoDepartments.service.dto.filter.EntityFilter;
+import com.demo.departments.demoDepartments.service.dto.mapper.ChildSummary;
+import com.demo.departments.demoDepartments.service.dto.mapper.DtoLayout;
 import com.demo.departments.demoDepartments.service.dto.mapper.EntityMapper;
 import com.demo.departments.demoDepartments.service.dto.mapper.MappingOptions;
+import com.demo.departments.demoDepartments.service.dto.mapper.ScalarProjection;
+import com.demo.departments.demoDepartments.service.dto.mapper.SpecializedMappers;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
+import com.demo.departments.demoDepartments.service.utils.cache.EntityTags;
+import com.demo.departments.demoDepartments.service.utils.cache.ResponseCache;
+import com.demo.departments.demoDepartments.service.utils.cache.SecondLevelCacheInvalidator;
+import com.demo.departments.demoDepartments.service.utils.export.ChunkedExporter;
+import com.demo.departments.demoDepartments.service.utils.json.EntityJsonWriters;
+import com.demo.departments.demoDepartments.service.utils.mapping.FetchPlan;
 import com.demo.departments.demoDepartments.service.utils.mapping.GraphBuilderMapperService;
+import com.demo.departments.demoDepartments.service.utils.paging.CursorCodec;
+import com.demo.departments.demoDepartments.service.utils.patch.AttributePatch;
+import com.demo.departments.demoDepartments.service.utils.patch.AttributePatchReader;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.persistence.ManyToMany;
-import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToMany;
+import jakarta.persistence.OptimisticLockException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.ArrayList;
 
@@ -33,61 +55,180 @@ import java.util.ArrayList;
 @RequiredArgsConstructor
 public abstract class AbstractBaseService<
         E extends PersistenceModel,
-        D,
+        D extends BaseDTO,
         R extends BaseCustomJpaRepository<E, Long>,
-        M extends EntityMapper<E, D>> implements BaseService<D> {
+        M extends EntityMapper<E, D>> implements BaseService<D>, FilterableService<D, E> {
 
     protected final R repository;
     protected final M mapper;
     protected final GraphBuilderMapperService graphBuilderService;
+    protected final ResponseCache responseCache;
     protected final Class<E> entityClass;
+    protected final Class<D> dtoClass;
+
+    private final AttributeRegistry attributeRegistry;
+    private final SpecializedMappers specializedMappers;
+    private final AttributePatchReader patchReader;
+    private final AuditorAware<String> auditorAware;
+    private final SecondLevelCacheInvalidator secondLevelCacheInvalidator;
+    private final EntityTags entityTags;
+    private final EntityJsonWriters entityJsonWriters;
+    private final ChunkedExporter exporter;
 
     @SuppressWarnings("unchecked")
-    protected AbstractBaseService(R repository, M mapper, GraphBuilderMapperService graphBuilderService) {
+    protected AbstractBaseService(R repository, M mapper, GraphBuilderMapperService graphBuilderService,
+                                  ResponseCache responseCache, BaseServiceSupport support) {
         this.repository = repository;
         this.mapper = mapper;
         this.graphBuilderService = graphBuilderService;
+        this.responseCache = responseCache;
+        this.attributeRegistry = support.getAttributeRegistry();
+        this.specializedMappers = support.getSpecializedMappers();
+        this.patchReader = support.getPatchReader();
+        this.auditorAware = support.getAuditorAware();
+        this.secondLevelCacheInvalidator = support.getSecondLevelCacheInvalidator();
+        this.entityTags = support.getEntityTags();
+        this.entityJsonWriters = support.getEntityJsonWriters();
+        this.exporter = support.getExporter();
 
-        // Extract the entity class type using reflection
-        this.entityClass = (Class<E>) ((ParameterizedType) getClass()
-                .getGenericSuperclass()).getActualTypeArguments()[0];
+        // Extract the entity and DTO class types using reflection
+        Type[] typeArguments = ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments();
+        this.entityClass = (Class<E>) typeArguments[0];
+        this.dtoClass = (Class<D>) typeArguments[1];
     }
 
     @Override
     public void deleteById(Long id) {
-        repository.deleteById(id);
+        // One DELETE; children are handled by the FK actions instead of being loaded and removed one by one
+        if (repository.bulkDeleteByIds(List.of(id)) == 0) {
+            throw new EntityNotFoundException("Entity not found with id: " + id);
+        }
+        responseCache.evict(dtoClass, List.of(id));
+        afterBulkDelete(List.of(id));
+    }
+
+    @Override
+    public int deleteAllById(Collection<Long> ids) {
+        int deleted = repository.bulkDeleteByIds(ids);
+        if (deleted > 0) {
+            responseCache.evict(dtoClass, ids);
+            afterBulkDelete(ids);
+        }
+        return deleted;
+    }
+
+    @Override
+    public VersionDTO patch(Long id, Map<String, Object> changes) {
+        AttributePatch patch = patchReader.read(changes, dtoClass, entityClass);
+
+        // The auditing listener does not see the statement: the audit columns go into the same UPDATE
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> values = new LinkedHashMap<>(patch.values());
+        values.put("modifiedDate", now);
+        values.put("modifiedBy", auditorAware.getCurrentAuditor().orElse(null));
+
+        if (!repository.updateAttributes(id, patch.version(), values)) {
+            // Only a failed update pays for telling a missing entity from a stale version
+            if (!repository.existsById(id)) {
+                throw new EntityNotFoundException("Entity not found with id: " + id);
+            }
+            throw new OptimisticLockException(entityClass.getSimpleName() + " " + id
+                    + " was changed since version " + patch.version() + " was read");
+        }
+        secondLevelCacheInvalidator.evictEntity(entityClass, id);
+        responseCache.evict(dtoClass, List.of(id));
+        afterPatch(id, patch.values().keySet());
+        return VersionDTO.builder().id(id).version(patch.version() + 1).modifiedDate(now).build();
+    }
+
+    /**
+     * Called after a patch updated the given attributes of an entity with a plain UPDATE. Entity listeners
+     * did not run for it, so subclasses update what they derive from those attributes.
+     */
+    protected void afterPatch(Long id, Set<String> attributes) {
+    }
+
+    /**
+     * Rejects a full update based on an outdated read: a version sent with the DTO must still be the entity's
+     */
+    protected void checkVersion(E entity, D dto) {
+        if (dto.getVersion() != null && !dto.getVersion().equals(entity.getVersion())) {
+            throw new OptimisticLockException(entityClass.getSimpleName() + " " + entity.getId()
+                    + " was changed since version " + dto.getVersion() + " was read");
+        }
+    }
+
+    /**
+     * Evicts the cached responses showing the saved entity or its parents; returns the DTO for chaining
+     */
+    protected D evictCachedResponses(D saved) {
+        responseCache.evict(saved);
+        return saved;
+    }
+
+    /**
+     * Called after entities were deleted with one statement. The FK actions of that statement
+     * changed child rows Hibernate never saw, so subclasses evict what they cache of them.
+     */
+    protected void afterBulkDelete(Collection<Long> ids) {
     }
 
     @Override
     @Transactional(readOnly = true)
     public D findById(Long id, boolean withAudit, Set<String> attributes) {
-        // Create an appropriate entity graph based on attributes
-        EntityGraph graph;
         E entity;
         
         if (attributes == null || attributes.isEmpty()) {
+            if (scalarProjection() != null) {
+                // Scalar columns only - no managed entity, no mapper pass
+                return findProjected((root, query, cb) -> cb.equal(root.get("id"), id), withAudit, null, 1).stream()
+                        .findFirst()
+                        .orElseThrow(() -> new EntityNotFoundException("Entity not found with id: " + id));
+            }
             // No attributes specified, use default find method without graph
             entity = repository.findById(id)
                     .orElseThrow(() -> new EntityNotFoundException("Entity not found with id: " + id));
         } else {
-            // Generate targeted graph based on requested attributes
-            graph = createEntityGraph(attributes);
+            // Plan the fetch: the root query joins what is cheap to join, sibling collections follow by id
+            FetchPlan plan = createFetchPlan(attributes);
             
-            // Fetch entity with graph - single database call
-            entity = repository.findById(id, graph)
+            entity = repository.findById(id, plan.getRootGraph())
                     .orElseThrow(() -> new EntityNotFoundException("Entity not found with id: " + id));
+            graphBuilderService.completeFetch(plan, List.of(entity), false);
         }
 
         // Map to DTO with appropriate options
         MappingOptions options = MappingOptions.builder()
                 .attributes(attributes)
                 .withAudit(withAudit)
-                .entityClass(entityClass) // Pass entity class for dynamic collection detection
+                .entity(attributeRegistry.root(entityClass)) // Entity attributes for collection detection
                 .build();
 
-        return mapper.toDtoWithOptions(entity, options);
+        return specializedMappers.mapper(mapper, dtoLayout(), options).apply(entity);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public String entityTag(Long id, boolean withAudit, Set<String> attributes) {
+        return entityTags.entityTag(repository, entityClass, id, withAudit, attributes);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String listTag(EntityFilter<E> filter, boolean withAudit, Set<String> attributes, String after, Integer limit) {
+        return entityTags.pageTag(repository, entityClass, filter == null ? null : filter.toSpecification(),
+                withAudit, attributes, after, limit, "");
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String summaryTag(EntityFilter<E> filter, boolean withAudit, String after, Integer limit) {
+        // The summary shows the children's ids, so their changes have to change the tag as well
+        Set<String> collections = childSummaries().stream().map(ChildSummary::collection).collect(Collectors.toSet());
+        return entityTags.pageTag(repository, entityClass, filter == null ? null : filter.toSpecification(),
+                withAudit, collections, after, limit, "summary;");
+    }
+
     /**
      * Creates a default entity graph that's lightweight but effective
      * for most common query scenarios
@@ -104,15 +245,9 @@ public abstract class AbstractBaseService<
     protected EntityGraph createSummaryLevelGraph() {
         DynamicEntityGraph.Builder builder = DynamicEntityGraph.fetching();
         
-        // Analyze the entity class and add paths for all @OneToMany and @ManyToMany relations
+        // Add paths for all associations of the entity
         // This ensures we can get IDs and counts without additional queries
-        for (Field field : entityClass.getDeclaredFields()) {
-            if (field.isAnnotationPresent(OneToMany.class) || 
-                field.isAnnotationPresent(ManyToMany.class) ||
-                field.isAnnotationPresent(ManyToOne.class)) {
-                builder.addPath(field.getName());
-            }
-        }
+        attributeRegistry.associations(entityClass).forEach(builder::addPath);
         
         return builder.build();
     }
@@ -125,33 +260,254 @@ public abstract class AbstractBaseService<
         return graphBuilderService.getGraphWithAttributes(entityClass, attributeSet);
     }
 
+    /**
+     * Helper method to create a fetch plan based on attribute set
+     */
+    protected FetchPlan createFetchPlan(Set<String> attributeSet) {
+        return graphBuilderService.getFetchPlan(entityClass, attributeSet);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<D> findAll(boolean withAudit, Set<String> attributes) {
-        List<E> entities;
-        
+        return findAll((Specification<E>) null, withAudit, attributes);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<D> findAll(EntityFilter<E> filter, boolean withAudit, Set<String> attributes) {
+        return findAll(filter == null ? null : filter.toSpecification(), withAudit, attributes);
+    }
+
+    /**
+     * All entities matching a specification, or all entities when it is null
+     */
+    protected List<D> findAll(Specification<E> scope, boolean withAudit, Set<String> attributes) {
+        if ((attributes == null || attributes.isEmpty()) && scalarProjection() != null) {
+            // Scalar columns only - no managed entities, no mapper pass
+            return findProjected(scope, withAudit, null, null);
+        }
+        return toDtos(loadAll(scope, attributes), listOptions(withAudit, attributes));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public byte[] findAllJson(EntityFilter<E> filter, boolean withAudit, Set<String> attributes) {
+        Specification<E> scope = filter == null ? null : filter.toSpecification();
+        if ((attributes == null || attributes.isEmpty()) && scalarProjection() != null) {
+            return toJson(findProjected(scope, withAudit, null, null));
+        }
+        return toJson(loadAll(scope, attributes), listOptions(withAudit, attributes));
+    }
+
+    /**
+     * The entities of {@link #findAll(Specification, boolean, Set)}, with everything the attributes include fetched
+     */
+    private List<E> loadAll(Specification<E> scope, Set<String> attributes) {
         if (attributes == null || attributes.isEmpty()) {
             // No attributes specified, use default find method without graph
-            Iterable<E> entitiesIterable = repository.findAll();
-            entities = new ArrayList<>();
-            entitiesIterable.forEach(entities::add);
-        } else {
-            // Generate targeted graph based on requested attributes
-            EntityGraph graph = createEntityGraph(attributes);
-            
-            // Fetch entities with graph
-            Iterable<E> entitiesIterable = repository.findAll(graph);
-            entities = new ArrayList<>();
-            entitiesIterable.forEach(entities::add);
+            return scope == null ? repository.findAll() : repository.findAll(scope);
+        }
+        // Plan the fetch: the root query joins what is cheap to join, sibling collections follow separately
+        FetchPlan plan = createFetchPlan(attributes);
+
+        // Fetch entities with the root graph
+        Iterable<E> entitiesIterable = scope == null
+                ? repository.findAll(plan.getRootGraph())
+                : repository.findAll(scope, plan.getRootGraph());
+        List<E> entities = new ArrayList<>();
+        entitiesIterable.forEach(entities::add);
+        // Only an unrestricted read may re-read the whole table for deferred branches; a filter or search
+        // scope (e.g. PersonServiceImpl.search) loads them by the ids it found
+        graphBuilderService.completeFetch(plan, entities, scope == null);
+        return entities;
+    }
+
+    private MappingOptions listOptions(boolean withAudit, Set<String> attributes) {
+        return MappingOptions.builder()
+                .attributes(attributes)
+                .withAudit(withAudit)
+                .entity(attributeRegistry.root(entityClass)) // Entity attributes for collection detection
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<D> findPage(boolean withAudit, Set<String> attributes, String after, int limit) {
+        return findPage((Specification<E>) null, withAudit, attributes, after, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<D> findPage(EntityFilter<E> filter, boolean withAudit, Set<String> attributes,
+                                  String after, int limit) {
+        return findPage(filter == null ? null : filter.toSpecification(), withAudit, attributes, after, limit);
+    }
+
+    /**
+     * Keyset page restricted by a specification (e.g. all addresses of one person)
+     */
+    protected CursorPage<D> findPage(Specification<E> scope, boolean withAudit, Set<String> attributes,
+                                     String after, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        Long afterId = CursorCodec.decode(after);
+
+        if ((attributes == null || attributes.isEmpty()) && scalarProjection() != null) {
+            return toCursorPage(findProjected(scope, withAudit, afterId, limit + 1), limit);
+        }
+
+        // Only fetch the graph when attributes were requested
+        FetchPlan plan = (attributes == null || attributes.isEmpty()) ? null : createFetchPlan(attributes);
+
+        // Read one extra row to learn whether another page exists without a count query
+        List<E> entities = new ArrayList<>(repository.findAllAfter(scope, afterId, limit + 1,
+                plan == null ? null : plan.getRootGraph()));
+        boolean hasNext = entities.size() > limit;
+        if (hasNext) {
+            entities = entities.subList(0, limit);
+        }
+        if (plan != null) {
+            graphBuilderService.completeFetch(plan, entities, false);
         }
 
-        // Map to DTOs with appropriate options
         MappingOptions options = MappingOptions.builder()
                 .attributes(attributes)
                 .withAudit(withAudit)
-                .entityClass(entityClass) // Pass entity class for dynamic collection detection
+                .entity(attributeRegistry.root(entityClass))
+                .build();
+
+        return cursorPage(toDtos(entities, options), hasNext);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<D> findAllSummaries(EntityFilter<E> filter, boolean withAudit) {
+        Specification<E> scope = filter == null ? null : filter.toSpecification();
+        return withChildIds(findProjected(scope, withAudit, null, null), scope, null, null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<D> findSummaryPage(EntityFilter<E> filter, boolean withAudit, String after, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        Specification<E> scope = filter == null ? null : filter.toSpecification();
+        Long afterId = CursorCodec.decode(after);
+        CursorPage<D> page = toCursorPage(findProjected(scope, withAudit, afterId, limit + 1), limit);
+        List<D> content = page.getContent();
+        if (!content.isEmpty()) {
+            withChildIds(content, scope, afterId, content.get(content.size() - 1).getId());
+        }
+        return page;
+    }
+
+    /**
+     * Fills the {@link #childSummaries()} of DTOs read for the given scope and id range
+     */
+    private List<D> withChildIds(List<D> dtos, Specification<E> scope, Long after, Long upTo) {
+        List<ChildSummary<D>> summaries = childSummaries();
+        if (dtos.isEmpty() || summaries.isEmpty()) {
+            return dtos;
+        }
+        Map<String, Map<Long, Set<Long>>> childIds = repository.findChildIds(scope, after, upTo,
+                summaries.stream().map(ChildSummary::collection).toList());
+        for (D dto : dtos) {
+            for (ChildSummary<D> summary : summaries) {
+                summary.apply(dto, childIds.get(summary.collection()).getOrDefault(dto.getId(), new HashSet<>()));
+            }
+        }
+        return dtos;
+    }
+
+    /**
+     * Page of at most {@code limit} DTOs read with one extra row; the extra row only signals the next page
+     */
+    private CursorPage<D> toCursorPage(List<D> rows, int limit) {
+        boolean hasNext = rows.size() > limit;
+        return cursorPage(hasNext ? rows.subList(0, limit) : rows, hasNext);
+    }
+
+    private CursorPage<D> cursorPage(List<D> content, boolean hasNext) {
+        return CursorPage.<D>builder()
+                .content(content)
+                .nextCursor(hasNext ? CursorCodec.encode(content.get(content.size() - 1).getId()) : null)
                 .build();
+    }
+
+    /**
+     * Scalar projection used instead of entities + mapper when no attributes are requested,
+     * or null to always go through the mapper
+     */
+    protected ScalarProjection<D> scalarProjection() {
+        return null;
+    }
+
+    /**
+     * Field-level layout of the mapper, compiled for hot option combinations by the {@link SpecializedMappers},
+     * or null to always map with {@code toDtoWithOptions}
+     */
+    protected DtoLayout<E, D> dtoLayout() {
+        return null;
+    }
+
+    /**
+     * Maps entities with the specialized mapper of the options, or with {@code toDtoWithOptions} while they are cold
+     */
+    protected List<D> toDtos(List<E> entities, MappingOptions options) {
+        if (entities == null) {
+            return Collections.emptyList();
+        }
+        Function<E, D> toDto = specializedMappers.mapper(mapper, dtoLayout(), options);
+        List<D> dtos = new ArrayList<>(entities.size());
+        for (E entity : entities) {
+            dtos.add(toDto.apply(entity));
+        }
+        return dtos;
+    }
 
-        return mapper.toDtoListWithOptions(entities, options);
+    /**
+     * The entities as the JSON array of their DTOs (see {@link EntityJsonWriters#writeList})
+     */
+    protected byte[] toJson(List<E> entities, MappingOptions options) {
+        return entityJsonWriters.writeList(entityClass, dtoClass, entities, options, list -> toDtos(list, options));
+    }
+
+    /**
+     * DTOs (e.g. scalar projections) as JSON
+     */
+    protected byte[] toJson(List<D> dtos) {
+        return entityJsonWriters.write(dtos);
+    }
+
+    /**
+     * Child collections whose ids (and counts) the summary view fills; none by default
+     */
+    protected List<ChildSummary<D>> childSummaries() {
+        return List.of();
+    }
+
+    /**
+     * Reads DTOs through {@link #scalarProjection()}: only the DTO's columns are selected, in id order
+     */
+    protected List<D> findProjected(Specification<E> scope, boolean withAudit, Long after, Integer limit) {
+        ScalarProjection<D> projection = scalarProjection();
+        return repository.findAllTuples(scope, projection.paths(withAudit), after, limit).stream()
+                .map(tuple -> projection.toDto(tuple, withAudit))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long streamAll(boolean withAudit, Set<String> attributes, Consumer<D> consumer) {
+        MappingOptions options = MappingOptions.builder()
+                .attributes(attributes)
+                .withAudit(withAudit)
+                .entity(attributeRegistry.root(entityClass))
+                .build();
+        Function<E, D> toDto = specializedMappers.mapper(mapper, dtoLayout(), options);
+        return exporter.export(entityClass, repository::streamAll, attributes, toDto, consumer);
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,16 @@
 package com.demo.departments.demoDepartments.service.impl;
 
-import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
 import com.demo.departments.demoDepartments.persistence.model.Address;
 import com.demo.departments.demoDepartments.persistence.repository.AddressRepository;
 import com.demo.departments.demoDepartments.service.AddressService;
 import com.demo.departments.demoDepartments.service.dto.AddressDTO;
 import com.demo.departments.demoDepartments.service.dto.mapper.AddressMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.DtoLayout;
 import com.demo.departments.demoDepartments.service.dto.mapper.MappingOptions;
+import com.demo.departments.demoDepartments.service.dto.mapper.ScalarProjection;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
+import com.demo.departments.demoDepartments.service.utils.mapping.FetchPlan;
+import com.demo.departments.demoDepartments.service.utils.cache.ResponseCache;
 import com.demo.departments.demoDepartments.service.utils.mapping.GraphBuilderMapperService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
@@ -28,10 +32,25 @@ public class AddressServiceImpl
     extends AbstractBaseService<Address, AddressDTO, AddressRepository, AddressMapper>
     implements AddressService {
 
+    /**
+     * Columns read when no attributes are requested (same result as the mapper with empty options)
+     */
+    private static final ScalarProjection<AddressDTO> SCALAR_PROJECTION = ScalarProjection
+            .<AddressDTO>of(() -> AddressDTO.builder().build())
+            .column("type", AddressDTO::setType)
+            .column("street", AddressDTO::setStreet)
+            .column("postZipCode", AddressDTO::setPostZipCode)
+            .column("province", AddressDTO::setProvince)
+            .column("city", AddressDTO::setCity)
+            .column("country", AddressDTO::setCountry)
+            .column("person.id", AddressDTO::setPersonId);
+
     public AddressServiceImpl(AddressRepository repository, 
                              AddressMapper addressMapper,
-                             GraphBuilderMapperService graphBuilderService) {
-        super(repository, addressMapper, graphBuilderService);
+                             GraphBuilderMapperService graphBuilderService,
+                             ResponseCache responseCache,
+                             BaseServiceSupport support) {
+        super(repository, addressMapper, graphBuilderService, responseCache, support);
     }
 
     @Override
@@ -50,7 +69,7 @@ public class AddressServiceImpl
         address = repository.save(address);
         
         // Return mapped entity as DTO
-        return mapper.toDto(address);
+        return evictCachedResponses(mapper.toDto(address));
     }
 
     @Override
@@ -60,40 +79,77 @@ public class AddressServiceImpl
         Address address = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Address not found with id: " + id));
         
+        // Reject the update when the client read an older version
+        checkVersion(address, addressDTO);
+
         // Update entity with DTO, ignoring null values
         mapper.partialUpdate(address, addressDTO);
         
-        // Save updated entity
-        address = repository.save(address);
+        // Save updated entity; flushed so the DTO carries the incremented version
+        address = repository.saveAndFlush(address);
         
         // Return mapped entity as DTO
-        return mapper.toDto(address);
+        return evictCachedResponses(mapper.toDto(address));
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<AddressDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes) {
-        // Create an appropriate entity graph based on attributes
-        EntityGraph graph;
-        
         if (attributes == null || attributes.isEmpty()) {
-            // Default behavior - lightweight graph for efficient loading
-            graph = createDefaultEntityGraph();
-        } else {
-            // Generate targeted graph based on requested attributes
-            graph = createEntityGraph(attributes);
+            // Scalar columns only - no managed entities, no mapper pass
+            return findProjected((root, query, cb) -> cb.equal(root.get("person").get("id"), personId), withAudit, null, null);
         }
-        
-        // Fetch entities with graph
-        List<Address> addresses = repository.findByPersonId(personId, graph);
-        
+
         // Map to DTOs with appropriate options
         MappingOptions options = MappingOptions.builder()
                 .attributes(attributes)
                 .withAudit(withAudit)
                 .build();
         
-        return mapper.toDtoListWithOptions(addresses, options);
+        return toDtos(loadByPersonId(personId, attributes), options);
     }
-    
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public byte[] findByPersonIdJson(Long personId, boolean withAudit, Set<String> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return toJson(findProjected((root, query, cb) -> cb.equal(root.get("person").get("id"), personId), withAudit, null, null));
+        }
+
+        // Written straight from the entities, with the options the DTOs would be mapped with
+        MappingOptions options = MappingOptions.builder()
+                .attributes(attributes)
+                .withAudit(withAudit)
+                .build();
+
+        return toJson(loadByPersonId(personId, attributes), options);
+    }
+
+    /**
+     * The addresses of a person, with everything the attributes include fetched
+     */
+    private List<Address> loadByPersonId(Long personId, Set<String> attributes) {
+        // Plan the fetch: the root query joins what is cheap to join, sibling collections follow by id
+        FetchPlan plan = createFetchPlan(attributes);
+        List<Address> addresses = repository.findByPersonId(personId, plan.getRootGraph());
+        graphBuilderService.completeFetch(plan, addresses, false);
+        return addresses;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AddressDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes, String after, int limit) {
+        return findPage((root, query, cb) -> cb.equal(root.get("person").get("id"), personId),
+                withAudit, attributes, after, limit);
+    }
+
+    @Override
+    protected ScalarProjection<AddressDTO> scalarProjection() {
+        return SCALAR_PROJECTION;
+    }
+
+    @Override
+    protected DtoLayout<Address, AddressDTO> dtoLayout() {
+        return AddressMapper.LAYOUT;
+    }
+}
@@ -0,0 +1,32 @@
+package com.demo.departments.demoDepartments.service.impl;
+
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
+import com.demo.departments.demoDepartments.service.dto.mapper.SpecializedMappers;
+import com.demo.departments.demoDepartments.service.utils.cache.EntityTags;
+import com.demo.departments.demoDepartments.service.utils.cache.SecondLevelCacheInvalidator;
+import com.demo.departments.demoDepartments.service.utils.export.ChunkedExporter;
+import com.demo.departments.demoDepartments.service.utils.json.EntityJsonWriters;
+import com.demo.departments.demoDepartments.service.utils.patch.AttributePatchReader;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collaborators every {@link AbstractBaseService} uses the same way, whatever its entity; passed to its
+ * constructor as one argument so the entity services only list what they need for themselves
+ */
+@Getter
+@Component
+@RequiredArgsConstructor
+public class BaseServiceSupport {
+
+    private final AttributeRegistry attributeRegistry;
+    private final SpecializedMappers specializedMappers;
+    private final AttributePatchReader patchReader;
+    private final AuditorAware<String> auditorAware;
+    private final SecondLevelCacheInvalidator secondLevelCacheInvalidator;
+    private final EntityTags entityTags;
+    private final EntityJsonWriters entityJsonWriters;
+    private final ChunkedExporter exporter;
+}
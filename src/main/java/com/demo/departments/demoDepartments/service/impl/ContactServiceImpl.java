@@ -1,18 +1,24 @@
 package com.demo.departments.demoDepartments.service.impl;
 
-import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
 import com.demo.departments.demoDepartments.persistence.model.Contact;
 import com.demo.departments.demoDepartments.persistence.repository.ContactRepository;
 import com.demo.departments.demoDepartments.service.ContactService;
 import com.demo.departments.demoDepartments.service.dto.ContactDTO;
 import com.demo.departments.demoDepartments.service.dto.mapper.ContactMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.DtoLayout;
 import com.demo.departments.demoDepartments.service.dto.mapper.MappingOptions;
+import com.demo.departments.demoDepartments.service.dto.mapper.ScalarProjection;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
+import com.demo.departments.demoDepartments.service.utils.mapping.FetchPlan;
+import com.demo.departments.demoDepartments.service.utils.cache.ResponseCache;
 import com.demo.departments.demoDepartments.service.utils.mapping.GraphBuilderMapperService;
+import com.demo.departments.demoDepartments.service.utils.suggest.TypeaheadIndex;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -27,10 +33,26 @@ public class ContactServiceImpl
     extends AbstractBaseService<Contact, ContactDTO, ContactRepository, ContactMapper>
     implements ContactService {
 
+    /**
+     * Columns read when no attributes are requested (same result as the mapper with empty options)
+     */
+    private static final ScalarProjection<ContactDTO> SCALAR_PROJECTION = ScalarProjection
+            .<ContactDTO>of(() -> ContactDTO.builder().build())
+            .column("contactType", ContactDTO::setContactType)
+            .column("phoneNumber", ContactDTO::setPhoneNumber)
+            .column("email", ContactDTO::setEmail)
+            .column("person.id", ContactDTO::setPersonId);
+
+    private final TypeaheadIndex typeaheadIndex;
+
     public ContactServiceImpl(ContactRepository repository, 
                              ContactMapper contactMapper,
-                             GraphBuilderMapperService graphBuilderService) {
-        super(repository, contactMapper, graphBuilderService);
+                             GraphBuilderMapperService graphBuilderService,
+                             ResponseCache responseCache,
+                             BaseServiceSupport support,
+                             TypeaheadIndex typeaheadIndex) {
+        super(repository, contactMapper, graphBuilderService, responseCache, support);
+        this.typeaheadIndex = typeaheadIndex;
     }
 
     @Override
@@ -49,7 +71,7 @@ public class ContactServiceImpl
         contact = repository.save(contact);
         
         // Return mapped entity as DTO
-        return mapper.toDto(contact);
+        return evictCachedResponses(mapper.toDto(contact));
     }
 
     @Override
@@ -59,40 +81,91 @@ public class ContactServiceImpl
         Contact contact = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Contact not found with id: " + id));
         
+        // Reject the update when the client read an older version
+        checkVersion(contact, contactDTO);
+
         // Update entity with DTO, ignoring null values
         mapper.partialUpdate(contact, contactDTO);
         
-        // Save updated entity
-        contact = repository.save(contact);
+        // Save updated entity; flushed so the DTO carries the incremented version
+        contact = repository.saveAndFlush(contact);
         
         // Return mapped entity as DTO
-        return mapper.toDto(contact);
+        return evictCachedResponses(mapper.toDto(contact));
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<ContactDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes) {
-        // Create an appropriate entity graph based on attributes
-        EntityGraph graph;
-        
         if (attributes == null || attributes.isEmpty()) {
-            // Default behavior - lightweight graph for efficient loading
-            graph = createDefaultEntityGraph();
-        } else {
-            // Generate targeted graph based on requested attributes
-            graph = createEntityGraph(attributes);
+            // Scalar columns only - no managed entities, no mapper pass
+            return findProjected((root, query, cb) -> cb.equal(root.get("person").get("id"), personId), withAudit, null, null);
         }
-        
-        // Fetch entities with graph
-        List<Contact> contacts = repository.findByPersonId(personId, graph);
-        
+
         // Map to DTOs with appropriate options
         MappingOptions options = MappingOptions.builder()
                 .attributes(attributes)
                 .withAudit(withAudit)
                 .build();
         
-        return mapper.toDtoListWithOptions(contacts, options);
+        return toDtos(loadByPersonId(personId, attributes), options);
     }
-    
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public byte[] findByPersonIdJson(Long personId, boolean withAudit, Set<String> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return toJson(findProjected((root, query, cb) -> cb.equal(root.get("person").get("id"), personId), withAudit, null, null));
+        }
+
+        // Written straight from the entities, with the options the DTOs would be mapped with
+        MappingOptions options = MappingOptions.builder()
+                .attributes(attributes)
+                .withAudit(withAudit)
+                .build();
+
+        return toJson(loadByPersonId(personId, attributes), options);
+    }
+
+    /**
+     * The contacts of a person, with everything the attributes include fetched
+     */
+    private List<Contact> loadByPersonId(Long personId, Set<String> attributes) {
+        // Plan the fetch: the root query joins what is cheap to join, sibling collections follow by id
+        FetchPlan plan = createFetchPlan(attributes);
+        List<Contact> contacts = repository.findByPersonId(personId, plan.getRootGraph());
+        graphBuilderService.completeFetch(plan, contacts, false);
+        return contacts;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ContactDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes, String after, int limit) {
+        return findPage((root, query, cb) -> cb.equal(root.get("person").get("id"), personId),
+                withAudit, attributes, after, limit);
+    }
+
+    @Override
+    protected ScalarProjection<ContactDTO> scalarProjection() {
+        return SCALAR_PROJECTION;
+    }
+
+    @Override
+    protected DtoLayout<Contact, ContactDTO> dtoLayout() {
+        return ContactMapper.LAYOUT;
+    }
+
+    @Override
+    protected void afterPatch(Long id, Set<String> attributes) {
+        if (attributes.contains("email") || attributes.contains("phoneNumber")) {
+            repository.findAllTuples((root, query, cb) -> cb.equal(root.get("id"), id),
+                            List.of("person.id", "email", "phoneNumber"), null, 1)
+                    .forEach(row -> typeaheadIndex.contactSaved(id, (Long) row.get(0), (String) row.get(1), (String) row.get(2)));
+        }
+    }
+
+    @Override
+    protected void afterBulkDelete(Collection<Long> ids) {
+        typeaheadIndex.contactsRemoved(ids);
+    }
+}
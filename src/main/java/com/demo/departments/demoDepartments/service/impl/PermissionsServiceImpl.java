@@ -1,13 +1,19 @@
 package com.demo.departments.demoDepartments.service.impl;
 
-import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
 import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
 import com.demo.departments.demoDepartments.persistence.repository.PermissionsRepository;
 import com.demo.departments.demoDepartments.service.PermissionsService;
 import com.demo.departments.demoDepartments.service.dto.security.PermissionsDTO;
+import com.demo.departments.demoDepartments.service.dto.mapper.DtoLayout;
 import com.demo.departments.demoDepartments.service.dto.mapper.MappingOptions;
+import com.demo.departments.demoDepartments.service.dto.mapper.ScalarProjection;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
 import com.demo.departments.demoDepartments.service.dto.mapper.PermissionsMapper;
+import com.demo.departments.demoDepartments.service.utils.mapping.FetchPlan;
+import com.demo.departments.demoDepartments.service.utils.cache.ResponseCache;
 import com.demo.departments.demoDepartments.service.utils.mapping.GraphBuilderMapperService;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -27,10 +33,24 @@ public class PermissionsServiceImpl
     extends AbstractBaseService<Permissions, PermissionsDTO, PermissionsRepository, PermissionsMapper>
     implements PermissionsService {
 
+    /**
+     * Columns read when no attributes are requested (same result as the mapper with empty options)
+     */
+    private static final ScalarProjection<PermissionsDTO> SCALAR_PROJECTION = ScalarProjection
+            .<PermissionsDTO>of(() -> PermissionsDTO.builder().build())
+            .column("permission", PermissionsDTO::setPermission)
+            .column("role.id", PermissionsDTO::setRoleId);
+
+    private final EntityManager entityManager;
+
     public PermissionsServiceImpl(PermissionsRepository repository, 
                                  PermissionsMapper permissionsMapper,
-                                 GraphBuilderMapperService graphBuilderService) {
-        super(repository, permissionsMapper, graphBuilderService);
+                                 GraphBuilderMapperService graphBuilderService,
+                                 ResponseCache responseCache,
+                                 BaseServiceSupport support,
+                                 EntityManager entityManager) {
+        super(repository, permissionsMapper, graphBuilderService, responseCache, support);
+        this.entityManager = entityManager;
     }
 
     @Override
@@ -44,12 +64,24 @@ public class PermissionsServiceImpl
     public PermissionsDTO save(PermissionsDTO permissionsDTO) {
         // Convert DTO to entity
         Permissions permissions = mapper.toEntity(permissionsDTO);
+
+        // The mapper leaves the role out; a permission cannot exist without one
+        Long roleId = permissionsDTO.getRoleId();
+        if (roleId == null) {
+            throw new IllegalArgumentException("Role id is required");
+        }
+        Role role = entityManager.find(Role.class, roleId);
+        if (role == null) {
+            throw new EntityNotFoundException("Role not found with id: " + roleId);
+        }
+        // Through the role, so its cached permissions collection is updated too
+        role.addPermission(permissions);
         
         // Save entity
         permissions = repository.save(permissions);
         
         // Return mapped entity as DTO
-        return mapper.toDto(permissions);
+        return evictCachedResponses(mapper.toDto(permissions));
     }
 
     @Override
@@ -59,32 +91,31 @@ public class PermissionsServiceImpl
         Permissions permissions = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Permissions not found with id: " + id));
         
+        // Reject the update when the client read an older version
+        checkVersion(permissions, permissionsDTO);
+
         // Update entity with DTO, ignoring null values
         mapper.partialUpdate(permissions, permissionsDTO);
         
-        // Save updated entity
-        permissions = repository.save(permissions);
+        // Save updated entity; flushed so the DTO carries the incremented version
+        permissions = repository.saveAndFlush(permissions);
         
         // Return mapped entity as DTO
-        return mapper.toDto(permissions);
+        return evictCachedResponses(mapper.toDto(permissions));
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<PermissionsDTO> findByRoleId(Long roleId, boolean withAudit, Set<String> attributes) {
-        // Create an appropriate entity graph based on attributes
-        EntityGraph graph;
-        
         if (attributes == null || attributes.isEmpty()) {
-            // Default behavior - lightweight graph for efficient loading
-            graph = createDefaultEntityGraph();
-        } else {
-            // Generate targeted graph based on requested attributes
-            graph = createEntityGraph(attributes);
+            // Scalar columns only - no managed entities, no mapper pass
+            return findProjected((root, query, cb) -> cb.equal(root.get("role").get("id"), roleId), withAudit, null, null);
         }
-        
-        // Fetch entities with graph
-        List<Permissions> permissions = repository.findByRoleId(roleId, graph);
+
+        // Plan the fetch: the root query joins what is cheap to join, sibling collections follow by id
+        FetchPlan plan = createFetchPlan(attributes);
+        List<Permissions> permissions = repository.findByRoleId(roleId, plan.getRootGraph());
+        graphBuilderService.completeFetch(plan, permissions, false);
         
         // Map to DTOs with appropriate options
         MappingOptions options = MappingOptions.builder()
@@ -92,7 +123,23 @@ public class PermissionsServiceImpl
                 .withAudit(withAudit)
                 .build();
         
-        return mapper.toDtoListWithOptions(permissions, options);
+        return toDtos(permissions, options);
     }
-    
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<PermissionsDTO> findByRoleId(Long roleId, boolean withAudit, Set<String> attributes, String after, int limit) {
+        return findPage((root, query, cb) -> cb.equal(root.get("role").get("id"), roleId),
+                withAudit, attributes, after, limit);
+    }
+
+    @Override
+    protected ScalarProjection<PermissionsDTO> scalarProjection() {
+        return SCALAR_PROJECTION;
+    }
+
+    @Override
+    protected DtoLayout<Permissions, PermissionsDTO> dtoLayout() {
+        return PermissionsMapper.LAYOUT;
+    }
+}
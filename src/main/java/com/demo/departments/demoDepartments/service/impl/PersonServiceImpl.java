@@ -1,17 +1,36 @@
 package com.demo.departments.demoDepartments.service.impl;
 
 import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
 import com.demo.departments.demoDepartments.persistence.repository.PersonRepository;
+import com.demo.departments.demoDepartments.persistence.repository.PersonSearchRepository;
 import com.demo.departments.demoDepartments.service.PersonService;
 import com.demo.departments.demoDepartments.service.dto.PersonDTO;
+import com.demo.departments.demoDepartments.service.dto.PersonSuggestionDTO;
+import com.demo.departments.demoDepartments.service.dto.mapper.ChildSummary;
+import com.demo.departments.demoDepartments.service.dto.mapper.DtoLayout;
 import com.demo.departments.demoDepartments.service.dto.mapper.PersonMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.ScalarProjection;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
+import com.demo.departments.demoDepartments.service.utils.cache.ResponseCache;
+import com.demo.departments.demoDepartments.service.utils.cache.SecondLevelCacheInvalidator;
 import com.demo.departments.demoDepartments.service.utils.mapping.GraphBuilderMapperService;
+import com.demo.departments.demoDepartments.service.utils.paging.CursorCodec;
+import com.demo.departments.demoDepartments.service.utils.suggest.TypeaheadIndex;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of PersonService
@@ -23,10 +42,33 @@ public class PersonServiceImpl
     extends AbstractBaseService<Person, PersonDTO, PersonRepository, PersonMapper>
     implements PersonService {
 
+    /**
+     * Columns read when no attributes are requested (same result as the mapper with empty options)
+     */
+    private static final ScalarProjection<PersonDTO> SCALAR_PROJECTION = ScalarProjection
+            .<PersonDTO>of(() -> PersonDTO.builder().addressCount(0).contactCount(0).roleCount(0).build())
+            .column("firstName", PersonDTO::setFirstName)
+            .column("lastName", PersonDTO::setLastName)
+            .column("birthDay", PersonDTO::setBirthDay);
+
+    private static final List<ChildSummary<PersonDTO>> CHILD_SUMMARIES = List.of(
+            ChildSummary.of("addresses", PersonDTO::setAddressIds, PersonDTO::setAddressCount),
+            ChildSummary.of("contacts", PersonDTO::setContactIds, PersonDTO::setContactCount),
+            ChildSummary.of("roles", PersonDTO::setRoleIds, PersonDTO::setRoleCount));
+
+    private final SecondLevelCacheInvalidator cacheInvalidator;
+    private final TypeaheadIndex typeaheadIndex;
+
     public PersonServiceImpl(PersonRepository repository, 
                              PersonMapper personMapper,
-                             GraphBuilderMapperService graphBuilderService) {
-        super(repository, personMapper, graphBuilderService);
+                             GraphBuilderMapperService graphBuilderService,
+                             ResponseCache responseCache,
+                             BaseServiceSupport support,
+                             SecondLevelCacheInvalidator cacheInvalidator,
+                             TypeaheadIndex typeaheadIndex) {
+        super(repository, personMapper, graphBuilderService, responseCache, support);
+        this.cacheInvalidator = cacheInvalidator;
+        this.typeaheadIndex = typeaheadIndex;
     }
 
     @Override
@@ -45,7 +87,7 @@ public class PersonServiceImpl
         person = repository.save(person);
         
         // Return mapped entity as DTO
-        return mapper.toDto(person);
+        return evictCachedResponses(mapper.toDto(person));
     }
 
     @Override
@@ -55,13 +97,87 @@ public class PersonServiceImpl
         Person person = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Person not found with id: " + id));
         
+        // Reject the update when the client read an older version
+        checkVersion(person, personDTO);
+
         // Update entity with DTO, ignoring null values
         mapper.partialUpdate(person, personDTO);
         
-        // Save updated entity
-        person = repository.save(person);
+        // Save updated entity; flushed so the DTO carries the incremented version
+        person = repository.saveAndFlush(person);
         
         // Return mapped entity as DTO
-        return mapper.toDto(person);
+        return evictCachedResponses(mapper.toDto(person));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<PersonDTO> search(String query, boolean withAudit, Set<String> attributes, String after, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        CursorCodec.RankedCursor cursor = CursorCodec.decodeRanked(after);
+
+        // Read one extra hit to learn whether another page exists
+        List<PersonSearchRepository.Hit> hits = repository.search(query,
+                cursor == null ? null : new PersonSearchRepository.Hit(cursor.id(), cursor.rank()), limit + 1);
+        boolean hasNext = hits.size() > limit;
+        if (hasNext) {
+            hits = hits.subList(0, limit);
+        }
+        if (hits.isEmpty()) {
+            return CursorPage.<PersonDTO>builder().content(List.of()).build();
+        }
+
+        // Load the page like any other list (projection or attribute graph), then restore the rank order
+        List<Long> ids = hits.stream().map(PersonSearchRepository.Hit::id).toList();
+        Map<Long, PersonDTO> persons = findAll((root, q, cb) -> root.get("id").in(ids), withAudit, attributes).stream()
+                .collect(Collectors.toMap(PersonDTO::getId, Function.identity()));
+
+        PersonSearchRepository.Hit last = hits.get(hits.size() - 1);
+        return CursorPage.<PersonDTO>builder()
+                .content(ids.stream().map(persons::get).filter(Objects::nonNull).toList())
+                .nextCursor(hasNext ? CursorCodec.encodeRanked(last.rank(), last.id()) : null)
+                .build();
+    }
+
+    @Override
+    // Answered from memory: no transaction, no connection
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<PersonSuggestionDTO> suggest(String prefix, int limit) {
+        return typeaheadIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    protected ScalarProjection<PersonDTO> scalarProjection() {
+        return SCALAR_PROJECTION;
+    }
+
+    @Override
+    protected DtoLayout<Person, PersonDTO> dtoLayout() {
+        return PersonMapper.LAYOUT;
+    }
+
+    @Override
+    protected List<ChildSummary<PersonDTO>> childSummaries() {
+        return CHILD_SUMMARIES;
+    }
+
+    @Override
+    protected void afterPatch(Long id, Set<String> attributes) {
+        if (attributes.contains("firstName") || attributes.contains("lastName")) {
+            // The patch may have changed one name only; the index needs both
+            repository.findAllTuples((root, query, cb) -> cb.equal(root.get("id"), id),
+                            List.of("firstName", "lastName"), null, 1)
+                    .forEach(names -> typeaheadIndex.personSaved(id, (String) names.get(0), (String) names.get(1)));
+        }
+    }
+
+    @Override
+    protected void afterBulkDelete(Collection<Long> ids) {
+        // ON DELETE SET NULL detached the persons' roles in the database only
+        cacheInvalidator.evictEntities(Role.class);
+        // Their contacts went with them through ON DELETE CASCADE
+        typeaheadIndex.personsRemoved(ids);
     }
-}
\ No newline at end of file
+}
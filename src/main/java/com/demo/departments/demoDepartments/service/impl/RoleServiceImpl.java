@@ -1,18 +1,26 @@
 package com.demo.departments.demoDepartments.service.impl;
 
-import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
 import com.demo.departments.demoDepartments.persistence.model.security.Role;
 import com.demo.departments.demoDepartments.persistence.repository.RoleRepository;
 import com.demo.departments.demoDepartments.service.RoleService;
 import com.demo.departments.demoDepartments.service.dto.security.RoleDTO;
+import com.demo.departments.demoDepartments.service.dto.mapper.DtoLayout;
 import com.demo.departments.demoDepartments.service.dto.mapper.MappingOptions;
+import com.demo.departments.demoDepartments.service.dto.mapper.ScalarProjection;
+import com.demo.departments.demoDepartments.service.dto.page.CursorPage;
+import com.demo.departments.demoDepartments.service.dto.mapper.ChildSummary;
 import com.demo.departments.demoDepartments.service.dto.mapper.RoleMapper;
+import com.demo.departments.demoDepartments.service.utils.cache.ResponseCache;
+import com.demo.departments.demoDepartments.service.utils.cache.SecondLevelCacheInvalidator;
+import com.demo.departments.demoDepartments.service.utils.mapping.FetchPlan;
 import com.demo.departments.demoDepartments.service.utils.mapping.GraphBuilderMapperService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -27,10 +35,27 @@ public class RoleServiceImpl
     extends AbstractBaseService<Role, RoleDTO, RoleRepository, RoleMapper>
     implements RoleService {
 
+    /**
+     * Columns read when no attributes are requested (same result as the mapper with empty options)
+     */
+    private static final ScalarProjection<RoleDTO> SCALAR_PROJECTION = ScalarProjection
+            .<RoleDTO>of(() -> RoleDTO.builder().build())
+            .column("role", RoleDTO::setRole)
+            .column("person.id", RoleDTO::setPersonId);
+
+    private static final List<ChildSummary<RoleDTO>> CHILD_SUMMARIES = List.of(
+            ChildSummary.of("permissions", RoleDTO::setPermissionIds));
+
+    private final SecondLevelCacheInvalidator cacheInvalidator;
+
     public RoleServiceImpl(RoleRepository repository, 
                           RoleMapper roleMapper,
-                          GraphBuilderMapperService graphBuilderService) {
-        super(repository, roleMapper, graphBuilderService);
+                          GraphBuilderMapperService graphBuilderService,
+                          ResponseCache responseCache,
+                          BaseServiceSupport support,
+                          SecondLevelCacheInvalidator cacheInvalidator) {
+        super(repository, roleMapper, graphBuilderService, responseCache, support);
+        this.cacheInvalidator = cacheInvalidator;
     }
 
     @Override
@@ -49,7 +74,7 @@ public class RoleServiceImpl
         role = repository.save(role);
         
         // Return mapped entity as DTO
-        return mapper.toDto(role);
+        return evictCachedResponses(mapper.toDto(role));
     }
 
     @Override
@@ -59,40 +84,90 @@ public class RoleServiceImpl
         Role role = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Role not found with id: " + id));
         
+        // Reject the update when the client read an older version
+        checkVersion(role, roleDTO);
+
         // Update entity with DTO, ignoring null values
         mapper.partialUpdate(role, roleDTO);
         
-        // Save updated entity
-        role = repository.save(role);
+        // Save updated entity; flushed so the DTO carries the incremented version
+        role = repository.saveAndFlush(role);
         
         // Return mapped entity as DTO
-        return mapper.toDto(role);
+        return evictCachedResponses(mapper.toDto(role));
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<RoleDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes) {
-        // Create an appropriate entity graph based on attributes
-        EntityGraph graph;
-        
         if (attributes == null || attributes.isEmpty()) {
-            // Default behavior - lightweight graph for efficient loading
-            graph = createDefaultEntityGraph();
-        } else {
-            // Generate targeted graph based on requested attributes
-            graph = createEntityGraph(attributes);
+            // Scalar columns only - no managed entities, no mapper pass
+            return findProjected((root, query, cb) -> cb.equal(root.get("person").get("id"), personId), withAudit, null, null);
         }
-        
-        // Fetch entities with graph
-        List<Role> roles = repository.findByPersonId(personId, graph);
-        
+
         // Map to DTOs with appropriate options
         MappingOptions options = MappingOptions.builder()
                 .attributes(attributes)
                 .withAudit(withAudit)
                 .build();
         
-        return mapper.toDtoListWithOptions(roles, options);
+        return toDtos(loadByPersonId(personId, attributes), options);
     }
-    
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public byte[] findByPersonIdJson(Long personId, boolean withAudit, Set<String> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return toJson(findProjected((root, query, cb) -> cb.equal(root.get("person").get("id"), personId), withAudit, null, null));
+        }
+
+        // Written straight from the entities, with the options the DTOs would be mapped with
+        MappingOptions options = MappingOptions.builder()
+                .attributes(attributes)
+                .withAudit(withAudit)
+                .build();
+
+        return toJson(loadByPersonId(personId, attributes), options);
+    }
+
+    /**
+     * The roles of a person, with everything the attributes include fetched
+     */
+    private List<Role> loadByPersonId(Long personId, Set<String> attributes) {
+        // Plan the fetch: the root query joins what is cheap to join, sibling collections follow by id
+        FetchPlan plan = createFetchPlan(attributes);
+        List<Role> roles = repository.findByPersonId(personId, plan.getRootGraph());
+        graphBuilderService.completeFetch(plan, roles, false);
+        return roles;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<RoleDTO> findByPersonId(Long personId, boolean withAudit, Set<String> attributes, String after, int limit) {
+        return findPage((root, query, cb) -> cb.equal(root.get("person").get("id"), personId),
+                withAudit, attributes, after, limit);
+    }
+
+    @Override
+    protected ScalarProjection<RoleDTO> scalarProjection() {
+        return SCALAR_PROJECTION;
+    }
+
+    @Override
+    protected DtoLayout<Role, RoleDTO> dtoLayout() {
+        return RoleMapper.LAYOUT;
+    }
+
+    @Override
+    protected List<ChildSummary<RoleDTO>> childSummaries() {
+        return CHILD_SUMMARIES;
+    }
+
+    @Override
+    protected void afterBulkDelete(Collection<Long> ids) {
+        // ON DELETE CASCADE removed the roles' permissions in the database only
+        cacheInvalidator.evictEntities(Permissions.class);
+        // Cached id lists without their cached elements would load every permission with its own SELECT
+        cacheInvalidator.evictCollections(Role.class, "permissions");
+    }
+}
@@ -0,0 +1,100 @@
+package com.demo.departments.demoDepartments.service.utils.cache;
+
+import com.demo.departments.demoDepartments.persistence.model.base.PersistenceModel;
+import com.demo.departments.demoDepartments.persistence.repository.BaseCustomJpaRepository;
+import com.demo.departments.demoDepartments.service.utils.mapping.GraphBuilderMapperService;
+import com.demo.departments.demoDepartments.service.utils.paging.CursorCodec;
+import jakarta.persistence.Tuple;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Strong entity tags of single entities, lists and pages, hashed from what
+ * {@link BaseCustomJpaRepository#summarizeChanges} reads of the entities in scope and of what the attributes
+ * reach from them. Only the summary is read, never the representation itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityTags {
+
+    private final GraphBuilderMapperService graphBuilderService;
+
+    /**
+     * Tag of one entity, or null when it does not exist
+     */
+    public <E extends PersistenceModel> String entityTag(BaseCustomJpaRepository<E, Long> repository,
+                                                         Class<E> entityClass, Long id, boolean withAudit,
+                                                         Set<String> attributes) {
+        Specification<E> scope = (root, query, cb) -> cb.equal(root.get("id"), id);
+        return entityTag(repository, entityClass, scope, null, null, withAudit, attributes, "id=" + id, true);
+    }
+
+    /**
+     * Tag of a whole list, or of one page: the page's id range is read first (one extra id tells whether a next
+     * page exists), so only the rows of the page and their children are summarized, not everything after the cursor
+     *
+     * @param limit page size, or null for the whole list after the cursor
+     * @param view tells apart the representations of the same rows, e.g. "summary;"
+     */
+    public <E extends PersistenceModel> String pageTag(BaseCustomJpaRepository<E, Long> repository,
+                                                       Class<E> entityClass, Specification<E> scope,
+                                                       boolean withAudit, Set<String> attributes, String after,
+                                                       Integer limit, String view) {
+        Long afterId = CursorCodec.decode(after);
+        if (limit == null) {
+            return entityTag(repository, entityClass, scope, afterId, null, withAudit, attributes,
+                    view + "after=" + after, false);
+        }
+
+        List<Long> ids = repository.findIdsAfter(scope, afterId, limit + 1);
+        boolean hasNext = ids.size() > limit;
+        Long upTo = ids.isEmpty() ? null : ids.get(Math.min(limit, ids.size()) - 1);
+        String page = view + "after=" + after + ";limit=" + limit + ";upTo=" + upTo + ";next=" + hasNext;
+        if (upTo == null) {
+            // Empty page: nothing to summarize
+            return tag(entityClass, page);
+        }
+        return entityTag(repository, entityClass, scope, afterId, upTo, withAudit, attributes, page, false);
+    }
+
+    /**
+     * @param upTo last id of the page in scope, or null
+     * @param single null instead of a tag when the scope is empty
+     */
+    private <E extends PersistenceModel> String entityTag(BaseCustomJpaRepository<E, Long> repository,
+                                                          Class<E> entityClass, Specification<E> scope, Long after,
+                                                          Long upTo, boolean withAudit, Set<String> attributes,
+                                                          String view, boolean single) {
+        List<String> paths = new ArrayList<>(graphBuilderService.getFetchedPaths(entityClass, attributes));
+        List<Tuple> summary = new ArrayList<>(repository.summarizeChanges(scope, after, upTo, paths));
+        summary.sort(Comparator.comparingInt(tuple -> ((Number) tuple.get(0)).intValue()));
+        if (single && ((Number) summary.get(0).get(1)).longValue() == 0) {
+            return null;
+        }
+
+        StringBuilder state = new StringBuilder(view)
+                .append("|audit=").append(withAudit)
+                .append("|attributes=").append(attributes == null ? "" : new TreeSet<>(attributes));
+        for (Tuple tuple : summary) {
+            state.append('|');
+            for (int i = 1; i < tuple.getElements().size(); i++) {
+                state.append(tuple.get(i)).append(',');
+            }
+        }
+        return tag(entityClass, state.toString());
+    }
+
+    private static String tag(Class<?> entityClass, String state) {
+        String tagged = entityClass.getSimpleName() + '|' + state;
+        return "\"" + DigestUtils.md5DigestAsHex(tagged.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,322 @@
+package com.demo.departments.demoDepartments.service.utils.cache;
+
+import com.demo.departments.demoDepartments.service.dto.base.BaseDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of serialized single-entity responses ({@code GET /api/<entities>/{id}}), keyed by
+ * entity type, id, normalized attribute set and {@code withAudit}. Caffeine's W-TinyLFU policy keeps
+ * the frequently requested combinations; the bound is the total size of the cached JSON in bytes.
+ * <p>
+ * Every entry remembers the entities its JSON was built from: the root, every nested DTO and the
+ * parents it references by id (e.g. an address' {@code personId}), and a reverse index maps each of
+ * those entities to the keys of the entries built from it. Writes evict exactly the entries depending
+ * on a changed entity, after their transaction commits, without scanning the cache. A response loaded while an eviction
+ * ran is returned but not kept, so a read racing with a write cannot leave stale JSON behind. With read
+ * replicas enabled, responses depending on an entity evicted less than the replicas' max lag ago are not
+ * kept either: they may have been read from a replica that has not replayed the write yet.
+ * <p>
+ * An entry keeps the entity tag read just before its JSON. Writes that bypass the evictions (a bulk JPQL
+ * update, another node) leave that tag outdated, so it is only trusted for {@code tag-trust} after it was
+ * last confirmed against the database; later conditional GETs re-read the tag before answering from the cache.
+ */
+@Component
+public class ResponseCache {
+
+    private static final String DTO_SUFFIX = "DTO";
+    private static final String ID_SUFFIX = "Id";
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, Entry> cache;
+
+    /** Incremented by every eviction; loads that saw it change do not store their result */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** "Type#id" to the time of its last eviction, only tracked with read replicas */
+    private final Map<String, Long> recentEvictions = new ConcurrentHashMap<>();
+    private final long settleNanos;
+    private final long tagTrustNanos;
+
+    /**
+     * "Type#id" to the keys of the entries depending on it. The keys of one entry are only added and
+     * removed while Caffeine holds that entry's key (inside its compute or eviction), so the index and
+     * the cached entry never disagree.
+     */
+    private final Map<String, Set<Key>> dependents = new ConcurrentHashMap<>();
+
+    /** Per DTO class: nested DTO / collection fields and parent id fields ("personId") */
+    private final Map<Class<?>, List<Field>> referenceFields = new ConcurrentHashMap<>();
+
+    public ResponseCache(ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${departments.response-cache.max-bytes:67108864}") long maxBytes,
+                         @Value("${departments.response-cache.ttl:10m}") Duration ttl,
+                         @Value("${departments.response-cache.tag-trust:1s}") Duration tagTrust,
+                         @Value("${departments.read-replicas.enabled:false}") boolean readReplicas,
+                         @Value("${departments.read-replicas.max-lag:5s}") Duration maxReplicaLag) {
+        this.objectMapper = objectMapper;
+        this.settleNanos = readReplicas ? maxReplicaLag.toNanos() : 0;
+        this.tagTrustNanos = tagTrust.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Entry entry) -> entry.response().json().length)
+                .expireAfterWrite(ttl)
+                // Runs atomically with the removal of an expired or size-evicted entry
+                .evictionListener((Key key, Entry entry, RemovalCause cause) -> {
+                    if (key != null && entry != null) {
+                        unindex(key, entry);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "responses");
+    }
+
+    /**
+     * The cached response of the entity, or null
+     *
+     * @param type DTO type of the response
+     */
+    public Response getIfPresent(Class<? extends BaseDTO> type, Long id, Set<String> attributes, boolean withAudit) {
+        Entry cached = cache.getIfPresent(key(type, id, attributes, withAudit));
+        return cached == null ? null : cached.response();
+    }
+
+    /**
+     * Whether the tag of a cached response was confirmed recently enough to answer without reading it again
+     */
+    public boolean isTrusted(Response response) {
+        return response.entityTag() != null && System.nanoTime() - response.confirmedAt() < tagTrustNanos;
+    }
+
+    /**
+     * Records that the database still has the tag of the cached response, which is trusted again from now on
+     *
+     * @param type DTO type of the response
+     */
+    public void confirm(Class<? extends BaseDTO> type, Long id, Set<String> attributes, boolean withAudit,
+                        Response response) {
+        Response confirmed = new Response(response.json(), response.entityTag(), System.nanoTime());
+        // Only the entry still holding this response; the dependencies and so the index stay the same
+        cache.asMap().computeIfPresent(key(type, id, attributes, withAudit), (k, entry) ->
+                entry.response() == response ? new Entry(confirmed, entry.dependencies()) : entry);
+    }
+
+    /**
+     * Loads, serializes and caches the entity
+     *
+     * @param type DTO type of the response
+     * @param entityTag tag of the entity read before the loader runs, kept with the JSON; may be null
+     * @param loader reads the DTO (e.g. {@code BaseService.findById})
+     */
+    public Response load(Class<? extends BaseDTO> type, Long id, Set<String> attributes, boolean withAudit,
+                         String entityTag, Supplier<? extends BaseDTO> loader) {
+        Key key = key(type, id, attributes, withAudit);
+        long observed = generation.get();
+        BaseDTO dto = loader.get();
+        Response response = new Response(serialize(dto), entityTag, System.nanoTime());
+        Set<String> dependencies = dependencies(dto);
+        if (generation.get() == observed && !recentlyEvicted(dependencies)) {
+            Entry entry = new Entry(response, dependencies);
+            cache.asMap().compute(key, (k, previous) -> {
+                if (previous != null) {
+                    unindex(k, previous);
+                }
+                index(k, entry);
+                return entry;
+            });
+            // An eviction between the check and the put may have missed the new entry
+            if (generation.get() != observed) {
+                remove(key, null);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * After commit, evicts every response built from the given entities (e.g. after a delete)
+     *
+     * @param type DTO type of the changed entities
+     */
+    public void evict(Class<? extends BaseDTO> type, Collection<Long> ids) {
+        String name = typeName(type);
+        Set<String> changed = new HashSet<>();
+        ids.forEach(id -> changed.add(reference(name, id)));
+        evictReferences(changed);
+    }
+
+    /**
+     * After commit, evicts every response built from the saved entity or showing its parents
+     * (a new or moved address changes the address list of its person)
+     */
+    public void evict(BaseDTO saved) {
+        Set<String> changed = new HashSet<>();
+        collectReferences(saved, changed, false);
+        evictReferences(changed);
+    }
+
+    private void evictReferences(Set<String> changed) {
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            if (settleNanos > 0) {
+                long now = System.nanoTime();
+                recentEvictions.values().removeIf(evictedAt -> now - evictedAt > settleNanos);
+                changed.forEach(reference -> recentEvictions.put(reference, now));
+            }
+            for (String reference : changed) {
+                Set<Key> keys = dependents.get(reference);
+                if (keys != null) {
+                    // Copied: removing an entry removes its key from this set
+                    for (Key key : List.copyOf(keys)) {
+                        remove(key, changed);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes the entry of the key if it depends on one of the changed entities, or unconditionally when null
+     */
+    private void remove(Key key, Set<String> changed) {
+        cache.asMap().computeIfPresent(key, (k, entry) -> {
+            if (changed != null && Collections.disjoint(entry.dependencies(), changed)) {
+                // Replaced by an entry built from other entities since the key was indexed
+                return entry;
+            }
+            unindex(k, entry);
+            return null;
+        });
+    }
+
+    private void index(Key key, Entry entry) {
+        for (String reference : entry.dependencies()) {
+            dependents.compute(reference, (r, keys) -> {
+                Set<Key> result = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+                result.add(key);
+                return result;
+            });
+        }
+    }
+
+    private void unindex(Key key, Entry entry) {
+        for (String reference : entry.dependencies()) {
+            dependents.computeIfPresent(reference, (r, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private boolean recentlyEvicted(Set<String> dependencies) {
+        if (recentEvictions.isEmpty()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        return dependencies.stream()
+                .map(recentEvictions::get)
+                .anyMatch(evictedAt -> evictedAt != null && now - evictedAt <= settleNanos);
+    }
+
+    private Set<String> dependencies(BaseDTO dto) {
+        Set<String> references = new HashSet<>();
+        collectReferences(dto, references, true);
+        return references;
+    }
+
+    private void collectReferences(BaseDTO dto, Set<String> references, boolean nested) {
+        references.add(reference(typeName(dto.getClass()), dto.getId()));
+        for (Field field : referenceFields(dto.getClass())) {
+            Object value = ReflectionUtils.getField(field, dto);
+            if (value instanceof Long parentId) {
+                String name = field.getName();
+                references.add(reference(StringUtils.capitalize(name.substring(0, name.length() - ID_SUFFIX.length())), parentId));
+            } else if (nested && value instanceof BaseDTO child) {
+                collectReferences(child, references, true);
+            } else if (nested && value instanceof Collection<?> children) {
+                for (Object child : children) {
+                    if (child instanceof BaseDTO childDto) {
+                        collectReferences(childDto, references, true);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Field> referenceFields(Class<?> type) {
+        return referenceFields.computeIfAbsent(type, t -> {
+            List<Field> fields = new ArrayList<>();
+            ReflectionUtils.doWithFields(t, field -> {
+                ReflectionUtils.makeAccessible(field);
+                fields.add(field);
+            }, field -> BaseDTO.class.isAssignableFrom(field.getType())
+                    || Collection.class.isAssignableFrom(field.getType())
+                    || (field.getType() == Long.class && field.getName().endsWith(ID_SUFFIX)));
+            return fields;
+        });
+    }
+
+    private byte[] serialize(BaseDTO dto) {
+        try {
+            return objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + dto.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static List<String> normalize(Set<String> attributes) {
+        if (attributes == null) {
+            return List.of();
+        }
+        // Only the order is normalized: e.g. " roles" is not resolved by the services and gives another response
+        return attributes.stream().sorted().toList();
+    }
+
+    private static Key key(Class<? extends BaseDTO> type, Long id, Set<String> attributes, boolean withAudit) {
+        return new Key(typeName(type), id, normalize(attributes), withAudit);
+    }
+
+    private static String typeName(Class<?> dtoClass) {
+        String name = dtoClass.getSimpleName();
+        return name.endsWith(DTO_SUFFIX) ? name.substring(0, name.length() - DTO_SUFFIX.length()) : name;
+    }
+
+    private static String reference(String type, Long id) {
+        return type + "#" + id;
+    }
+
+    private record Key(String type, Long id, List<String> attributes, boolean withAudit) {
+    }
+
+    /**
+     * Serialized entity with the entity tag it was read under
+     *
+     * @param entityTag tag computed before the entity was read, or null; the JSON is at least as new as the tag
+     * @param confirmedAt {@link System#nanoTime()} when the tag was last read from the database
+     */
+    public record Response(byte[] json, String entityTag, long confirmedAt) {
+    }
+
+    /**
+     * @param dependencies "Type#id" of every entity the JSON was built from
+     */
+    private record Entry(Response response, Set<String> dependencies) {
+    }
+}
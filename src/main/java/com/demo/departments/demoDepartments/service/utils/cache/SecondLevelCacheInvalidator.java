@@ -0,0 +1,57 @@
+package com.demo.departments.demoDepartments.service.utils.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Evicts second-level cache entries that changed in the database without Hibernate seeing the change,
+ * e.g. rows removed or updated by {@code ON DELETE CASCADE / SET NULL} foreign key actions.
+ * <p>
+ * Evictions run after the current transaction commits, so a concurrent reader cannot put
+ * the not yet committed state back into the cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheInvalidator {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Evicts every cached instance of the entity
+     */
+    public void evictEntities(Class<?> entityClass) {
+        TransactionCallbacks.afterCommit(() -> cache().evictEntityData(entityClass));
+    }
+
+    /**
+     * Evicts the cached instance of one entity
+     */
+    public void evictEntity(Class<?> entityClass, Object id) {
+        TransactionCallbacks.afterCommit(() -> cache().evictEntityData(entityClass, id));
+    }
+
+    /**
+     * Evicts the cached collection {@code attribute} of every owner
+     */
+    public void evictCollections(Class<?> ownerClass, String attribute) {
+        String role = ownerClass.getName() + "." + attribute;
+        TransactionCallbacks.afterCommit(() -> cache().evictCollectionData(role));
+    }
+
+    /**
+     * Evicts the cached collection {@code attribute} of the given owners
+     */
+    public void evictCollections(Class<?> ownerClass, String attribute, Collection<?> ownerIds) {
+        String role = ownerClass.getName() + "." + attribute;
+        TransactionCallbacks.afterCommit(() -> ownerIds.forEach(id -> cache().evictCollectionData(role, id)));
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+}
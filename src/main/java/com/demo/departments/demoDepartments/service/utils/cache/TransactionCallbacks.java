@@ -0,0 +1,66 @@
+package com.demo.departments.demoDepartments.service.utils.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Defers cache invalidation until the surrounding transaction has committed
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Runs the action after the current transaction commits (not at all on rollback),
+     * or right away when no transaction is active
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Adds to the buffer the current transaction keeps under {@code key} and hands the buffer to the action
+     * once, after the transaction commits; many changes of one transaction are then applied together.
+     * Without an active transaction the change goes into a fresh buffer that is applied right away.
+     */
+    public static <B> void afterCommitBatched(Object key, Supplier<B> factory, Consumer<B> change, Consumer<B> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            B buffer = factory.get();
+            change.accept(buffer);
+            action.accept(buffer);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        B buffer = (B) TransactionSynchronizationManager.getResource(key);
+        if (buffer == null) {
+            B created = factory.get();
+            TransactionSynchronizationManager.bindResource(key, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.accept(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                }
+            });
+            buffer = created;
+        }
+        change.accept(buffer);
+    }
+}
@@ -0,0 +1,78 @@
+package com.demo.departments.demoDepartments.service.utils.export;
+
+import com.demo.departments.demoDepartments.service.utils.mapping.FetchPlan;
+import com.demo.departments.demoDepartments.service.utils.mapping.GraphBuilderMapperService;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Exports whole tables read through a database cursor in chunks of {@code departments.export.fetch-size} roots:
+ * the requested children are loaded per chunk (one query per branch), the chunk is written out and then dropped
+ * from the persistence context, so the context does not grow with the export.
+ * <p>
+ * Must run inside the caller's (read-only) transaction.
+ */
+@Component
+public class ChunkedExporter {
+
+    private final EntityManager entityManager;
+    private final GraphBuilderMapperService graphBuilderService;
+    private final int fetchSize;
+
+    public ChunkedExporter(EntityManager entityManager, GraphBuilderMapperService graphBuilderService,
+                           @Value("${departments.export.fetch-size:500}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.graphBuilderService = graphBuilderService;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @param rows Opens the cursor over the roots with the given fetch size, e.g. {@code repository::streamAll}
+     * @param attributes Children to load for every root
+     * @param toDto Maps one root with its loaded children
+     * @return the number of exported roots
+     */
+    public <E, D> long export(Class<E> entityClass, IntFunction<Stream<E>> rows, Set<String> attributes,
+                              Function<E, D> toDto, Consumer<D> consumer) {
+        // The cursor reads roots only; a joined collection would leave a root's rows open across chunk boundaries
+        FetchPlan plan = (attributes == null || attributes.isEmpty())
+                ? null : graphBuilderService.getDeferredFetchPlan(entityClass, attributes);
+
+        long count = 0;
+        List<E> chunk = new ArrayList<>(fetchSize);
+        try (Stream<E> entities = rows.apply(fetchSize)) {
+            Iterator<E> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                // Before hasNext(): it reads the next row into the persistence context that is about to be cleared
+                if (chunk.size() == fetchSize) {
+                    count += exportChunk(plan, chunk, toDto, consumer);
+                }
+            }
+        }
+        return count + exportChunk(plan, chunk, toDto, consumer);
+    }
+
+    private <E, D> int exportChunk(FetchPlan plan, List<E> chunk, Function<E, D> toDto, Consumer<D> consumer) {
+        if (plan != null) {
+            graphBuilderService.completeFetch(plan, chunk, false);
+        }
+        for (E entity : chunk) {
+            consumer.accept(toDto.apply(entity));
+        }
+        int size = chunk.size();
+        chunk.clear();
+        entityManager.clear();
+        return size;
+    }
+}
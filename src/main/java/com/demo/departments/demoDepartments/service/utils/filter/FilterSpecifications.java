@@ -0,0 +1,133 @@
+package com.demo.departments.demoDepartments.service.utils.filter;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Building blocks for the list filters. Every factory returns null for an unset criterion,
+ * so a filter simply combines its fields with {@link #allOf} and gets null when nothing was set.
+ * <p>
+ * Criteria on child collections are {@code EXISTS} subqueries instead of joins: the matching roots are
+ * neither duplicated nor restricted in what the entity graph fetches afterwards.
+ */
+public final class FilterSpecifications {
+
+    private FilterSpecifications() {
+    }
+
+    /**
+     * Conjunction of the given specifications, skipping nulls; null when all are null
+     */
+    @SafeVarargs
+    public static <E> Specification<E> allOf(Specification<E>... specifications) {
+        List<Specification<E>> set = new ArrayList<>();
+        for (Specification<E> specification : specifications) {
+            if (specification != null) {
+                set.add(specification);
+            }
+        }
+        if (set.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.and(set.stream()
+                .map(specification -> specification.toPredicate(root, query, cb))
+                .filter(Objects::nonNull)
+                .toArray(Predicate[]::new));
+    }
+
+    /**
+     * {@code attribute = :value}; the attribute may be a dotted to-one path (e.g. "role.role")
+     */
+    public static <E> Specification<E> equal(String attribute, Object value) {
+        if (value == null || (value instanceof String text && text.isBlank())) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(path(root, attribute), value);
+    }
+
+    /**
+     * Case-insensitive equality: {@code lower(attribute) = :value}
+     */
+    public static <E> Specification<E> equalIgnoreCase(String attribute, String value) {
+        if (isBlank(value)) {
+            return null;
+        }
+        String lowered = value.trim().toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> cb.equal(cb.lower(path(root, attribute)), lowered);
+    }
+
+    /**
+     * Case-insensitive prefix match: {@code lower(attribute) LIKE ':value%'}; wildcards in the value are literal
+     */
+    public static <E> Specification<E> startsWithIgnoreCase(String attribute, String value) {
+        if (isBlank(value)) {
+            return null;
+        }
+        String pattern = escapeLike(value.trim().toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(path(root, attribute)), pattern, '\\');
+    }
+
+    public static <E, Y extends Comparable<? super Y>> Specification<E> greaterThanOrEqual(String attribute, Y value) {
+        if (value == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(path(root, attribute), value);
+    }
+
+    public static <E, Y extends Comparable<? super Y>> Specification<E> lessThanOrEqual(String attribute, Y value) {
+        if (value == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(path(root, attribute), value);
+    }
+
+    /**
+     * Roots having at least one child of {@code childClass} matching the child specification:
+     * {@code EXISTS (SELECT 1 FROM child c WHERE c.<parentAttribute> = root AND ...)}
+     *
+     * @param parentAttribute the child's many-to-one attribute pointing at the root (e.g. "person")
+     */
+    public static <E, C> Specification<E> hasChild(Class<C> childClass, String parentAttribute,
+                                                   Specification<C> childSpecification) {
+        if (childSpecification == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Subquery<Integer> subquery = query.subquery(Integer.class);
+            Root<C> child = subquery.from(childClass);
+            Predicate parent = cb.equal(child.get(parentAttribute), root);
+            Predicate match = childSpecification.toPredicate(child, query, cb);
+            subquery.select(cb.literal(1)).where(match == null ? parent : cb.and(parent, match));
+            return cb.exists(subquery);
+        };
+    }
+
+    /**
+     * Attribute path, dotted for to-one associations (e.g. "role.role")
+     */
+    private static <Y> Path<Y> path(Root<?> root, String attribute) {
+        Path<?> path = root;
+        for (String segment : attribute.split("\\.")) {
+            path = path.get(segment);
+        }
+        @SuppressWarnings("unchecked")
+        Path<Y> typed = (Path<Y>) path;
+        return typed;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,44 @@
+package com.demo.departments.demoDepartments.service.utils.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Writes one entity as the JSON object of its DTO, compiled by {@link EntityJsonWriters} for one
+ * (entity, attributes, {@code withAudit}) combination: one property per DTO property, in the order Jackson
+ * writes them, every condition already decided.
+ * <p>
+ * Immutable and safe to share between threads.
+ */
+final class EntityJsonWriter {
+
+    private final Property[] properties;
+
+    EntityJsonWriter(Property[] properties) {
+        this.properties = properties;
+    }
+
+    void write(Object entity, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (entity == null) {
+            // Like a null DTO
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        for (Property property : properties) {
+            property.write(entity, generator, provider);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * One DTO property written from the entity: the field name and the value
+     */
+    @FunctionalInterface
+    interface Property {
+
+        void write(Object entity, JsonGenerator generator, SerializerProvider provider) throws IOException;
+    }
+}
@@ -0,0 +1,362 @@
+package com.demo.departments.demoDepartments.service.utils.json;
+
+import com.demo.departments.demoDepartments.persistence.model.base.PersistenceModel;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeNode;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
+import com.demo.departments.demoDepartments.service.dto.base.BaseDTO;
+import com.demo.departments.demoDepartments.service.dto.mapper.AttributeSelector;
+import com.demo.departments.demoDepartments.service.dto.mapper.MapperUtils;
+import com.demo.departments.demoDepartments.service.dto.mapper.MappingOptions;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Writes loaded entities straight to the JSON their DTOs would be serialized to, without creating the DTOs
+ * (and their id sets and nested DTOs) only for Jackson to walk them once.
+ * <p>
+ * A writer is compiled per (entity, attributes, {@code withAudit}) from the DTO's Jackson bean serializer,
+ * which gives the properties, their order and their value serializers, and from the {@link AttributeRegistry},
+ * which tells how each property is read from the entity:
+ * <ul>
+ *     <li>the audit columns: only with {@code withAudit}, otherwise null</li>
+ *     <li>a {@code MappingAttribute} collection: its elements when selected (as the mappers select them),
+ *     otherwise empty</li>
+ *     <li>{@code <collection>Ids} / {@code <collection>Count}: the ids and the size of a selected, non-empty
+ *     collection (an empty one gives no ids and no count), otherwise no ids and zero</li>
+ *     <li>{@code <association>Id}: the id of a to-one association</li>
+ *     <li>anything else: the entity property of the same name</li>
+ * </ul>
+ * The output is the same, byte for byte, as serializing the mapped DTOs with the {@link ObjectMapper}.
+ * <p>
+ * Bounded by {@code departments.direct-json.max-entries}; hits and misses are published as
+ * {@code cache.gets{cache="entity-json-writers"}}. The direct writing is opt-in with
+ * {@code departments.direct-json.enabled=true}; while it is off, the services serialize DTOs.
+ */
+@Component
+public class EntityJsonWriters {
+
+    private static final Set<String> AUDIT_PROPERTIES = Set.of("createdDate", "modifiedDate", "createdBy", "modifiedBy");
+    private static final int SMALL_ID_SET = 8;
+
+    private final ObjectMapper objectMapper;
+    private final AttributeRegistry attributeRegistry;
+    private final boolean enabled;
+    private final Cache<Key, EntityJsonWriter> writers;
+
+    public EntityJsonWriters(ObjectMapper objectMapper, AttributeRegistry attributeRegistry, MeterRegistry meterRegistry,
+                             @Value("${departments.direct-json.enabled:false}") boolean enabled,
+                             @Value("${departments.direct-json.max-entries:500}") long maxEntries) {
+        this.objectMapper = objectMapper;
+        this.attributeRegistry = attributeRegistry;
+        this.enabled = enabled;
+        this.writers = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, writers, "entity-json-writers");
+    }
+
+    /**
+     * Whether lists are written straight from the entities
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The entities as the JSON array of their DTOs: written straight from the entities when direct writing
+     * is on, otherwise mapped by {@code toDtos} and serialized
+     */
+    public <E, D extends BaseDTO> byte[] writeList(Class<E> entityClass, Class<D> dtoClass, List<E> entities,
+                                                   MappingOptions options, Function<List<E>, List<D>> toDtos) {
+        return enabled ? writeAll(entityClass, dtoClass, entities, options) : write(toDtos.apply(entities));
+    }
+
+    /**
+     * The entities as the JSON array of their DTOs mapped with the given options
+     *
+     * @param dtoClass DTO type the entities are mapped to
+     * @param entities loaded entities, with everything the options select already fetched
+     */
+    public byte[] writeAll(Class<?> entityClass, Class<? extends BaseDTO> dtoClass, List<?> entities,
+                           MappingOptions options) {
+        SerializerProvider provider = objectMapper.getSerializerProviderInstance();
+        EntityJsonWriter writer = writers.get(new Key(entityClass, dtoClass, options),
+                key -> compile(entityClass, dtoClass, options, provider));
+        try (ByteArrayBuilder bytes = new ByteArrayBuilder(objectMapper.getFactory()._getBufferRecycler())) {
+            try (JsonGenerator generator = objectMapper.createGenerator(bytes)) {
+                generator.writeStartArray();
+                for (Object entity : entities) {
+                    writer.write(entity, generator, provider);
+                }
+                generator.writeEndArray();
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize " + entityClass.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Any other response body, serialized as the message converter would
+     */
+    public byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private EntityJsonWriter compile(Class<?> entityClass, Class<?> dtoClass, MappingOptions options,
+                                     SerializerProvider provider) {
+        JsonSerializer<Object> serializer;
+        try {
+            serializer = provider.findValueSerializer(dtoClass);
+        } catch (IOException e) {
+            throw new IllegalStateException("No serializer for " + dtoClass.getSimpleName(), e);
+        }
+        List<EntityJsonWriter.Property> properties = new ArrayList<>();
+        for (Iterator<PropertyWriter> it = serializer.properties(); it.hasNext(); ) {
+            properties.add(property(entityClass, (BeanPropertyWriter) it.next(), options, provider));
+        }
+        return new EntityJsonWriter(properties.toArray(new EntityJsonWriter.Property[0]));
+    }
+
+    private EntityJsonWriter.Property property(Class<?> entityClass, BeanPropertyWriter property,
+                                               MappingOptions options, SerializerProvider provider) {
+        String name = property.getName();
+        SerializableString field = property.getSerializedName();
+        AttributeNode entity = attributeRegistry.root(entityClass);
+
+        if (AUDIT_PROPERTIES.contains(name) && !options.includeAudit()) {
+            return (e, generator, p) -> {
+                generator.writeFieldName(field);
+                p.defaultSerializeNull(generator);
+            };
+        }
+
+        AttributeNode collection = entity.child(name);
+        if (collection != null && collection.isCollection()) {
+            if (!selects(entityClass, name, options)) {
+                return (e, generator, p) -> {
+                    generator.writeFieldName(field);
+                    generator.writeStartArray();
+                    generator.writeEndArray();
+                };
+            }
+            EntityJsonWriter child = compile(collection.getType(), property.getType().getContentType().getRawClass(),
+                    options, provider);
+            Getter children = getter(entityClass, name, Collection.class);
+            return (e, generator, p) -> {
+                Collection<?> elements = (Collection<?>) children.get(e);
+                generator.writeFieldName(field);
+                if (elements == null) {
+                    p.defaultSerializeNull(generator);
+                    return;
+                }
+                generator.writeStartArray();
+                for (Object element : elements) {
+                    child.write(element, generator, p);
+                }
+                generator.writeEndArray();
+            };
+        }
+
+        AttributeNode summarized = summarizedCollection(entity, name);
+        if (summarized != null) {
+            boolean ids = name.endsWith("Ids");
+            if (!selects(entityClass, summarized.getName(), options)) {
+                return ids ? (e, generator, p) -> {
+                    generator.writeFieldName(field);
+                    generator.writeStartArray();
+                    generator.writeEndArray();
+                } : (e, generator, p) -> {
+                    generator.writeFieldName(field);
+                    generator.writeNumber(0);
+                };
+            }
+            Getter children = getter(entityClass, summarized.getName(), Collection.class);
+            return ids ? (e, generator, p) -> {
+                @SuppressWarnings("unchecked")
+                Collection<PersistenceModel> elements = (Collection<PersistenceModel>) children.get(e);
+                generator.writeFieldName(field);
+                writeIds(elements, generator);
+            } : (e, generator, p) -> {
+                Collection<?> elements = (Collection<?>) children.get(e);
+                generator.writeFieldName(field);
+                if (elements == null || elements.isEmpty()) {
+                    p.defaultSerializeNull(generator);
+                } else {
+                    generator.writeNumber(elements.size());
+                }
+            };
+        }
+
+        String association = name.endsWith("Id") ? name.substring(0, name.length() - 2) : null;
+        if (association != null && attributeRegistry.associations(entityClass).contains(association)) {
+            Getter reference = getter(entityClass, association, PersistenceModel.class);
+            return value(field, e -> {
+                PersistenceModel target = (PersistenceModel) reference.get(e);
+                return target == null ? null : target.getId();
+            }, property);
+        }
+
+        return value(field, getter(entityClass, name, property.getType().getRawClass()), property);
+    }
+
+    /**
+     * The ids of the elements in the order of {@link MapperUtils#extractIds}, whose {@code HashSet} iterates by
+     * hash bucket and, within a bucket, in insertion order. Fewer than {@value #SMALL_ID_SET} distinct ids
+     * always fit the default 16 buckets in chains (no resize, no tree bins), so their order is computed here
+     * without building the set; larger collections go through {@code extractIds}.
+     */
+    private static void writeIds(Collection<? extends PersistenceModel> elements, JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        if (elements != null && !elements.isEmpty()) {
+            if (elements.size() < SMALL_ID_SET) {
+                long[] ids = new long[elements.size()];
+                int count = 0;
+                for (PersistenceModel element : elements) {
+                    Long id = element == null ? null : element.getId();
+                    if (id != null && indexOf(ids, count, id) < 0) {
+                        ids[count++] = id;
+                    }
+                }
+                for (int bucket = 0; bucket < 16; bucket++) {
+                    for (int i = 0; i < count; i++) {
+                        if (bucket(ids[i]) == bucket) {
+                            generator.writeNumber(ids[i]);
+                        }
+                    }
+                }
+            } else {
+                for (Long id : MapperUtils.extractIds(elements)) {
+                    generator.writeNumber(id);
+                }
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private static int indexOf(long[] ids, int count, long id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Bucket of a {@code Long} in a 16-bucket {@code HashMap}: {@code Long.hashCode} spread like {@code HashMap.hash}
+     */
+    private static int bucket(long id) {
+        int hash = Long.hashCode(id);
+        return (hash ^ (hash >>> 16)) & 15;
+    }
+
+    /**
+     * The same selection as the mappers: the root selection, or for the targets of a {@code withSubAttributes}
+     * attribute also a nested one (e.g. {@code "roles.permissions"} for the permissions of a role)
+     */
+    private boolean selects(Class<?> entityClass, String collection, MappingOptions options) {
+        AttributeSelector selector = options.getSelector();
+        return selector.has(collection)
+                || attributeRegistry.isSubAttributeTarget(entityClass) && selector.selectsNested(collection);
+    }
+
+    /**
+     * The collection summarized by an {@code <collection>Ids} or {@code <collection>Count} property,
+     * e.g. {@code addresses} for {@code addressIds}; null for any other property
+     */
+    private static AttributeNode summarizedCollection(AttributeNode entity, String name) {
+        String stem = name.endsWith("Ids") ? name.substring(0, name.length() - 3)
+                : name.endsWith("Count") ? name.substring(0, name.length() - 5)
+                : "";
+        if (stem.isEmpty()) {
+            return null;
+        }
+        for (AttributeNode attribute : entity.getChildren().values()) {
+            if (attribute.isCollection() && attribute.getName().startsWith(stem)) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the value with the serializer Jackson resolved for the DTO property (looked up per value class
+     * when the property type is not final, like Jackson does)
+     */
+    private static EntityJsonWriter.Property value(SerializableString field, Getter getter, BeanPropertyWriter property) {
+        JsonSerializer<Object> serializer = property.getSerializer();
+        return (entity, generator, provider) -> {
+            Object value = getter.get(entity);
+            generator.writeFieldName(field);
+            if (value == null) {
+                provider.defaultSerializeNull(generator);
+            } else if (serializer != null) {
+                serializer.serialize(value, generator, provider);
+            } else {
+                provider.findPrimaryPropertySerializer(value.getClass(), property).serialize(value, generator, provider);
+            }
+        };
+    }
+
+    private static Getter getter(Class<?> entityClass, String name, Class<?> type) {
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(entityClass, name);
+        if (descriptor == null || descriptor.getReadMethod() == null
+                || !ClassUtils.isAssignable(type, descriptor.getReadMethod().getReturnType())) {
+            throw new IllegalStateException("No " + type.getSimpleName() + " property " + name
+                    + " on " + entityClass.getSimpleName() + " to write the DTO property from");
+        }
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup().unreflect(descriptor.getReadMethod())
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + entityClass.getSimpleName() + "." + name, e);
+        }
+        return entity -> {
+            try {
+                return (Object) handle.invokeExact(entity);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Getter {
+
+        Object get(Object entity);
+    }
+
+    private record Key(Class<?> entityClass, Class<?> dtoClass, MappingOptions options) {
+    }
+}
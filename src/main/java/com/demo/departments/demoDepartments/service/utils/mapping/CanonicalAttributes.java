@@ -0,0 +1,125 @@
+package com.demo.departments.demoDepartments.service.utils.mapping;
+
+import java.util.*;
+
+/**
+ * A requested attribute set in its canonical form: trimmed, without blanks, without paths implied by a
+ * longer one, and sorted, so every spelling of the same request is the same (equal and equally hashed) set:
+ * {@code "roles,roles.permissions"}, {@code " roles.permissions"} and {@code "roles.permissions,roles"} all
+ * become {@code [roles.permissions]}. Nested paths still include their prefixes for fetching and mapping,
+ * so nothing is lost by the reduction.
+ * <p>
+ * Immutable; used as part of cache keys (compiled entity graphs, cached responses).
+ */
+public final class CanonicalAttributes extends AbstractSet<String> {
+
+    /**
+     * Most attributes one request may name, a bound for the quadratic reduction and the caches keyed by the set
+     */
+    public static final int MAX_ATTRIBUTES = 64;
+
+    private final List<String> paths;
+    private final int hash;
+
+    private CanonicalAttributes(List<String> paths) {
+        this.paths = paths;
+        this.hash = paths.stream().mapToInt(String::hashCode).sum();
+    }
+
+    /**
+     * Parses a comma-separated {@code attributes} parameter
+     *
+     * @return the canonical set, or null when no attribute is named
+     * @throws IllegalArgumentException for more than {@link #MAX_ATTRIBUTES} attributes
+     */
+    public static CanonicalAttributes parse(String attributes) {
+        if (attributes == null || attributes.isBlank()) {
+            return null;
+        }
+        return of(Arrays.asList(attributes.split(",")));
+    }
+
+    /**
+     * The canonical form of an attribute set, the same instance when it already is one
+     *
+     * @return the canonical set, or null when no attribute is named
+     * @throws IllegalArgumentException for more than {@link #MAX_ATTRIBUTES} attributes
+     */
+    public static CanonicalAttributes of(Collection<String> attributes) {
+        if (attributes instanceof CanonicalAttributes canonical) {
+            return canonical;
+        }
+        if (attributes == null) {
+            return null;
+        }
+        if (attributes.size() > MAX_ATTRIBUTES) {
+            throw new IllegalArgumentException("At most " + MAX_ATTRIBUTES + " attributes can be requested");
+        }
+        Set<String> trimmed = new HashSet<>();
+        for (String attribute : attributes) {
+            String path = attribute.trim();
+            if (!path.isEmpty()) {
+                trimmed.add(path);
+            }
+        }
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        List<String> paths = new ArrayList<>(reduceGraphPaths(trimmed));
+        Collections.sort(paths);
+        return new CanonicalAttributes(List.copyOf(paths));
+    }
+
+    /**
+     * Drops the paths a longer one implies, e.g. "roles" next to "roles.permissions"
+     */
+    private static Set<String> reduceGraphPaths(Collection<String> inputPaths) {
+        Set<String> reduced = new HashSet<>();
+        for (String path : inputPaths) {
+            boolean implied = false;
+            for (String other : inputPaths) {
+                if (other.length() > path.length() && other.charAt(path.length()) == '.' && other.startsWith(path)) {
+                    implied = true;
+                    break;
+                }
+            }
+            if (!implied) {
+                reduced.add(path);
+            }
+        }
+        return reduced;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return paths.iterator();
+    }
+
+    @Override
+    public int size() {
+        return paths.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String path && Collections.binarySearch(paths, path) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof CanonicalAttributes other) {
+            return hash == other.hash && paths.equals(other.paths);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", paths);
+    }
+}
@@ -0,0 +1,105 @@
+package com.demo.departments.demoDepartments.service.utils.mapping;
+
+import com.cosium.spring.data.jpa.entity.graph.domain2.DynamicEntityGraph;
+import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeNode;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Compiled entity graphs keyed by entity class and {@link CanonicalAttributes}: traffic uses a handful of
+ * attribute combinations, so the paths and the {@link DynamicEntityGraph} of a combination are resolved
+ * and built once and then shared (both are immutable). Equivalent spellings of a request
+ * ({@code roles,roles.permissions} and {@code roles.permissions}) hit the same entry.
+ * <p>
+ * Bounded by {@code departments.entity-graph-cache.max-entries}; Caffeine's W-TinyLFU admission keeps the
+ * frequent combinations when abusive requests send endless new ones. Hits and misses are published as
+ * {@code cache.gets{cache="entity-graphs"}}.
+ */
+@Component
+public class EntityGraphCache {
+
+    private static final CompiledGraph EMPTY = new CompiledGraph(Set.of(), DynamicEntityGraph.fetching().build());
+
+    private final AttributeRegistry attributeRegistry;
+    private final Cache<Key, CompiledGraph> cache;
+
+    public EntityGraphCache(AttributeRegistry attributeRegistry,
+                            MeterRegistry meterRegistry,
+                            @Value("${departments.entity-graph-cache.max-entries:500}") long maxEntries) {
+        this.attributeRegistry = attributeRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "entity-graphs");
+    }
+
+    /**
+     * The valid paths and the fetch graph of the attributes; invalid paths are dropped
+     *
+     * @param attributes requested attribute paths in any spelling, canonical ones are looked up directly
+     */
+    public CompiledGraph get(Class<?> rootClass, Collection<String> attributes) {
+        CanonicalAttributes canonical = CanonicalAttributes.of(attributes);
+        if (canonical == null) {
+            return EMPTY;
+        }
+        return cache.get(new Key(rootClass, canonical), key -> compile(key.rootClass(), key.attributes()));
+    }
+
+    private CompiledGraph compile(Class<?> rootClass, CanonicalAttributes attributes) {
+        Set<String> paths = resolveGraphPaths(rootClass, attributes);
+        if (paths.isEmpty()) {
+            return EMPTY;
+        }
+        DynamicEntityGraph.Builder builder = DynamicEntityGraph.fetching();
+        paths.forEach(builder::addPath);
+        return new CompiledGraph(Collections.unmodifiableSet(paths), builder.build());
+    }
+
+    /**
+     * Valid graph paths for the attributes; nested paths like "roles.permissions" add "roles" too
+     */
+    private Set<String> resolveGraphPaths(Class<?> rootClass, Collection<String> attributes) {
+        Set<String> paths = new LinkedHashSet<>();
+        AttributeNode root = attributeRegistry.root(rootClass);
+        for (String attributePath : attributes) {
+            // Every valid prefix is a path of its own; the walk stops at the first unknown segment
+            AttributeNode node = root;
+            int start = 0;
+            while (start <= attributePath.length()) {
+                int end = attributePath.indexOf('.', start);
+                if (end < 0) {
+                    end = attributePath.length();
+                }
+                node = node.child(attributePath.substring(start, end));
+                if (node == null) {
+                    break;
+                }
+                paths.add(attributePath.substring(0, end));
+                start = end + 1;
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Resolved attribute paths (prefixes included, in a stable order) and the graph fetching them
+     *
+     * @param paths valid association paths, empty when nothing is fetched
+     * @param graph fetch graph of the paths, an empty graph when there are none
+     */
+    public record CompiledGraph(Set<String> paths, EntityGraph graph) {
+    }
+
+    private record Key(Class<?> rootClass, CanonicalAttributes attributes) {
+    }
+}
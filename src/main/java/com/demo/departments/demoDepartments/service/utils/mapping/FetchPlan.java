@@ -0,0 +1,58 @@
+package com.demo.departments.demoDepartments.service.utils.mapping;
+
+import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * How the attribute paths of one request are loaded: the root query join-fetches {@link #getRootGraph()},
+ * the deferred collection branches are loaded afterwards by follow-up queries keyed by the root ids
+ * and collections held in the second-level cache are initialized from it (see {@link FetchPlanner#fetchDeferred}).
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class FetchPlan {
+
+    /**
+     * How one top-level attribute branch is fetched
+     */
+    public enum Strategy {
+        /** Join-fetched by the root query */
+        JOIN,
+        /** Follow-up query per chunk of root ids: {@code WHERE root.id IN (...)} */
+        BATCH,
+        /** One follow-up query over the whole root table instead of long id lists, when the roots cover (nearly) all of it */
+        SUBSELECT,
+        /** Initialized from the second-level collection cache; misses are batch-loaded by owner id */
+        CACHE
+    }
+
+    private final Class<?> rootClass;
+
+    /** Requested (valid) paths loaded by queries, e.g. "roles", "addresses" */
+    private final Set<String> paths;
+
+    /** Paths join-fetched by the root query */
+    private final Set<String> joinPaths;
+
+    /** Deferred branches: top-level attribute -> requested paths under it */
+    private final Map<String, Set<String>> deferredBranches;
+
+    /** Requested paths through a cached collection, e.g. "roles.permissions" */
+    private final Set<String> cachedPaths;
+
+    /** Graph for the root query, or null when nothing has to be fetched */
+    private final EntityGraph rootGraph;
+
+    public boolean hasDeferredBranches() {
+        return !deferredBranches.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return paths.isEmpty() && cachedPaths.isEmpty();
+    }
+}
@@ -0,0 +1,490 @@
+package com.demo.departments.demoDepartments.service.utils.mapping;
+
+import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeNode;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides per request which attribute branches are join-fetched by the root query and which are
+ * loaded by follow-up queries, so sibling collections (e.g. Person addresses, contacts and roles)
+ * do not multiply into one cartesian result set.
+ * <p>
+ * A joined collection multiplies the rows of everything else joined next to it. Using the average
+ * number of rows per parent observed for every branch, branches are joined greedily (largest first)
+ * as long as joining is not more expensive than reading the branch on its own; the rest are deferred.
+ * Deferred branches are re-read for the already loaded roots and Hibernate initializes the collections
+ * of the managed instances from that result: either by chunks of root ids ({@code WHERE root.id IN (...)})
+ * or, when the roots are (nearly) the whole table, by one query over the table. The choice weighs one extra
+ * round trip ({@code round-trip-rows}) against the rows the table query reads beyond the roots, estimated
+ * from the branch's rows per parent and the table size seen by the last unrestricted read.
+ * <p>
+ * Counting the rows of the loaded branches walks every loaded collection, so the statistics are recorded
+ * only while a branch of the plan is still unknown and on every {@code sample-every}th request after that;
+ * the rows saved by the other requests are estimated from the averages.
+ * <p>
+ * Collections held in the second-level cache (e.g. Role permissions) are never joined: they are
+ * initialized from the cache after the root query, and only cache misses are read, batched by owner id.
+ */
+@Slf4j
+@Component
+public class FetchPlanner {
+
+    private final EntityManager entityManager;
+    private final EntityGraphCache entityGraphCache;
+    private final AttributeRegistry attributeRegistry;
+    private final int batchSize;
+    private final int minSamples;
+    private final int sampleEvery;
+    private final int roundTripRows;
+
+    /** Observed rows per parent for "RootEntity.attribute" branches */
+    private final Map<String, CardinalityStats> statistics = new ConcurrentHashMap<>();
+
+    /** Rows of the root table as read by the last unrestricted read */
+    private final Map<Class<?>, Integer> tableRows = new ConcurrentHashMap<>();
+
+    private final AtomicLong warmRequests = new AtomicLong();
+
+    public FetchPlanner(EntityManager entityManager,
+                        EntityGraphCache entityGraphCache,
+                        AttributeRegistry attributeRegistry,
+                        @Value("${departments.fetch-planner.batch-size:500}") int batchSize,
+                        @Value("${departments.fetch-planner.min-samples:20}") int minSamples,
+                        @Value("${departments.fetch-planner.sample-every:16}") int sampleEvery,
+                        @Value("${departments.fetch-planner.round-trip-rows:100}") int roundTripRows) {
+        this.entityManager = entityManager;
+        this.entityGraphCache = entityGraphCache;
+        this.attributeRegistry = attributeRegistry;
+        this.batchSize = batchSize;
+        this.minSamples = minSamples;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.roundTripRows = roundTripRows;
+    }
+
+    /**
+     * Plans the fetch of already validated paths ("roles" and "roles.permissions" both present for a nested path)
+     */
+    public FetchPlan plan(Class<?> rootClass, Set<String> requestedPaths) {
+        // Joining a cached collection would read from the database what the cache already holds
+        Set<String> paths = new LinkedHashSet<>();
+        Set<String> cachedPaths = new LinkedHashSet<>();
+        for (String path : requestedPaths) {
+            (passesCachedCollection(rootClass, path) ? cachedPaths : paths).add(path);
+        }
+
+        Map<String, Set<String>> branches = new LinkedHashMap<>();
+        for (String path : paths) {
+            branches.computeIfAbsent(path.split("\\.")[0], k -> new LinkedHashSet<>()).add(path);
+        }
+
+        // To-one branches do not multiply rows and are always joined
+        Set<String> joinPaths = new LinkedHashSet<>();
+        List<String> collectionBranches = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> branch : branches.entrySet()) {
+            if (containsCollection(rootClass, branch.getValue())) {
+                collectionBranches.add(branch.getKey());
+            } else {
+                joinPaths.addAll(branch.getValue());
+            }
+        }
+
+        // Branches with known statistics first, largest first; unknown ones keep their request order
+        collectionBranches.sort(Comparator.comparingDouble((String branch) -> {
+            double average = averageRows(rootClass, branch);
+            return Double.isNaN(average) ? Double.POSITIVE_INFINITY : -average;
+        }));
+
+        Map<String, Set<String>> deferred = new LinkedHashMap<>();
+        double joinedRows = 1;
+        for (int i = 0; i < collectionBranches.size(); i++) {
+            String branch = collectionBranches.get(i);
+            double average = averageRows(rootClass, branch);
+            boolean join;
+            if (i == 0) {
+                // One collection never causes a cartesian product
+                join = true;
+            } else {
+                // Joining multiplies the rows read so far; a follow-up query only adds its own rows
+                join = !Double.isNaN(average) && joinedRows * average <= joinedRows + average;
+            }
+
+            if (join) {
+                joinPaths.addAll(branches.get(branch));
+                joinedRows *= Double.isNaN(average) ? 1 : average;
+            } else {
+                deferred.put(branch, branches.get(branch));
+            }
+        }
+
+        return new FetchPlan(rootClass, paths, joinPaths, deferred, cachedPaths, buildGraph(rootClass, joinPaths));
+    }
+
+    /**
+     * Plans the fetch of already validated paths for roots that are read without any join, e.g. over a
+     * streaming cursor: every branch is deferred and loaded by {@link #fetchDeferred} for each chunk of roots
+     */
+    public FetchPlan planDeferred(Class<?> rootClass, Set<String> requestedPaths) {
+        Set<String> paths = new LinkedHashSet<>();
+        Set<String> cachedPaths = new LinkedHashSet<>();
+        for (String path : requestedPaths) {
+            (passesCachedCollection(rootClass, path) ? cachedPaths : paths).add(path);
+        }
+
+        Map<String, Set<String>> deferred = new LinkedHashMap<>();
+        for (String path : paths) {
+            deferred.computeIfAbsent(path.split("\\.")[0], k -> new LinkedHashSet<>()).add(path);
+        }
+        return new FetchPlan(rootClass, paths, Set.of(), deferred, cachedPaths, null);
+    }
+
+    /**
+     * Loads the deferred branches of the plan for the given roots, initializes its cached collections,
+     * records cardinality statistics (sampled) and logs how many result rows the plan saved compared with
+     * joining every path.
+     *
+     * @param roots entities loaded by the root query, managed by the current persistence context
+     * @param allRows true when the root query read the whole table without restriction
+     */
+    public FetchReport fetchDeferred(FetchPlan plan, List<?> roots, boolean allRows) {
+        if (roots == null || roots.isEmpty()) {
+            return new FetchReport(Map.of(), 0, 0, 0, 0, false);
+        }
+        if (allRows) {
+            tableRows.put(plan.getRootClass(), roots.size());
+        }
+
+        int queries = 1;
+        Map<String, FetchPlan.Strategy> strategies = new LinkedHashMap<>();
+        for (String branch : plan.getJoinPaths()) {
+            strategies.putIfAbsent(branch.split("\\.")[0], FetchPlan.Strategy.JOIN);
+        }
+
+        for (Map.Entry<String, Set<String>> branch : plan.getDeferredBranches().entrySet()) {
+            EntityGraph graph = buildGraph(plan.getRootClass(), branch.getValue());
+            if (deferredStrategy(plan.getRootClass(), branch.getKey(), roots.size()) == FetchPlan.Strategy.SUBSELECT) {
+                strategies.put(branch.getKey(), FetchPlan.Strategy.SUBSELECT);
+                fetchRoots(plan.getRootClass(), null, graph);
+                queries++;
+            } else {
+                strategies.put(branch.getKey(), FetchPlan.Strategy.BATCH);
+                List<Object> ids = roots.stream()
+                        .map(root -> entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(root))
+                        .toList();
+                for (int from = 0; from < ids.size(); from += batchSize) {
+                    fetchRoots(plan.getRootClass(), ids.subList(from, Math.min(ids.size(), from + batchSize)), graph);
+                    queries++;
+                }
+            }
+        }
+
+        for (String path : plan.getCachedPaths()) {
+            strategies.put(path, FetchPlan.Strategy.CACHE);
+            initializePath(roots, attributeRegistry.root(plan.getRootClass()), path.split("\\."), 0);
+        }
+
+        // The walk over the loaded collections is only paid while the statistics are cold, and then sampled
+        boolean sampled = isCold(plan) || warmRequests.incrementAndGet() % sampleEvery == 0;
+        long[] rows = sampled ? recordStatistics(plan, roots) : estimateRows(plan, roots.size());
+        FetchReport report = new FetchReport(strategies, roots.size(), queries, rows[0], rows[1], !sampled);
+
+        if (plan.hasDeferredBranches() && log.isDebugEnabled()) {
+            log.debug("Fetch plan {}{}: {} roots, {} queries, {} rows instead of {} (saved {}{})",
+                    plan.getRootClass().getSimpleName(), strategies, report.roots(), report.queries(),
+                    report.rows(), report.rowsJoiningAll(), report.savedRows(), sampled ? "" : ", estimated");
+        }
+        return report;
+    }
+
+    /**
+     * How a deferred branch is read for the roots: one query over the whole table, paying for the rows of the
+     * entities outside the roots, or one query per chunk of root ids, paying a round trip per extra chunk.
+     * Restricted reads stay on id chunks until an unrestricted read has shown the table size and the branch
+     * has an estimate.
+     */
+    private FetchPlan.Strategy deferredStrategy(Class<?> rootClass, String branch, int roots) {
+        int batches = (roots + batchSize - 1) / batchSize;
+        Integer table = tableRows.get(rootClass);
+        if (batches <= 1 || table == null || table < roots) {
+            return FetchPlan.Strategy.BATCH;
+        }
+        double average = averageRows(rootClass, branch);
+        if (Double.isNaN(average)) {
+            return table == roots ? FetchPlan.Strategy.SUBSELECT : FetchPlan.Strategy.BATCH;
+        }
+        double rowsOutsideRoots = (table - roots) * average;
+        return rowsOutsideRoots < (double) (batches - 1) * roundTripRows
+                ? FetchPlan.Strategy.SUBSELECT
+                : FetchPlan.Strategy.BATCH;
+    }
+
+    private boolean isCold(FetchPlan plan) {
+        for (String path : plan.getPaths()) {
+            if (Double.isNaN(averageRows(plan.getRootClass(), path.split("\\.")[0]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rows read by the plan and rows of joining every path, from the average rows per parent of the branches
+     */
+    private long[] estimateRows(FetchPlan plan, int roots) {
+        Set<String> branches = new LinkedHashSet<>();
+        plan.getPaths().forEach(path -> branches.add(path.split("\\.")[0]));
+
+        double joiningAll = 1;
+        double joined = 1;
+        double deferred = 0;
+        for (String branch : branches) {
+            double average = Math.max(1, averageRows(plan.getRootClass(), branch));
+            joiningAll *= average;
+            if (plan.getDeferredBranches().containsKey(branch)) {
+                deferred += average;
+            } else {
+                joined *= average;
+            }
+        }
+        return new long[]{Math.round(roots * (joined + deferred)), Math.round(roots * joiningAll)};
+    }
+
+    /**
+     * Average rows per parent of a branch, or NaN while fewer than {@code min-samples} parents were seen
+     */
+    private double averageRows(Class<?> rootClass, String branch) {
+        CardinalityStats stats = statistics.get(statisticsKey(rootClass, branch));
+        return stats == null ? Double.NaN : stats.average(minSamples);
+    }
+
+    /**
+     * Initializes the attribute path on the entities; collections in the second-level cache are
+     * read from it, uninitialized ones left after that are loaded in batches (see {@code @BatchSize})
+     */
+    private void initializePath(Collection<?> entities, AttributeNode parent, String[] segments, int index) {
+        if (index == segments.length) {
+            return;
+        }
+        AttributeNode attribute = requestable(parent, segments[index]);
+        List<Object> values = new ArrayList<>();
+        for (Object entity : entities) {
+            Object value = attribute.read(entity);
+            if (value == null) {
+                continue;
+            }
+            Hibernate.initialize(value);
+            if (value instanceof Collection<?> collection) {
+                values.addAll(collection);
+            } else {
+                values.add(value);
+            }
+        }
+        initializePath(values, attribute, segments, index + 1);
+    }
+
+    private <T> void fetchRoots(Class<T> rootClass, List<Object> ids, EntityGraph graph) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(rootClass);
+        Root<T> root = query.from(rootClass);
+        query.select(root);
+        if (ids != null) {
+            EntityType<T> entityType = entityManager.getMetamodel().entity(rootClass);
+            String idAttribute = entityType.getId(entityType.getIdType().getJavaType()).getName();
+            query.where(root.get(idAttribute).in(ids));
+        }
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(query);
+        graph.buildQueryHint(entityManager, rootClass)
+                .ifPresent(hint -> typedQuery.setHint(hint.type().key(), hint.entityGraph()));
+        // The result only initializes collections of the managed roots
+        typedQuery.getResultList();
+    }
+
+    /**
+     * Counts the rows of the loaded branches into the statistics; returns the rows read by the plan and the rows
+     * of joining every path
+     */
+    private long[] recordStatistics(FetchPlan plan, List<?> roots) {
+        AttributeNode rootAttribute = attributeRegistry.root(plan.getRootClass());
+        PathNode tree = PathNode.of(rootAttribute, plan.getPaths());
+        PathNode joinTree = PathNode.of(rootAttribute, plan.getJoinPaths());
+
+        long rowsJoiningAll = 0;
+        long rowsOfPlan = 0;
+        Map<String, long[]> branchRows = new LinkedHashMap<>();
+        for (Object root : roots) {
+            rowsJoiningAll += joinedRows(root, tree.children.values());
+            rowsOfPlan += joinedRows(root, joinTree.children.values());
+            for (PathNode branch : tree.children.values()) {
+                long rows = Math.max(1, attributeRows(root, branch));
+                branchRows.computeIfAbsent(branch.name, k -> new long[1])[0] += rows;
+                if (plan.getDeferredBranches().containsKey(branch.name)) {
+                    rowsOfPlan += rows;
+                }
+            }
+        }
+
+        branchRows.forEach((branch, rows) -> statistics
+                .computeIfAbsent(statisticsKey(plan.getRootClass(), branch), k -> new CardinalityStats())
+                .record(roots.size(), rows[0]));
+        return new long[]{rowsOfPlan, rowsJoiningAll};
+    }
+
+    /**
+     * Result rows one entity contributes when all given attributes are joined next to each other
+     */
+    private long joinedRows(Object entity, Collection<PathNode> attributes) {
+        long rows = 1;
+        for (PathNode attribute : attributes) {
+            rows *= Math.max(1, attributeRows(entity, attribute));
+        }
+        return rows;
+    }
+
+    private long attributeRows(Object entity, PathNode attribute) {
+        Object value = attribute.attribute.read(entity);
+        if (value == null || !Hibernate.isInitialized(value)) {
+            return 0;
+        }
+        if (value instanceof Collection<?> collection) {
+            long rows = 0;
+            for (Object element : collection) {
+                rows += joinedRows(element, attribute.children.values());
+            }
+            return rows;
+        }
+        return joinedRows(value, attribute.children.values());
+    }
+
+    private static AttributeNode requestable(AttributeNode parent, String name) {
+        AttributeNode attribute = parent.child(name);
+        if (attribute == null) {
+            throw new IllegalArgumentException("Not a requestable attribute of " + parent.getType().getSimpleName() + ": " + name);
+        }
+        return attribute;
+    }
+
+    private boolean containsCollection(Class<?> rootClass, Set<String> paths) {
+        for (String path : paths) {
+            ManagedType<?> type = entityManager.getMetamodel().managedType(rootClass);
+            for (String segment : path.split("\\.")) {
+                Attribute<?, ?> attribute = type.getAttribute(segment);
+                if (attribute.isCollection()) {
+                    return true;
+                }
+                if (!attribute.isAssociation()) {
+                    break;
+                }
+                Class<?> target = attribute instanceof PluralAttribute<?, ?, ?> plural
+                        ? plural.getElementType().getJavaType()
+                        : attribute.getJavaType();
+                type = entityManager.getMetamodel().managedType(target);
+            }
+        }
+        return false;
+    }
+
+    private boolean passesCachedCollection(Class<?> rootClass, String path) {
+        MappingMetamodel mappingMetamodel = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel();
+        ManagedType<?> type = entityManager.getMetamodel().managedType(rootClass);
+        for (String segment : path.split("\\.")) {
+            Attribute<?, ?> attribute = type.getAttribute(segment);
+            if (!attribute.isAssociation()) {
+                return false;
+            }
+            if (attribute instanceof PluralAttribute<?, ?, ?> plural) {
+                CollectionPersister persister = mappingMetamodel.findCollectionDescriptor(
+                        plural.getDeclaringType().getJavaType().getName() + "." + segment);
+                if (persister != null && persister.hasCache()) {
+                    return true;
+                }
+                type = entityManager.getMetamodel().managedType(plural.getElementType().getJavaType());
+            } else {
+                type = entityManager.getMetamodel().managedType(attribute.getJavaType());
+            }
+        }
+        return false;
+    }
+
+    private EntityGraph buildGraph(Class<?> rootClass, Set<String> paths) {
+        if (paths.isEmpty()) {
+            return null;
+        }
+        // The same few join sets come back request after request
+        return entityGraphCache.get(rootClass, paths).graph();
+    }
+
+    private static String statisticsKey(Class<?> rootClass, String branch) {
+        return rootClass.getSimpleName() + "." + branch;
+    }
+
+    /**
+     * Requested paths as a tree of attributes
+     */
+    private static final class PathNode {
+        private final String name;
+        private final AttributeNode attribute;
+        private final Map<String, PathNode> children = new LinkedHashMap<>();
+
+        private PathNode(AttributeNode attribute) {
+            this.name = attribute.getName();
+            this.attribute = attribute;
+        }
+
+        static PathNode of(AttributeNode rootAttribute, Collection<String> paths) {
+            PathNode root = new PathNode(rootAttribute);
+            for (String path : paths) {
+                PathNode node = root;
+                for (String segment : path.split("\\.")) {
+                    AttributeNode parent = node.attribute;
+                    node = node.children.computeIfAbsent(segment, name -> new PathNode(requestable(parent, name)));
+                }
+            }
+            return root;
+        }
+    }
+
+    /**
+     * Running rows-per-parent average; old samples are halved away so the estimate follows the data
+     */
+    private static final class CardinalityStats {
+        private static final long DECAY_THRESHOLD = 100_000;
+
+        private long parents;
+        private long rows;
+
+        synchronized void record(long parents, long rows) {
+            this.parents += parents;
+            this.rows += rows;
+            if (this.parents > DECAY_THRESHOLD) {
+                this.parents /= 2;
+                this.rows /= 2;
+            }
+        }
+
+        synchronized double average(int minSamples) {
+            return parents < minSamples ? Double.NaN : (double) rows / parents;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.demo.departments.demoDepartments.service.utils.mapping;
+
+import java.util.Map;
+
+/**
+ * What {@link FetchPlanner#fetchDeferred} did for one request: the strategy per top-level branch, the queries
+ * sent (root query included) and the result rows read compared with joining every path. The rows are
+ * counted on the loaded entities when the request was sampled and estimated from the statistics otherwise.
+ */
+public record FetchReport(Map<String, FetchPlan.Strategy> strategies,
+                          int roots,
+                          int queries,
+                          long rows,
+                          long rowsJoiningAll,
+                          boolean estimated) {
+
+    public long savedRows() {
+        return rowsJoiningAll - rows;
+    }
+}
@@ -2,74 +2,66 @@ package com.demo.departments.demoDepartments.service.utils.mapping;
 
 import com.cosium.spring.data.jpa.entity.graph.domain2.DynamicEntityGraph;
 import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
-import com.demo.departments.demoDepartments.persistence.utils.mapping.MappingAttribute;
-import jakarta.persistence.ManyToMany;
-import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToMany;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Component
+@RequiredArgsConstructor
 public class GraphBuilderMapperService {
+    private final FetchPlanner fetchPlanner;
+    private final AttributeRegistry attributeRegistry;
+    private final EntityGraphCache entityGraphCache;
+
     /**
-     * Create an entity graph for the specified attributes
+     * Create an entity graph for the specified attributes, compiled once per attribute combination
      */
     public EntityGraph getGraphWithAttributes(Class<?> rootClass, Collection<String> attributes) {
-        // If no attributes specified, return a minimal graph
-        if (attributes == null || attributes.isEmpty()) {
-            return DynamicEntityGraph.fetching().build();
-        }
-        
-        // Create a builder for our entity graph
-        DynamicEntityGraph.Builder builder = DynamicEntityGraph.fetching();
-        
-        // For each attribute path, add it to the graph
-        for (String attributePath : attributes) {
-            // For nested paths like "roles.permissions", we need to add both "roles" and "roles.permissions"
-            String[] segments = attributePath.split("\\.");
-            StringBuilder path = new StringBuilder();
-            
-            for (int i = 0; i < segments.length; i++) {
-                if (i > 0) path.append(".");
-                path.append(segments[i]);
-                
-                addPathIfValid(builder, rootClass, path.toString());
-            }
-        }
+        return entityGraphCache.get(rootClass, attributes).graph();
+    }
 
-        return builder.build();
+    /**
+     * Create a fetch plan for the specified attributes: sibling collections that would multiply
+     * into a cartesian product are left out of the root graph and loaded by {@link #completeFetch}
+     */
+    public FetchPlan getFetchPlan(Class<?> rootClass, Collection<String> attributes) {
+        return fetchPlanner.plan(rootClass, entityGraphCache.get(rootClass, attributes).paths());
     }
-    
+
     /**
-     * Get all fields from a class and its superclasses
+     * Create a fetch plan for roots read without a graph (e.g. streamed): every path is loaded by {@link #completeFetch}
      */
-    private Set<Field> getAllEntityFields(Class<?> clazz) {
-        Set<Field> fields = new HashSet<>();
-        
-        // Get fields from this class
-        for (Field field : clazz.getDeclaredFields()) {
-            fields.add(field);
-        }
-        
-        // Get fields from superclass if it's not Object
-        Class<?> superClass = clazz.getSuperclass();
-        if (superClass != null && superClass != Object.class) {
-            fields.addAll(getAllEntityFields(superClass));
+    public FetchPlan getDeferredFetchPlan(Class<?> rootClass, Collection<String> attributes) {
+        return fetchPlanner.planDeferred(rootClass, entityGraphCache.get(rootClass, attributes).paths());
+    }
+
+    /**
+     * The association paths the attributes resolve to, as fetched by {@link #getFetchPlan}; invalid ones are dropped
+     */
+    public Set<String> getFetchedPaths(Class<?> rootClass, Collection<String> attributes) {
+        return entityGraphCache.get(rootClass, attributes).paths();
+    }
+
+    /**
+     * Load the deferred branches and cached collections of a fetch plan for entities read with its root graph
+     * (also feeds the planner's cardinality statistics)
+     *
+     * @param allRows true when the entities are the whole, unrestricted table
+     */
+    public void completeFetch(FetchPlan plan, List<?> entities, boolean allRows) {
+        if (!plan.isEmpty()) {
+            fetchPlanner.fetchDeferred(plan, entities, allRows);
         }
-        
-        return fields;
     }
-    
+
     /**
      * Create a complete entity graph with all mappable attributes
      */
     public EntityGraph getCompleteEntityGraph(Class<?> rootClass) {
         DynamicEntityGraph.Builder builder = DynamicEntityGraph.fetching();
-        Set<String> allPaths = getAllMappableAttributes(rootClass);
+        Set<String> allPaths = attributeRegistry.mappablePaths(rootClass);
         
         for (String attributePath : allPaths) {
             builder.addPath(attributePath);
@@ -79,81 +71,9 @@ public class GraphBuilderMapperService {
     }
     
     /**
-     * Get all mappable attributes for a class and its children
+     * Every attribute path that can be requested for the class, nested ones included (e.g. "roles.permissions")
      */
-    private Set<String> getAllMappableAttributes(Class<?> clazz) {
-        Set<String> paths = new HashSet<>();
-        collectMappableAttributes(clazz, "", paths, new HashSet<>());
-        return paths;
-    }
-    
-    /**
-     * Recursively collect all mappable attributes
-     */
-    private void collectMappableAttributes(Class<?> clazz, String basePath, Set<String> paths, Set<Class<?>> visited) {
-        // Avoid circular references
-        if (visited.contains(clazz)) {
-            return;
-        }
-        
-        visited.add(clazz);
-        
-        for (Field field : clazz.getDeclaredFields()) {
-            MappingAttribute mapping = field.getAnnotation(MappingAttribute.class);
-            if (mapping == null) continue;
-            
-            String path = basePath.isEmpty() ? field.getName() : basePath + "." + field.getName();
-            paths.add(path);
-            
-            // If it's a collection, check the generic type
-            if (Collection.class.isAssignableFrom(field.getType())) {
-                try {
-                    ParameterizedType type = (ParameterizedType) field.getGenericType();
-                    Class<?> genericClass = (Class<?>) type.getActualTypeArguments()[0];
-                    collectMappableAttributes(genericClass, path, paths, new HashSet<>(visited));
-                } catch (Exception e) {
-                    // Skip if we can't determine the generic type
-                }
-            } 
-            // If it's a regular class, recurse
-            else if (!field.getType().isPrimitive() && !field.getType().getPackage().getName().startsWith("java.")) {
-                collectMappableAttributes(field.getType(), path, paths, new HashSet<>(visited));
-            }
-        }
-    }
-
-    private Set<String> reduceGraphPaths(Collection<String> inputPaths) {
-        return inputPaths.stream()
-                .filter(path ->
-                        inputPaths.stream().noneMatch(other ->
-                                !path.equals(other) && path.startsWith(other + ".")
-                        )
-                )
-                .collect(Collectors.toSet());
-    }
-
-    private void addPathIfValid(DynamicEntityGraph.Builder builder, Class<?> clazz, String attributePath) {
-        String[] parts = attributePath.split("\\.");
-        Class<?> currentClass = clazz;
-
-        for (String fieldName : parts) {
-            try {
-                Field field = currentClass.getDeclaredField(fieldName);
-                MappingAttribute mapping = field.getAnnotation(MappingAttribute.class);
-                if (mapping == null) return;
-
-                if (Collection.class.isAssignableFrom(field.getType())) {
-                    ParameterizedType type = (ParameterizedType) field.getGenericType();
-                    currentClass = (Class<?>) type.getActualTypeArguments()[0];
-                } else {
-                    currentClass = field.getType();
-                }
-
-            } catch (NoSuchFieldException e) {
-                return;
-            }
-        }
-
-        builder.addPath(attributePath);
+    public Set<String> getMappableAttributes(Class<?> rootClass) {
+        return attributeRegistry.mappablePaths(rootClass);
     }
 }
@@ -0,0 +1,99 @@
+package com.demo.departments.demoDepartments.service.utils.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursor tokens used by keyset pagination.
+ * Clients must treat the token as opaque; internally it carries the last id of the page,
+ * and for ranked results (search) also its rank.
+ */
+public final class CursorCodec {
+
+    private static final String PREFIX = "id:";
+    private static final String RANKED_PREFIX = "rank:";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Encode the last id of a page into a cursor token
+     */
+    public static String encode(Long lastId) {
+        if (lastId == null) {
+            return null;
+        }
+        return toToken(PREFIX + lastId);
+    }
+
+    /**
+     * Encode the rank and id of the last row of a ranked page into a cursor token
+     */
+    public static String encodeRanked(double rank, long lastId) {
+        // Double.toString round-trips exactly, so the next page seeks past the very same rank
+        return toToken(RANKED_PREFIX + rank + ":" + lastId);
+    }
+
+    /**
+     * Decode a cursor token back into the id to seek after
+     *
+     * @return the id, or null if the cursor is empty (first page)
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String raw = fromToken(cursor);
+        if (!raw.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Decode a ranked cursor token back into the rank and id to seek after
+     *
+     * @return the position, or null if the cursor is empty (first page)
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static RankedCursor decodeRanked(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String raw = fromToken(cursor);
+        int separator = raw.lastIndexOf(':');
+        if (!raw.startsWith(RANKED_PREFIX) || separator <= RANKED_PREFIX.length()) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            double rank = Double.parseDouble(raw.substring(RANKED_PREFIX.length(), separator));
+            long id = Long.parseLong(raw.substring(separator + 1));
+            return new RankedCursor(rank, id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private static String toToken(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String fromToken(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Position in a list ordered by rank (descending), then id
+     */
+    public record RankedCursor(double rank, long id) {
+    }
+}
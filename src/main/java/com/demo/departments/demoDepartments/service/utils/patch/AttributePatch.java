@@ -0,0 +1,9 @@
+package com.demo.departments.demoDepartments.service.utils.patch;
+
+import java.util.Map;
+
+/**
+ * Validated PATCH body: the version the client read and the new values by entity attribute name
+ */
+public record AttributePatch(long version, Map<String, Object> values) {
+}
@@ -0,0 +1,89 @@
+package com.demo.departments.demoDepartments.service.utils.patch;
+
+import com.demo.departments.demoDepartments.service.dto.base.BaseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.MappedSuperclassType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.stereotype.Component;
+
+import java.beans.PropertyDescriptor;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the JSON merge patch of {@code PATCH /api/<entities>/{id}} into the entity attributes to update.
+ * <p>
+ * The body is bound to the entity's DTO, so values are converted as in a POST (dates, enums), and only the
+ * supplied properties are checked against the DTO's constraints. Only basic columns of the entity itself can be
+ * patched: not the id, the associations, the audit columns or the version, which the body has to carry as read.
+ */
+@Component
+@RequiredArgsConstructor
+public class AttributePatchReader {
+
+    private static final String VERSION = "version";
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Map<Class<?>, Set<String>> patchableAttributes = new ConcurrentHashMap<>();
+
+    public AttributePatch read(Map<String, Object> body, Class<? extends BaseDTO> dtoClass, Class<?> entityClass) {
+        if (!(body.get(VERSION) instanceof Number version)) {
+            throw new IllegalArgumentException("The version the entity was read with is required");
+        }
+        Map<String, Object> changes = new LinkedHashMap<>(body);
+        changes.remove(VERSION);
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to update");
+        }
+        Set<String> patchable = patchableAttributes.computeIfAbsent(entityClass, type -> patchable(type, dtoClass));
+        for (String name : changes.keySet()) {
+            if (!patchable.contains(name)) {
+                throw new IllegalArgumentException("Attribute cannot be patched: " + name);
+            }
+        }
+
+        BaseDTO dto = objectMapper.convertValue(changes, dtoClass);
+        Set<ConstraintViolation<BaseDTO>> violations = new HashSet<>();
+        changes.keySet().forEach(name -> violations.addAll(validator.validateProperty(dto, name)));
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+
+        BeanWrapper converted = PropertyAccessorFactory.forBeanPropertyAccess(dto);
+        Map<String, Object> values = new LinkedHashMap<>();
+        changes.keySet().forEach(name -> values.put(name, converted.getPropertyValue(name)));
+        return new AttributePatch(version.longValue(), values);
+    }
+
+    /**
+     * Basic attributes declared by the entity class itself (not its mapped superclass) that the DTO can carry
+     */
+    private Set<String> patchable(Class<?> entityClass, Class<?> dtoClass) {
+        return entityManagerFactory.getMetamodel().entity(entityClass).getSingularAttributes().stream()
+                .filter(attribute -> attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+                .filter(attribute -> !attribute.isId() && !attribute.isVersion())
+                .filter(attribute -> !(attribute.getDeclaringType() instanceof MappedSuperclassType))
+                .map(SingularAttribute::getName)
+                .filter(name -> {
+                    PropertyDescriptor property = BeanUtils.getPropertyDescriptor(dtoClass, name);
+                    return property != null && property.getWriteMethod() != null;
+                })
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,58 @@
+package com.demo.departments.demoDepartments.service.utils.suggest;
+
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.List;
+
+/**
+ * Keeps the {@link TypeaheadIndex} in step with persons and contacts written through Hibernate; registered
+ * with the session factory's event listeners by {@code TypeaheadConfig}, so the entities do not know about it.
+ * The index applies what it is told after the transaction commits.
+ * Rows removed with bulk statements never reach these events; the services report them instead.
+ */
+@RequiredArgsConstructor
+public class TypeaheadEntityListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final TypeaheadIndex typeaheadIndex;
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        saved(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        saved(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Person person) {
+            typeaheadIndex.personsRemoved(List.of(person.getId()));
+        } else if (event.getEntity() instanceof Contact contact) {
+            typeaheadIndex.contactsRemoved(List.of(contact.getId()));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void saved(Object entity) {
+        if (entity instanceof Person person) {
+            typeaheadIndex.personSaved(person);
+        } else if (entity instanceof Contact contact) {
+            typeaheadIndex.contactSaved(contact);
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package com.demo.departments.demoDepartments.service.utils.suggest;
+
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.service.dto.PersonSuggestionDTO;
+import com.demo.departments.demoDepartments.service.utils.cache.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * In-memory prefix index answering autocomplete lookups over person first/last names and contact
+ * emails/phone numbers without a database round trip.
+ * <p>
+ * The index is an immutable base of parallel arrays sorted by key: the lower-cased key (one String instance
+ * per run of equal keys), the original text, the owning person id and the row the key came from. Changes
+ * reported by {@link TypeaheadEntityListener} are collected per transaction and, after commit, recorded in a
+ * small delta next to the base: a sorted overlay of the new entries plus tombstones for the rows and persons
+ * whose base entries no longer count. A write therefore only copies the delta, and lookups read the base and
+ * the overlay side by side, lock-free against the current state. Once the delta outgrows
+ * {@code departments.typeahead.delta-limit} (or a 32nd of the base, whichever is larger) it is compacted
+ * into a new base. {@link TypeaheadIndexLoader} builds the whole index from the database at startup.
+ */
+@Component
+public class TypeaheadIndex {
+
+    /**
+     * Indexed attribute; the ordinal is what the snapshot stores per key
+     */
+    public enum Field {
+        FIRST_NAME("firstName"), LAST_NAME("lastName"), EMAIL("email"), PHONE_NUMBER("phoneNumber");
+
+        private static final Field[] VALUES = values();
+
+        private final String attribute;
+
+        Field(String attribute) {
+            this.attribute = attribute;
+        }
+
+        public String attribute() {
+            return attribute;
+        }
+    }
+
+    /**
+     * Receives the rows of a full rebuild
+     */
+    public interface Loader {
+
+        void person(long id, String firstName, String lastName);
+
+        void contact(long id, Long personId, String email, String phoneNumber);
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key)
+            .thenComparingLong(Entry::personId)
+            .thenComparingLong(Entry::source);
+
+    private final int deltaLimit;
+
+    private volatile State state = State.EMPTY;
+
+    private final Object lock = new Object();
+    private final Object rebuildLock = new Object();
+
+    /** Changes applied while a rebuild scans the database; replayed on the rebuilt base. Guarded by lock */
+    private List<Changes> replay;
+
+    /** Whether a rebuild has completed; until then there is nothing to keep current. Guarded by lock */
+    private boolean built;
+
+    public TypeaheadIndex(@Value("${departments.typeahead.delta-limit:1024}") int deltaLimit) {
+        this.deltaLimit = deltaLimit;
+    }
+
+    /**
+     * Suggestions whose key starts with the prefix (case-insensitive), in key order
+     */
+    public List<PersonSuggestionDTO> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        State current = state;
+        List<PersonSuggestionDTO> suggestions = new ArrayList<>(Math.min(limit, 16));
+        if (normalized.isEmpty()) {
+            return suggestions;
+        }
+        Snapshot base = current.base;
+        Snapshot overlay = current.overlay;
+        int i = base.lowerBound(normalized);
+        int j = overlay.lowerBound(normalized);
+        while (suggestions.size() < limit) {
+            while (i < base.size() && current.isHidden(i)) {
+                i++;
+            }
+            boolean inBase = i < base.size() && base.keys[i].startsWith(normalized);
+            boolean inOverlay = j < overlay.size() && overlay.keys[j].startsWith(normalized);
+            if (!inBase && !inOverlay) {
+                break;
+            }
+            if (inBase && (!inOverlay || Snapshot.compare(base, i, overlay, j) < 0)) {
+                add(suggestions, base, i++);
+            } else {
+                add(suggestions, overlay, j++);
+            }
+        }
+        return suggestions;
+    }
+
+    private static void add(List<PersonSuggestionDTO> suggestions, Snapshot snapshot, int i) {
+        long personId = snapshot.personIds[i];
+        String value = snapshot.values[i];
+        // The digits-only key of a phone number may repeat the suggestion of the formatted one
+        if (suggestions.stream().noneMatch(s -> s.getPersonId() == personId && s.getValue().equals(value))) {
+            suggestions.add(PersonSuggestionDTO.builder()
+                    .personId(personId)
+                    .field(Field.VALUES[snapshot.fields[i]].attribute())
+                    .value(value)
+                    .build());
+        }
+    }
+
+    /**
+     * Number of indexed keys, counting the base entries hidden by the delta until it is compacted
+     */
+    public int size() {
+        State current = state;
+        return current.base.size() + current.overlay.size();
+    }
+
+    /**
+     * Estimated heap used by the index: the arrays of the base and overlay, the distinct strings they
+     * reference and the tombstones
+     */
+    public long memoryBytes() {
+        return state.memoryBytes();
+    }
+
+    /**
+     * Size of the delta not yet compacted into the base: overlay entries plus tombstones
+     */
+    int deltaSize() {
+        return state.deltaSize();
+    }
+
+    /**
+     * Re-indexes the person's names once the current transaction commits
+     */
+    public void personSaved(Person person) {
+        personSaved(person.getId(), person.getFirstName(), person.getLastName());
+    }
+
+    /**
+     * Re-indexes the person's names once the current transaction commits (for updates made without the entity)
+     */
+    public void personSaved(long id, String firstName, String lastName) {
+        long source = personSource(id);
+        List<Entry> entries = new ArrayList<>(2);
+        add(entries, firstName, Field.FIRST_NAME, id, source);
+        add(entries, lastName, Field.LAST_NAME, id, source);
+        record(changes -> changes.replaced.put(source, entries));
+    }
+
+    /**
+     * Drops the persons and their contacts once the current transaction commits
+     */
+    public void personsRemoved(Collection<Long> ids) {
+        record(changes -> changes.removedPersons.addAll(ids));
+    }
+
+    /**
+     * Re-indexes the contact's email and phone number once the current transaction commits
+     */
+    public void contactSaved(Contact contact) {
+        contactSaved(contact.getId(), contact.getPerson() == null ? null : contact.getPerson().getId(),
+                contact.getEmail(), contact.getPhoneNumber());
+    }
+
+    /**
+     * Re-indexes the contact's email and phone number once the current transaction commits
+     * (for updates made without the entity)
+     */
+    public void contactSaved(long id, Long personId, String email, String phoneNumber) {
+        long source = contactSource(id);
+        List<Entry> entries = new ArrayList<>(3);
+        if (personId != null) {
+            addContact(entries, email, phoneNumber, personId, source);
+        }
+        record(changes -> changes.replaced.put(source, entries));
+    }
+
+    /**
+     * Drops the contacts once the current transaction commits
+     */
+    public void contactsRemoved(Collection<Long> ids) {
+        record(changes -> ids.forEach(id -> changes.replaced.put(contactSource(id), List.of())));
+    }
+
+    /**
+     * Replaces the index with the rows the scan reports. Changes committed meanwhile are applied to the
+     * current state as usual and replayed on the new base, so the scan needs no lock against writers.
+     */
+    public void rebuild(Consumer<Loader> scan) {
+        synchronized (rebuildLock) {
+            synchronized (lock) {
+                replay = new ArrayList<>();
+            }
+            try {
+                List<Entry> entries = new ArrayList<>();
+                scan.accept(new Loader() {
+                    @Override
+                    public void person(long id, String firstName, String lastName) {
+                        add(entries, firstName, Field.FIRST_NAME, id, personSource(id));
+                        add(entries, lastName, Field.LAST_NAME, id, personSource(id));
+                    }
+
+                    @Override
+                    public void contact(long id, Long personId, String email, String phoneNumber) {
+                        if (personId != null) {
+                            addContact(entries, email, phoneNumber, personId, contactSource(id));
+                        }
+                    }
+                });
+                Snapshot base = Snapshot.of(entries);
+
+                synchronized (lock) {
+                    State rebuilt = new State(base, Snapshot.EMPTY, Set.of(), Set.of());
+                    for (Changes changes : replay) {
+                        rebuilt = rebuilt.with(changes);
+                    }
+                    state = rebuilt.deltaSize() > compactionThreshold(rebuilt) ? rebuilt.compact() : rebuilt;
+                    this.built = true;
+                }
+            } finally {
+                synchronized (lock) {
+                    replay = null;
+                }
+            }
+        }
+    }
+
+    private void record(Consumer<Changes> change) {
+        TransactionCallbacks.afterCommitBatched(this, Changes::new, change, this::apply);
+    }
+
+    /**
+     * Records the changes in the delta: the work under the lock grows with the delta, not with the index
+     */
+    private void apply(Changes changes) {
+        synchronized (lock) {
+            // Writes before the first build (e.g. startup data loading) are read by the build itself;
+            // recording them one by one would only fill the delta with rows the build reads anyway
+            if (!built && replay == null) {
+                return;
+            }
+            State changed = state.with(changes);
+            state = changed.deltaSize() > compactionThreshold(changed) ? changed.compact() : changed;
+            if (replay != null) {
+                replay.add(changes);
+            }
+        }
+    }
+
+    private int compactionThreshold(State current) {
+        return Math.max(deltaLimit, current.base.size() >> 5);
+    }
+
+    private static void addContact(List<Entry> entries, String email, String phoneNumber, long personId, long source) {
+        add(entries, email, Field.EMAIL, personId, source);
+        add(entries, phoneNumber, Field.PHONE_NUMBER, personId, source);
+        if (phoneNumber != null) {
+            // "2125" finds "212-555-1234" too
+            String digits = phoneNumber.replaceAll("[^0-9]", "");
+            if (!digits.isEmpty() && !digits.equals(phoneNumber)) {
+                entries.add(new Entry(digits, phoneNumber.trim(), personId, source, Field.PHONE_NUMBER));
+            }
+        }
+    }
+
+    private static void add(List<Entry> entries, String text, Field field, long personId, long source) {
+        if (text != null && !text.isBlank()) {
+            entries.add(new Entry(normalize(text), text.trim(), personId, source, field));
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Persons and contacts have separate id sequences: the lowest bit tells them apart
+    private static long personSource(long personId) {
+        return personId << 1;
+    }
+
+    private static long contactSource(long contactId) {
+        return contactId << 1 | 1;
+    }
+
+    private record Entry(String key, String value, long personId, long source, Field field) {
+    }
+
+    /**
+     * Changes of one transaction
+     */
+    private static final class Changes {
+        /** Source row to the entries it has now (none when deleted); later changes of a row win */
+        private final Map<Long, List<Entry>> replaced = new HashMap<>();
+        private final Set<Long> removedPersons = new HashSet<>();
+    }
+
+    /**
+     * What lookups read: the base, the overlay of entries added since the base was built, and the tombstones
+     * hiding base entries of replaced rows and removed persons. Never modified; every write swaps in a new one.
+     */
+    private static final class State {
+
+        private static final State EMPTY = new State(Snapshot.EMPTY, Snapshot.EMPTY, Set.of(), Set.of());
+
+        private final Snapshot base;
+        private final Snapshot overlay;
+        private final Set<Long> replacedSources;
+        private final Set<Long> removedPersons;
+
+        private State(Snapshot base, Snapshot overlay, Set<Long> replacedSources, Set<Long> removedPersons) {
+            this.base = base;
+            this.overlay = overlay;
+            this.replacedSources = replacedSources;
+            this.removedPersons = removedPersons;
+        }
+
+        boolean isHidden(int i) {
+            return (!replacedSources.isEmpty() && replacedSources.contains(base.sources[i]))
+                    || (!removedPersons.isEmpty() && removedPersons.contains(base.personIds[i]));
+        }
+
+        int deltaSize() {
+            return overlay.size() + replacedSources.size() + removedPersons.size();
+        }
+
+        long memoryBytes() {
+            // A boxed Long plus its hash table slot per tombstone
+            return base.memoryBytes + overlay.memoryBytes + 32L * (replacedSources.size() + removedPersons.size());
+        }
+
+        /**
+         * The state after one transaction's changes: overlay entries of the changed rows and removed persons
+         * are dropped, the rows' new entries added and their base entries tombstoned
+         */
+        State with(Changes changes) {
+            List<Entry> added = new ArrayList<>();
+            changes.replaced.values().forEach(entries -> entries.stream()
+                    .filter(entry -> !changes.removedPersons.contains(entry.personId()))
+                    .forEach(added::add));
+            added.sort(ORDER);
+
+            Snapshot.Builder builder = new Snapshot.Builder(overlay.size() + added.size());
+            int j = 0;
+            for (int i = 0; i < overlay.size(); i++) {
+                if (changes.replaced.containsKey(overlay.sources[i])
+                        || changes.removedPersons.contains(overlay.personIds[i])) {
+                    continue;
+                }
+                while (j < added.size() && Snapshot.compare(added.get(j), overlay, i) < 0) {
+                    builder.append(added.get(j++));
+                }
+                builder.append(overlay, i);
+            }
+            while (j < added.size()) {
+                builder.append(added.get(j++));
+            }
+
+            Set<Long> sources = replacedSources;
+            if (!changes.replaced.isEmpty()) {
+                sources = new HashSet<>(replacedSources);
+                sources.addAll(changes.replaced.keySet());
+            }
+            Set<Long> persons = removedPersons;
+            if (!changes.removedPersons.isEmpty()) {
+                persons = new HashSet<>(removedPersons);
+                persons.addAll(changes.removedPersons);
+            }
+            return new State(base, builder.build(), sources, persons);
+        }
+
+        /**
+         * One linear merge of the visible base entries and the overlay into a new base without a delta
+         */
+        State compact() {
+            Snapshot.Builder builder = new Snapshot.Builder(base.size() + overlay.size());
+            int j = 0;
+            for (int i = 0; i < base.size(); i++) {
+                if (isHidden(i)) {
+                    continue;
+                }
+                while (j < overlay.size() && Snapshot.compare(overlay, j, base, i) < 0) {
+                    builder.append(overlay, j++);
+                }
+                builder.append(base, i);
+            }
+            while (j < overlay.size()) {
+                builder.append(overlay, j++);
+            }
+            return new State(builder.build(), Snapshot.EMPTY, Set.of(), Set.of());
+        }
+    }
+
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Builder(0).build();
+
+        // Rough HotSpot sizes with compressed oops and compact Latin-1 strings
+        private static final int STRING_BYTES = 24;
+        private static final int ARRAY_HEADER_BYTES = 16;
+        private static final int REFERENCE_BYTES = 4;
+
+        private final String[] keys;
+        private final String[] values;
+        private final long[] personIds;
+        private final long[] sources;
+        private final byte[] fields;
+        private final long memoryBytes;
+
+        private Snapshot(String[] keys, String[] values, long[] personIds, long[] sources, byte[] fields, long stringBytes) {
+            this.keys = keys;
+            this.values = values;
+            this.personIds = personIds;
+            this.sources = sources;
+            this.fields = fields;
+            int n = keys.length;
+            this.memoryBytes = stringBytes
+                    + 2 * align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * n)
+                    + 2 * align(ARRAY_HEADER_BYTES + 8L * n)
+                    + align(ARRAY_HEADER_BYTES + n);
+        }
+
+        static Snapshot of(List<Entry> entries) {
+            entries.sort(ORDER);
+            Builder builder = new Builder(entries.size());
+            entries.forEach(builder::append);
+            return builder.build();
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * {@link #ORDER} between the entry at {@code i} of {@code a} and the one at {@code j} of {@code b}
+         */
+        static int compare(Snapshot a, int i, Snapshot b, int j) {
+            int byKey = a.keys[i].compareTo(b.keys[j]);
+            if (byKey != 0) {
+                return byKey;
+            }
+            int byPerson = Long.compare(a.personIds[i], b.personIds[j]);
+            return byPerson != 0 ? byPerson : Long.compare(a.sources[i], b.sources[j]);
+        }
+
+        static int compare(Entry entry, Snapshot b, int j) {
+            int byKey = entry.key().compareTo(b.keys[j]);
+            if (byKey != 0) {
+                return byKey;
+            }
+            int byPerson = Long.compare(entry.personId(), b.personIds[j]);
+            return byPerson != 0 ? byPerson : Long.compare(entry.source(), b.sources[j]);
+        }
+
+        private static long align(long bytes) {
+            return (bytes + 7) & ~7L;
+        }
+
+        private static long stringBytes(String value) {
+            return align(STRING_BYTES) + align(ARRAY_HEADER_BYTES + value.length());
+        }
+
+        /**
+         * Appends entries in order, sharing one String instance between equal neighbouring keys and values
+         */
+        private static final class Builder {
+            private final String[] keys;
+            private final String[] values;
+            private final long[] personIds;
+            private final long[] sources;
+            private final byte[] fields;
+            private int size;
+            private long stringBytes;
+
+            private Builder(int capacity) {
+                keys = new String[capacity];
+                values = new String[capacity];
+                personIds = new long[capacity];
+                sources = new long[capacity];
+                fields = new byte[capacity];
+            }
+
+            private void append(Entry entry) {
+                append(entry.key(), entry.value(), entry.personId(), entry.source(), (byte) entry.field().ordinal());
+            }
+
+            private void append(Snapshot snapshot, int i) {
+                append(snapshot.keys[i], snapshot.values[i], snapshot.personIds[i], snapshot.sources[i],
+                        snapshot.fields[i]);
+            }
+
+            private void append(String key, String value, long personId, long source, byte field) {
+                if (size > 0 && keys[size - 1].equals(key)) {
+                    key = keys[size - 1];
+                } else {
+                    stringBytes += stringBytes(key);
+                }
+                if (value.equals(key)) {
+                    value = key;
+                } else if (size > 0 && values[size - 1].equals(value)) {
+                    value = values[size - 1];
+                } else {
+                    stringBytes += stringBytes(value);
+                }
+                keys[size] = key;
+                values[size] = value;
+                personIds[size] = personId;
+                sources[size] = source;
+                fields[size] = field;
+                size++;
+            }
+
+            private Snapshot build() {
+                if (size < keys.length) {
+                    return new Snapshot(Arrays.copyOf(keys, size), Arrays.copyOf(values, size),
+                            Arrays.copyOf(personIds, size), Arrays.copyOf(sources, size),
+                            Arrays.copyOf(fields, size), stringBytes);
+                }
+                return new Snapshot(keys, values, personIds, sources, fields, stringBytes);
+            }
+        }
+    }
+}
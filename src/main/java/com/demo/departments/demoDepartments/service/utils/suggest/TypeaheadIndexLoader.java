@@ -0,0 +1,76 @@
+package com.demo.departments.demoDepartments.service.utils.suggest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/**
+ * Builds the {@link TypeaheadIndex} from the database once the application is ready, streaming the indexed
+ * columns over forward-only cursors, and reports the index size, footprint and build time as metrics.
+ */
+@Slf4j
+@Component
+public class TypeaheadIndexLoader {
+
+    private final TypeaheadIndex typeaheadIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer rebuildTimer;
+    private final int fetchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public TypeaheadIndexLoader(TypeaheadIndex typeaheadIndex,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${departments.typeahead.fetch-size:1000}") int fetchSize) {
+        this.typeaheadIndex = typeaheadIndex;
+        // Deliberately not read-only: a lagging read replica could hide writes the index has already applied
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fetchSize = fetchSize;
+        this.rebuildTimer = Timer.builder("departments.typeahead.rebuild")
+                .description("Time to build the typeahead index from the database")
+                .register(meterRegistry);
+        Gauge.builder("departments.typeahead.entries", typeaheadIndex, TypeaheadIndex::size)
+                .description("Keys in the typeahead index")
+                .register(meterRegistry);
+        Gauge.builder("departments.typeahead.memory", typeaheadIndex, TypeaheadIndex::memoryBytes)
+                .description("Estimated heap used by the typeahead index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        rebuildTimer.record(() -> typeaheadIndex.rebuild(loader -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> persons = scan("select p.id, p.firstName, p.lastName from Person p")) {
+                persons.forEach(row -> loader.person((Long) row[0], (String) row[1], (String) row[2]));
+            }
+            // Reading person.id off the foreign key column needs no join
+            try (Stream<Object[]> contacts = scan("select c.id, c.person.id, c.email, c.phoneNumber from Contact c")) {
+                contacts.forEach(row -> loader.contact((Long) row[0], (Long) row[1], (String) row[2], (String) row[3]));
+            }
+        })));
+        log.info("Typeahead index built: {} keys, ~{} KB in {} ms", typeaheadIndex.size(),
+                typeaheadIndex.memoryBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Stream<Object[]> scan(String jpql) {
+        return entityManager.createQuery(jpql, Object[].class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+}
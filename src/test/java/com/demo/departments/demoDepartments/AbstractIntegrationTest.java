@@ -0,0 +1,59 @@
+package com.demo.departments.demoDepartments;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The application on the in-memory H2 database of the test profile, seeded by the data generator
+ * (10 persons with their addresses, contacts, roles and permissions).
+ * <p>
+ * All integration tests share this one context and database: tests that change data create the rows they change.
+ * Small export chunks and fetch batches make the few seeded rows span several of them; cached entity tags are
+ * always checked against the database, so tests see writes that bypass the response cache at once.
+ */
+@SpringBootTest(properties = {
+        "departments.export.fetch-size=3",
+        "departments.fetch-planner.batch-size=4",
+        "departments.response-cache.tag-trust=0s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class AbstractIntegrationTest {
+
+    @Autowired
+    protected MockMvc mvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    protected JsonNode getJson(String url) throws Exception {
+        String body = mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    /**
+     * Creates a person of the test's own, newer than every seeded one
+     *
+     * @return its id
+     */
+    protected long createPerson(String firstName) throws Exception {
+        String created = mvc.perform(post("/api/persons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"" + firstName + "\",\"lastName\":\"Target\",\"birthDay\":\"1980-01-01\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(created).get("id").asLong();
+    }
+}
@@ -0,0 +1,121 @@
+package com.demo.departments.demoDepartments.config.cache;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.base.CacheRegions;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Roles, permissions and the permissions of a role are read from the second-level cache once loaded,
+ * and the write paths that change them behind Hibernate's back evict them
+ */
+class SecondLevelCacheTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void rolesAndTheirPermissionsAreReadFromTheCache() {
+        Family family = createFamily("Cachedread");
+        double roleHits = hits(CacheRegions.ROLE);
+        double permissionsHits = hits(CacheRegions.ROLE_PERMISSIONS);
+
+        // The first read loads and puts, the second one is served by the cache
+        for (int read = 0; read < 2; read++) {
+            int permissions = inTransaction(em -> em.find(Role.class, family.role).getPermissions().size());
+            assertThat(permissions).isEqualTo(1);
+        }
+
+        assertThat(cache().contains(Role.class, family.role)).isTrue();
+        assertThat(hits(CacheRegions.ROLE)).isGreaterThan(roleHits);
+        assertThat(hits(CacheRegions.ROLE_PERMISSIONS)).isGreaterThan(permissionsHits);
+    }
+
+    @Test
+    void bulkDeleteOfPersonsEvictsTheRolesItDetached() throws Exception {
+        Family family = createFamily("Cacheddelete");
+        long personId = inTransaction(em -> em.find(Role.class, family.role).getPerson().getId());
+        assertThat(personId).isEqualTo(family.person);
+        assertThat(cache().contains(Role.class, family.role)).isTrue();
+
+        mvc.perform(delete("/api/persons?ids=" + family.person)).andExpect(status().isNoContent());
+
+        // ON DELETE SET NULL changed the role in the database only; a cached copy would still name the person
+        assertThat(cache().contains(Role.class, family.role)).isFalse();
+        Person person = inTransaction(em -> em.find(Role.class, family.role).getPerson());
+        assertThat(person).isNull();
+    }
+
+    @Test
+    void patchedRoleIsNotReadStaleFromTheCache() throws Exception {
+        Family family = createFamily("Cachedpatch");
+        long version = inTransaction(em -> em.find(Role.class, family.role).getVersion());
+        assertThat(cache().contains(Role.class, family.role)).isTrue();
+
+        mvc.perform(patch("/api/roles/" + family.role)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":" + version + ",\"role\":\"CACHEDPATCHED\"}"))
+                .andExpect(status().isOk());
+
+        String name = inTransaction(em -> em.find(Role.class, family.role).getRole());
+        assertThat(name).isEqualTo("CACHEDPATCHED");
+    }
+
+    private double hits(String region) {
+        return meterRegistry.get("cache.gets").tags("cache", region, "result", "hit").functionCounter().count();
+    }
+
+    private Cache cache() {
+        return entityManager.getEntityManagerFactory().getCache();
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.apply(entityManager));
+    }
+
+    /**
+     * A person of the test's own with one role, the role with one permission, none of them in the cache yet
+     */
+    private Family createFamily(String name) {
+        Family family = inTransaction(em -> {
+            Person person = Person.builder().firstName(name).lastName("Family").birthDay(LocalDate.of(1980, 1, 1)).build();
+            Role role = Role.builder().role(name.toUpperCase()).build();
+            Permissions permission = Permissions.builder().permission(name.toUpperCase() + "_READ").build();
+            person.addRole(role);
+            role.addPermission(permission);
+            em.persist(person);
+            em.flush();
+            return new Family(person.getId(), role.getId(), permission.getId());
+        });
+        // Cached on insert with the nanoseconds the database drops
+        cache().evict(Role.class, family.role);
+        cache().evict(Permissions.class, family.permission);
+        return family;
+    }
+
+    private record Family(long person, long role, long permission) {
+    }
+}
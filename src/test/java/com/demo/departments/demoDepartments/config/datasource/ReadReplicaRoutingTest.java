@@ -0,0 +1,272 @@
+package com.demo.departments.demoDepartments.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing of {@link ReadReplicaDataSourceConfig.ReadWriteRoutingDataSource} over two H2 databases, each
+ * answering with its own name, and the read-your-writes window of {@link ReadYourWritesFilter}
+ */
+class ReadReplicaRoutingTest {
+
+    private static final String UNREACHABLE = "jdbc:h2:tcp://localhost:1/unreachable";
+
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+    private HikariDataSource primary;
+    private SimpleMeterRegistry meterRegistry;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        createDatabase("primary");
+        primary = new HikariDataSource();
+        primary.setJdbcUrl(url("primary"));
+        primary.setUsername("sa");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ReadRouting.clear();
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+        primary.close();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        createDatabase("replica");
+        JdbcTemplate jdbc = routed(replicas(instance("replica")));
+
+        assertThat(read(jdbc, true)).isEqualTo("replica");
+        assertThat(read(jdbc, false)).isEqualTo("primary");
+        assertThat(meterRegistry.counter("departments.datasource.reads", "target", "replica").count()).isEqualTo(1);
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToThePrimary() {
+        JdbcTemplate jdbc = routed(replicas(unreachable()));
+
+        assertThat(read(jdbc, true)).isEqualTo("primary");
+        assertThat(meterRegistry.get("departments.datasource.replica.healthy").gauge().value()).isZero();
+    }
+
+    @Test
+    void unreachableReplicaIsSkippedForAHealthyOne() {
+        createDatabase("replica");
+        ReadReplicaProperties properties = replicas(unreachable(), instance("replica"));
+        JdbcTemplate jdbc = routed(properties);
+
+        // Round-robin starts at every replica in turn; the unreachable one is never used
+        assertThat(read(jdbc, true)).isEqualTo("replica");
+        assertThat(read(jdbc, true)).isEqualTo("replica");
+    }
+
+    @Test
+    void laggingReplicaIsTakenOutOfRotation() {
+        createDatabase("replica");
+        ReadReplicaProperties.Instance lagging = instance("replica");
+        lagging.setLagQuery("SELECT 60");
+        JdbcTemplate jdbc = routed(replicas(lagging));
+
+        assertThat(read(jdbc, true)).isEqualTo("primary");
+    }
+
+    @Test
+    void readsWithinTheReadYourWritesWindowUseThePrimary() throws Exception {
+        createDatabase("replica");
+        JdbcTemplate jdbc = routed(replicas(instance("replica")));
+        MutableClock clock = new MutableClock();
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5), clock);
+
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        assertThat(handle(filter, "PUT", null, written, jdbc)).isEqualTo("primary");
+        String token = written.getHeader(ReadYourWritesFilter.HEADER);
+        assertThat(token).isNotNull();
+
+        assertThat(handle(filter, "GET", null, new MockHttpServletResponse(), jdbc)).isEqualTo("replica");
+        assertThat(handle(filter, "GET", token, new MockHttpServletResponse(), jdbc)).isEqualTo("primary");
+
+        // After the window the token is ignored
+        clock.advance(Duration.ofSeconds(6));
+        assertThat(handle(filter, "GET", token, new MockHttpServletResponse(), jdbc)).isEqualTo("replica");
+
+        // A token pinning for longer than the window is forged
+        String forged = Long.toString(clock.millis() + Duration.ofHours(1).toMillis());
+        assertThat(handle(filter, "GET", forged, new MockHttpServletResponse(), jdbc)).isEqualTo("replica");
+        assertThat(handle(filter, "GET", "garbage", new MockHttpServletResponse(), jdbc)).isEqualTo("replica");
+        assertThat(ReadRouting.isPinnedToPrimary()).isFalse();
+    }
+
+    @Test
+    void asyncPartOfAPinnedRequestUsesThePrimary() throws Exception {
+        createDatabase("replica");
+        JdbcTemplate jdbc = routed(replicas(instance("replica")));
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5), Clock.systemUTC());
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("PUT", "/api/persons/1"), written, (req, res) -> {
+        });
+        String token = written.getHeader(ReadYourWritesFilter.HEADER);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setTaskDecorator(new ReadReplicaDataSourceConfig().readRoutingTaskDecorator());
+        executor.initialize();
+        closeables.add(executor::shutdown);
+
+        // Like a StreamingResponseBody export: submitted while handling the request, read after it returned
+        CountDownLatch requestDone = new CountDownLatch(1);
+        List<Future<String>> reads = new ArrayList<>();
+        for (String header : new String[]{token, null}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/persons/export");
+            if (header != null) {
+                request.addHeader(ReadYourWritesFilter.HEADER, header);
+            }
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> reads.add(executor.submit(() -> {
+                requestDone.await();
+                return read(jdbc, true);
+            })));
+        }
+        requestDone.countDown();
+
+        assertThat(reads.get(0).get(5, TimeUnit.SECONDS)).isEqualTo("primary");
+        assertThat(reads.get(1).get(5, TimeUnit.SECONDS)).isEqualTo("replica");
+    }
+
+    @Test
+    void connectionsForOtherCredentialsComeFromThePrimary() throws Exception {
+        createDatabase("replica");
+        ReplicaPool replicas = new ReplicaPool(new DriverManagerDataSource(url("primary")),
+                replicas(instance("replica")), meterRegistry);
+        closeables.add(replicas);
+
+        assertThat(whoami(replicas.getConnection("sa", ""))).isEqualTo("replica");
+        assertThat(whoami(replicas.getConnection("SA", null))).isEqualTo("primary");
+    }
+
+    private static String whoami(Connection connection) throws Exception {
+        try (connection; Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT name FROM whoami")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private String handle(ReadYourWritesFilter filter, String method, String token, MockHttpServletResponse response,
+                          JdbcTemplate jdbc) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/persons/1");
+        if (token != null) {
+            request.addHeader(ReadYourWritesFilter.HEADER, token);
+        }
+        String[] database = new String[1];
+        // Services read in read-only transactions, also while handling a write
+        filter.doFilter(request, response, (req, res) -> database[0] = read(jdbc, true));
+        return database[0];
+    }
+
+    private JdbcTemplate routed(ReadReplicaProperties properties) {
+        ReplicaPool replicas = new ReplicaPool(primary, properties, meterRegistry);
+        ReadReplicaDataSourceConfig.ReadWriteRoutingDataSource routing =
+                new ReadReplicaDataSourceConfig.ReadWriteRoutingDataSource(primary, replicas);
+        closeables.add(replicas);
+        transactionManager = new DataSourceTransactionManager(routing);
+        return new JdbcTemplate(routing);
+    }
+
+    private String read(JdbcTemplate jdbc, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbc.queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    /**
+     * In-memory H2 database (kept open between connections) whose {@code whoami} table holds its name
+     */
+    private static void createDatabase(String name) {
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(url(name), "sa", "", true));
+        jdbc.execute("CREATE TABLE IF NOT EXISTS whoami (name VARCHAR(20))");
+        jdbc.update("DELETE FROM whoami");
+        jdbc.update("INSERT INTO whoami VALUES (?)", name);
+    }
+
+    private static String url(String name) {
+        return "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private static ReadReplicaProperties.Instance instance(String name) {
+        ReadReplicaProperties.Instance instance = new ReadReplicaProperties.Instance();
+        instance.setUrl(url(name));
+        instance.setUsername("sa");
+        instance.setMaximumPoolSize(2);
+        return instance;
+    }
+
+    private static ReadReplicaProperties.Instance unreachable() {
+        ReadReplicaProperties.Instance instance = new ReadReplicaProperties.Instance();
+        instance.setUrl(UNREACHABLE);
+        instance.setUsername("sa");
+        instance.setConnectionTimeout(Duration.ofMillis(250));
+        return instance;
+    }
+
+    private static ReadReplicaProperties replicas(ReadReplicaProperties.Instance... instances) {
+        ReadReplicaProperties properties = new ReadReplicaProperties();
+        properties.setEnabled(true);
+        properties.setHealthCheckInterval(Duration.ofHours(1));
+        for (int i = 0; i < instances.length; i++) {
+            properties.getInstances().put("replica-" + i, instances[i]);
+        }
+        return properties;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.demo.departments.demoDepartments.config.querybudget;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The statement that would take a request over its budget is refused before it reaches the database
+ */
+class QueryBudgetEnforcementTest {
+
+    private SingleConnectionDataSource database;
+    private JdbcTemplate unproxied;
+
+    @BeforeEach
+    void setUp() {
+        database = new SingleConnectionDataSource("jdbc:h2:mem:query_budget", "sa", "", true);
+        unproxied = new JdbcTemplate(database);
+        unproxied.execute("create table item (id int primary key)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestQueryStats.clear();
+        unproxied.execute("drop table item");
+        database.destroy();
+    }
+
+    @Test
+    void statementOverBudgetIsNotExecuted() {
+        JdbcTemplate jdbc = proxied(true);
+        RequestQueryStats.start("ItemController.createItems", 2, 5);
+
+        jdbc.update("insert into item values (1)");
+        jdbc.update("insert into item values (2)");
+        assertThatThrownBy(() -> jdbc.update("insert into item values (3)"))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessage("ItemController.createItems executed 3 SQL statements, its budget is 2");
+        // Later statements of the same request are refused as well
+        assertThatThrownBy(() -> jdbc.update("insert into item values (4)"))
+                .isInstanceOf(QueryBudgetExceededException.class);
+
+        assertThat(unproxied.queryForObject("select count(*) from item", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void withoutFailOnViolationTheStatementIsOnlyCounted() {
+        JdbcTemplate jdbc = proxied(false);
+        RequestQueryStats stats = RequestQueryStats.start("ItemController.createItems", 1, 5);
+
+        jdbc.update("insert into item values (1)");
+        jdbc.update("insert into item values (2)");
+
+        assertThat(stats.isOverBudget()).isTrue();
+        assertThat(stats.getQueries()).isEqualTo(2);
+        assertThat(unproxied.queryForObject("select count(*) from item", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void statementsOutsideARequestAreNotCounted() {
+        JdbcTemplate jdbc = proxied(true);
+
+        for (int i = 0; i < 3; i++) {
+            jdbc.update("insert into item values (?)", i);
+        }
+
+        assertThat(unproxied.queryForObject("select count(*) from item", Integer.class)).isEqualTo(3);
+    }
+
+    private JdbcTemplate proxied(boolean failOnViolation) {
+        return new JdbcTemplate(ProxyDataSourceBuilder.create(database)
+                .listener(new QueryStatsListener(failOnViolation))
+                .build());
+    }
+}
@@ -0,0 +1,124 @@
+package com.demo.departments.demoDepartments.controller;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.AddressType;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.ContactType;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Deletes run as one statement per call; the children follow through the FK actions
+ * (addresses and contacts are removed, roles detached, permissions removed with their role)
+ */
+class BulkDeleteTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void bulkDeleteRemovesOwnedChildrenAndDetachesRoles() throws Exception {
+        Family first = createFamily("Bulkfirst");
+        Family second = createFamily("Bulksecond");
+        Family kept = createFamily("Bulkkept");
+        // Cached responses and second-level cache entries that the FK actions make stale
+        getJson("/api/persons/" + first.person + "?attributes=addresses,contacts,roles");
+        assertThat(getJson("/api/roles/" + first.role + "?attributes=person").get("personId").asLong()).isEqualTo(first.person);
+
+        mvc.perform(delete("/api/persons?ids=" + first.person + "," + second.person))
+                .andExpect(status().isNoContent());
+
+        for (Family deleted : new Family[]{first, second}) {
+            mvc.perform(get("/api/persons/" + deleted.person)).andExpect(status().isNotFound());
+            mvc.perform(get("/api/addresses/" + deleted.address)).andExpect(status().isNotFound());
+            mvc.perform(get("/api/contacts/" + deleted.contact)).andExpect(status().isNotFound());
+            JsonNode role = getJson("/api/roles/" + deleted.role + "?attributes=person,permissions");
+            assertThat(role.path("personId").isMissingNode() || role.get("personId").isNull()).isTrue();
+            assertThat(role.get("permissions")).hasSize(1);
+        }
+        JsonNode survivor = getJson("/api/persons/" + kept.person + "?attributes=addresses,contacts,roles");
+        assertThat(survivor.get("addresses")).hasSize(1);
+        assertThat(survivor.get("contacts")).hasSize(1);
+        assertThat(survivor.get("roles")).hasSize(1);
+    }
+
+    @Test
+    void deletedPersonsLeaveTheSuggestions() throws Exception {
+        Family family = createFamily("Bulksuggested");
+        assertThat(getJson("/api/persons/suggest?prefix=bulksuggested")).isNotEmpty();
+
+        mvc.perform(delete("/api/persons?ids=" + family.person)).andExpect(status().isNoContent());
+
+        assertThat(getJson("/api/persons/suggest?prefix=bulksuggested")).isEmpty();
+    }
+
+    @Test
+    void deletingARoleRemovesItsPermissions() throws Exception {
+        Family family = createFamily("Bulkrole");
+        assertThat(getJson("/api/roles/" + family.role + "?attributes=permissions").get("permissions")).hasSize(1);
+
+        mvc.perform(delete("/api/roles/" + family.role)).andExpect(status().isNoContent());
+
+        mvc.perform(get("/api/permissions/" + family.permission)).andExpect(status().isNotFound());
+        assertThat(getJson("/api/persons/" + family.person + "?attributes=roles").get("roles")).isEmpty();
+    }
+
+    @Test
+    void missingRowsAreNotFoundOrSkipped() throws Exception {
+        mvc.perform(delete("/api/persons/999999")).andExpect(status().isNotFound());
+
+        Family family = createFamily("Bulkmixed");
+        // Ids without a row are skipped by the bulk delete
+        mvc.perform(delete("/api/persons?ids=" + family.person + ",999999")).andExpect(status().isNoContent());
+        mvc.perform(get("/api/persons/" + family.person)).andExpect(status().isNotFound());
+    }
+
+    /**
+     * A person of the test's own with one address, contact and role, the role with one permission.
+     * Written through JPA: the create endpoints of the children do not link them to a parent.
+     */
+    private Family createFamily(String name) {
+        Family family = new TransactionTemplate(transactionManager).execute(status -> {
+            Person person = Person.builder().firstName(name).lastName("Family").birthDay(LocalDate.of(1980, 1, 1)).build();
+            Address address = Address.builder().type(AddressType.LOCAL).street("1 " + name + " St").city("Springfield").build();
+            Contact contact = Contact.builder().contactType(ContactType.WORK).email(name.toLowerCase() + "@example.com").build();
+            Role role = Role.builder().role(name.toUpperCase()).build();
+            Permissions permission = Permissions.builder().permission(name.toUpperCase() + "_READ").build();
+            person.addAddress(address);
+            person.addContact(contact);
+            person.addRole(role);
+            role.addPermission(permission);
+            entityManager.persist(person);
+            entityManager.flush();
+            return new Family(person.getId(), address.getId(), contact.getId(), role.getId(), permission.getId());
+        });
+        // Cached on insert, the audit timestamps keep the nanoseconds the database drops; other tests compare
+        // cached reads with database reads of the same rows
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(Role.class, family.role);
+        cache.evict(Permissions.class, family.permission);
+        return family;
+    }
+
+    private record Family(long person, long address, long contact, long role, long permission) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.demo.departments.demoDepartments.controller;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.service.utils.paging.CursorCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ConditionalGetTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void entityAnswers304UntilItChanges() throws Exception {
+        long id = createPerson("Tagged");
+        String url = "/api/persons/" + id;
+        String tag = etag(url);
+
+        notModified(url, tag);
+        notModified(url, "\"other\", " + tag);
+
+        rename(id, 0, "Renamed");
+        assertThat(modified(url, tag)).isNotEqualTo(tag);
+    }
+
+    @Test
+    void writeBypassingTheResponseCacheIsNotAnswered304() throws Exception {
+        long id = createPerson("Bypassed");
+        String url = "/api/persons/" + id;
+        String tag = etag(url);
+        // Cached with its tag
+        notModified(url, tag);
+
+        // A bulk update the response cache never hears of
+        jdbcTemplate.update("UPDATE person SET first_name = 'Bulk', version = version + 1, modified_date = ? WHERE id = ?",
+                LocalDateTime.now().plusSeconds(1), id);
+
+        String changed = modified(url, tag);
+        assertThat(getJson(url).get("firstName").asText()).isEqualTo("Bulk");
+        notModified(url, changed);
+    }
+
+    @Test
+    void representationsHaveTheirOwnTags() throws Exception {
+        long id = createPerson("Views");
+        String plain = etag("/api/persons/" + id);
+
+        assertThat(etag("/api/persons/" + id + "?withAudit=true")).isNotEqualTo(plain);
+        assertThat(etag("/api/persons/" + id + "?attributes=addresses")).isNotEqualTo(plain);
+        mvc.perform(get("/api/persons/999999").header(HttpHeaders.IF_NONE_MATCH, plain))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void childChangeChangesTheParentTag() throws Exception {
+        long id = personWithAddresses();
+        String url = "/api/persons/" + id + "?attributes=addresses";
+        String tag = etag(url);
+
+        changeAddressOf(id);
+        modified(url, tag);
+    }
+
+    @Test
+    void pageTagOnlyCoversThePage() throws Exception {
+        long first = createPerson("PageFirst");
+        long second = createPerson("PageSecond");
+        long third = createPerson("PageThird");
+        String url = "/api/persons?limit=1&after=" + CursorCodec.encode(first);
+        String tag = etag(url);
+
+        // Rows after the page do not change it
+        rename(third, 0, "Changed");
+        notModified(url, tag);
+        // The row on the page does
+        rename(second, 0, "Changed");
+        String changed = modified(url, tag);
+
+        notModified(url, changed);
+    }
+
+    @Test
+    void pageTagCoversTheChildrenOfThePage() throws Exception {
+        long id = personWithAddresses();
+        String url = "/api/persons?limit=1&after=" + CursorCodec.encode(id - 1);
+        String plainTag = etag(url);
+        String withAddresses = url + "&attributes=addresses";
+        String tag = etag(withAddresses);
+
+        changeAddressOf(id);
+        modified(withAddresses, tag);
+        // Not shown without the attribute
+        notModified(url, plainTag);
+    }
+
+    @Test
+    void pageTagChangesWhenANextPageAppears() throws Exception {
+        long id = createPerson("Last");
+        String url = "/api/persons?limit=1&after=" + CursorCodec.encode(id - 1);
+        String tag = etag(url);
+
+        // The page gets a next cursor
+        createPerson("AfterLast");
+        modified(url, tag);
+    }
+
+    @Test
+    void summaryPageAnswers304() throws Exception {
+        long id = personWithAddresses();
+        String url = "/api/persons?view=summary&limit=1&after=" + CursorCodec.encode(id - 1);
+        String tag = etag(url);
+        notModified(url, tag);
+
+        // The summary shows the ids of the children
+        changeAddressOf(id);
+        modified(url, tag);
+    }
+
+    private String etag(String url) throws Exception {
+        MvcResult result = mvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        String tag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(tag).startsWith("\"");
+        return tag;
+    }
+
+    private void notModified(String url, String tag) throws Exception {
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    /**
+     * @return the new tag
+     */
+    private String modified(String url, String tag) throws Exception {
+        MvcResult result = mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isOk())
+                .andReturn();
+        String changed = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(tag);
+        return changed;
+    }
+
+    private void rename(long id, long version, String firstName) throws Exception {
+        mvc.perform(patch("/api/persons/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":" + version + ",\"firstName\":\"" + firstName + "\"}"))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * A seeded person having addresses
+     */
+    private long personWithAddresses() throws Exception {
+        for (JsonNode person : getJson("/api/persons?attributes=addresses")) {
+            if (!person.get("addresses").isEmpty()) {
+                return person.get("id").asLong();
+            }
+        }
+        throw new IllegalStateException("No seeded person has addresses");
+    }
+
+    private void changeAddressOf(long personId) throws Exception {
+        JsonNode address = getJson("/api/persons/" + personId + "?attributes=addresses").get("addresses").get(0);
+        mvc.perform(patch("/api/addresses/" + address.get("id").asLong())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":" + address.get("version").asLong() + ",\"street\":\"1 Changed St\"}"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,114 @@
+package com.demo.departments.demoDepartments.controller;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.controller.support.CursorPageResponses;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CursorPagingTest extends AbstractIntegrationTest {
+
+    @Test
+    void pagesReturnEveryRowOnceInIdOrder() throws Exception {
+        List<JsonNode> rows = walk("/api/persons?limit=3");
+
+        List<JsonNode> all = new ArrayList<>();
+        getJson("/api/persons").forEach(all::add);
+        assertThat(rows).extracting(row -> row.get("id").asLong()).isSorted().doesNotHaveDuplicates();
+        assertThat(rows).containsExactlyInAnyOrderElementsOf(all);
+    }
+
+    @Test
+    void pagesWithAttributesMatchTheUnpagedList() throws Exception {
+        // Pages of 4 with batches of 4: the deferred branches are read for every page separately
+        String attributes = "attributes=addresses,contacts,roles.permissions&withAudit=true";
+        List<JsonNode> rows = walk("/api/persons?limit=4&" + attributes);
+
+        List<JsonNode> all = new ArrayList<>();
+        getJson("/api/persons?" + attributes).forEach(all::add);
+        assertThat(rows).containsExactlyInAnyOrderElementsOf(all);
+    }
+
+    @Test
+    void scopedPagesStayInTheirScope() throws Exception {
+        long personId = getJson("/api/persons").get(0).get("id").asLong();
+
+        List<JsonNode> rows = walk("/api/contacts/person/" + personId + "?limit=1");
+
+        List<JsonNode> all = new ArrayList<>();
+        getJson("/api/contacts/person/" + personId).forEach(all::add);
+        assertThat(rows).containsExactlyInAnyOrderElementsOf(all);
+    }
+
+    @Test
+    void nextLinkCarriesTheCursor() throws Exception {
+        MockHttpServletResponse response = mvc.perform(get("/api/persons?limit=2&withAudit=true"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        String cursor = response.getHeader(CursorPageResponses.NEXT_CURSOR_HEADER);
+        assertThat(cursor).isNotBlank();
+        assertThat(response.getHeader(HttpHeaders.LINK))
+                .contains("limit=2", "withAudit=true", "after=" + cursor)
+                .endsWith("; rel=\"next\"");
+    }
+
+    @Test
+    void pageReadWithAttributesCarriesTheCursor() throws Exception {
+        // Entities, not the scalar projection: the extra row that tells a next page exists must survive the mapping
+        MockHttpServletResponse response = mvc.perform(get("/api/persons?limit=2&attributes=addresses"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertThat(objectMapper.readTree(response.getContentAsString())).hasSize(2);
+        assertThat(response.getHeader(CursorPageResponses.NEXT_CURSOR_HEADER)).isNotBlank();
+    }
+
+    @Test
+    void lastPageHasNoCursor() throws Exception {
+        int total = getJson("/api/persons").size();
+
+        MockHttpServletResponse response = mvc.perform(get("/api/persons?limit=" + total))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertThat(objectMapper.readTree(response.getContentAsString())).hasSize(total);
+        assertThat(response.getHeader(CursorPageResponses.NEXT_CURSOR_HEADER)).isNull();
+        assertThat(response.getHeader(HttpHeaders.LINK)).isNull();
+    }
+
+    @Test
+    void invalidCursorOrLimitIsRejected() throws Exception {
+        mvc.perform(get("/api/persons?after=zzz")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/persons?limit=0")).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Follows the next cursors from the first page to the last
+     */
+    private List<JsonNode> walk(String firstPage) throws Exception {
+        List<JsonNode> rows = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String url = cursor == null ? firstPage : firstPage + "&after=" + cursor;
+            MockHttpServletResponse response = mvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            JsonNode page = objectMapper.readTree(response.getContentAsString());
+            assertThat(page).isNotEmpty();
+            page.forEach(rows::add);
+            cursor = response.getHeader(CursorPageResponses.NEXT_CURSOR_HEADER);
+            assertThat(++pages).as("pages of %s", firstPage).isLessThan(100);
+        } while (cursor != null);
+        return rows;
+    }
+}
@@ -0,0 +1,207 @@
+package com.demo.departments.demoDepartments.controller;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.controller.support.CursorPageResponses;
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.AddressType;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.ContactType;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * List filters are applied by the database, next to the attributes and the paging.
+ * Every test creates a pair of persons with a last name of its own:
+ * <ul>
+ *     <li>early: born 1970, addresses in Lviv and Odesa (Ukraine), a WORK contact, a role granting READ and WRITE</li>
+ *     <li>late: born 1990, addresses in Lviv (Poland) and Krakow (Ukraine), a PERSONAL contact, a role granting READ</li>
+ * </ul>
+ */
+class FilterTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static int pairs;
+
+    private Pair pair;
+
+    @BeforeEach
+    void createPair() {
+        pair = createPair("Filtered" + (char) ('a' + pairs++));
+    }
+
+    @Test
+    void namePrefixIsCaseInsensitiveAndTakesWildcardsLiterally() throws Exception {
+        assertThat(personIds("lastName=" + pair.lastName.toUpperCase())).containsExactly(pair.early, pair.late);
+        assertThat(personIds("lastName=" + pair.lastName.substring(0, 6))).contains(pair.early, pair.late);
+        assertThat(personIds("lastName=" + pair.lastName + "&firstName=late")).containsExactly(pair.late);
+
+        assertThat(personIds("lastName=Filt%25")).isEmpty();
+        assertThat(personIds("lastName=Filtere_")).isEmpty();
+    }
+
+    @Test
+    void birthDayRangeIsInclusive() throws Exception {
+        String scope = "lastName=" + pair.lastName;
+        assertThat(personIds(scope + "&birthDayFrom=1970-01-01")).containsExactly(pair.early, pair.late);
+        assertThat(personIds(scope + "&birthDayFrom=1970-01-02")).containsExactly(pair.late);
+        assertThat(personIds(scope + "&birthDayTo=1970-01-01")).containsExactly(pair.early);
+        assertThat(personIds(scope + "&birthDayFrom=1980-01-01&birthDayTo=1980-12-31")).isEmpty();
+
+        mvc.perform(get("/api/persons?birthDayFrom=1990-01-01&birthDayTo=1970-01-01")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void cityAndCountryMatchTheSameAddress() throws Exception {
+        String scope = "lastName=" + pair.lastName;
+        assertThat(personIds(scope + "&city=LVIV")).containsExactly(pair.early, pair.late);
+        assertThat(personIds(scope + "&country=ukraine")).containsExactly(pair.early, pair.late);
+        // The late person has an address in Lviv and one in Ukraine, but not one in Lviv, Ukraine
+        assertThat(personIds(scope + "&city=lviv&country=ukraine")).containsExactly(pair.early);
+    }
+
+    @Test
+    void contactTypeAndRoleMatchTheChildren() throws Exception {
+        String scope = "lastName=" + pair.lastName;
+        assertThat(personIds(scope + "&contactType=WORK")).containsExactly(pair.early);
+        assertThat(personIds(scope + "&contactType=PERSONAL")).containsExactly(pair.late);
+        assertThat(personIds(scope + "&role=" + pair.lastName.toUpperCase() + "_LATE")).containsExactly(pair.late);
+        assertThat(personIds(scope + "&contactType=WORK&role=" + pair.lastName.toUpperCase() + "_LATE")).isEmpty();
+
+        mvc.perform(get("/api/persons?contactType=FAX")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void filteredPagesCarryTheWholeAttributes() throws Exception {
+        // A child criterion restricts the persons, not the children the attributes return
+        List<JsonNode> rows = walk("/api/persons?lastName=" + pair.lastName + "&city=lviv&attributes=addresses,contacts&limit=1");
+
+        assertThat(rows).extracting(row -> row.get("id").asLong()).containsExactly(pair.early, pair.late);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.get("addresses")).hasSize(2);
+            assertThat(row.get("contacts")).hasSize(1);
+        });
+    }
+
+    @Test
+    void childListsAreFiltered() throws Exception {
+        String role = pair.lastName.toUpperCase() + "_EARLY";
+        JsonNode roles = getJson("/api/roles?permission=" + role + "_WRITE&attributes=permissions");
+        assertThat(roles).hasSize(1);
+        assertThat(roles.get(0).get("id").asLong()).isEqualTo(pair.earlyRole);
+        assertThat(roles.get(0).get("permissions")).hasSize(2);
+
+        JsonNode permissions = getJson("/api/permissions?role=" + role);
+        assertThat(permissions).extracting(permission -> permission.get("permission").asText())
+                .containsExactlyInAnyOrder(role + "_READ", role + "_WRITE");
+
+        JsonNode addresses = getJson("/api/addresses?city=krakow&country=UKRAINE");
+        assertThat(addresses).extracting(address -> address.get("street").asText()).contains("2 " + pair.lastName + " St");
+        assertThat(addresses).allSatisfy(address -> assertThat(address.get("city").asText()).isEqualToIgnoringCase("krakow"));
+
+        List<JsonNode> work = new ArrayList<>();
+        getJson("/api/contacts?contactType=WORK").forEach(work::add);
+        List<JsonNode> all = new ArrayList<>();
+        getJson("/api/contacts").forEach(contact -> {
+            if (contact.get("contactType").asText().equals("WORK")) {
+                all.add(contact);
+            }
+        });
+        assertThat(work).isNotEmpty().containsExactlyElementsOf(all);
+    }
+
+    private List<Long> personIds(String query) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        getJson("/api/persons?" + query).forEach(person -> ids.add(person.get("id").asLong()));
+        return ids;
+    }
+
+    /**
+     * Rows of every page, following the next cursor
+     */
+    private List<JsonNode> walk(String url) throws Exception {
+        List<JsonNode> rows = new ArrayList<>();
+        String after = null;
+        do {
+            MockHttpServletResponse response = mvc.perform(get(after == null ? url : url + "&after=" + after))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            objectMapper.readTree(response.getContentAsString()).forEach(rows::add);
+            after = response.getHeader(CursorPageResponses.NEXT_CURSOR_HEADER);
+        } while (after != null);
+        return rows;
+    }
+
+    /**
+     * Written through JPA: the create endpoints of the children do not link them to a parent
+     */
+    private Pair createPair(String lastName) {
+        String prefix = lastName.toUpperCase();
+        Pair created = new TransactionTemplate(transactionManager).execute(status -> {
+            Person early = person("Early", lastName, LocalDate.of(1970, 1, 1),
+                    new String[][]{{"Lviv", "Ukraine"}, {"Odesa", "Ukraine"}}, ContactType.WORK,
+                    prefix + "_EARLY", prefix + "_EARLY_READ", prefix + "_EARLY_WRITE");
+            Person late = person("Late", lastName, LocalDate.of(1990, 6, 15),
+                    new String[][]{{"Lviv", "Poland"}, {"Krakow", "Ukraine"}}, ContactType.PERSONAL,
+                    prefix + "_LATE", prefix + "_LATE_READ");
+            entityManager.flush();
+            long earlyRole = early.getRoles().iterator().next().getId();
+            return new Pair(lastName, early.getId(), late.getId(), earlyRole);
+        });
+        // Cached on insert with the nanoseconds the database drops; other tests compare cached and database reads
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(Role.class);
+        cache.evict(Permissions.class);
+        return created;
+    }
+
+    private Person person(String firstName, String lastName, LocalDate birthDay, String[][] addresses,
+                          ContactType contactType, String roleName, String... permissions) {
+        Person person = Person.builder().firstName(firstName).lastName(lastName).birthDay(birthDay).build();
+        Role role = Role.builder().role(roleName).build();
+        person.addRole(role);
+        entityManager.persist(person);
+        // Persisted one by one: new children are equal to each other until they have an id
+        for (String name : permissions) {
+            Permissions permission = Permissions.builder().permission(name).build();
+            permission.setRole(role);
+            entityManager.persist(permission);
+        }
+        for (int i = 0; i < addresses.length; i++) {
+            Address address = Address.builder().type(AddressType.LOCAL).street((i + 1) + " " + lastName + " St")
+                    .city(addresses[i][0]).country(addresses[i][1]).build();
+            address.setPerson(person);
+            entityManager.persist(address);
+        }
+        Contact contact = Contact.builder().contactType(contactType)
+                .email(firstName.toLowerCase() + "." + lastName.toLowerCase() + "@example.com").build();
+        contact.setPerson(person);
+        entityManager.persist(contact);
+        return person;
+    }
+
+    private record Pair(String lastName, long early, long late, long earlyRole) {
+    }
+}
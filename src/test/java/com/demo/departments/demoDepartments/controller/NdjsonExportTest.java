@@ -0,0 +1,63 @@
+package com.demo.departments.demoDepartments.controller;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class NdjsonExportTest extends AbstractIntegrationTest {
+
+    @Test
+    void exportWritesOneDocumentPerLineInIdOrder() throws Exception {
+        List<JsonNode> lines = export("/api/persons/export");
+
+        assertThat(lines).hasSize(getJson("/api/persons").size());
+        assertThat(lines).extracting(line -> line.get("id").asLong()).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void exportLoadsChildrenOfEveryChunk() throws Exception {
+        // 10 persons in chunks of 3: children are loaded per chunk, also after the persistence context was cleared
+        String attributes = "attributes=addresses,contacts,roles.permissions";
+        List<JsonNode> lines = export("/api/persons/export?withAudit=true&" + attributes);
+
+        List<JsonNode> expected = new ArrayList<>();
+        getJson("/api/persons?withAudit=true&" + attributes).forEach(expected::add);
+        assertThat(lines).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(lines).allSatisfy(line -> assertThat(line.has("addresses")).isTrue());
+    }
+
+    @Test
+    void exportOfOtherEntities() throws Exception {
+        assertThat(export("/api/roles/export?attributes=permissions")).hasSize(getJson("/api/roles").size());
+        assertThat(export("/api/permissions/export")).hasSize(getJson("/api/permissions").size());
+    }
+
+    private List<JsonNode> export(String url) throws Exception {
+        MvcResult started = mvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).endsWith("\n");
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,82 @@
+package com.demo.departments.demoDepartments.controller;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PatchTest extends AbstractIntegrationTest {
+
+    private static final MediaType MERGE_PATCH = MediaType.valueOf("application/merge-patch+json");
+
+    private long personId;
+
+    @BeforeEach
+    void createPerson() throws Exception {
+        personId = createPerson("Patch");
+    }
+
+    @Test
+    void patchChangesOnlyTheGivenAttributesAndIncrementsTheVersion() throws Exception {
+        patchPerson("{\"version\":0,\"firstName\":\"Patched\"}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(personId))
+                .andExpect(jsonPath("$.version").value(1));
+
+        JsonNode person = getJson("/api/persons/" + personId);
+        assertThat(person.get("firstName").asText()).isEqualTo("Patched");
+        assertThat(person.get("lastName").asText()).isEqualTo("Target");
+    }
+
+    @Test
+    void patchAcceptsPlainJson() throws Exception {
+        mvc.perform(patch("/api/persons/" + personId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":0,\"lastName\":\"Plain\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void staleVersionIsAConflict() throws Exception {
+        patchPerson("{\"version\":0,\"firstName\":\"First\"}").andExpect(status().isOk());
+
+        patchPerson("{\"version\":0,\"firstName\":\"Second\"}").andExpect(status().isConflict());
+        assertThat(getJson("/api/persons/" + personId).get("firstName").asText()).isEqualTo("First");
+    }
+
+    @Test
+    void unknownPersonIsNotFound() throws Exception {
+        mvc.perform(patch("/api/persons/999999")
+                        .contentType(MERGE_PATCH)
+                        .content("{\"version\":0,\"lastName\":\"Nobody\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void invalidPatchesAreBadRequests() throws Exception {
+        // No version to check against
+        patchPerson("{\"firstName\":\"NoVersion\"}").andExpect(status().isBadRequest());
+        // Collections are not patched through the parent
+        patchPerson("{\"version\":0,\"addresses\":[]}").andExpect(status().isBadRequest());
+        patchPerson("{\"version\":0,\"noSuchAttribute\":1}").andExpect(status().isBadRequest());
+        // The DTO constraints apply to the patched attributes
+        patchPerson("{\"version\":0,\"firstName\":\"\"}").andExpect(status().isBadRequest());
+        patchPerson("{\"version\":0,\"birthDay\":\"2999-01-01\"}").andExpect(status().isBadRequest());
+        patchPerson("{\"version\":0,\"birthDay\":\"not a date\"}").andExpect(status().isBadRequest());
+
+        // None of them changed the person
+        assertThat(getJson("/api/persons/" + personId).get("firstName").asText()).isEqualTo("Patch");
+        patchPerson("{\"version\":0,\"firstName\":\"Valid\"}").andExpect(status().isOk());
+    }
+
+    private ResultActions patchPerson(String body) throws Exception {
+        return mvc.perform(patch("/api/persons/" + personId).contentType(MERGE_PATCH).content(body));
+    }
+}
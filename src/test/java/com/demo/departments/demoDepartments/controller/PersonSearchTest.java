@@ -0,0 +1,124 @@
+package com.demo.departments.demoDepartments.controller;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.controller.support.CursorPageResponses;
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.AddressType;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.ContactType;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Person search on the portable fallback of the H2 test profile: exact name, name prefix, name substring,
+ * then contact or address matches, ties in id order, paged by the rank cursor
+ */
+class PersonSearchTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static int words;
+
+    /** Search word of the test, found in no other row */
+    private String word;
+
+    /** Persons in the order the search ranks them */
+    private List<Long> ranked;
+
+    @BeforeEach
+    void createMatches() {
+        word = "zorbex" + (char) ('a' + words++);
+        String capitalized = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+        ranked = new TransactionTemplate(transactionManager).execute(status -> {
+            // Created worst match first, so the ranking cannot come from the ids; the last two tie on rank
+            Person byAddress = person("Streetwise", null, capitalized + " Road");
+            Person byEmail = person("Mailer", word + "@example.com", null);
+            Person substring = person("A" + word, null, null);
+            Person prefix = person(capitalized + "ia", null, null);
+            Person exact = person(capitalized, null, null);
+            entityManager.flush();
+            return List.of(exact.getId(), prefix.getId(), substring.getId(), byAddress.getId(), byEmail.getId());
+        });
+    }
+
+    @Test
+    void bestMatchesComeFirst() throws Exception {
+        assertThat(ids(getJson("/api/persons/search?q=" + word.toUpperCase()))).containsExactlyElementsOf(ranked);
+        assertThat(getJson("/api/persons/search?q=" + word + "%25")).isEmpty();
+    }
+
+    @Test
+    void pagesContinueAfterTheRankCursorAcrossTies() throws Exception {
+        for (int limit = 1; limit <= ranked.size(); limit++) {
+            List<Long> paged = new ArrayList<>();
+            String after = null;
+            int pages = 0;
+            do {
+                String url = "/api/persons/search?q=" + word + "&limit=" + limit + (after == null ? "" : "&after=" + after);
+                MockHttpServletResponse response = mvc.perform(get(url))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse();
+                paged.addAll(ids(objectMapper.readTree(response.getContentAsString())));
+                after = response.getHeader(CursorPageResponses.NEXT_CURSOR_HEADER);
+                pages++;
+            } while (after != null);
+
+            assertThat(paged).as("pages of %s", limit).containsExactlyElementsOf(ranked);
+            // The extra hit read with every page tells the last one apart, no empty page follows
+            assertThat(pages).isEqualTo((ranked.size() + limit - 1) / limit);
+        }
+    }
+
+    @Test
+    void hitsCarryTheRequestedAttributes() throws Exception {
+        JsonNode hits = getJson("/api/persons/search?q=" + word + "&attributes=contacts,addresses");
+
+        assertThat(hits.get(4).get("contacts").get(0).get("email").asText()).isEqualTo(word + "@example.com");
+        assertThat(hits.get(3).get("addresses")).hasSize(1);
+        assertThat(hits.get(0).get("contacts")).isEmpty();
+    }
+
+    private static List<Long> ids(JsonNode persons) {
+        List<Long> ids = new ArrayList<>();
+        persons.forEach(person -> ids.add(person.get("id").asLong()));
+        return ids;
+    }
+
+    /**
+     * Written through JPA: the create endpoints of the children do not link them to a parent
+     */
+    private Person person(String firstName, String email, String street) {
+        Person person = Person.builder().firstName(firstName).lastName("Searched").birthDay(LocalDate.of(1980, 1, 1)).build();
+        entityManager.persist(person);
+        if (email != null) {
+            Contact contact = Contact.builder().contactType(ContactType.WORK).email(email).build();
+            contact.setPerson(person);
+            entityManager.persist(contact);
+        }
+        if (street != null) {
+            Address address = Address.builder().type(AddressType.LOCAL).street(street).city("Springfield").build();
+            address.setPerson(person);
+            entityManager.persist(address);
+        }
+        return person;
+    }
+}
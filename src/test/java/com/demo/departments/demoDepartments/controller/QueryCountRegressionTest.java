@@ -0,0 +1,391 @@
+package com.demo.departments.demoDepartments.controller;
+
+import com.demo.departments.demoDepartments.controller.support.AttributesArgumentResolver;
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import com.demo.departments.demoDepartments.service.utils.mapping.GraphBuilderMapperService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.io.Resource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ValueConstants;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fetch regression check: calls every controller method over HTTP against the seeded test dataset,
+ * reads with every combination of {@code @MappingAttribute} paths and {@code withAudit} on and off,
+ * and compares the SQL statements and entity loads of each call (Hibernate statistics) with a baseline.
+ * A new N+1 pattern or cartesian join changes the counts and fails the run.
+ * <p>
+ * The counts of every run are written to {@code departments.query-regression.output}; after an intended change,
+ * copy them over the baseline ({@code src/test/resources/query-regression/baseline.tsv}).
+ * <p>
+ * The check has its own context and database ({@code query-regression} profile), closed afterwards: the writes
+ * below change rows the other integration tests read. Calls run one at a time in a fixed order, so caches and
+ * planner statistics evolve the same way in every run. Writes run after all reads: each entity is patched
+ * and updated, and its last row deleted and created again.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "query-regression"})
+@DirtiesContext
+class QueryCountRegressionTest {
+
+    private static final String HEADER = "# call\tstatus\tstatements\tentities";
+
+    /** Entity read by each controller, keyed by its base path */
+    private static final Map<String, Class<?>> ENTITIES = new LinkedHashMap<>();
+
+    static {
+        ENTITIES.put("/api/addresses", Address.class);
+        ENTITIES.put("/api/contacts", Contact.class);
+        ENTITIES.put("/api/permissions", Permissions.class);
+        ENTITIES.put("/api/roles", Role.class);
+        ENTITIES.put("/api/persons", Person.class);
+    }
+
+    /** Recognizes the attributes parameter, which has no {@code @RequestParam} */
+    private static final AttributesArgumentResolver ATTRIBUTES = new AttributesArgumentResolver();
+
+    /** Path variable of a by-parent read, e.g. {roleId} in /api/permissions/role/{roleId} */
+    private static final Pattern PARENT_ID = Pattern.compile("\\{(\\w+Id)}");
+
+    private static final Set<String> AUDIT_FIELDS = Set.of("id", "version", "createdDate", "modifiedDate", "createdBy", "modifiedBy");
+
+    // The actuator registers a second handler mapping
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Autowired
+    private GraphBuilderMapperService graphBuilderMapperService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${departments.query-regression.baseline}")
+    private Resource baseline;
+
+    @Value("${departments.query-regression.output}")
+    private Path output;
+
+    /** Id used for every {id}, {personId} and {roleId} path variable */
+    @Value("${departments.query-regression.sample-id:1}")
+    private long sampleId;
+
+    /** Search text for the required text parameters (search, suggest) */
+    @Value("${departments.query-regression.sample-text:mi}")
+    private String sampleText;
+
+    private HttpClient client;
+    private String baseUrl;
+    private Statistics statistics;
+
+    @Test
+    void queryCountsMatchTheBaseline() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:" + port;
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        Map<String, Count> counts = new LinkedHashMap<>();
+        List<Map.Entry<RequestMappingInfo, HandlerMethod>> handlers = handlers();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> handler : handlers) {
+            if (methods(handler.getKey()).contains(RequestMethod.GET)) {
+                read(handler.getKey(), handler.getValue(), counts);
+            }
+        }
+        for (String basePath : ENTITIES.keySet()) {
+            write(basePath, handlers, counts);
+        }
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        List<String> lines = new ArrayList<>(List.of(HEADER));
+        counts.forEach((call, count) -> lines.add(call + "\t" + count));
+        Files.write(output, lines, StandardCharsets.UTF_8);
+        log.info("Query regression check: {} calls, counts written to {}", counts.size(), output.toAbsolutePath());
+
+        assertThat(compare(counts))
+                .as("calls differing from the query count baseline %s; see %s",
+                        baseline.getDescription(), output.toAbsolutePath())
+                .isEmpty();
+    }
+
+    /**
+     * One call per attribute combination, {@code withAudit} value and, where the handler has them,
+     * page and view variant
+     */
+    private void read(RequestMappingInfo mapping, HandlerMethod handler, Map<String, Count> counts)
+            throws IOException, InterruptedException {
+        String pattern = mapping.getPatternValues().iterator().next();
+        Class<?> entityClass = ENTITIES.get(basePath(pattern));
+        Set<String> params = requestParams(handler);
+
+        List<String> queries = new ArrayList<>();
+        StringBuilder required = new StringBuilder();
+        for (String name : requiredParams(handler)) {
+            required.append(required.length() == 0 ? "" : "&").append(name).append('=').append(sampleText);
+        }
+        List<String> attributeCombinations = params.contains("attributes") && entityClass != null
+                ? attributeCombinations(entityClass) : List.of("");
+        for (String attributes : attributeCombinations) {
+            for (boolean withAudit : params.contains("withAudit") ? List.of(false, true) : List.of(false)) {
+                StringBuilder query = new StringBuilder(required);
+                if (!attributes.isEmpty()) {
+                    query.append(query.length() == 0 ? "" : "&").append("attributes=").append(attributes);
+                }
+                if (withAudit) {
+                    query.append(query.length() == 0 ? "" : "&").append("withAudit=true");
+                }
+                queries.add(query.toString());
+                if (params.contains("limit") && params.contains("after")) {
+                    queries.add(query + (query.length() == 0 ? "" : "&") + "limit=3");
+                }
+                if (params.contains("view") && attributes.isEmpty()) {
+                    queries.add(query + (query.length() == 0 ? "" : "&") + "view=summary");
+                }
+            }
+        }
+
+        String path = expand(pattern);
+        for (String query : queries) {
+            String uri = query.isEmpty() ? path : path + "?" + query;
+            counts.put("GET " + uri, send(HttpRequest.newBuilder(URI.create(baseUrl + uri)).GET()).count());
+        }
+    }
+
+    /**
+     * PATCH and PUT of the sample row, then DELETE and POST (the deleted row again) of the last one;
+     * the bulk DELETE, where there is one, removes and recreates the last row but one
+     */
+    private void write(String basePath, List<Map.Entry<RequestMappingInfo, HandlerMethod>> handlers,
+                       Map<String, Count> counts) throws IOException, InterruptedException {
+        Set<RequestMethod> methods = EnumSet.noneOf(RequestMethod.class);
+        Set<String> parentIds = new TreeSet<>();
+        boolean bulkDelete = false;
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> handler : handlers) {
+            String pattern = handler.getKey().getPatternValues().iterator().next();
+            if (basePath(pattern).equals(basePath)) {
+                methods.addAll(methods(handler.getKey()));
+                bulkDelete |= pattern.equals(basePath) && methods(handler.getKey()).contains(RequestMethod.DELETE);
+                Matcher parentId = PARENT_ID.matcher(pattern);
+                while (parentId.find()) {
+                    parentIds.add(parentId.group(1));
+                }
+            }
+        }
+        String sample = basePath + "/" + sampleId;
+
+        if (methods.contains(RequestMethod.PATCH)) {
+            ObjectNode row = get(sample);
+            ObjectNode changes = objectMapper.createObjectNode().put("version", row.get("version").asLong());
+            row.fieldNames().forEachRemaining(field -> {
+                if (changes.size() == 1 && !AUDIT_FIELDS.contains(field) && row.get(field).isTextual()) {
+                    changes.set(field, row.get(field));
+                }
+            });
+            counts.put("PATCH " + sample, send(HttpRequest.newBuilder(URI.create(baseUrl + sample))
+                    .header("Content-Type", "application/merge-patch+json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(changes.toString()))).count());
+        }
+        if (methods.contains(RequestMethod.PUT)) {
+            ObjectNode row = get(sample);
+            counts.put("PUT " + sample, send(json(HttpRequest.newBuilder(URI.create(baseUrl + sample)))
+                    .method("PUT", HttpRequest.BodyPublishers.ofString(row.toString()))).count());
+        }
+        if (methods.contains(RequestMethod.DELETE) && methods.contains(RequestMethod.POST)) {
+            JsonNode rows = objectMapper.readTree(send(HttpRequest.newBuilder(URI.create(baseUrl + basePath)).GET()).body());
+            long last = rows.get(rows.size() - 1).get("id").asLong();
+            deleteAndCreate(basePath, basePath + "/" + last, last, parentIds, counts);
+            if (bulkDelete) {
+                long lastButOne = rows.get(rows.size() - 2).get("id").asLong();
+                deleteAndCreate(basePath, basePath + "?ids=" + lastButOne, lastButOne, parentIds, counts);
+            }
+        }
+    }
+
+    /**
+     * @param parentIds DTO fields of the parent ids, e.g. "roleId"; a row that does not show its parent
+     *                  is created again under the sample parent
+     */
+    private void deleteAndCreate(String basePath, String delete, long id, Set<String> parentIds, Map<String, Count> counts)
+            throws IOException, InterruptedException {
+        ObjectNode row = get(basePath + "/" + id);
+        AUDIT_FIELDS.forEach(row::remove);
+        parentIds.forEach(parentId -> {
+            if (!row.hasNonNull(parentId)) {
+                row.put(parentId, sampleId);
+            }
+        });
+        counts.put("DELETE " + delete, send(HttpRequest.newBuilder(URI.create(baseUrl + delete)).DELETE()).count());
+        counts.put("POST " + basePath, send(json(HttpRequest.newBuilder(URI.create(baseUrl + basePath)))
+                .POST(HttpRequest.BodyPublishers.ofString(row.toString()))).count());
+    }
+
+    private ObjectNode get(String uri) throws IOException, InterruptedException {
+        return (ObjectNode) objectMapper.readTree(send(HttpRequest.newBuilder(URI.create(baseUrl + uri)).GET()).body());
+    }
+
+    private static HttpRequest.Builder json(HttpRequest.Builder request) {
+        return request.header("Content-Type", "application/json");
+    }
+
+    /**
+     * Sends the request with cleared statistics; the whole body is read first, so a streamed export is complete
+     */
+    private Sent send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        statistics.clear();
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        Count count = new Count(response.statusCode(), statistics.getPrepareStatementCount(), statistics.getEntityLoadCount());
+        if (response.statusCode() >= 400) {
+            log.warn("Query regression: {} {} answered {}", response.request().method(), response.request().uri(), response.statusCode());
+        }
+        return new Sent(count, response.body());
+    }
+
+    /**
+     * Every distinct set of attribute paths: subsets that fetch the same (e.g. "roles,roles.permissions"
+     * and "roles.permissions") are called once, with their leaf paths
+     */
+    private List<String> attributeCombinations(Class<?> entityClass) {
+        List<String> paths = new ArrayList<>(new TreeSet<>(graphBuilderMapperService.getMappableAttributes(entityClass)));
+        Set<String> combinations = new LinkedHashSet<>();
+        for (int subset = 0; subset < 1 << paths.size(); subset++) {
+            Set<String> selected = new TreeSet<>();
+            for (int i = 0; i < paths.size(); i++) {
+                if ((subset & 1 << i) != 0) {
+                    selected.add(paths.get(i));
+                }
+            }
+            selected.removeIf(path -> selected.stream().anyMatch(other -> other.startsWith(path + ".")));
+            combinations.add(String.join(",", selected));
+        }
+        return new ArrayList<>(combinations);
+    }
+
+    private List<String> compare(Map<String, Count> counts) throws IOException {
+        if (!baseline.exists()) {
+            return List.of("no baseline at " + baseline.getDescription());
+        }
+        Map<String, String> expected = new LinkedHashMap<>();
+        try (InputStream in = baseline.getInputStream()) {
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    int tab = line.indexOf('\t');
+                    expected.put(line.substring(0, tab), line.substring(tab + 1).trim());
+                }
+            }
+        }
+        List<String> differences = new ArrayList<>();
+        counts.forEach((call, count) -> {
+            String was = expected.remove(call);
+            if (!count.toString().equals(was)) {
+                differences.add(call + ": status/statements/entities " + count.toString().replace('\t', '/')
+                        + (was == null ? " (not in the baseline)" : ", baseline " + was.replace('\t', '/')));
+            }
+        });
+        expected.keySet().forEach(call -> differences.add(call + ": in the baseline but no longer called"));
+        return differences;
+    }
+
+    /**
+     * Handlers of the API controllers in a stable order
+     */
+    private List<Map.Entry<RequestMappingInfo, HandlerMethod>> handlers() {
+        return handlerMapping.getHandlerMethods().entrySet().stream()
+                .filter(handler -> !handler.getKey().getPatternValues().isEmpty()
+                        && ENTITIES.containsKey(basePath(handler.getKey().getPatternValues().iterator().next())))
+                .sorted(Comparator.comparing((Map.Entry<RequestMappingInfo, HandlerMethod> handler) ->
+                                handler.getKey().getPatternValues().iterator().next())
+                        .thenComparing(handler -> methods(handler.getKey()).toString()))
+                .toList();
+    }
+
+    private static Set<RequestMethod> methods(RequestMappingInfo mapping) {
+        return mapping.getMethodsCondition().getMethods();
+    }
+
+    private static String basePath(String pattern) {
+        int slash = pattern.indexOf('/', "/api/".length());
+        return slash < 0 ? pattern : pattern.substring(0, slash);
+    }
+
+    private String expand(String pattern) {
+        return pattern.replaceAll("\\{[^}]+}", Long.toString(sampleId));
+    }
+
+    private static Set<String> requestParams(HandlerMethod handler) {
+        Set<String> names = new LinkedHashSet<>();
+        for (MethodParameter parameter : handler.getMethodParameters()) {
+            RequestParam param = parameter.getParameterAnnotation(RequestParam.class);
+            if (param != null) {
+                names.add(param.name());
+            } else if (ATTRIBUTES.supportsParameter(parameter)) {
+                names.add(AttributesArgumentResolver.PARAMETER);
+            }
+        }
+        return names;
+    }
+
+    private static List<String> requiredParams(HandlerMethod handler) {
+        List<String> names = new ArrayList<>();
+        for (MethodParameter parameter : handler.getMethodParameters()) {
+            RequestParam param = parameter.getParameterAnnotation(RequestParam.class);
+            if (param != null && param.required() && ValueConstants.DEFAULT_NONE.equals(param.defaultValue())) {
+                names.add(param.name());
+            }
+        }
+        return names;
+    }
+
+    private record Count(int status, long statements, long entities) {
+        @Override
+        public String toString() {
+            return status + "\t" + statements + "\t" + entities;
+        }
+    }
+
+    private record Sent(Count count, String body) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.demo.departments.demoDepartments.controller;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The suggest index follows writes made through JPA (Hibernate post-insert/update events) and bulk deletes
+ */
+class SuggestTest extends AbstractIntegrationTest {
+
+    @Test
+    void suggestionsFollowInsertRenameAndDelete() throws Exception {
+        long id = createPerson("Suggestfirst");
+        assertThat(getJson("/api/persons/suggest?prefix=suggestf").findValuesAsText("personId"))
+                .containsExactly(Long.toString(id));
+
+        mvc.perform(put("/api/persons/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Suggestrenamed\",\"lastName\":\"Target\",\"birthDay\":\"1980-01-01\"}"))
+                .andExpect(status().isOk());
+        assertThat(getJson("/api/persons/suggest?prefix=suggestf")).isEmpty();
+        assertThat(getJson("/api/persons/suggest?prefix=suggestr").findValuesAsText("value"))
+                .containsExactly("Suggestrenamed");
+
+        mvc.perform(delete("/api/persons/" + id)).andExpect(status().isNoContent());
+        assertThat(getJson("/api/persons/suggest?prefix=suggestr")).isEmpty();
+    }
+}
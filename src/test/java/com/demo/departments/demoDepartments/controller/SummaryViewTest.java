@@ -0,0 +1,145 @@
+package com.demo.departments.demoDepartments.controller;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.controller.support.CursorPageResponses;
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.AddressType;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.ContactType;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The summary view fills the child ids and counts from aggregate queries: the same ids as the children read
+ * with the attributes, zero and empty for parents without children
+ */
+class SummaryViewTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void summaryHasTheIdsAndCountsOfTheChildren() throws Exception {
+        List<Long> addresses = new ArrayList<>();
+        List<Long> contacts = new ArrayList<>();
+        long[] persons = new TransactionTemplate(transactionManager).execute(status -> {
+            Person parent = person("Parent");
+            // Persisted one by one: new children are equal to each other until they have an id
+            for (int i = 0; i < 2; i++) {
+                Address address = Address.builder().type(AddressType.LOCAL).street(i + " Summary St").city("Springfield").build();
+                address.setPerson(parent);
+                entityManager.persist(address);
+                addresses.add(address.getId());
+            }
+            Contact contact = Contact.builder().contactType(ContactType.WORK).email("summary.parent@example.com").build();
+            contact.setPerson(parent);
+            entityManager.persist(contact);
+            contacts.add(contact.getId());
+            return new long[]{parent.getId(), person("Childless").getId()};
+        });
+
+        Map<Long, JsonNode> summaries = byId(getJson("/api/persons?view=summary&lastName=Summarized"));
+        JsonNode parent = summaries.get(persons[0]);
+        assertThat(ids(parent.get("addressIds"))).containsExactlyInAnyOrderElementsOf(addresses);
+        assertThat(parent.get("addressCount").asInt()).isEqualTo(2);
+        assertThat(ids(parent.get("contactIds"))).containsExactlyInAnyOrderElementsOf(contacts);
+        assertThat(parent.get("contactCount").asInt()).isEqualTo(1);
+        assertThat(parent.get("roleIds")).isEmpty();
+        assertThat(parent.get("roleCount").asInt()).isZero();
+
+        JsonNode childless = summaries.get(persons[1]);
+        for (String children : List.of("address", "contact", "role")) {
+            assertThat(childless.get(children + "Ids").isArray()).isTrue();
+            assertThat(childless.get(children + "Ids")).isEmpty();
+            assertThat(childless.get(children + "Count").asInt()).isZero();
+        }
+    }
+
+    @Test
+    void summaryMatchesTheChildrenReadWithTheAttributes() throws Exception {
+        Map<Long, JsonNode> summaries = byId(getJson("/api/persons?view=summary"));
+        Map<Long, JsonNode> persons = byId(getJson("/api/persons?attributes=addresses,contacts,roles"));
+        assertThat(summaries.keySet()).isEqualTo(persons.keySet());
+        persons.forEach((id, person) -> {
+            JsonNode summary = summaries.get(id);
+            for (String[] children : new String[][]{{"addresses", "address"}, {"contacts", "contact"}, {"roles", "role"}}) {
+                Set<Long> read = new HashSet<>();
+                person.get(children[0]).forEach(child -> read.add(child.get("id").asLong()));
+                assertThat(ids(summary.get(children[1] + "Ids"))).as("%s of %s", children[0], id).isEqualTo(read);
+                assertThat(summary.get(children[1] + "Count").asInt()).isEqualTo(read.size());
+            }
+            // Nothing but the summary: no children themselves
+            assertThat(summary.has("addresses") && !summary.get("addresses").isEmpty()).isFalse();
+        });
+
+        Map<Long, JsonNode> roleSummaries = byId(getJson("/api/roles?view=summary"));
+        byId(getJson("/api/roles?attributes=permissions")).forEach((id, role) -> {
+            Set<Long> read = new HashSet<>();
+            role.get("permissions").forEach(permission -> read.add(permission.get("id").asLong()));
+            assertThat(ids(roleSummaries.get(id).get("permissionIds"))).as("permissions of role %s", id).isEqualTo(read);
+        });
+    }
+
+    @Test
+    void summaryPagesMatchTheWholeSummary() throws Exception {
+        List<JsonNode> rows = new ArrayList<>();
+        String after = null;
+        do {
+            MockHttpServletResponse response = mvc.perform(get("/api/persons?view=summary&limit=3"
+                            + (after == null ? "" : "&after=" + after)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            objectMapper.readTree(response.getContentAsString()).forEach(rows::add);
+            after = response.getHeader(CursorPageResponses.NEXT_CURSOR_HEADER);
+        } while (after != null);
+
+        List<JsonNode> all = new ArrayList<>();
+        getJson("/api/persons?view=summary").forEach(all::add);
+        assertThat(rows).containsExactlyElementsOf(all);
+    }
+
+    @Test
+    void summaryIsNotCombinedWithAttributes() throws Exception {
+        mvc.perform(get("/api/persons?view=summary&attributes=addresses")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/persons?view=compact")).andExpect(status().isBadRequest());
+    }
+
+    private Person person(String firstName) {
+        Person person = Person.builder().firstName(firstName).lastName("Summarized").birthDay(LocalDate.of(1980, 1, 1)).build();
+        entityManager.persist(person);
+        return person;
+    }
+
+    private static Map<Long, JsonNode> byId(JsonNode list) {
+        Map<Long, JsonNode> byId = new HashMap<>();
+        list.forEach(row -> byId.put(row.get("id").asLong(), row));
+        return byId;
+    }
+
+    private static Set<Long> ids(JsonNode array) {
+        Set<Long> ids = new HashSet<>();
+        array.forEach(id -> ids.add(id.asLong()));
+        return ids;
+    }
+}
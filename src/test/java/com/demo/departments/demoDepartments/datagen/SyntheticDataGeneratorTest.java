@@ -0,0 +1,179 @@
+package com.demo.departments.demoDepartments.datagen;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The generator writes exactly the configured totals, spread over the parents by the distribution, and the same
+ * seed gives the same data however the parallel chunks interleave (ids aside).
+ * <p>
+ * Runs on a database of its own, seeded in many small chunks: the other integration tests expect the 10 default persons.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:data_generator;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "departments.cache.manager=departments-data-generator-cache",
+        "departments.data-generator.persons=120",
+        "departments.data-generator.addresses=300",
+        "departments.data-generator.contacts=90",
+        "departments.data-generator.roles=60",
+        "departments.data-generator.permissions=150",
+        "departments.data-generator.distribution=zipf",
+        "departments.data-generator.chunk-size=7",
+        "departments.data-generator.parallelism=4",
+        "departments.data-generator.batch-size=5"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class SyntheticDataGeneratorTest {
+
+    @Autowired
+    private SyntheticDataGenerator generator;
+
+    @Autowired
+    private DataGeneratorProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final long seed = 42;
+
+    @AfterEach
+    void restoreSeed() {
+        properties.setSeed(seed);
+        properties.setDistribution(DataGeneratorProperties.Distribution.ZIPF);
+    }
+
+    @Test
+    void writesTheConfiguredTotalsSpreadByTheDistribution() {
+        // Seeded at startup
+        assertThat(count("person")).isEqualTo(120);
+        assertThat(count("address")).isEqualTo(300);
+        assertThat(count("contact")).isEqualTo(90);
+        assertThat(count("role")).isEqualTo(60);
+        assertThat(count("permissions")).isEqualTo(150);
+
+        assertThat(childCounts("address", "person_id", "person")).isEqualTo(expectedCounts(120, 300));
+        assertThat(childCounts("contact", "person_id", "person")).isEqualTo(expectedCounts(120, 90));
+        assertThat(childCounts("role", "person_id", "person")).isEqualTo(expectedCounts(120, 60));
+        assertThat(childCounts("permissions", "roles_id", "role")).isEqualTo(expectedCounts(60, 150));
+        // Zipf: the first parent gets the most, some get nothing
+        List<Long> addresses = childCounts("address", "person_id", "person");
+        assertThat(addresses.get(addresses.size() - 1)).isGreaterThan(300 / 120 * 10);
+        assertThat(addresses.get(0)).isZero();
+    }
+
+    @Test
+    void sameSeedSameData() {
+        String seeded = fingerprint();
+
+        regenerate(seed);
+        assertThat(fingerprint()).isEqualTo(seeded);
+
+        regenerate(seed + 1);
+        assertThat(fingerprint()).isNotEqualTo(seeded);
+
+        regenerate(seed);
+        assertThat(fingerprint()).isEqualTo(seeded);
+    }
+
+    @Test
+    void uniformDistributionGivesEveryParentAboutTheSame() {
+        properties.setDistribution(DataGeneratorProperties.Distribution.UNIFORM);
+        regenerate(seed);
+
+        assertThat(childCounts("address", "person_id", "person")).containsOnly(2L, 3L);
+        assertThat(childCounts("permissions", "roles_id", "role")).containsOnly(2L, 3L);
+        assertThat(count("contact")).isEqualTo(90);
+
+        properties.setDistribution(DataGeneratorProperties.Distribution.ZIPF);
+        regenerate(seed);
+    }
+
+    private void regenerate(long withSeed) {
+        // Children first; the foreign keys of the tables do not all cascade
+        for (String table : List.of("permissions", "role", "contact", "address", "person")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        properties.setSeed(withSeed);
+        generator.generate();
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+
+    /**
+     * Children per parent, parents without children included, ascending
+     */
+    private List<Long> childCounts(String table, String parentColumn, String parentTable) {
+        return jdbcTemplate.queryForList("SELECT (SELECT count(*) FROM " + table + " c WHERE c." + parentColumn
+                        + " = p.id) FROM " + parentTable + " p", Long.class)
+                .stream().sorted().toList();
+    }
+
+    /**
+     * Children per parent as {@link Cardinality} spreads them, ascending
+     */
+    private List<Long> expectedCounts(int parents, long total) {
+        Cardinality cardinality = Cardinality.of(properties, parents, total);
+        List<Long> counts = new ArrayList<>();
+        for (int parent = 0; parent < parents; parent++) {
+            counts.add(cardinality.first(parent + 1) - cardinality.first(parent));
+        }
+        return counts.stream().sorted().toList();
+    }
+
+    /**
+     * Every person with its children, without ids and timestamps, in a stable order
+     */
+    private String fingerprint() {
+        Map<Long, List<String>> permissions = children(
+                "SELECT roles_id, permission FROM permissions");
+        Map<Long, List<String>> roles = new HashMap<>();
+        jdbcTemplate.query("SELECT id, person_id, role FROM role", row -> {
+            roles.computeIfAbsent(row.getLong("person_id"), k -> new ArrayList<>())
+                    .add(row.getString("role") + permissions.getOrDefault(row.getLong("id"), List.of()).stream().sorted().toList());
+        });
+        Map<Long, List<String>> addresses = children(
+                "SELECT person_id, concat_ws('|', type, street, post_zip_code, city, province, country) FROM address");
+        Map<Long, List<String>> contacts = children(
+                "SELECT person_id, concat_ws('|', contact_type, email, phone_number) FROM contact");
+
+        Map<String, Integer> persons = new TreeMap<>();
+        jdbcTemplate.query("SELECT id, first_name, last_name, birthday FROM person", row -> {
+            long id = row.getLong("id");
+            String person = String.join("|", row.getString("first_name"), row.getString("last_name"),
+                    row.getString("birthday"),
+                    sorted(addresses, id), sorted(contacts, id), sorted(roles, id));
+            persons.merge(person, 1, Integer::sum);
+        });
+        return persons.entrySet().stream().map(entry -> entry.getValue() + "x " + entry.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+
+    private Map<Long, List<String>> children(String sql) {
+        Map<Long, List<String>> children = new HashMap<>();
+        jdbcTemplate.query(sql, row -> {
+            children.computeIfAbsent(row.getLong(1), k -> new ArrayList<>()).add(row.getString(2));
+        });
+        return children;
+    }
+
+    private static String sorted(Map<Long, List<String>> children, long parent) {
+        return children.getOrDefault(parent, List.of()).stream().sorted().toList().toString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.demo.departments.demoDepartments.persistence.repository;
+
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.AddressType;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.ContactType;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Person search on PostgreSQL: the triggers of the post-schema changelog keep the search document of a person
+ * current when its contacts and addresses change, and the rank cursor pages through the trigram/full-text hits.
+ * Needs Docker; skipped where there is none.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class PersonSearchPostgresTest {
+
+    @Container
+    private static final GenericContainer<?> POSTGRES = new GenericContainer<>("postgres:16-alpine")
+            .withEnv("POSTGRES_DB", "departments")
+            .withEnv("POSTGRES_USER", "departments")
+            .withEnv("POSTGRES_PASSWORD", "departments")
+            .withExposedPorts(5432)
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\n", 2));
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:postgresql://" + POSTGRES.getHost() + ":"
+                + POSTGRES.getMappedPort(5432) + "/departments");
+        registry.add("spring.datasource.username", () -> "departments");
+        registry.add("spring.datasource.password", () -> "departments");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        // Second-level cache regions of its own: the cache manager is closed with the context
+        registry.add("departments.cache.manager", () -> "departments-postgres-search-cache");
+    }
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void childWritesKeepTheSearchDocumentCurrent() {
+        long personId = new TransactionTemplate(transactionManager).execute(status -> {
+            Person person = Person.builder().firstName("Documented").lastName("Owner").birthDay(LocalDate.of(1980, 1, 1)).build();
+            entityManager.persist(person);
+            Contact contact = Contact.builder().contactType(ContactType.WORK).email("trigram.owner@example.com")
+                    .phoneNumber("+380 (44) 123-45-67").build();
+            contact.setPerson(person);
+            entityManager.persist(contact);
+            Address address = Address.builder().type(AddressType.LOCAL).street("7 Quillfeather Lane").city("Springfield").build();
+            address.setPerson(person);
+            entityManager.persist(address);
+            entityManager.flush();
+            return person.getId();
+        });
+
+        assertThat(hits("trigram.owner")).contains(personId);
+        assertThat(hits("441234567")).contains(personId);
+        assertThat(hits("quillfeather")).contains(personId);
+
+        jdbcTemplate.update("UPDATE contact SET email = 'renamed.owner@example.com' WHERE person_id = ?", personId);
+        assertThat(hits("renamed.owner")).contains(personId);
+        assertThat(hits("trigram.owner")).doesNotContain(personId);
+
+        jdbcTemplate.update("DELETE FROM address WHERE person_id = ?", personId);
+        assertThat(hits("quillfeather")).doesNotContain(personId);
+
+        jdbcTemplate.update("UPDATE person SET first_name = 'Retitled' WHERE id = ?", personId);
+        assertThat(hits("retitled")).contains(personId);
+        assertThat(hits("renamed.owner")).contains(personId);
+    }
+
+    @Test
+    void rankCursorPagesThroughEveryHitOnce() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (String firstName : List.of("Paginata", "Paginatas", "Paginata", "Xpaginata", "Paginatarium")) {
+                entityManager.persist(Person.builder().firstName(firstName).lastName("Ranked").birthDay(LocalDate.of(1980, 1, 1)).build());
+            }
+        });
+
+        List<PersonSearchRepository.Hit> all = search("paginata", null, 100);
+        assertThat(all).hasSizeGreaterThanOrEqualTo(5);
+        assertThat(all).extracting(PersonSearchRepository.Hit::rank).isSortedAccordingTo((a, b) -> Double.compare(b, a));
+
+        List<PersonSearchRepository.Hit> paged = new ArrayList<>();
+        PersonSearchRepository.Hit after = null;
+        List<PersonSearchRepository.Hit> page;
+        do {
+            page = search("paginata", after, 2);
+            paged.addAll(page);
+            after = page.isEmpty() ? null : page.get(page.size() - 1);
+        } while (page.size() == 2);
+        assertThat(paged).containsExactlyElementsOf(all);
+    }
+
+    private List<Long> hits(String query) {
+        return search(query, null, 100).stream().map(PersonSearchRepository.Hit::id).toList();
+    }
+
+    private List<PersonSearchRepository.Hit> search(String query, PersonSearchRepository.Hit after, int limit) {
+        return new TransactionTemplate(transactionManager).execute(status -> personRepository.search(query, after, limit));
+    }
+}
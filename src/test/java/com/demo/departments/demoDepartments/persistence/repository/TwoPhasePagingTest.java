@@ -0,0 +1,125 @@
+package com.demo.departments.demoDepartments.persistence.repository;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.cosium.spring.data.jpa.entity.graph.domain2.DynamicEntityGraph;
+import com.cosium.spring.data.jpa.entity.graph.domain2.EntityGraph;
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.AddressType;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pages read with a collection graph select the page of ids first and then the graph for those ids: the database
+ * applies the limit, every entity of a page comes with all its children and the page keeps its order
+ */
+class TwoPhasePagingTest extends AbstractIntegrationTest {
+
+    private static final EntityGraph ADDRESSES = DynamicEntityGraph.fetching().addPath("addresses").build();
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("org.hibernate");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void captureLog() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void releaseLog() {
+        logger.detachAppender(appender);
+        // Hibernate warns (HHH90003004) when it has to paginate joined collection rows in memory
+        assertThat(appender.list).noneMatch(event -> event.getFormattedMessage().contains("HHH90003004"));
+    }
+
+    @Test
+    void keysetPagesWithAGraphHoldWholeEntitiesInIdOrder() {
+        List<Long> ids = createPersons("Keyset", 4);
+        Specification<Person> keyset = (root, query, cb) -> cb.equal(root.get("lastName"), "Keyset");
+
+        inTransaction(() -> {
+            List<Person> first = personRepository.findAllAfter(keyset, null, 3, ADDRESSES);
+            assertThat(first).extracting(Person::getId).containsExactlyElementsOf(ids.subList(0, 3));
+            first.forEach(person -> assertThat(person.getAddresses()).hasSize(2));
+
+            List<Person> second = personRepository.findAllAfter(keyset, first.get(2).getId(), 3, ADDRESSES);
+            assertThat(second).extracting(Person::getId).containsExactly(ids.get(3));
+            assertThat(second.get(0).getAddresses()).hasSize(2);
+        });
+    }
+
+    @Test
+    void sortedPagesWithAGraphKeepTheRequestedOrder() {
+        List<Long> ids = createPersons("Sorted", 4);
+        Specification<Person> sorted = (root, query, cb) -> cb.equal(root.get("lastName"), "Sorted");
+        PageRequest byFirstNameDescending = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "firstName"));
+
+        inTransaction(() -> {
+            Page<Person> first = personRepository.findAll(sorted, byFirstNameDescending, ADDRESSES);
+            assertThat(first.getTotalElements()).isEqualTo(4);
+            assertThat(first.getContent()).extracting(Person::getId)
+                    .containsExactly(ids.get(3), ids.get(2), ids.get(1));
+            first.getContent().forEach(person -> assertThat(person.getAddresses()).hasSize(2));
+
+            Page<Person> second = personRepository.findAll(sorted, byFirstNameDescending.next(), ADDRESSES);
+            assertThat(second.getContent()).extracting(Person::getId).containsExactly(ids.get(0));
+            assertThat(second.hasNext()).isFalse();
+        });
+    }
+
+    private void inTransaction(Runnable reads) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> reads.run());
+    }
+
+    /**
+     * Persons of the test's own with two addresses each, first names ascending with the ids
+     *
+     * @return their ids, ascending
+     */
+    private List<Long> createPersons(String lastName, int persons) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int p = 0; p < persons; p++) {
+                Person person = Person.builder().firstName(lastName + p).lastName(lastName).birthDay(LocalDate.of(1980, 1, 1)).build();
+                entityManager.persist(person);
+                // Persisted one by one: new addresses are equal to each other until they have an id
+                for (int a = 0; a < 2; a++) {
+                    Address address = Address.builder().type(AddressType.LOCAL).street(a + " " + lastName + " St").city("Springfield").build();
+                    address.setPerson(person);
+                    entityManager.persist(address);
+                }
+                ids.add(person.getId());
+            }
+            return ids;
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package com.demo.departments.demoDepartments.service.impl;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
+import com.demo.departments.demoDepartments.service.AddressService;
+import com.demo.departments.demoDepartments.service.BaseService;
+import com.demo.departments.demoDepartments.service.ContactService;
+import com.demo.departments.demoDepartments.service.FilterableService;
+import com.demo.departments.demoDepartments.service.PermissionsService;
+import com.demo.departments.demoDepartments.service.PersonService;
+import com.demo.departments.demoDepartments.service.RoleService;
+import com.demo.departments.demoDepartments.service.dto.mapper.AddressMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.ContactMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.EntityMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.MappingOptions;
+import com.demo.departments.demoDepartments.service.dto.mapper.PermissionsMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.PersonMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.RoleMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reads without attributes come from a tuple projection: the same JSON as the mapper makes of the entities,
+ * without a single entity in the persistence context
+ */
+class ScalarProjectionTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AttributeRegistry attributeRegistry;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private PermissionsService permissionsService;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private PersonMapper personMapper;
+
+    @Autowired
+    private RoleMapper roleMapper;
+
+    @Autowired
+    private PermissionsMapper permissionsMapper;
+
+    @Autowired
+    private AddressMapper addressMapper;
+
+    @Autowired
+    private ContactMapper contactMapper;
+
+    @Test
+    void projectedReadsMatchTheMappedEntities() throws Exception {
+        for (boolean withAudit : new boolean[]{false, true}) {
+            assertProjected(personService, Person.class, personMapper, withAudit);
+            assertProjected(roleService, Role.class, roleMapper, withAudit);
+            assertProjected(permissionsService, Permissions.class, permissionsMapper, withAudit);
+            assertProjected(addressService, Address.class, addressMapper, withAudit);
+            assertProjected(contactService, Contact.class, contactMapper, withAudit);
+        }
+    }
+
+    private <E, D, S extends BaseService<D> & FilterableService<D, E>> void assertProjected(
+            S service, Class<E> entityClass, EntityMapper<E, D> mapper, boolean withAudit) throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        List<D> projected = new ArrayList<>();
+        List<D> single = new ArrayList<>();
+        transaction.executeWithoutResult(status -> {
+            projected.addAll(service.findAll(null, withAudit, Set.of()));
+            single.add(service.findById(firstId(entityClass), withAudit, Set.of()));
+            assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount())
+                    .as("%s entities in the persistence context", entityClass.getSimpleName())
+                    .isZero();
+        });
+
+        List<D> mapped = transaction.execute(status -> {
+            MappingOptions options = MappingOptions.builder()
+                    .attributes(Set.of())
+                    .withAudit(withAudit)
+                    .entity(attributeRegistry.root(entityClass))
+                    .build();
+            return entityManager.createQuery("select e from " + entityClass.getSimpleName() + " e order by e.id", entityClass)
+                    .getResultStream()
+                    .map(entity -> mapper.toDtoWithOptions(entity, options))
+                    .toList();
+        });
+
+        assertThat(objectMapper.writeValueAsString(projected))
+                .as("%s, withAudit %s", entityClass.getSimpleName(), withAudit)
+                .isEqualTo(objectMapper.writeValueAsString(mapped));
+        assertThat(objectMapper.writeValueAsString(single.get(0)))
+                .isEqualTo(objectMapper.writeValueAsString(mapped.get(0)));
+    }
+
+    private Long firstId(Class<?> entityClass) {
+        return entityManager.createQuery("select min(e.id) from " + entityClass.getSimpleName() + " e", Long.class)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,95 @@
+package com.demo.departments.demoDepartments.service.utils.cache;
+
+import com.demo.departments.demoDepartments.service.dto.AddressDTO;
+import com.demo.departments.demoDepartments.service.dto.PersonDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResponseCache(new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry(),
+                1 << 20, Duration.ofMinutes(10), Duration.ofMinutes(1), false, Duration.ZERO);
+    }
+
+    @Test
+    void tagIsTrustedWithinTheWindowAfterItsLastConfirmation() {
+        ResponseCache untrusting = new ResponseCache(new ObjectMapper().registerModule(new JavaTimeModule()),
+                new SimpleMeterRegistry(), 1 << 20, Duration.ofMinutes(10), Duration.ZERO, false, Duration.ZERO);
+        untrusting.load(PersonDTO.class, 1L, Set.of(), false, "\"a\"", () -> person(1L));
+        ResponseCache.Response cached = untrusting.getIfPresent(PersonDTO.class, 1L, Set.of(), false);
+        assertThat(untrusting.isTrusted(cached)).isFalse();
+
+        cache.load(PersonDTO.class, 1L, Set.of(), false, "\"a\"", () -> person(1L));
+        cache.load(PersonDTO.class, 2L, Set.of(), false, null, () -> person(2L));
+        ResponseCache.Response tagged = cache.getIfPresent(PersonDTO.class, 1L, Set.of(), false);
+        assertThat(cache.isTrusted(tagged)).isTrue();
+        assertThat(cache.isTrusted(cache.getIfPresent(PersonDTO.class, 2L, Set.of(), false))).isFalse();
+
+        cache.confirm(PersonDTO.class, 1L, Set.of(), false, tagged);
+        ResponseCache.Response confirmed = cache.getIfPresent(PersonDTO.class, 1L, Set.of(), false);
+        assertThat(confirmed.confirmedAt()).isGreaterThanOrEqualTo(tagged.confirmedAt());
+        assertThat(confirmed.json()).isSameAs(tagged.json());
+        // Still indexed: the confirmed entry is evicted like the one it replaced
+        cache.evict(PersonDTO.class, List.of(1L));
+        assertThat(cache.getIfPresent(PersonDTO.class, 1L, Set.of(), false)).isNull();
+    }
+
+    @Test
+    void evictsEntriesBuiltFromANestedEntity() {
+        cache.load(PersonDTO.class, 1L, Set.of("addresses"), false, null, () -> person(1L, address(10L, 1L)));
+        cache.load(PersonDTO.class, 1L, Set.of(), false, null, () -> person(1L));
+        cache.load(AddressDTO.class, 10L, Set.of(), false, null, () -> address(10L, 1L));
+        cache.load(PersonDTO.class, 2L, Set.of("addresses"), false, null, () -> person(2L, address(20L, 2L)));
+
+        cache.evict(AddressDTO.class, List.of(10L));
+
+        assertThat(cache.getIfPresent(PersonDTO.class, 1L, Set.of("addresses"), false)).isNull();
+        assertThat(cache.getIfPresent(AddressDTO.class, 10L, Set.of(), false)).isNull();
+        assertThat(cache.getIfPresent(PersonDTO.class, 1L, Set.of(), false)).isNotNull();
+        assertThat(cache.getIfPresent(PersonDTO.class, 2L, Set.of("addresses"), false)).isNotNull();
+    }
+
+    @Test
+    void savedChildEvictsItsParent() {
+        cache.load(PersonDTO.class, 1L, Set.of(), false, null, () -> person(1L));
+
+        // A new address of person 1 changes the address list of person 1
+        cache.evict(address(11L, 1L));
+
+        assertThat(cache.getIfPresent(PersonDTO.class, 1L, Set.of(), false)).isNull();
+    }
+
+    @Test
+    void replacedEntryIsIndexedByItsOwnDependencies() {
+        cache.load(PersonDTO.class, 1L, Set.of("addresses"), false, null, () -> person(1L, address(10L, 1L)));
+        // The address moved away: the new response no longer depends on it
+        cache.load(PersonDTO.class, 1L, Set.of("addresses"), false, null, () -> person(1L, address(12L, 1L)));
+
+        cache.evict(AddressDTO.class, List.of(10L));
+        assertThat(cache.getIfPresent(PersonDTO.class, 1L, Set.of("addresses"), false)).isNotNull();
+
+        cache.evict(AddressDTO.class, List.of(12L));
+        assertThat(cache.getIfPresent(PersonDTO.class, 1L, Set.of("addresses"), false)).isNull();
+    }
+
+    private static PersonDTO person(Long id, AddressDTO... addresses) {
+        return PersonDTO.builder().id(id).firstName("First").lastName("Last").addresses(Set.of(addresses)).build();
+    }
+
+    private static AddressDTO address(Long id, Long personId) {
+        return AddressDTO.builder().id(id).street("Street").city("City").personId(personId).build();
+    }
+}
@@ -0,0 +1,263 @@
+package com.demo.departments.demoDepartments.service.utils.json;
+
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.AddressType;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.ContactType;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.security.Permissions;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
+import com.demo.departments.demoDepartments.service.AddressService;
+import com.demo.departments.demoDepartments.service.ContactService;
+import com.demo.departments.demoDepartments.service.FilterableService;
+import com.demo.departments.demoDepartments.service.PermissionsService;
+import com.demo.departments.demoDepartments.service.PersonService;
+import com.demo.departments.demoDepartments.service.RoleService;
+import com.demo.departments.demoDepartments.service.dto.AddressDTO;
+import com.demo.departments.demoDepartments.service.dto.ContactDTO;
+import com.demo.departments.demoDepartments.service.dto.PersonDTO;
+import com.demo.departments.demoDepartments.service.dto.base.BaseDTO;
+import com.demo.departments.demoDepartments.service.dto.mapper.AddressMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.ContactMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.EntityMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.MappingOptions;
+import com.demo.departments.demoDepartments.service.dto.mapper.PermissionsMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.PersonMapper;
+import com.demo.departments.demoDepartments.service.dto.mapper.RoleMapper;
+import com.demo.departments.demoDepartments.service.dto.security.PermissionsDTO;
+import com.demo.departments.demoDepartments.service.dto.security.RoleDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Lists written straight from the entities are byte for byte the JSON of the mapped DTOs
+ * <p>
+ * Direct writing is off by default, so this runs in a context of its own, with its own database and
+ * second-level cache regions.
+ */
+@TestPropertySource(properties = {
+        "departments.direct-json.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:direct_json;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "departments.cache.manager=departments-direct-json-cache"
+})
+@DirtiesContext
+class EntityJsonWritersTest extends AbstractIntegrationTest {
+
+    /** Attributes of every entity, nested, scalar and unknown ones included; every subset is checked */
+    private static final List<String> ATTRIBUTES = List.of("addresses", "contacts", "roles", "roles.permissions",
+            "permissions", "person", "role", "addresses.person", "password");
+
+    @Autowired
+    private EntityJsonWriters writers;
+
+    @Autowired
+    private AttributeRegistry attributeRegistry;
+
+    @Autowired
+    private PersonMapper personMapper;
+
+    @Autowired
+    private RoleMapper roleMapper;
+
+    @Autowired
+    private PermissionsMapper permissionsMapper;
+
+    @Autowired
+    private AddressMapper addressMapper;
+
+    @Autowired
+    private ContactMapper contactMapper;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private PermissionsService permissionsService;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Test
+    void writesWhatTheMapperMaps() throws Exception {
+        for (int children : new int[]{0, 3}) {
+            Person person = person(children);
+            // A role without a person and a permission and an address without a parent
+            Role orphan = Role.builder().id(99L).version(1L).role("ORPHAN").build();
+            orphan.addPermission(Permissions.builder().id(98L).version(0L).permission("ORPHAN_READ").build());
+            Address address = Address.builder().id(97L).version(1L).street("1 Nowhere St").build();
+
+            List<Role> roles = new ArrayList<>(person.getRoles());
+            roles.add(orphan);
+            List<Permissions> permissions = new ArrayList<>(orphan.getPermissions());
+            roles.forEach(role -> permissions.addAll(role.getPermissions()));
+            List<Address> addresses = new ArrayList<>(person.getAddresses());
+            addresses.add(address);
+
+            for (int subset = 0; subset < 1 << ATTRIBUTES.size(); subset++) {
+                Set<String> attributes = new HashSet<>();
+                for (int i = 0; i < ATTRIBUTES.size(); i++) {
+                    if ((subset & 1 << i) != 0) {
+                        attributes.add(ATTRIBUTES.get(i));
+                    }
+                }
+                for (boolean withAudit : new boolean[]{false, true}) {
+                    assertSameJson(Person.class, PersonDTO.class, List.of(person), personMapper, attributes, withAudit);
+                    assertSameJson(Role.class, RoleDTO.class, roles, roleMapper, attributes, withAudit);
+                    assertSameJson(Permissions.class, PermissionsDTO.class, permissions, permissionsMapper, attributes, withAudit);
+                    assertSameJson(Address.class, AddressDTO.class, addresses, addressMapper, attributes, withAudit);
+                    assertSameJson(Contact.class, ContactDTO.class, new ArrayList<>(person.getContacts()), contactMapper,
+                            attributes, withAudit);
+                }
+            }
+        }
+    }
+
+    @Test
+    void listsMatchTheMappedDtos() throws Exception {
+        assertSameLists(personService, Person.class);
+        assertSameLists(roleService, Role.class);
+        assertSameLists(permissionsService, Permissions.class);
+        assertSameLists(addressService, Address.class);
+        assertSameLists(contactService, Contact.class);
+
+        long personId = getJson("/api/persons").get(0).get("id").asLong();
+        for (Set<String> attributes : attributeSets(Role.class)) {
+            for (boolean withAudit : new boolean[]{false, true}) {
+                assertThat(json(roleService.findByPersonIdJson(personId, withAudit, attributes)))
+                        .isEqualTo(objectMapper.writeValueAsString(roleService.findByPersonId(personId, withAudit, attributes)));
+            }
+        }
+        for (Set<String> attributes : attributeSets(Address.class)) {
+            for (boolean withAudit : new boolean[]{false, true}) {
+                assertThat(json(addressService.findByPersonIdJson(personId, withAudit, attributes)))
+                        .isEqualTo(objectMapper.writeValueAsString(addressService.findByPersonId(personId, withAudit, attributes)));
+            }
+        }
+        for (Set<String> attributes : attributeSets(Contact.class)) {
+            for (boolean withAudit : new boolean[]{false, true}) {
+                assertThat(json(contactService.findByPersonIdJson(personId, withAudit, attributes)))
+                        .isEqualTo(objectMapper.writeValueAsString(contactService.findByPersonId(personId, withAudit, attributes)));
+            }
+        }
+    }
+
+    @Test
+    void endpointsSendTheWrittenLists() throws Exception {
+        // Attributes outside the second-level cache: cached entities keep timestamps the database truncates
+        Set<String> attributes = Set.of("addresses", "contacts");
+        MockHttpServletResponse response = mvc.perform(get("/api/persons?withAudit=true&attributes=addresses,contacts"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertThat(response.getContentType()).isEqualTo("application/json");
+        // Only the written-JSON converter knows the length up front; Jackson would serialize the list again
+        assertThat(response.getHeader(HttpHeaders.CONTENT_LENGTH)).isEqualTo(String.valueOf(response.getContentAsByteArray().length));
+        assertThat(response.getContentAsString())
+                .isEqualTo(objectMapper.writeValueAsString(personService.findAll(null, true, attributes)));
+
+        long personId = getJson("/api/persons").get(0).get("id").asLong();
+        assertThat(mvc.perform(get("/api/contacts/person/" + personId + "?withAudit=true&attributes=person"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString())
+                .isEqualTo(objectMapper.writeValueAsString(contactService.findByPersonId(personId, true, Set.of("person"))));
+    }
+
+    /**
+     * With and without the root node of the entity in the options: the mapper detects collections either way
+     */
+    private <E, D extends BaseDTO> void assertSameJson(Class<E> entityClass, Class<D> dtoClass, List<E> entities,
+                                                        EntityMapper<E, D> mapper, Set<String> attributes,
+                                                        boolean withAudit) throws Exception {
+        for (boolean withRoot : new boolean[]{false, true}) {
+            MappingOptions options = MappingOptions.builder()
+                    .attributes(attributes)
+                    .withAudit(withAudit)
+                    .entity(withRoot ? attributeRegistry.root(entityClass) : null)
+                    .build();
+            List<D> dtos = new ArrayList<>();
+            for (E entity : entities) {
+                dtos.add(mapper.toDtoWithOptions(entity, options));
+            }
+
+            assertThat(json(writers.writeAll(entityClass, dtoClass, entities, options)))
+                    .as("%s %s", entityClass.getSimpleName(), options)
+                    .isEqualTo(objectMapper.writeValueAsString(dtos));
+        }
+    }
+
+    private <E> void assertSameLists(FilterableService<?, E> service, Class<E> entityClass) throws Exception {
+        for (Set<String> attributes : attributeSets(entityClass)) {
+            for (boolean withAudit : new boolean[]{false, true}) {
+                assertThat(json(service.findAllJson(null, withAudit, attributes)))
+                        .as("%s %s, withAudit %s", entityClass.getSimpleName(), attributes, withAudit)
+                        .isEqualTo(objectMapper.writeValueAsString(service.findAll(null, withAudit, attributes)));
+            }
+        }
+    }
+
+    /**
+     * No attributes, every requestable path on its own, and all of them together
+     */
+    private List<Set<String>> attributeSets(Class<?> entityClass) {
+        Set<String> paths = attributeRegistry.mappablePaths(entityClass);
+        List<Set<String>> sets = new ArrayList<>();
+        sets.add(Set.of());
+        paths.forEach(path -> sets.add(Set.of(path)));
+        sets.add(new LinkedHashSet<>(paths));
+        return sets;
+    }
+
+    private static String json(byte[] written) {
+        return new String(written, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A person with {@code children} addresses, contacts and roles; the i-th role has i permissions
+     */
+    private static Person person(int children) {
+        LocalDateTime now = LocalDateTime.now();
+        Person person = Person.builder()
+                .id(1L).version(0L).createdDate(now).modifiedDate(now).createdBy("test").modifiedBy("test")
+                .firstName("Ada").lastName("Lovelace").birthDay(LocalDate.of(1815, 12, 10)).password("secret")
+                .build();
+        long id = 1;
+        for (int i = 0; i < children; i++) {
+            person.addAddress(Address.builder().id(id++).version(0L).createdDate(now).modifiedDate(now)
+                    .type(AddressType.LOCAL).street(i + " Main St").postZipCode("10000").city("London")
+                    .province("P").country("UK").build());
+            person.addContact(Contact.builder().id(id++).version(0L).createdDate(now).modifiedDate(now)
+                    .contactType(ContactType.WORK).phoneNumber("555-" + i).email("ada." + i + "@example.com").build());
+            Role role = Role.builder().id(id++).version(0L).createdDate(now).modifiedDate(now).role("ROLE_" + i).build();
+            for (int p = 0; p < i; p++) {
+                role.addPermission(Permissions.builder().id(id++).version(0L).createdDate(now).permission("P" + p).build());
+            }
+            person.addRole(role);
+        }
+        return person;
+    }
+}
@@ -0,0 +1,207 @@
+package com.demo.departments.demoDepartments.service.utils.mapping;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.demo.departments.demoDepartments.AbstractIntegrationTest;
+import com.demo.departments.demoDepartments.persistence.model.Address;
+import com.demo.departments.demoDepartments.persistence.model.AddressType;
+import com.demo.departments.demoDepartments.persistence.model.Contact;
+import com.demo.departments.demoDepartments.persistence.model.ContactType;
+import com.demo.departments.demoDepartments.persistence.model.Person;
+import com.demo.departments.demoDepartments.persistence.model.security.Role;
+import com.demo.departments.demoDepartments.persistence.utils.mapping.AttributeRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.demo.departments.demoDepartments.service.utils.mapping.FetchPlan.Strategy.BATCH;
+import static com.demo.departments.demoDepartments.service.utils.mapping.FetchPlan.Strategy.JOIN;
+import static com.demo.departments.demoDepartments.service.utils.mapping.FetchPlan.Strategy.SUBSELECT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Strategies chosen from the cardinality statistics and the rows they save, on a planner of the test's own
+ * (the shared one has seen the traffic of every other test)
+ */
+class FetchPlannerTest extends AbstractIntegrationTest {
+
+    private static final Set<String> SIBLINGS = new LinkedHashSet<>(List.of("addresses", "contacts", "roles"));
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityGraphCache entityGraphCache;
+
+    @Autowired
+    private AttributeRegistry attributeRegistry;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(FetchPlanner.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Level level;
+
+    @BeforeEach
+    void captureLog() {
+        level = logger.getLevel();
+        logger.setLevel(Level.DEBUG);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void releaseLog() {
+        logger.detachAppender(appender);
+        logger.setLevel(level);
+    }
+
+    @Test
+    void siblingCollectionsAreJoinedOrBatchedByTheirRowsPerParent() {
+        List<Long> ids = createPersons("Planned", 3, 3);
+        FetchPlanner planner = planner(4, 3, 4, 100);
+
+        // Unknown branches: only the first is joined; 3 x (3 x 3 x 1) rows joining all, 3 x 3 + 3 x 3 + 3 x 1 deferred
+        FetchReport cold = fetch(planner, ids, false);
+        assertThat(cold.strategies()).isEqualTo(Map.of("addresses", JOIN, "contacts", BATCH, "roles", BATCH));
+        assertThat(cold.queries()).isEqualTo(3);
+        assertThat(cold.rows()).isEqualTo(21);
+        assertThat(cold.rowsJoiningAll()).isEqualTo(27);
+        assertThat(cold.estimated()).isFalse();
+        assertThat(lastLog()).endsWith("3 roots, 3 queries, 21 rows instead of 27 (saved 6)");
+
+        // One role per person does not multiply the joined rows, a second 3-row collection would: 3 x 3 x 1 + 3 x 3
+        FetchReport warm = fetch(planner, ids, false);
+        assertThat(warm.strategies()).isEqualTo(Map.of("addresses", JOIN, "roles", JOIN, "contacts", BATCH));
+        assertThat(warm.queries()).isEqualTo(2);
+        assertThat(warm.rows()).isEqualTo(18);
+        assertThat(warm.savedRows()).isEqualTo(9);
+        assertThat(warm.estimated()).isTrue();
+        assertThat(lastLog()).endsWith("3 roots, 2 queries, 18 rows instead of 27 (saved 9, estimated)");
+
+        // Warm plans count the rows on every 4th request only
+        assertThat(fetch(planner, ids, false).estimated()).isTrue();
+        assertThat(fetch(planner, ids, false).estimated()).isTrue();
+        FetchReport sampled = fetch(planner, ids, false);
+        assertThat(sampled.estimated()).isFalse();
+        assertThat(sampled.rows()).isEqualTo(18);
+        assertThat(sampled.savedRows()).isEqualTo(9);
+    }
+
+    @Test
+    void tableWideReadsAreTakenWhenTheRootsCoverTheTable() {
+        createPersons("Subselected", 2, 1);
+        FetchPlanner planner = planner(2, 3, 1, 5);
+        List<Long> all = new TransactionTemplate(transactionManager).execute(status -> entityManager
+                .createQuery("select p.id from Person p order by p.id", Long.class).getResultList());
+
+        // The whole table: one query per branch instead of one per 2 ids
+        FetchReport allRows = fetchDeferredOnly(planner, all, true);
+        assertThat(allRows.strategies()).containsEntry("contacts", SUBSELECT);
+        assertThat(allRows.queries()).isEqualTo(2);
+
+        // All but one: the rows of the one outside are cheaper than the round trips of the chunks
+        FetchReport nearlyAll = fetchDeferredOnly(planner, all.subList(1, all.size()), false);
+        assertThat(nearlyAll.strategies()).containsEntry("contacts", SUBSELECT);
+        assertThat(nearlyAll.queries()).isEqualTo(2);
+
+        // Three roots: one extra chunk costs less than the rest of the table
+        FetchReport few = fetchDeferredOnly(planner, all.subList(0, 3), false);
+        assertThat(few.strategies()).containsEntry("contacts", BATCH);
+        assertThat(few.queries()).isEqualTo(3);
+    }
+
+    private FetchPlanner planner(int batchSize, int minSamples, int sampleEvery, int roundTripRows) {
+        return new FetchPlanner(entityManager, entityGraphCache, attributeRegistry,
+                batchSize, minSamples, sampleEvery, roundTripRows);
+    }
+
+    /**
+     * Reads the persons (3 addresses, 3 contacts and a role each) with the root graph of a fresh plan for the
+     * sibling collections and completes the fetch
+     */
+    private FetchReport fetch(FetchPlanner planner, List<Long> ids, boolean allRows) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            FetchPlan plan = planner.plan(Person.class, SIBLINGS);
+            TypedQuery<Person> query = entityManager
+                    .createQuery("select p from Person p where p.id in :ids", Person.class)
+                    .setParameter("ids", ids);
+            plan.getRootGraph().buildQueryHint(entityManager, Person.class)
+                    .ifPresent(hint -> query.setHint(hint.type().key(), hint.entityGraph()));
+            List<Person> persons = query.getResultList();
+            FetchReport report = planner.fetchDeferred(plan, persons, allRows);
+            for (Person person : persons) {
+                assertThat(person.getAddresses()).hasSize(3);
+                assertThat(person.getContacts()).hasSize(3);
+                assertThat(person.getRoles()).hasSize(1);
+            }
+            return report;
+        });
+    }
+
+    /**
+     * Reads the persons without a graph and loads their contacts afterwards, as streamed chunks are
+     */
+    private FetchReport fetchDeferredOnly(FetchPlanner planner, List<Long> ids, boolean allRows) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            FetchPlan plan = planner.planDeferred(Person.class, Set.of("contacts"));
+            List<Person> persons = entityManager
+                    .createQuery("select p from Person p where p.id in :ids", Person.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            return planner.fetchDeferred(plan, persons, allRows);
+        });
+    }
+
+    private String lastLog() {
+        return appender.list.get(appender.list.size() - 1).getFormattedMessage();
+    }
+
+    /**
+     * Persons of the test's own with {@code children} addresses and contacts and one role each.
+     * Written through JPA: the create endpoints of the children do not link them to a parent.
+     */
+    private List<Long> createPersons(String name, int persons, int children) {
+        List<Long> roles = new ArrayList<>();
+        List<Long> ids = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Person> created = new ArrayList<>();
+            for (int p = 0; p < persons; p++) {
+                Person person = Person.builder().firstName(name + p).lastName("Planner").birthDay(LocalDate.of(1980, 1, 1)).build();
+                person.addRole(Role.builder().role(name.toUpperCase() + p).build());
+                entityManager.persist(person);
+                // Persisted one by one: new children are equal to each other until they have an id
+                for (int c = 0; c < children; c++) {
+                    Address address = Address.builder().type(AddressType.LOCAL).street(c + " " + name + " St").city("Springfield").build();
+                    address.setPerson(person);
+                    entityManager.persist(address);
+                    Contact contact = Contact.builder().contactType(ContactType.WORK).email(name.toLowerCase() + p + "." + c + "@example.com").build();
+                    contact.setPerson(person);
+                    entityManager.persist(contact);
+                }
+                created.add(person);
+            }
+            entityManager.flush();
+            created.forEach(person -> person.getRoles().forEach(role -> roles.add(role.getId())));
+            return created.stream().map(Person::getId).toList();
+        });
+        // Cached on insert with the nanoseconds the database drops; other tests compare cached and database reads
+        roles.forEach(role -> entityManager.getEntityManagerFactory().getCache().evict(Role.class, role));
+        return ids;
+    }
+}
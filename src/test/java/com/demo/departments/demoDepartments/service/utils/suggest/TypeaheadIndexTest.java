@@ -0,0 +1,151 @@
+package com.demo.departments.demoDepartments.service.utils.suggest;
+
+import com.demo.departments.demoDepartments.service.dto.PersonSuggestionDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Changes reach lookups through the delta, survive its compaction and are not lost to a concurrent rebuild.
+ * Without a transaction the index applies every change right away.
+ */
+class TypeaheadIndexTest {
+
+    @Test
+    void insertsRenamesAndDeletesAreVisibleAtOnce() {
+        TypeaheadIndex index = new TypeaheadIndex(1024);
+        index.rebuild(loader -> {
+            loader.person(1, "Ada", "Lovelace");
+            loader.contact(10, 1L, "ada@example.com", "212-555-1234");
+        });
+
+        index.personSaved(2, "Adam", "Smith");
+        assertThat(values(index.suggest("ad", 10))).containsExactly("Ada", "ada@example.com", "Adam");
+
+        // Renaming a base row hides its old keys
+        index.personSaved(1, "Augusta", "Lovelace");
+        assertThat(values(index.suggest("ad", 10))).containsExactly("ada@example.com", "Adam");
+        assertThat(values(index.suggest("aug", 10))).containsExactly("Augusta");
+
+        // Renaming an overlay row replaces its overlay keys
+        index.personSaved(2, "Bob", "Smith");
+        assertThat(values(index.suggest("ad", 10))).containsExactly("ada@example.com");
+
+        index.contactsRemoved(List.of(10L));
+        assertThat(index.suggest("ad", 10)).isEmpty();
+        assertThat(index.suggest("2125", 10)).isEmpty();
+
+        index.personsRemoved(List.of(1L, 2L));
+        assertThat(index.suggest("aug", 10)).isEmpty();
+        assertThat(index.suggest("smith", 10)).isEmpty();
+        assertThat(index.deltaSize()).isPositive();
+    }
+
+    @Test
+    void removedPersonTakesItsContactsAlong() {
+        TypeaheadIndex index = new TypeaheadIndex(1024);
+        index.rebuild(loader -> loader.person(1, "Ada", "Lovelace"));
+        index.contactSaved(10, 1L, "ada@example.com", null);
+        index.rebuild(loader -> {
+            loader.person(1, "Ada", "Lovelace");
+            loader.contact(10, 1L, "ada@example.com", null);
+            loader.contact(11, 1L, "lovelace@example.com", "555 0100");
+        });
+
+        index.personsRemoved(List.of(1L));
+
+        assertThat(index.suggest("ada", 10)).isEmpty();
+        assertThat(index.suggest("5550", 10)).isEmpty();
+    }
+
+    @Test
+    void lookupsMergeTheBaseAndTheOverlayInKeyOrder() {
+        TypeaheadIndex index = new TypeaheadIndex(1024);
+        index.rebuild(loader -> {
+            loader.person(1, "Anna", null);
+            loader.person(3, "Anne", null);
+        });
+        index.personSaved(2, "Annabel", null);
+        index.personSaved(4, "Ann", null);
+
+        assertThat(values(index.suggest("ann", 10))).containsExactly("Ann", "Anna", "Annabel", "Anne");
+        assertThat(values(index.suggest("ann", 2))).containsExactly("Ann", "Anna");
+    }
+
+    @Test
+    void changesDuringARebuildAreReplayedOnTheNewBase() {
+        TypeaheadIndex index = new TypeaheadIndex(1024);
+        index.rebuild(loader -> loader.person(1, "Old", "Name"));
+
+        index.rebuild(loader -> {
+            // The scan read these rows before the writes below committed
+            loader.person(1, "Old", "Name");
+            loader.person(2, "Gone", "Soon");
+            index.personSaved(1, "Renamed", "Name");
+            index.personSaved(3, "Inserted", "Late");
+            index.personsRemoved(List.of(2L));
+            // Applied to the current index meanwhile
+            assertThat(values(index.suggest("ins", 10))).containsExactly("Inserted");
+        });
+
+        assertThat(index.suggest("old", 10)).isEmpty();
+        assertThat(index.suggest("gone", 10)).isEmpty();
+        assertThat(values(index.suggest("ren", 10))).containsExactly("Renamed");
+        assertThat(values(index.suggest("ins", 10))).containsExactly("Inserted");
+    }
+
+    @Test
+    void writesBeforeTheFirstBuildAreLeftToIt() {
+        TypeaheadIndex index = new TypeaheadIndex(1024);
+        index.personSaved(1, "Early", "Bird");
+        assertThat(index.suggest("early", 10)).isEmpty();
+
+        index.rebuild(loader -> loader.person(1, "Early", "Bird"));
+        assertThat(values(index.suggest("early", 10))).containsExactly("Early");
+        assertThat(index.deltaSize()).isZero();
+    }
+
+    @Test
+    void compactedIndexAnswersLikeTheDelta() {
+        TypeaheadIndex compacting = new TypeaheadIndex(8);
+        TypeaheadIndex accumulating = new TypeaheadIndex(Integer.MAX_VALUE);
+        for (TypeaheadIndex index : List.of(compacting, accumulating)) {
+            index.rebuild(loader -> {
+                for (long id = 1; id <= 50; id++) {
+                    loader.person(id, "First" + id, "Last" + id);
+                    loader.contact(id, id, "mail" + id + "@example.com", "555-01" + id);
+                }
+            });
+        }
+        Random random = new Random(42);
+        for (int change = 0; change < 500; change++) {
+            long id = 1 + random.nextInt(80);
+            int kind = random.nextInt(4);
+            for (TypeaheadIndex index : List.of(compacting, accumulating)) {
+                switch (kind) {
+                    case 0 -> index.personSaved(id, "First" + change, "Last" + id);
+                    case 1 -> index.contactSaved(id, id, "mail" + change + "@example.com", null);
+                    case 2 -> index.contactsRemoved(List.of(id));
+                    default -> index.personsRemoved(List.of(id));
+                }
+            }
+        }
+
+        assertThat(compacting.deltaSize()).isLessThanOrEqualTo(8);
+        assertThat(accumulating.deltaSize()).isGreaterThan(8);
+        for (String prefix : List.of("f", "first1", "l", "last4", "m", "mail2", "555", "55501")) {
+            assertThat(compacting.suggest(prefix, 1000)).as(prefix).isEqualTo(accumulating.suggest(prefix, 1000));
+        }
+        assertThat(compacting.memoryBytes()).isLessThan(accumulating.memoryBytes());
+    }
+
+    private static List<String> values(List<PersonSuggestionDTO> suggestions) {
+        List<String> values = new ArrayList<>();
+        suggestions.forEach(suggestion -> values.add(suggestion.getValue()));
+        return values;
+    }
+}